@@ -0,0 +1,214 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks;
+
+ import org.quartz.JobExecutionContext;
+ import org.quartz.JobExecutionException;
+ import org.quartz.JobListener;
+ import org.quartz.Trigger;
+ import org.quartz.TriggerListener;
+
+ import java.util.Arrays;
+ import java.util.concurrent.CountDownLatch;
+ import java.util.concurrent.TimeUnit;
+ import java.util.concurrent.atomic.AtomicInteger;
+ import java.util.concurrent.atomic.AtomicLong;
+
+ /**
+  * Trigger and job listener that collects the trigger-firing statistics of a benchmark run.
+  *
+  * <p>
+  * The acquire latency of a fired trigger is the time between the moment the trigger became due (or the moment
+  * the scheduler was started, if the trigger became due while the scheduler was in standby mode) and the moment
+  * the trigger was fired by the scheduler. It includes the time the trigger waited to be acquired by the scheduler
+  * thread and for a free worker thread.
+  * </p>
+  */
+ public class FireStatistics
+     implements TriggerListener, JobListener
+ {
+   private static final String NAME = "benchmarkFireStatistics";
+
+   private final long[] acquireLatencies;
+
+   private final AtomicInteger firedCount = new AtomicInteger();
+
+   private final AtomicInteger misfiredCount = new AtomicInteger();
+
+   private final AtomicInteger failedCount = new AtomicInteger();
+
+   private final AtomicLong lastFiredAt = new AtomicLong();
+
+   private final CountDownLatch completed;
+
+   private volatile long startedAt;
+
+
+   /**
+    * Creates a new {@link FireStatistics}.
+    *
+    * @param triggerCount the number of scheduled triggers.
+    */
+   public FireStatistics( int triggerCount )
+   {
+     acquireLatencies = new long[triggerCount];
+     completed = new CountDownLatch( triggerCount );
+   }
+
+
+   /**
+    * Marks the start of the measurement. Must be invoked right before the scheduler is started.
+    */
+   public void start()
+   {
+     startedAt = System.currentTimeMillis();
+   }
+
+
+   /**
+    * Waits until all scheduled triggers have fired and their jobs have been executed.
+    *
+    * @param timeout the maximum time to wait in milliseconds.
+    * @return true if all jobs have been executed, false if the timeout elapsed.
+    * @throws InterruptedException if the current thread has been interrupted while waiting.
+    */
+   public boolean awaitCompletion( long timeout )
+       throws InterruptedException
+   {
+     return completed.await( timeout, TimeUnit.MILLISECONDS );
+   }
+
+
+   /**
+    * Returns the number of fired triggers.
+    *
+    * @return the number of fired triggers.
+    */
+   public int getFiredCount()
+   {
+     return firedCount.get();
+   }
+
+
+   /**
+    * Returns the number of misfired triggers.
+    *
+    * @return the number of misfired triggers.
+    */
+   public int getMisfiredCount()
+   {
+     return misfiredCount.get();
+   }
+
+
+   /**
+    * Returns the number of job executions that threw an exception.
+    *
+    * @return the number of failed job executions.
+    */
+   public int getFailedCount()
+   {
+     return failedCount.get();
+   }
+
+
+   /**
+    * Returns the time (in milliseconds) between the start of the measurement and the last fired trigger.
+    *
+    * @return the duration of the measurement in milliseconds.
+    */
+   public long getDuration()
+   {
+     return Math.max( lastFiredAt.get() - startedAt, 1 );
+   }
+
+
+   /**
+    * Returns the specified percentile of the acquire latencies of the fired triggers in milliseconds.
+    *
+    * @param percentile the percentile in the range 0 - 100.
+    * @return the acquire latency percentile in milliseconds.
+    */
+   public long getAcquireLatency( double percentile )
+   {
+     int count = Math.min( firedCount.get(), acquireLatencies.length );
+     if ( count == 0 )
+       return 0;
+
+     long[] sorted = Arrays.copyOf( acquireLatencies, count );
+     Arrays.sort( sorted );
+
+     int index = (int) Math.ceil( percentile / 100 * count ) - 1;
+     return sorted[Math.max( 0, Math.min( index, count - 1 ) )];
+   }
+
+
+   @Override
+   public String getName()
+   {
+     return NAME;
+   }
+
+
+   @Override
+   public void triggerFired( Trigger trigger, JobExecutionContext context )
+   {
+     long firedAt = context.getFireTime().getTime();
+     long dueAt = Math.max( context.getScheduledFireTime().getTime(), startedAt );
+
+     int index = firedCount.getAndIncrement();
+     if ( index < acquireLatencies.length )
+     {
+       acquireLatencies[index] = Math.max( firedAt - dueAt, 0 );
+     }
+
+     lastFiredAt.accumulateAndGet( firedAt, Math::max );
+   }
+
+
+   @Override
+   public boolean vetoJobExecution( Trigger trigger, JobExecutionContext context )
+   {
+     return false;
+   }
+
+
+   @Override
+   public void triggerMisfired( Trigger trigger )
+   {
+     misfiredCount.incrementAndGet();
+   }
+
+
+   @Override
+   public void triggerComplete( Trigger trigger, JobExecutionContext context,
+       Trigger.CompletedExecutionInstruction triggerInstructionCode )
+   {
+     completed.countDown();
+   }
+
+
+   @Override
+   public void jobToBeExecuted( JobExecutionContext context )
+   {
+   }
+
+
+   @Override
+   public void jobExecutionVetoed( JobExecutionContext context )
+   {
+   }
+
+
+   @Override
+   public void jobWasExecuted( JobExecutionContext context, JobExecutionException jobException )
+   {
+     if ( jobException != null )
+     {
+       failedCount.incrementAndGet();
+     }
+   }
+ }
@@ -0,0 +1,26 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks;
+
+ import com.quartzdesk.executor.core.job.AbstractJob;
+
+ import org.quartz.DisallowConcurrentExecution;
+ import org.quartz.JobExecutionContext;
+
+ /**
+  * Job that does nothing. Like the QuartzDesk Executor jobs, the job expands the job data map macros and
+  * it disallows concurrent executions, so that the benchmarks measure the scheduler overhead of a real job.
+  */
+ @DisallowConcurrentExecution
+ public class NoOpJob
+     extends AbstractJob
+ {
+   @Override
+   protected void executeJob( JobExecutionContext context )
+   {
+     // no-op
+   }
+ }
@@ -0,0 +1,133 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks;
+
+ import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+ import javax.sql.DataSource;
+ import java.lang.reflect.InvocationTargetException;
+ import java.lang.reflect.Method;
+ import java.lang.reflect.Proxy;
+ import java.sql.Connection;
+ import java.sql.SQLException;
+ import java.sql.Statement;
+ import java.util.concurrent.atomic.AtomicLong;
+
+ /**
+  * Data source that counts the database round-trips performed through the connections obtained from the
+  * target data source. Every statement execution (including batch executions) and every commit and rollback
+  * is counted as one round-trip.
+  */
+ public class RoundTripCountingDataSource
+     extends DelegatingDataSource
+ {
+   private static final String METHOD_PREFIX_EXECUTE = "execute";
+
+   private static final String METHOD_COMMIT = "commit";
+
+   private static final String METHOD_ROLLBACK = "rollback";
+
+   private final AtomicLong roundTripCount = new AtomicLong();
+
+
+   /**
+    * Creates a new {@link RoundTripCountingDataSource}.
+    *
+    * @param targetDataSource the target data source.
+    */
+   public RoundTripCountingDataSource( DataSource targetDataSource )
+   {
+     super( targetDataSource );
+   }
+
+
+   @Override
+   public Connection getConnection()
+       throws SQLException
+   {
+     return countingConnection( obtainTargetDataSource().getConnection() );
+   }
+
+
+   @Override
+   public Connection getConnection( String username, String password )
+       throws SQLException
+   {
+     return countingConnection( obtainTargetDataSource().getConnection( username, password ) );
+   }
+
+
+   /**
+    * Returns the number of database round-trips performed since the creation of this data source, or since the
+    * last invocation of {@link #resetRoundTripCount()}.
+    *
+    * @return the number of round-trips.
+    */
+   public long getRoundTripCount()
+   {
+     return roundTripCount.get();
+   }
+
+
+   /**
+    * Resets the round-trip counter.
+    */
+   public void resetRoundTripCount()
+   {
+     roundTripCount.set( 0 );
+   }
+
+
+   private Connection countingConnection( final Connection con )
+   {
+     return (Connection) Proxy.newProxyInstance( Connection.class.getClassLoader(), new Class<?>[] { Connection.class },
+         ( proxy, method, args ) -> {
+           String methodName = method.getName();
+           if ( METHOD_COMMIT.equals( methodName ) || METHOD_ROLLBACK.equals( methodName ) )
+           {
+             roundTripCount.incrementAndGet();
+           }
+
+           Object result = invoke( con, method, args );
+
+           // statements, prepared statements and callable statements
+           if ( result instanceof Statement && method.getReturnType().isInterface() )
+           {
+             result = countingStatement( (Statement) result, method.getReturnType() );
+           }
+
+           return result;
+         } );
+   }
+
+
+   private Object countingStatement( final Statement stat, Class<?> statementInterface )
+   {
+     return Proxy.newProxyInstance( Connection.class.getClassLoader(), new Class<?>[] { statementInterface },
+         ( proxy, method, args ) -> {
+           if ( method.getName().startsWith( METHOD_PREFIX_EXECUTE ) )
+           {
+             roundTripCount.incrementAndGet();
+           }
+
+           return invoke( stat, method, args );
+         } );
+   }
+
+
+   private static Object invoke( Object target, Method method, Object[] args )
+       throws Throwable
+   {
+     try
+     {
+       return method.invoke( target, args );
+     }
+     catch ( InvocationTargetException e )
+     {
+       throw e.getCause();
+     }
+   }
+ }
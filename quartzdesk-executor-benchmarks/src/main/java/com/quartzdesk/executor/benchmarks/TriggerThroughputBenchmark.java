@@ -0,0 +1,363 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks;
+
+ import com.quartzdesk.executor.core.job.LocalCommandExecutorJob;
+ import com.quartzdesk.executor.core.job.UrlInvokerJob;
+
+ import com.sun.net.httpserver.HttpServer;
+ import org.quartz.Job;
+ import org.quartz.JobBuilder;
+ import org.quartz.JobDataMap;
+ import org.quartz.JobDetail;
+ import org.quartz.Scheduler;
+ import org.quartz.SchedulerException;
+ import org.quartz.Trigger;
+ import org.quartz.TriggerBuilder;
+ import org.slf4j.Logger;
+ import org.slf4j.LoggerFactory;
+ import org.springframework.context.support.GenericXmlApplicationContext;
+ import org.springframework.core.env.ConfigurableEnvironment;
+ import org.springframework.core.env.MapPropertySource;
+ import org.springframework.util.FileSystemUtils;
+
+ import java.io.File;
+ import java.io.IOException;
+ import java.net.InetAddress;
+ import java.net.InetSocketAddress;
+ import java.nio.file.Files;
+ import java.util.ArrayList;
+ import java.util.Collections;
+ import java.util.Date;
+ import java.util.HashMap;
+ import java.util.LinkedHashMap;
+ import java.util.List;
+ import java.util.Map;
+ import java.util.Set;
+ import java.util.concurrent.Executors;
+
+ /**
+  * Trigger-firing throughput benchmark of the QuartzDesk Executor scheduler. The benchmark boots the QuartzDesk
+  * Executor core application context with the {@code h2} Spring profile on an embedded H2 database initialized
+  * by the bundled {@code init/h2} scripts, schedules the specified number of one-shot triggers and measures:
+  * <ul>
+  * <li>the number of fired triggers per second,</li>
+  * <li>the acquire latency of the fired triggers (see {@link FireStatistics}),</li>
+  * <li>the number of misfired triggers,</li>
+  * <li>the number of database round-trips per fired trigger.</li>
+  * </ul>
+  *
+  * The benchmark is configured by the following JVM system properties:
+  * <ul>
+  * <li>{@code benchmark.triggers} - the number of scheduled triggers (jobs), default 5000.</li>
+  * <li>{@code benchmark.job} - the type of the scheduled jobs: {@code noop} (default), {@code url}
+  * ({@link UrlInvokerJob} invoking an embedded HTTP server), or {@code command} ({@link LocalCommandExecutorJob}
+  * executing a command that exits immediately).</li>
+  * <li>{@code benchmark.rate} - the number of triggers per second the triggers become due at, 0 (default) makes
+  * all triggers due at once.</li>
+  * <li>{@code benchmark.profiles} - comma-separated list of the compared scheduler profiles (the {@code
+  * scheduler.profile} configuration property), default {@code default,high-throughput}.</li>
+  * <li>{@code benchmark.timeout} - the maximum duration of a benchmark run in seconds, default 600.</li>
+  * </ul>
+  *
+  * Every scheduler profile is measured in a fresh application context with an empty database. The scheduler is
+  * kept in the standby mode while the triggers are being scheduled.
+  */
+ public class TriggerThroughputBenchmark
+ {
+   private static final Logger log = LoggerFactory.getLogger( TriggerThroughputBenchmark.class );
+
+   private static final String CONTEXT_LOCATION = "classpath:META-INF/spring/applicationContext-benchmarks.xml";
+
+   private static final String SPRING_PROFILE_H2 = "h2";
+
+   private static final String JOB_GROUP = "benchmark";
+
+   /**
+    * Maximum number of connections in the H2 connection pool. Must exceed the thread count of all compared
+    * scheduler profiles.
+    */
+   private static final int MAX_CONNECTIONS = 50;
+
+   private final int triggerCount;
+
+   private final BenchmarkJob job;
+
+   private final String url;
+
+   private final int rate;
+
+   private final long timeout;
+
+
+   /**
+    * Creates a new {@link TriggerThroughputBenchmark}.
+    *
+    * @param triggerCount the number of scheduled triggers.
+    * @param job          the type of the scheduled jobs.
+    * @param url          the URL invoked by the {@link UrlInvokerJob} jobs, null for other job types.
+    * @param rate         the number of triggers per second the triggers become due at, 0 for all at once.
+    * @param timeout      the maximum duration of a benchmark run in milliseconds.
+    */
+   public TriggerThroughputBenchmark( int triggerCount, BenchmarkJob job, String url, int rate, long timeout )
+   {
+     this.triggerCount = triggerCount;
+     this.job = job;
+     this.url = url;
+     this.rate = rate;
+     this.timeout = timeout;
+   }
+
+
+   public static void main( String[] args )
+       throws Exception
+   {
+     int triggerCount = Integer.getInteger( "benchmark.triggers", 5000 );
+     BenchmarkJob job = BenchmarkJob.valueOf( System.getProperty( "benchmark.job", "noop" ).trim().toUpperCase() );
+     int rate = Integer.getInteger( "benchmark.rate", 0 );
+     long timeout = Long.getLong( "benchmark.timeout", 600L ) * 1000L;
+     String[] profiles = System.getProperty( "benchmark.profiles", "default,high-throughput" ).split( "," );
+
+     HttpServer httpServer = null;
+     String url = null;
+     if ( job == BenchmarkJob.URL )
+     {
+       httpServer = startHttpServer();
+       url = "http://127.0.0.1:" + httpServer.getAddress().getPort() + "/";
+     }
+
+     try
+     {
+       TriggerThroughputBenchmark benchmark = new TriggerThroughputBenchmark( triggerCount, job, url, rate, timeout );
+
+       List<Result> results = new ArrayList<>();
+       for ( String profile : profiles )
+       {
+         results.add( benchmark.run( profile.trim() ) );
+       }
+
+       printResults( triggerCount, job, rate, results );
+     }
+     finally
+     {
+       if ( httpServer != null )
+         httpServer.stop( 0 );
+     }
+   }
+
+
+   /**
+    * Runs the benchmark with the specified scheduler profile.
+    *
+    * @param profile the scheduler profile.
+    * @return the benchmark result.
+    * @throws Exception if an error occurs.
+    */
+   private Result run( String profile )
+       throws Exception
+   {
+     File workDir = Files.createTempDirectory( "quartzdesk-executor-benchmark-" ).toFile();
+
+     Map<String, Object> properties = new HashMap<>();
+     properties.put( "quartzdesk-executor.work.dir", workDir.getAbsolutePath() );
+     properties.put( "scheduler.profile", profile );
+     properties.put( "benchmark.jdbcUrl", "jdbc:h2:file:" + new File( workDir, "db/quartzdesk-executor" ) );
+     properties.put( "benchmark.maxConnections", MAX_CONNECTIONS );
+
+     log.info( "Running benchmark: profile={}, job={}, triggers={}, rate={}", profile, job, triggerCount, rate );
+
+     try ( GenericXmlApplicationContext ctx = new GenericXmlApplicationContext() )
+     {
+       ConfigurableEnvironment env = ctx.getEnvironment();
+       env.setActiveProfiles( SPRING_PROFILE_H2 );
+       env.getPropertySources().addFirst( new MapPropertySource( "benchmark", properties ) );
+
+       ctx.load( CONTEXT_LOCATION );
+       ctx.refresh();
+
+       Scheduler scheduler = ctx.getBean( "scheduler", Scheduler.class );
+       RoundTripCountingDataSource dataSource = ctx.getBean( "dataSource", RoundTripCountingDataSource.class );
+
+       // the scheduler is started by the application context
+       scheduler.standby();
+
+       FireStatistics statistics = new FireStatistics( triggerCount );
+       scheduler.getListenerManager().addTriggerListener( statistics );
+       scheduler.getListenerManager().addJobListener( statistics );
+
+       long schedulingStart = System.currentTimeMillis();
+       scheduleTriggers( scheduler );
+       log.info( "Scheduled {} triggers in {} ms.", triggerCount, System.currentTimeMillis() - schedulingStart );
+
+       dataSource.resetRoundTripCount();
+       statistics.start();
+       scheduler.start();
+
+       if ( !statistics.awaitCompletion( timeout ) )
+       {
+         log.warn( "Benchmark timed out after {} ms, {} of {} triggers fired.", timeout,
+             statistics.getFiredCount(), triggerCount );
+       }
+
+       long roundTripCount = dataSource.getRoundTripCount();
+       int threadCount = scheduler.getMetaData().getThreadPoolSize();
+
+       return new Result( profile, threadCount, statistics, roundTripCount );
+     }
+     finally
+     {
+       FileSystemUtils.deleteRecursively( workDir );
+     }
+   }
+
+
+   private void scheduleTriggers( Scheduler scheduler )
+       throws SchedulerException
+   {
+     long dueAt = System.currentTimeMillis();
+     double interval = rate > 0 ? 1000.0 / rate : 0;
+
+     Map<JobDetail, Set<? extends Trigger>> triggersAndJobs = new LinkedHashMap<>();
+     for ( int i = 0; i < triggerCount; i++ )
+     {
+       JobDetail jobDetail = JobBuilder.newJob( job.getJobClass() )
+           .withIdentity( "job-" + i, JOB_GROUP )
+           .usingJobData( job.getJobDataMap( url ) )
+           .build();
+
+       Trigger trigger = TriggerBuilder.newTrigger()
+           .withIdentity( "trigger-" + i, JOB_GROUP )
+           .startAt( new Date( dueAt + (long) ( i * interval ) ) )
+           .build();
+
+       triggersAndJobs.put( jobDetail, Collections.singleton( trigger ) );
+     }
+
+     scheduler.scheduleJobs( triggersAndJobs, true );
+   }
+
+
+   private static HttpServer startHttpServer()
+       throws IOException
+   {
+     HttpServer httpServer = HttpServer.create( new InetSocketAddress( InetAddress.getLoopbackAddress(), 0 ), 0 );
+     httpServer.createContext( "/", exchange -> {
+       exchange.sendResponseHeaders( 204, -1 );
+       exchange.close();
+     } );
+     httpServer.setExecutor( Executors.newCachedThreadPool() );
+     httpServer.start();
+     return httpServer;
+   }
+
+
+   private static void printResults( int triggerCount, BenchmarkJob job, int rate, List<Result> results )
+   {
+     System.out.printf( "%nTrigger-firing throughput: triggers=%d, job=%s, rate=%s%n%n", triggerCount,
+         job.name().toLowerCase(), rate > 0 ? rate + "/s" : "burst" );
+     System.out.printf( "%-16s %8s %8s %10s %8s %8s %8s %9s %8s %12s%n", "profile", "threads", "fired", "fires/s",
+         "p50[ms]", "p99[ms]", "max[ms]", "misfired", "failed", "trips/fire" );
+
+     for ( Result result : results )
+     {
+       FireStatistics statistics = result.statistics;
+       int firedCount = statistics.getFiredCount();
+
+       System.out.printf( "%-16s %8d %8d %10.1f %8d %8d %8d %9d %8d %12.2f%n", result.profile, result.threadCount,
+           firedCount,
+           firedCount * 1000.0 / statistics.getDuration(),
+           statistics.getAcquireLatency( 50 ),
+           statistics.getAcquireLatency( 99 ),
+           statistics.getAcquireLatency( 100 ),
+           statistics.getMisfiredCount(),
+           statistics.getFailedCount(),
+           firedCount == 0 ? 0.0 : (double) result.roundTripCount / firedCount );
+     }
+   }
+
+
+   /**
+    * Types of the scheduled jobs.
+    */
+   public enum BenchmarkJob
+   {
+     NOOP( NoOpJob.class ),
+     URL( UrlInvokerJob.class ),
+     COMMAND( LocalCommandExecutorJob.class );
+
+     private final Class<? extends Job> jobClass;
+
+
+     BenchmarkJob( Class<? extends Job> jobClass )
+     {
+       this.jobClass = jobClass;
+     }
+
+
+     public Class<? extends Job> getJobClass()
+     {
+       return jobClass;
+     }
+
+
+     /**
+      * Returns the job data map of the scheduled jobs.
+      *
+      * @param url the URL invoked by the {@link UrlInvokerJob}.
+      * @return the job data map.
+      */
+     public JobDataMap getJobDataMap( String url )
+     {
+       JobDataMap jobDataMap = new JobDataMap();
+       switch ( this )
+       {
+         case URL:
+           jobDataMap.put( "url", url );
+           break;
+
+         case COMMAND:
+           if ( File.separatorChar == '\\' )
+           {
+             jobDataMap.put( "command", "cmd" );
+             jobDataMap.put( "commandArgs", "/c exit 0" );
+           }
+           else
+           {
+             jobDataMap.put( "command", "true" );
+           }
+           break;
+
+         default:
+           break;
+       }
+       return jobDataMap;
+     }
+   }
+
+
+   /**
+    * Result of a benchmark run.
+    */
+   private static final class Result
+   {
+     private final String profile;
+
+     private final int threadCount;
+
+     private final FireStatistics statistics;
+
+     private final long roundTripCount;
+
+
+     private Result( String profile, int threadCount, FireStatistics statistics, long roundTripCount )
+     {
+       this.profile = profile;
+       this.threadCount = threadCount;
+       this.statistics = statistics;
+       this.roundTripCount = roundTripCount;
+     }
+   }
+ }
@@ -0,0 +1,55 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks.jmh;
+
+ import com.quartzdesk.executor.common.text.CommandLineTokenizer;
+
+ import org.openjdk.jmh.annotations.Benchmark;
+ import org.openjdk.jmh.annotations.BenchmarkMode;
+ import org.openjdk.jmh.annotations.Fork;
+ import org.openjdk.jmh.annotations.Measurement;
+ import org.openjdk.jmh.annotations.Mode;
+ import org.openjdk.jmh.annotations.OutputTimeUnit;
+ import org.openjdk.jmh.annotations.Scope;
+ import org.openjdk.jmh.annotations.State;
+ import org.openjdk.jmh.annotations.Warmup;
+
+ import java.util.List;
+ import java.util.concurrent.TimeUnit;
+
+ /**
+  * Benchmarks of the {@link CommandLineTokenizer} used to build the command lines of the local and remote
+  * command executor jobs. Compares parsing of the command arguments with the cached command line lookup.
+  */
+ @BenchmarkMode( Mode.AverageTime )
+ @OutputTimeUnit( TimeUnit.NANOSECONDS )
+ @Warmup( iterations = 3, time = 1 )
+ @Measurement( iterations = 5, time = 1 )
+ @Fork( 1 )
+ @State( Scope.Benchmark )
+ public class CommandLineTokenizerBenchmark
+ {
+   private static final String COMMAND = "/opt/scripts/backup.sh";
+
+   private static final String COMMAND_ARGS =
+       "--source /var/lib/data --target \"/mnt/backup/daily copy\" --exclude '*.tmp' --compress --verbose";
+
+   private final CommandLineTokenizer tokenizer = new CommandLineTokenizer();
+
+
+   @Benchmark
+   public List<String> tokenize()
+   {
+     return tokenizer.tokenize( COMMAND_ARGS );
+   }
+
+
+   @Benchmark
+   public List<String> getCommandLine()
+   {
+     return tokenizer.getCommandLine( COMMAND, COMMAND_ARGS );
+   }
+ }
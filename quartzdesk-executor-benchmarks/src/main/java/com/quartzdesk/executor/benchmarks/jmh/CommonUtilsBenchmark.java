@@ -0,0 +1,74 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks.jmh;
+
+ import com.quartzdesk.executor.core.CommonUtils;
+
+ import org.openjdk.jmh.annotations.Benchmark;
+ import org.openjdk.jmh.annotations.BenchmarkMode;
+ import org.openjdk.jmh.annotations.Fork;
+ import org.openjdk.jmh.annotations.Measurement;
+ import org.openjdk.jmh.annotations.Mode;
+ import org.openjdk.jmh.annotations.OutputTimeUnit;
+ import org.openjdk.jmh.annotations.Param;
+ import org.openjdk.jmh.annotations.Scope;
+ import org.openjdk.jmh.annotations.Setup;
+ import org.openjdk.jmh.annotations.State;
+ import org.openjdk.jmh.annotations.Warmup;
+
+ import java.sql.SQLException;
+ import java.util.concurrent.TimeUnit;
+
+ /**
+  * Benchmarks of the {@link CommonUtils#getStackTrace(Throwable)} method used to render the errors of failed
+  * job executions.
+  */
+ @BenchmarkMode( Mode.AverageTime )
+ @OutputTimeUnit( TimeUnit.MICROSECONDS )
+ @Warmup( iterations = 3, time = 1 )
+ @Measurement( iterations = 5, time = 1 )
+ @Fork( 1 )
+ @State( Scope.Benchmark )
+ public class CommonUtilsBenchmark
+ {
+   /**
+    * Number of stack frames of the rendered exception.
+    */
+   @Param( { "20", "100" } )
+   private int depth;
+
+   private Throwable throwable;
+
+
+   @Setup
+   public void setUp()
+   {
+     throwable = createThrowable( depth );
+   }
+
+
+   @Benchmark
+   public String getStackTrace()
+   {
+     return CommonUtils.getStackTrace( throwable );
+   }
+
+
+   /**
+    * Returns an exception with a cause, both thrown at the specified stack depth.
+    *
+    * @param depth the stack depth.
+    * @return the exception.
+    */
+   private static Throwable createThrowable( int depth )
+   {
+     if ( depth > 0 )
+       return createThrowable( depth - 1 );
+
+     return new IllegalStateException( "Error executing job.",
+         new SQLException( "Connection refused.", "08001", 17002 ) );
+   }
+ }
@@ -0,0 +1,116 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks.jmh;
+
+ import com.quartzdesk.executor.common.DateTimeUtils;
+
+ import org.openjdk.jmh.annotations.Benchmark;
+ import org.openjdk.jmh.annotations.BenchmarkMode;
+ import org.openjdk.jmh.annotations.Fork;
+ import org.openjdk.jmh.annotations.Measurement;
+ import org.openjdk.jmh.annotations.Mode;
+ import org.openjdk.jmh.annotations.OutputTimeUnit;
+ import org.openjdk.jmh.annotations.Scope;
+ import org.openjdk.jmh.annotations.Setup;
+ import org.openjdk.jmh.annotations.State;
+ import org.openjdk.jmh.annotations.Warmup;
+
+ import java.text.ParseException;
+ import java.util.Date;
+ import java.util.Locale;
+ import java.util.concurrent.TimeUnit;
+
+ /**
+  * Benchmarks of the {@link DateTimeUtils} format and parse methods.
+  */
+ @BenchmarkMode( Mode.AverageTime )
+ @OutputTimeUnit( TimeUnit.NANOSECONDS )
+ @Warmup( iterations = 3, time = 1 )
+ @Measurement( iterations = 5, time = 1 )
+ @Fork( 1 )
+ @State( Scope.Benchmark )
+ public class DateTimeUtilsBenchmark
+ {
+   private long millis;
+
+   private Date date;
+
+   private String iso8601Timestamp;
+
+   private String rfc1123Timestamp;
+
+   private String dashedDate;
+
+
+   @Setup
+   public void setUp()
+   {
+     millis = System.currentTimeMillis();
+     date = new Date( millis );
+     iso8601Timestamp = DateTimeUtils.formatTimestampIso8601( millis );
+     rfc1123Timestamp = DateTimeUtils.formatTimestampRfc1123( millis, Locale.US );
+     dashedDate = DateTimeUtils.formatDashedDateYYYYMMDD( date );
+   }
+
+
+   @Benchmark
+   public String formatTimestamp()
+   {
+     return DateTimeUtils.formatTimestamp( millis );
+   }
+
+
+   @Benchmark
+   public String formatTimestampIso8601()
+   {
+     return DateTimeUtils.formatTimestampIso8601( millis );
+   }
+
+
+   @Benchmark
+   public Date parseTimestampIso8601()
+       throws ParseException
+   {
+     return DateTimeUtils.parseTimestampIso8601( iso8601Timestamp );
+   }
+
+
+   @Benchmark
+   public String formatTimestampRfc1123()
+   {
+     return DateTimeUtils.formatTimestampRfc1123( millis, Locale.US );
+   }
+
+
+   @Benchmark
+   public Date parseTimestampRfc1123()
+       throws ParseException
+   {
+     return DateTimeUtils.parseTimestampRfc1123( rfc1123Timestamp, Locale.US );
+   }
+
+
+   @Benchmark
+   public String formatDashedDateYYYYMMDD()
+   {
+     return DateTimeUtils.formatDashedDateYYYYMMDD( date );
+   }
+
+
+   @Benchmark
+   public Date parseDashedDateYYYYMMDD()
+       throws ParseException
+   {
+     return DateTimeUtils.parseDashedDateYYYYMMDD( dashedDate );
+   }
+
+
+   @Benchmark
+   public String formatDuration()
+   {
+     return DateTimeUtils.formatDuration( millis % 100_000_000L );
+   }
+ }
@@ -0,0 +1,119 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks.jmh;
+
+ import com.quartzdesk.executor.common.db.DbUtils;
+ import com.quartzdesk.executor.common.type.TimestampWithTZ;
+
+ import org.openjdk.jmh.annotations.Benchmark;
+ import org.openjdk.jmh.annotations.BenchmarkMode;
+ import org.openjdk.jmh.annotations.Fork;
+ import org.openjdk.jmh.annotations.Measurement;
+ import org.openjdk.jmh.annotations.Mode;
+ import org.openjdk.jmh.annotations.OutputTimeUnit;
+ import org.openjdk.jmh.annotations.Scope;
+ import org.openjdk.jmh.annotations.Setup;
+ import org.openjdk.jmh.annotations.State;
+ import org.openjdk.jmh.annotations.Warmup;
+ import org.openjdk.jmh.infra.Blackhole;
+
+ import java.lang.reflect.Proxy;
+ import java.math.BigDecimal;
+ import java.sql.PreparedStatement;
+ import java.sql.SQLException;
+ import java.sql.Timestamp;
+ import java.time.Instant;
+ import java.time.LocalDate;
+ import java.time.OffsetDateTime;
+ import java.time.ZoneOffset;
+ import java.util.Date;
+ import java.util.TimeZone;
+ import java.util.concurrent.TimeUnit;
+
+ /**
+  * Benchmarks of the {@link DbUtils#setStatementParams(PreparedStatement, Object...)} method. The parameters are
+  * bound to a prepared statement that passes the bound values to a {@link Blackhole}, so that the benchmarks
+  * measure the parameter type dispatch and conversions rather than the JDBC driver.
+  */
+ @BenchmarkMode( Mode.AverageTime )
+ @OutputTimeUnit( TimeUnit.NANOSECONDS )
+ @Warmup( iterations = 3, time = 1 )
+ @Measurement( iterations = 5, time = 1 )
+ @Fork( 1 )
+ @State( Scope.Benchmark )
+ public class DbUtilsBenchmark
+ {
+   private PreparedStatement pstat;
+
+   private Object[] stringParams;
+
+   private Object[] mixedParams;
+
+   private Object[] mixedTemporalParams;
+
+
+   @Setup
+   public void setUp( final Blackhole blackhole )
+   {
+     pstat = (PreparedStatement) Proxy.newProxyInstance( PreparedStatement.class.getClassLoader(),
+         new Class<?>[] { PreparedStatement.class }, ( proxy, method, args ) -> {
+           blackhole.consume( args );
+           return null;
+         } );
+
+     stringParams = new Object[] { "DEFAULT", "backup", "backupTrigger", "DEFAULT" };
+
+     long now = System.currentTimeMillis();
+     mixedParams = new Object[] {
+         "backup",
+         now,
+         42,
+         new BigDecimal( "1234.56" ),
+         3.14d,
+         new Date( now ),
+         new TimestampWithTZ( now, TimeZone.getTimeZone( "UTC" ) ),
+         Boolean.TRUE
+     };
+
+     // java.time types, subclasses of the supported types and the same time zone in different instances
+     Instant instant = Instant.ofEpochMilli( now );
+     mixedTemporalParams = new Object[] {
+         "backup",
+         instant,
+         LocalDate.of( 2025, 1, 31 ),
+         OffsetDateTime.ofInstant( instant, ZoneOffset.UTC ),
+         new Timestamp( now ),
+         new java.sql.Date( now ),
+         new TimestampWithTZ( now, TimeZone.getTimeZone( "Europe/Prague" ) ),
+         new TimestampWithTZ( now, TimeZone.getTimeZone( "Europe/Prague" ) ),
+         now
+     };
+   }
+
+
+   @Benchmark
+   public void setStringParams()
+       throws SQLException
+   {
+     DbUtils.setStatementParams( pstat, stringParams );
+   }
+
+
+   @Benchmark
+   public void setMixedParams()
+       throws SQLException
+   {
+     DbUtils.setStatementParams( pstat, mixedParams );
+   }
+
+
+   @Benchmark
+   public void setMixedTemporalParams()
+       throws SQLException
+   {
+     DbUtils.setStatementParams( pstat, mixedTemporalParams );
+   }
+ }
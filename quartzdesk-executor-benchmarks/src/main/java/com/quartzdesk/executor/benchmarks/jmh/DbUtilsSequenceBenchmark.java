@@ -0,0 +1,81 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks.jmh;
+
+ import com.quartzdesk.executor.common.db.DbUtils;
+
+ import org.openjdk.jmh.annotations.Benchmark;
+ import org.openjdk.jmh.annotations.BenchmarkMode;
+ import org.openjdk.jmh.annotations.Fork;
+ import org.openjdk.jmh.annotations.Measurement;
+ import org.openjdk.jmh.annotations.Mode;
+ import org.openjdk.jmh.annotations.OutputTimeUnit;
+ import org.openjdk.jmh.annotations.Param;
+ import org.openjdk.jmh.annotations.Scope;
+ import org.openjdk.jmh.annotations.Setup;
+ import org.openjdk.jmh.annotations.State;
+ import org.openjdk.jmh.annotations.TearDown;
+ import org.openjdk.jmh.annotations.Warmup;
+
+ import java.sql.Connection;
+ import java.sql.DriverManager;
+ import java.sql.SQLException;
+ import java.sql.Statement;
+ import java.util.concurrent.TimeUnit;
+
+ /**
+  * Benchmarks of the {@link DbUtils#nextSequenceValue(Connection, String, int)} method allocating identifiers from
+  * a sequence in an in-memory H2 database. With the block size of 1, every identifier requires a sequence
+  * round-trip.
+  */
+ @BenchmarkMode( Mode.AverageTime )
+ @OutputTimeUnit( TimeUnit.NANOSECONDS )
+ @Warmup( iterations = 3, time = 1 )
+ @Measurement( iterations = 5, time = 1 )
+ @Fork( 1 )
+ @State( Scope.Benchmark )
+ public class DbUtilsSequenceBenchmark
+ {
+   private static final String SEQUENCE_NAME = "seq_qd_schema_update";
+
+   @Param( { "1", "50" } )
+   private int blockSize;
+
+   private Connection connection;
+
+
+   @Setup
+   public void setUp()
+       throws SQLException
+   {
+     connection = DriverManager.getConnection( "jdbc:h2:mem:seq-" + blockSize + ";DB_CLOSE_DELAY=-1", "sa", "" );
+
+     try ( Statement stat = connection.createStatement() )
+     {
+       stat.execute( "CREATE SEQUENCE " + SEQUENCE_NAME + " START WITH 1 INCREMENT BY 1" );
+     }
+   }
+
+
+   @TearDown
+   public void tearDown()
+       throws SQLException
+   {
+     try ( Statement stat = connection.createStatement() )
+     {
+       stat.execute( "SHUTDOWN" );
+     }
+     DbUtils.close( connection );
+   }
+
+
+   @Benchmark
+   public long nextSequenceValue()
+       throws SQLException
+   {
+     return DbUtils.nextSequenceValue( connection, SEQUENCE_NAME, blockSize );
+   }
+ }
@@ -0,0 +1,148 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks.jmh;
+
+ import com.quartzdesk.executor.common.db.DatabaseScriptExecutor;
+ import com.quartzdesk.executor.domain.model.db.SchemaUpdate;
+
+ import org.h2.jdbcx.JdbcConnectionPool;
+ import org.hibernate.Session;
+ import org.hibernate.SessionFactory;
+ import org.hibernate.Transaction;
+ import org.openjdk.jmh.annotations.Benchmark;
+ import org.openjdk.jmh.annotations.BenchmarkMode;
+ import org.openjdk.jmh.annotations.Fork;
+ import org.openjdk.jmh.annotations.Measurement;
+ import org.openjdk.jmh.annotations.Mode;
+ import org.openjdk.jmh.annotations.OutputTimeUnit;
+ import org.openjdk.jmh.annotations.Param;
+ import org.openjdk.jmh.annotations.Scope;
+ import org.openjdk.jmh.annotations.Setup;
+ import org.openjdk.jmh.annotations.State;
+ import org.openjdk.jmh.annotations.TearDown;
+ import org.openjdk.jmh.annotations.Warmup;
+ import org.springframework.core.io.ClassPathResource;
+ import org.springframework.core.io.support.PropertiesLoaderUtils;
+ import org.springframework.orm.hibernate5.LocalSessionFactoryBuilder;
+
+ import java.io.IOException;
+ import java.sql.Connection;
+ import java.sql.SQLException;
+ import java.util.Calendar;
+ import java.util.Properties;
+ import java.util.concurrent.TimeUnit;
+
+ /**
+  * Benchmarks of the per-statement overhead of the Hibernate properties of the development and production DAO
+  * profiles ({@code META-INF/spring/profile/dao-<profile>.properties}). The {@link SchemaUpdate} entity is inserted
+  * and loaded through a session factory configured like the QuartzDesk Executor session factory, backed by
+  * an in-memory H2 database.
+  */
+ @BenchmarkMode( Mode.AverageTime )
+ @OutputTimeUnit( TimeUnit.MICROSECONDS )
+ @Warmup( iterations = 3, time = 1 )
+ @Measurement( iterations = 5, time = 1 )
+ @Fork( 1 )
+ @State( Scope.Benchmark )
+ public class HibernateDaoProfileBenchmark
+ {
+   private static final String[] PROFILE_PROPERTIES = {
+       "hibernate.format_sql",
+       "hibernate.use_sql_comments",
+       "hibernate.generate_statistics",
+       "hibernate.order_inserts",
+       "hibernate.order_updates",
+       "hibernate.jdbc.batch_versioned_data"
+   };
+
+   private static final String INIT_SCRIPT = "META-INF/db/quartzdesk-executor/init/h2/01-init.sql";
+
+   @Param( { "development", "production" } )
+   private String profile;
+
+   private JdbcConnectionPool dataSource;
+
+   private SessionFactory sessionFactory;
+
+   private Long schemaUpdateId;
+
+
+   @Setup
+   public void setUp()
+       throws IOException, SQLException
+   {
+     Properties profileProperties = PropertiesLoaderUtils.loadProperties(
+         new ClassPathResource( "META-INF/spring/profile/dao-" + profile + ".properties" ) );
+
+     dataSource = JdbcConnectionPool.create( "jdbc:h2:mem:dao-" + profile + ";DB_CLOSE_DELAY=-1", "sa", "" );
+
+     try ( Connection connection = dataSource.getConnection() )
+     {
+       DatabaseScriptExecutor scriptExecutor = new DatabaseScriptExecutor();
+       scriptExecutor.addScriptUrl( new ClassPathResource( INIT_SCRIPT ).getURL() );
+       scriptExecutor.executeScripts( connection );
+     }
+
+     LocalSessionFactoryBuilder builder = new LocalSessionFactoryBuilder( dataSource );
+     builder.addResource( "META-INF/hibernate/UserTypeDefs.hbm.xml" );
+     builder.addResource( "META-INF/hibernate/db/SchemaUpdate.hbm.xml" );
+
+     // same settings as the sessionFactory bean in applicationContext-dao.xml
+     builder.setProperty( "hibernate.dialect", "org.hibernate.dialect.H2Dialect" );
+     builder.setProperty( "hibernate.show_sql", "false" );
+     builder.setProperty( "hibernate.transform_hbm_xml.enabled", "true" );
+     builder.setProperty( "hibernate.jdbc.batch_size", "100" );
+     builder.setProperty( "hibernate.cache.use_second_level_cache", "false" );
+     builder.setProperty( "hibernate.cache.use_query_cache", "false" );
+
+     for ( String property : PROFILE_PROPERTIES )
+     {
+       builder.setProperty( property, profileProperties.getProperty( property ).trim() );
+     }
+
+     sessionFactory = builder.buildSessionFactory();
+     schemaUpdateId = insertSchemaUpdate();
+   }
+
+
+   @TearDown
+   public void tearDown()
+   {
+     sessionFactory.close();
+     dataSource.dispose();
+   }
+
+
+   @Benchmark
+   public Long insertSchemaUpdate()
+   {
+     try ( Session session = sessionFactory.openSession() )
+     {
+       Transaction tx = session.beginTransaction();
+
+       SchemaUpdate schemaUpdate = new SchemaUpdate()
+           .withMajor( 6 )
+           .withMinor( 0 )
+           .withMaintenance( 0 )
+           .withAppliedAt( Calendar.getInstance() );
+
+       session.persist( schemaUpdate );
+       tx.commit();
+
+       return schemaUpdate.getId();
+     }
+   }
+
+
+   @Benchmark
+   public SchemaUpdate getSchemaUpdate()
+   {
+     try ( Session session = sessionFactory.openSession() )
+     {
+       return session.get( SchemaUpdate.class, schemaUpdateId );
+     }
+   }
+ }
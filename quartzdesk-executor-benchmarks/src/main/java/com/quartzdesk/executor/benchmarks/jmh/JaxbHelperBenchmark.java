@@ -0,0 +1,91 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks.jmh;
+
+ import com.quartzdesk.executor.domain.jaxb.JaxbHelper;
+ import com.quartzdesk.executor.domain.model.db.SchemaUpdate;
+
+ import jakarta.xml.bind.JAXBElement;
+ import jakarta.xml.bind.JAXBException;
+ import org.openjdk.jmh.annotations.Benchmark;
+ import org.openjdk.jmh.annotations.BenchmarkMode;
+ import org.openjdk.jmh.annotations.Fork;
+ import org.openjdk.jmh.annotations.Measurement;
+ import org.openjdk.jmh.annotations.Mode;
+ import org.openjdk.jmh.annotations.OutputTimeUnit;
+ import org.openjdk.jmh.annotations.Scope;
+ import org.openjdk.jmh.annotations.Setup;
+ import org.openjdk.jmh.annotations.State;
+ import org.openjdk.jmh.annotations.Warmup;
+
+ import java.io.StringReader;
+ import java.util.Calendar;
+ import java.util.concurrent.TimeUnit;
+
+ /**
+  * Benchmarks of the {@link JaxbHelper} marshal, unmarshal and deep-copy methods applied to a domain model
+  * object.
+  */
+ @BenchmarkMode( Mode.AverageTime )
+ @OutputTimeUnit( TimeUnit.MICROSECONDS )
+ @Warmup( iterations = 3, time = 1 )
+ @Measurement( iterations = 5, time = 1 )
+ @Fork( 1 )
+ @State( Scope.Benchmark )
+ public class JaxbHelperBenchmark
+ {
+   private static final String ELEMENT_NAME = "schemaUpdate";
+
+   private JaxbHelper jaxbHelper;
+
+   private SchemaUpdate schemaUpdate;
+
+   private JAXBElement<SchemaUpdate> schemaUpdateElement;
+
+   private String schemaUpdateXml;
+
+
+   @Setup
+   public void setUp()
+       throws JAXBException
+   {
+     jaxbHelper = JaxbHelper.newInstance( SchemaUpdate.class );
+
+     schemaUpdate = new SchemaUpdate()
+         .withId( 1L )
+         .withMajor( 6 )
+         .withMinor( 0 )
+         .withMaintenance( 0 )
+         .withAppliedAt( Calendar.getInstance() );
+
+     schemaUpdateElement = jaxbHelper.wrapInJAXBElement( schemaUpdate, ELEMENT_NAME );
+     schemaUpdateXml = jaxbHelper.marshal( schemaUpdateElement );
+   }
+
+
+   @Benchmark
+   public String marshal()
+       throws JAXBException
+   {
+     return jaxbHelper.marshal( schemaUpdateElement );
+   }
+
+
+   @Benchmark
+   public Object unmarshal()
+       throws JAXBException
+   {
+     return jaxbHelper.unmarshal( new StringReader( schemaUpdateXml ), SchemaUpdate.class );
+   }
+
+
+   @Benchmark
+   public SchemaUpdate deepCopy()
+       throws JAXBException
+   {
+     return jaxbHelper.deepCopy( schemaUpdate );
+   }
+ }
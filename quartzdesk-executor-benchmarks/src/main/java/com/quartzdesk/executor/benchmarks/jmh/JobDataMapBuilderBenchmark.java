@@ -0,0 +1,112 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks.jmh;
+
+ import com.quartzdesk.executor.benchmarks.NoOpJob;
+ import com.quartzdesk.executor.core.JobDataMapBuilder;
+
+ import org.openjdk.jmh.annotations.Benchmark;
+ import org.openjdk.jmh.annotations.BenchmarkMode;
+ import org.openjdk.jmh.annotations.Fork;
+ import org.openjdk.jmh.annotations.Measurement;
+ import org.openjdk.jmh.annotations.Mode;
+ import org.openjdk.jmh.annotations.OutputTimeUnit;
+ import org.openjdk.jmh.annotations.Scope;
+ import org.openjdk.jmh.annotations.Setup;
+ import org.openjdk.jmh.annotations.State;
+ import org.openjdk.jmh.annotations.TearDown;
+ import org.openjdk.jmh.annotations.Warmup;
+ import org.quartz.JobBuilder;
+ import org.quartz.JobDataMap;
+ import org.quartz.JobDetail;
+ import org.quartz.JobExecutionContext;
+ import org.quartz.Scheduler;
+ import org.quartz.SchedulerException;
+ import org.quartz.TriggerBuilder;
+ import org.quartz.impl.JobExecutionContextImpl;
+ import org.quartz.impl.StdSchedulerFactory;
+ import org.quartz.spi.OperableTrigger;
+ import org.quartz.spi.TriggerFiredBundle;
+
+ import java.util.Date;
+ import java.util.Properties;
+ import java.util.concurrent.TimeUnit;
+
+ /**
+  * Benchmarks of the {@link JobDataMapBuilder} that creates the expansion macros and expands the job data map
+  * of every executed job.
+  */
+ @BenchmarkMode( Mode.AverageTime )
+ @OutputTimeUnit( TimeUnit.MICROSECONDS )
+ @Warmup( iterations = 3, time = 1 )
+ @Measurement( iterations = 5, time = 1 )
+ @Fork( 1 )
+ @State( Scope.Benchmark )
+ public class JobDataMapBuilderBenchmark
+ {
+   private Scheduler scheduler;
+
+   private JobExecutionContext context;
+
+
+   @Setup
+   public void setUp()
+       throws SchedulerException
+   {
+     // the scheduler is never started, it only provides the scheduler macros
+     Properties props = new Properties();
+     props.setProperty( StdSchedulerFactory.PROP_SCHED_INSTANCE_NAME, "JobDataMapBuilderBenchmark" );
+     props.setProperty( StdSchedulerFactory.PROP_JOB_STORE_CLASS, "org.quartz.simpl.RAMJobStore" );
+     props.setProperty( "org.quartz.threadPool.threadCount", "1" );
+     scheduler = new StdSchedulerFactory( props ).getScheduler();
+
+     JobDataMap jobDataMap = new JobDataMap();
+     jobDataMap.put( "command", "/opt/scripts/backup.sh" );
+     jobDataMap.put( "commandArgs", "--job ${JOB_GROUP_NAME}.${JOB_NAME} --date ${CURRENT_DATE,yyyy-MM-dd}" );
+     jobDataMap.put( "commandWorkDir", "/var/lib/backup" );
+     jobDataMap.put( "env[BACKUP_ID]", "${JOB_EXECUTION_ID}" );
+     jobDataMap.put( "env[BACKUP_LOG]", "/var/log/backup-${FIRE_TIME,yyyyMMdd-HHmmss}.log" );
+     jobDataMap.put( "env[SCHEDULER]", "${SCHEDULER_NAME}@${SCHEDULER_INSTANCE_ID}" );
+     jobDataMap.put( "retries", "3" );
+     jobDataMap.put( "description", "Nightly backup of ${JOB_DATA_MAP[commandWorkDir]}" );
+
+     JobDetail jobDetail = JobBuilder.newJob( NoOpJob.class )
+         .withIdentity( "backup", "DEFAULT" )
+         .usingJobData( jobDataMap )
+         .build();
+
+     OperableTrigger trigger = (OperableTrigger) TriggerBuilder.newTrigger()
+         .withIdentity( "backupTrigger", "DEFAULT" )
+         .forJob( jobDetail )
+         .build();
+
+     Date now = new Date();
+     TriggerFiredBundle firedBundle = new TriggerFiredBundle( jobDetail, trigger, null, false, now, now, null, null );
+
+     context = new JobExecutionContextImpl( scheduler, firedBundle, new NoOpJob() );
+   }
+
+
+   @TearDown
+   public void tearDown()
+       throws SchedulerException
+   {
+     scheduler.shutdown();
+   }
+
+
+   /**
+    * Creates the builder (including the expansion macros) and builds the expanded job data map, like
+    * {@link com.quartzdesk.executor.core.job.AbstractJob} does on every job execution.
+    *
+    * @return the expanded job data map.
+    */
+   @Benchmark
+   public JobDataMap build()
+   {
+     return new JobDataMapBuilder( context ).build();
+   }
+ }
@@ -0,0 +1,74 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks.jmh;
+
+ import com.quartzdesk.executor.common.text.MacroExpander;
+
+ import org.openjdk.jmh.annotations.Benchmark;
+ import org.openjdk.jmh.annotations.BenchmarkMode;
+ import org.openjdk.jmh.annotations.Fork;
+ import org.openjdk.jmh.annotations.Measurement;
+ import org.openjdk.jmh.annotations.Mode;
+ import org.openjdk.jmh.annotations.OutputTimeUnit;
+ import org.openjdk.jmh.annotations.Param;
+ import org.openjdk.jmh.annotations.Scope;
+ import org.openjdk.jmh.annotations.Setup;
+ import org.openjdk.jmh.annotations.State;
+ import org.openjdk.jmh.annotations.Warmup;
+
+ import java.util.Calendar;
+ import java.util.Date;
+ import java.util.HashMap;
+ import java.util.Map;
+ import java.util.concurrent.TimeUnit;
+
+ /**
+  * Benchmarks of the {@link MacroExpander#expandMacros(String)} method that expands macros in every job
+  * data map value on every job execution.
+  */
+ @BenchmarkMode( Mode.AverageTime )
+ @OutputTimeUnit( TimeUnit.NANOSECONDS )
+ @Warmup( iterations = 3, time = 1 )
+ @Measurement( iterations = 5, time = 1 )
+ @Fork( 1 )
+ @State( Scope.Benchmark )
+ public class MacroExpanderBenchmark
+ {
+   /**
+    * Expanded values: a value without macros, a value with a string macro, a value with a date macro with
+    * a formatting pattern, and a typical command line with multiple macros.
+    */
+   @Param( {
+       "/opt/scripts/backup.sh --full",
+       "${JOB_GROUP_NAME}",
+       "${FIRE_TIME,yyyyMMdd-HHmmss}",
+       "--job ${JOB_GROUP_NAME}.${JOB_NAME} --date ${CURRENT_DATE} --log /var/log/${JOB_NAME}-${FIRE_TIME,yyyyMMdd-HHmmss}.log"
+   } )
+   private String value;
+
+   private MacroExpander macroExpander;
+
+
+   @Setup
+   public void setUp()
+   {
+     Map<String, Object> macros = new HashMap<>();
+     macros.put( "JOB_GROUP_NAME", "DEFAULT" );
+     macros.put( "JOB_NAME", "backup" );
+     macros.put( "CURRENT_DATE", new Date() );
+     macros.put( "FIRE_TIME", Calendar.getInstance() );
+     macros.put( "RECOVERING", Boolean.FALSE );
+
+     macroExpander = new MacroExpander( macros );
+   }
+
+
+   @Benchmark
+   public String expandMacros()
+   {
+     return macroExpander.expandMacros( value );
+   }
+ }
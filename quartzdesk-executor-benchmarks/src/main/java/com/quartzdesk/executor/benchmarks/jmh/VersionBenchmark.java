@@ -0,0 +1,69 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.benchmarks.jmh;
+
+ import com.quartzdesk.executor.common.type.Version;
+ import com.quartzdesk.executor.domain.convert.VersionComparator;
+ import com.quartzdesk.executor.domain.convert.VersionConverter;
+
+ import org.openjdk.jmh.annotations.Benchmark;
+ import org.openjdk.jmh.annotations.BenchmarkMode;
+ import org.openjdk.jmh.annotations.Fork;
+ import org.openjdk.jmh.annotations.Measurement;
+ import org.openjdk.jmh.annotations.Mode;
+ import org.openjdk.jmh.annotations.OutputTimeUnit;
+ import org.openjdk.jmh.annotations.Scope;
+ import org.openjdk.jmh.annotations.Setup;
+ import org.openjdk.jmh.annotations.State;
+ import org.openjdk.jmh.annotations.Warmup;
+
+ import java.util.concurrent.TimeUnit;
+
+ /**
+  * Benchmarks of the {@link Version#parseVersion(String)} and {@link VersionComparator#compare} methods used
+  * at startup to determine the product version and the applicable database upgrade scripts.
+  */
+ @BenchmarkMode( Mode.AverageTime )
+ @OutputTimeUnit( TimeUnit.NANOSECONDS )
+ @Warmup( iterations = 3, time = 1 )
+ @Measurement( iterations = 5, time = 1 )
+ @Fork( 1 )
+ @State( Scope.Benchmark )
+ public class VersionBenchmark
+ {
+   private com.quartzdesk.executor.domain.model.common.Version version1;
+
+   private com.quartzdesk.executor.domain.model.common.Version version2;
+
+
+   @Setup
+   public void setUp()
+   {
+     version1 = VersionConverter.INSTANCE.fromString( "6.0.0" );
+     version2 = VersionConverter.INSTANCE.fromString( "6.0.0-SNAPSHOT" );
+   }
+
+
+   @Benchmark
+   public Version parseVersion()
+   {
+     return Version.parseVersion( "6.0.0" );
+   }
+
+
+   @Benchmark
+   public Version parseVersionWithQualifier()
+   {
+     return Version.parseVersion( "6.0.0-SNAPSHOT" );
+   }
+
+
+   @Benchmark
+   public int compare()
+   {
+     return VersionComparator.INSTANCE.compare( version1, version2 );
+   }
+ }
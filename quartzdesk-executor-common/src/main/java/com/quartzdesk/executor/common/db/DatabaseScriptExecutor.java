@@ -7,22 +7,39 @@
  import com.quartzdesk.executor.common.CommonConst;
  import com.quartzdesk.executor.common.debug.StopWatch;
  import com.quartzdesk.executor.common.io.IOUtils;
- import com.quartzdesk.executor.common.text.StringUtils;
 
  import org.slf4j.Logger;
  import org.slf4j.LoggerFactory;
 
+ import javax.sql.DataSource;
+ import java.io.BufferedReader;
+ import java.io.FilterInputStream;
  import java.io.IOException;
+ import java.io.InputStream;
  import java.io.InputStreamReader;
- import java.io.LineNumberReader;
+ import java.io.Reader;
  import java.net.URL;
+ import java.net.URLConnection;
+ import java.nio.charset.StandardCharsets;
+ import java.sql.BatchUpdateException;
  import java.sql.Connection;
  import java.sql.SQLException;
  import java.sql.Statement;
  import java.util.ArrayList;
  import java.util.Collection;
- import java.util.LinkedList;
+ import java.util.Collections;
+ import java.util.LinkedHashMap;
  import java.util.List;
+ import java.util.Map;
+ import java.util.concurrent.ExecutionException;
+ import java.util.concurrent.ExecutorService;
+ import java.util.concurrent.Executors;
+ import java.util.concurrent.Future;
+ import java.util.concurrent.ThreadFactory;
+ import java.util.concurrent.atomic.AtomicInteger;
+ import java.util.regex.Matcher;
+ import java.util.regex.Pattern;
+ import java.util.zip.CRC32;
 
  /**
   * Populates a database from SQL scripts defined in external resources.
@@ -42,16 +59,24 @@
    private static final String DEFAULT_STATEMENT_SEPARATOR = ";";
 
    /**
-    * Special "start statement" comment that allows us to escape an SQL statement containing
-    * statement separators (e.g. ;) inside. For example, PostgreSQL function declarations.
+    * DML statements that can be executed in JDBC batches.
     */
-   private static final String STATEMENT_SEPARATOR_START = "[statement]";
+   private static final Pattern DML_STATEMENT_PATTERN =
+       Pattern.compile( "^\\s*(INSERT|UPDATE|DELETE|MERGE)\\s", Pattern.CASE_INSENSITIVE );
 
    /**
-    * Special "end statement" comment that allows us to escape an SQL statement containing
-    * statement separators (e.g. ;) inside. For example, PostgreSQL function declarations.
+    * DDL statements that implicitly commit the current transaction on some databases.
     */
-   private static final String STATEMENT_SEPARATOR_END = "[/statement]";
+   private static final Pattern DDL_STATEMENT_PATTERN =
+       Pattern.compile( "^\\s*(CREATE|ALTER|DROP|TRUNCATE|RENAME|COMMENT)\\s", Pattern.CASE_INSENSITIVE );
+
+   /**
+    * CREATE INDEX statements, the group captures the name of the indexed table.
+    */
+   private static final Pattern CREATE_INDEX_STATEMENT_PATTERN =
+       Pattern.compile( "^\\s*CREATE\\s+(?:UNIQUE\\s+)?INDEX\\s+\\S+\\s+ON\\s+([^\\s(]+)", Pattern.CASE_INSENSITIVE );
+
+   private static final AtomicInteger EXECUTOR_COUNTER = new AtomicInteger();
 
    private List<URL> scriptUrls = new ArrayList<URL>();
 
@@ -67,6 +92,16 @@
 
    private boolean commitAfterScript;
 
+   private int batchSize = 1;
+
+   private DataSource indexCreationDataSource;
+
+   private int indexCreationThreads = 1;
+
+   private DatabaseScriptJournal journal;
+
+   private DatabaseScriptProgress progress;
+
 
    /**
     * Adds the specified SQL script URL to the list of scripts to execute.
@@ -159,6 +194,74 @@
    }
 
 
+   /**
+    * Sets the maximum number of consecutive DML statements (INSERT, UPDATE, DELETE and MERGE) executed in a
+    * single JDBC batch. Batching is used only if the JDBC driver supports batch updates. Value &lt;= 1 (default)
+    * disables batching.
+    *
+    * @param batchSize the JDBC batch size.
+    */
+   public void setBatchSize( int batchSize )
+   {
+     this.batchSize = batchSize;
+   }
+
+
+   /**
+    * Sets the data source that provides the additional JDBC connections used to create indexes in parallel.
+    * If not set (default), indexes are created sequentially.
+    *
+    * @param indexCreationDataSource the data source.
+    * @see #setIndexCreationThreads(int)
+    */
+   public void setIndexCreationDataSource( DataSource indexCreationDataSource )
+   {
+     this.indexCreationDataSource = indexCreationDataSource;
+   }
+
+
+   /**
+    * Sets the maximum number of threads used to execute consecutive CREATE INDEX statements in parallel.
+    * The indexes of a table are created sequentially by a single thread, indexes of different tables are created
+    * in parallel using connections obtained from the {@link #setIndexCreationDataSource(DataSource) index creation
+    * data source}. All statements preceding the CREATE INDEX statements are committed before the indexes are
+    * created, so that the indexed tables are visible to the other connections. Statements following the
+    * CREATE INDEX statements are executed after all indexes have been created. Value &lt;= 1 (default) disables
+    * parallel index creation.
+    *
+    * @param indexCreationThreads the maximum number of index creation threads.
+    */
+   public void setIndexCreationThreads( int indexCreationThreads )
+   {
+     this.indexCreationThreads = indexCreationThreads;
+   }
+
+
+   /**
+    * Sets the journal the executed SQL statements are recorded in. If set, SQL statements recorded in the journal
+    * by a previous execution of an SQL script are skipped, i.e. the execution of a failed, or interrupted SQL
+    * script is resumed after the last committed statement. A recorded SQL statement whose checksum does not match
+    * the checksum of the statement in the SQL script causes the execution to fail.
+    *
+    * @param journal the SQL statement journal.
+    */
+   public void setJournal( DatabaseScriptJournal journal )
+   {
+     this.journal = journal;
+   }
+
+
+   /**
+    * Sets the progress the execution of the SQL scripts is reported to.
+    *
+    * @param progress the progress.
+    */
+   public void setProgress( DatabaseScriptProgress progress )
+   {
+     this.progress = progress;
+   }
+
+
    /**
     * Executes the configured SQL scripts using the specified JDBC connection.
     *
@@ -168,9 +271,20 @@
    public void executeScripts( Connection connection )
        throws SQLException
    {
-     for ( URL scriptUrl : scriptUrls )
+     if ( progress != null )
+       progress.start( getTotalScriptSize() );
+
+     try
+     {
+       for ( URL scriptUrl : scriptUrls )
+       {
+         executeScript( connection, scriptUrl );
+       }
+     }
+     finally
      {
-       executeScript( connection, scriptUrl );
+       if ( progress != null )
+         progress.finish();
      }
    }
 
@@ -179,6 +293,8 @@
     * Execute the given SQL script.
     * <p>There should be one statement per line. Any {@link #setSeparator(String) statement separators}
     * will be removed.
+    * <p>The statements are read from the script by a {@link SqlStatementReader} and executed as they are
+    * parsed, i.e. the script is never loaded into memory as a whole.
     * <p><b>Do not use this method to execute DDL if you expect rollback.</b>
     *
     * @param connection the JDBC Connection with which to perform JDBC operations.
@@ -191,60 +307,99 @@
 
      StopWatch sw = new StopWatch().start();
 
-     List<String> statements = new LinkedList<String>();
-     String script;
-     try
-     {
-       script = readScript( scriptUrl );
-     }
-     catch ( IOException ex )
-     {
-       throw new SQLException( "Error reading SQL script: " + scriptUrl, ex );
-     }
      String delimiter = separator;
      if ( delimiter == null )
      {
        delimiter = DEFAULT_STATEMENT_SEPARATOR;
-       if ( !containsSqlScriptDelimiters( script, delimiter ) )
+       if ( !containsSqlScriptDelimiters( scriptUrl, delimiter ) )
        {
          delimiter = "\n";
        }
      }
 
-     splitSqlScript( script, delimiter, commentPrefix, statements );
-
+     Reader scriptReader = null;
      Statement stat = null;
      try
      {
+       if ( progress != null )
+         progress.scriptStarted( scriptUrl );
+
+       // statements executed in a previous execution of the script
+       Map<Integer, Long> executedStatements = journal == null
+           ? Collections.<Integer, Long>emptyMap()
+           : journal.getExecutedStatements( connection, scriptUrl );
+
+       if ( !executedStatements.isEmpty() )
+       {
+         log.info( "Resuming execution of SQL script {}, skipping {} previously executed SQL statements.", scriptUrl,
+             executedStatements.size() );
+       }
+
+       scriptReader = openScript( scriptUrl, true );
+       SqlStatementReader statementReader = new SqlStatementReader( scriptReader, commentPrefix, separator );
+
        stat = connection.createStatement();
 
+       boolean batching = batchSize > 1 && connection.getMetaData().supportsBatchUpdates();
+       boolean parallelIndexCreation = indexCreationThreads > 1 && indexCreationDataSource != null;
+
+       // consecutive DML statements to be executed in a single batch
+       List<ScriptStatement> batch = new ArrayList<ScriptStatement>();
+
+       // consecutive CREATE INDEX statements to be executed in parallel grouped by the indexed table
+       Map<String, List<ScriptStatement>> indexStatements = new LinkedHashMap<String, List<ScriptStatement>>();
+
        int statNumber = 0;
-       for ( String statStr : statements )
+       String statStr;
+       while ( ( statStr = nextStatement( statementReader, delimiter, scriptUrl ) ) != null )
        {
-         statNumber++;
-         try
-         {
-           stat.execute( statStr );
-           int updateCount = stat.getUpdateCount();  // rows affected
-           log.debug( "Update count: {} returned for SQL statement: {}", updateCount, statStr );
-         }
-         catch ( SQLException ex )
+         ScriptStatement statement = new ScriptStatement( ++statNumber, statStr );
+
+         Long executedChecksum = executedStatements.get( statement.number );
+         if ( executedChecksum != null )
          {
-           boolean dropStatement = statStr.trim().toUpperCase().startsWith( "drop" );
-           if ( continueOnError || ( dropStatement && ignoreFailedDrops ) )
+           if ( executedChecksum != statement.checksum )
            {
-             log.debug(
-                 "Failed to execute SQL statement #" + statNumber + " of SQL script " + scriptUrl + ": " +
-                     statStr, ex );
+             throw new SQLException( "SQL statement #" + statement.number + " of SQL script " + scriptUrl +
+                 " has been modified since it was executed: " + statStr );
            }
-           else
+
+           if ( progress != null )
+             progress.statementSkipped();
+           continue;
+         }
+
+         if ( batching && DML_STATEMENT_PATTERN.matcher( statStr ).find() )
+         {
+           // the DML statement may depend on the preceding CREATE INDEX statements
+           createIndexes( connection, stat, indexStatements, scriptUrl );
+
+           batch.add( statement );
+           if ( batch.size() >= batchSize )
+             executeBatch( connection, stat, batch, scriptUrl );
+           continue;
+         }
+         executeBatch( connection, stat, batch, scriptUrl );
+
+         if ( parallelIndexCreation )
+         {
+           Matcher matcher = CREATE_INDEX_STATEMENT_PATTERN.matcher( statStr );
+           if ( matcher.find() )
            {
-             throw new SQLException(
-                 "Failed to execute SQL statement #" + statNumber + " of SQL script " + scriptUrl + ": " +
-                     statStr, ex );
+             indexStatements.computeIfAbsent( matcher.group( 1 ).toUpperCase(), k -> new ArrayList<ScriptStatement>() )
+                 .add( statement );
+             continue;
            }
+           createIndexes( connection, stat, indexStatements, scriptUrl );
          }
+
+         executeStatement( stat, statement, scriptUrl );
+         statementsExecuted( connection, scriptUrl, Collections.singletonList( statement ) );
        }
+
+       // at most one of the batch and the pending CREATE INDEX statements is not empty at this point
+       executeBatch( connection, stat, batch, scriptUrl );
+       createIndexes( connection, stat, indexStatements, scriptUrl );
      }
      finally
      {
@@ -253,6 +408,8 @@
          DbUtils.close( stat );
        }
 
+       IOUtils.close( scriptReader );
+
        if ( commitAfterScript )
        {
          connection.commit();
@@ -266,221 +423,498 @@
 
 
    /**
-    * Read a script from the given resource and build a String containing the lines.
+    * Executes the specified SQL statement.
     *
-    * @param scriptUrl the SQL script URL to be read from.
-    * @return {@code String} containing the script lines.
-    * @throws IOException in case of I/O errors.
+    * @param stat      the JDBC statement to execute the SQL statement with.
+    * @param statement the SQL statement.
+    * @param scriptUrl the URL of the SQL script containing the SQL statement.
+    * @throws SQLException if the SQL statement failed and the failure cannot be ignored.
+    */
+   private void executeStatement( Statement stat, ScriptStatement statement, URL scriptUrl )
+       throws SQLException
+   {
+     try
+     {
+       stat.execute( statement.sql );
+       int updateCount = stat.getUpdateCount();  // rows affected
+       log.debug( "Update count: {} returned for SQL statement: {}", updateCount, statement.sql );
+     }
+     catch ( SQLException ex )
+     {
+       handleStatementFailure( statement, scriptUrl, ex );
+     }
+   }
+
+
+   /**
+    * Executes the specified DML statements in a single JDBC batch and clears the list. If the batch fails and the
+    * failure can be ignored, the statements not executed by the JDBC driver are executed one by one.
+    *
+    * @param connection the JDBC connection the SQL script is executed with.
+    * @param stat       the JDBC statement to execute the batch with.
+    * @param batch      the DML statements.
+    * @param scriptUrl  the URL of the SQL script containing the DML statements.
+    * @throws SQLException if a DML statement failed and the failure cannot be ignored.
     */
-   private String readScript( URL scriptUrl )
-       throws IOException
+   private void executeBatch( Connection connection, Statement stat, List<ScriptStatement> batch, URL scriptUrl )
+       throws SQLException
    {
-     String statementSeparatorStart = commentPrefix + ' ' + STATEMENT_SEPARATOR_START;
-     String statementSeparatorEnd = commentPrefix + ' ' + STATEMENT_SEPARATOR_END;
+     if ( batch.isEmpty() )
+       return;
 
-     LineNumberReader lnr = new LineNumberReader( new InputStreamReader( scriptUrl.openStream(), sqlScriptEncoding ) );
      try
      {
-       String currentStatement = lnr.readLine();
-       StringBuilder scriptBuilder = new StringBuilder();
-       while ( currentStatement != null )
+       if ( batch.size() == 1 )
+       {
+         executeStatement( stat, batch.get( 0 ), scriptUrl );
+         statementsExecuted( connection, scriptUrl, batch );
+         return;
+       }
+
+       try
+       {
+         for ( ScriptStatement statement : batch )
+         {
+           stat.addBatch( statement.sql );
+         }
+         stat.executeBatch();
+
+         log.debug( "Executed batch of SQL statements #{} - #{} of SQL script {}", batch.get( 0 ).number,
+             batch.get( batch.size() - 1 ).number, scriptUrl );
+       }
+       catch ( BatchUpdateException ex )
        {
-         if ( StringUtils.isNotBlank( currentStatement ) )
+         // drivers either stop at the first failed statement, or execute all statements and mark the failed ones
+         int[] updateCounts = ex.getUpdateCounts() == null ? new int[0] : ex.getUpdateCounts();
+         for ( int i = 0; i < batch.size(); i++ )
          {
-           if ( commentPrefix != null && !currentStatement.startsWith( commentPrefix ) )
+           if ( i < updateCounts.length )
            {
-             if ( scriptBuilder.length() > 0 )
-             {
-               scriptBuilder.append( '\n' );
-             }
-             scriptBuilder.append( currentStatement );
+             if ( updateCounts[i] == Statement.EXECUTE_FAILED )
+               handleStatementFailure( batch.get( i ), scriptUrl, ex );
+           }
+           else if ( i == updateCounts.length )
+           {
+             handleStatementFailure( batch.get( i ), scriptUrl, ex );
            }
-           if ( commentPrefix != null && ( currentStatement.startsWith( statementSeparatorStart ) ||
-               currentStatement.startsWith( statementSeparatorEnd ) ) )
+           else
            {
-             if ( scriptBuilder.length() > 0 )
+             executeStatement( stat, batch.get( i ), scriptUrl );
+           }
+         }
+       }
+       finally
+       {
+         stat.clearBatch();
+       }
+
+       statementsExecuted( connection, scriptUrl, batch );
+     }
+     finally
+     {
+       batch.clear();
+     }
+   }
+
+
+   /**
+    * Executes the specified CREATE INDEX statements and clears the map. The statements are executed in parallel
+    * if they create indexes on multiple tables, otherwise they are executed sequentially using the specified JDBC
+    * statement.
+    *
+    * @param connection      the JDBC connection the SQL script is executed with.
+    * @param stat            the JDBC statement to execute the CREATE INDEX statements with sequentially.
+    * @param indexStatements the CREATE INDEX statements grouped by the indexed table.
+    * @param scriptUrl       the URL of the SQL script containing the CREATE INDEX statements.
+    * @throws SQLException if a CREATE INDEX statement failed and the failure cannot be ignored.
+    */
+   private void createIndexes( Connection connection, Statement stat, Map<String, List<ScriptStatement>> indexStatements,
+       URL scriptUrl )
+       throws SQLException
+   {
+     if ( indexStatements.isEmpty() )
+       return;
+
+     try
+     {
+       if ( indexStatements.size() == 1 )
+       {
+         for ( ScriptStatement statement : indexStatements.values().iterator().next() )
+         {
+           executeStatement( stat, statement, scriptUrl );
+           statementsExecuted( connection, scriptUrl, Collections.singletonList( statement ) );
+         }
+         return;
+       }
+
+       // make the indexed tables visible to the index creation connections
+       if ( !connection.getAutoCommit() )
+         connection.commit();
+
+       StopWatch sw = new StopWatch().start();
+
+       int threadCount = Math.min( indexCreationThreads, indexStatements.size() );
+       ExecutorService executor = Executors.newFixedThreadPool( threadCount, new IndexCreationThreadFactory() );
+       try
+       {
+         List<Future<?>> futures = new ArrayList<Future<?>>();
+         for ( final List<ScriptStatement> tableIndexStatements : indexStatements.values() )
+         {
+           futures.add( executor.submit( () -> {
+             createTableIndexes( tableIndexStatements, scriptUrl );
+             return null;
+           } ) );
+         }
+
+         SQLException failure = null;
+         for ( Future<?> future : futures )
+         {
+           try
+           {
+             future.get();
+           }
+           catch ( ExecutionException e )
+           {
+             if ( failure == null )
              {
-               scriptBuilder.append( '\n' );
+               failure = e.getCause() instanceof SQLException
+                   ? (SQLException) e.getCause()
+                   : new SQLException( "Error creating indexes of SQL script " + scriptUrl, e.getCause() );
              }
-             scriptBuilder.append( currentStatement );
            }
          }
 
-         currentStatement = lnr.readLine();
+         if ( failure != null )
+           throw failure;
+       }
+       catch ( InterruptedException e )
+       {
+         Thread.currentThread().interrupt();
+         throw new SQLException( "Interrupted while creating indexes of SQL script " + scriptUrl, e );
+       }
+       finally
+       {
+         executor.shutdownNow();
        }
-       maybeAddSeparatorToScript( scriptBuilder );
-       return scriptBuilder.toString();
+
+       sw.stop();
+
+       log.info( "Created indexes of {} tables using {} threads. Time taken: {}", indexStatements.size(), threadCount,
+           sw.getFormattedElapsedTime() );
      }
      finally
      {
-       IOUtils.close( lnr );
+       indexStatements.clear();
      }
    }
 
 
-   private void maybeAddSeparatorToScript( StringBuilder scriptBuilder )
+   /**
+    * Executes the specified CREATE INDEX statements of a single table using a connection obtained from the index
+    * creation data source.
+    *
+    * @param indexStatements the CREATE INDEX statements.
+    * @param scriptUrl       the URL of the SQL script containing the CREATE INDEX statements.
+    * @throws SQLException if a CREATE INDEX statement failed and the failure cannot be ignored.
+    */
+   private void createTableIndexes( List<ScriptStatement> indexStatements, URL scriptUrl )
+       throws SQLException
    {
-     if ( separator == null )
-     {
-       return;
-     }
-     String trimmed = separator.trim();
-     if ( trimmed.length() == separator.length() )
+     Connection con = indexCreationDataSource.getConnection();
+     try
      {
-       return;
+       Statement stat = con.createStatement();
+       try
+       {
+         for ( ScriptStatement statement : indexStatements )
+         {
+           executeStatement( stat, statement, scriptUrl );
+           statementsExecuted( con, scriptUrl, Collections.singletonList( statement ) );
+         }
+       }
+       finally
+       {
+         DbUtils.close( stat );
+       }
+
+       if ( !con.getAutoCommit() )
+         con.commit();
      }
-     // separator ends in whitespace, so we might want to see if the script is trying
-     // to end the same way
-     if ( scriptBuilder.lastIndexOf( trimmed ) == scriptBuilder.length() - trimmed.length() )
+     finally
      {
-       scriptBuilder.append( separator.substring( trimmed.length() ) );
+       DbUtils.close( con );
      }
    }
 
 
    /**
-    * Does the provided SQL script contain the specified delimiter?
+    * Reports the specified SQL statements as executed to the progress and records them in the journal.
     *
-    * @param script the SQL script
-    * @param delim  character delimiting each statement - typically a ';' character
+    * @param connection the JDBC connection the SQL statements have been executed with.
+    * @param scriptUrl  the URL of the SQL script containing the SQL statements.
+    * @param statements the executed SQL statements.
+    * @throws SQLException if the SQL statements cannot be recorded in the journal.
     */
-   private boolean containsSqlScriptDelimiters( String script, String delim )
+   private void statementsExecuted( Connection connection, URL scriptUrl, List<ScriptStatement> statements )
+       throws SQLException
    {
-     boolean inLiteral = false;
-     char[] content = script.toCharArray();
-     for ( int i = 0; i < script.length(); i++ )
+     if ( progress != null )
+       progress.statementsExecuted( statements.size() );
+
+     if ( journal != null )
      {
-       if ( content[i] == '\'' )
+       Map<Integer, Long> checksums = new LinkedHashMap<Integer, Long>();
+       for ( ScriptStatement statement : statements )
        {
-         inLiteral = !inLiteral;
+         checksums.put( statement.number, statement.checksum );
        }
-       if ( !inLiteral && script.startsWith( delim, i ) )
+       journal.recordExecutedStatements( connection, scriptUrl, checksums );
+
+       // DDL statements implicitly commit the transaction on some databases, the journal entries of DDL statements
+       // must be committed too, otherwise they would be rolled back if a subsequent statement fails
+       if ( containsDdlStatement( statements ) && !connection.getAutoCommit()
+           && connection.getMetaData().dataDefinitionCausesTransactionCommit() )
        {
-         return true;
+         connection.commit();
        }
      }
+   }
+
+
+   private static boolean containsDdlStatement( List<ScriptStatement> statements )
+   {
+     for ( ScriptStatement statement : statements )
+     {
+       if ( DDL_STATEMENT_PATTERN.matcher( statement.sql ).find() )
+         return true;
+     }
      return false;
    }
 
 
    /**
-    * Split an SQL script into separate statements delimited by the provided delimiter
-    * string. Each individual statement will be added to the provided {@code List}.
-    * <p>Within a statement, the provided {@code commentPrefix} will be honored;
-    * any text beginning with the comment prefix and extending to the end of the
-    * line will be omitted from the statement. In addition, multiple adjacent
-    * whitespace characters will be collapsed into a single space.
+    * Logs the failure of the specified SQL statement if the failure can be ignored, otherwise throws
+    * an {@link SQLException}.
     *
-    * @param script        the SQL script
-    * @param delim         character delimiting each statement (typically a ';' character)
-    * @param commentPrefix the prefix that identifies line comments in the SQL script &mdash; typically "--"
-    * @param statements    the List that will contain the individual statements
+    * @param statement the failed SQL statement.
+    * @param scriptUrl the URL of the SQL script containing the SQL statement.
+    * @param ex        the failure.
+    * @throws SQLException if the failure cannot be ignored.
     */
-   private void splitSqlScript( String script, String delim, String commentPrefix, List<String> statements )
+   private void handleStatementFailure( ScriptStatement statement, URL scriptUrl, SQLException ex )
+       throws SQLException
    {
-     String statementSeparatorStart = commentPrefix + ' ' + STATEMENT_SEPARATOR_START;
-     String statementSeparatorEnd = commentPrefix + ' ' + STATEMENT_SEPARATOR_END;
+     boolean dropStatement = statement.sql.trim().toUpperCase().startsWith( "drop" );
+     if ( continueOnError || ( dropStatement && ignoreFailedDrops ) )
+     {
+       log.debug(
+           "Failed to execute SQL statement #" + statement.number + " of SQL script " + scriptUrl + ": " +
+               statement.sql, ex );
+     }
+     else
+     {
+       throw new SQLException(
+           "Failed to execute SQL statement #" + statement.number + " of SQL script " + scriptUrl + ": " +
+               statement.sql, ex );
+     }
+   }
 
-     StringBuilder sb = new StringBuilder();
-     boolean inLiteral = false;
-     boolean inEscape = false;
-     boolean inStatementEscape = false;
 
-     char[] content = script.toCharArray();
+   /**
+    * Opens a reader of the given SQL script.
+    *
+    * @param scriptUrl     the SQL script URL to be read from.
+    * @param countProgress true if the read bytes are to be reported to the progress.
+    * @return the SQL script reader.
+    * @throws SQLException if the SQL script cannot be opened.
+    */
+   private Reader openScript( URL scriptUrl, boolean countProgress )
+       throws SQLException
+   {
+     try
+     {
+       InputStream ins = scriptUrl.openStream();
+       if ( countProgress && progress != null )
+         ins = new ProgressInputStream( ins, progress );
 
-     for ( int i = 0; i < script.length(); i++ )
+       return new BufferedReader( new InputStreamReader( ins, sqlScriptEncoding ) );
+     }
+     catch ( IOException ex )
      {
-       char c = content[i];
+       throw new SQLException( "Error reading SQL script: " + scriptUrl, ex );
+     }
+   }
 
-       if ( inEscape )
+
+   /**
+    * Reads the next SQL statement from the given SQL statement reader.
+    *
+    * @param statementReader the SQL statement reader.
+    * @param delim           character delimiting each statement (typically a ';' character)
+    * @param scriptUrl       the SQL script URL being read from.
+    * @return the next SQL statement, or null if there are no more statements in the SQL script.
+    * @throws SQLException if the SQL script cannot be read.
+    */
+   private String nextStatement( SqlStatementReader statementReader, String delim, URL scriptUrl )
+       throws SQLException
+   {
+     try
+     {
+       return statementReader.nextStatement( delim );
+     }
+     catch ( IOException ex )
+     {
+       throw new SQLException( "Error reading SQL script: " + scriptUrl + " at line: " +
+           statementReader.getLineNumber(), ex );
+     }
+   }
+
+
+   /**
+    * Returns the total size (in bytes) of the configured SQL scripts.
+    *
+    * @return the total size of the SQL scripts, -1 if the size of any of the scripts is not known.
+    */
+   private long getTotalScriptSize()
+   {
+     long totalSize = 0;
+     for ( URL scriptUrl : scriptUrls )
+     {
+       InputStream ins = null;
+       try
        {
-         inEscape = false;
-         sb.append( c );
-         continue;
-       }
+         URLConnection con = scriptUrl.openConnection();
+         ins = con.getInputStream();
+
+         long size = con.getContentLengthLong();
+         if ( size < 0 )
+           return -1;
 
-       // MySQL style escapes
-       if ( c == '\\' )
+         totalSize += size;
+       }
+       catch ( IOException e )
        {
-         inEscape = true;
-         sb.append( c );
-         continue;
+         return -1;
        }
-
-       if ( c == '\'' )
+       finally
        {
-         inLiteral = !inLiteral;
+         IOUtils.close( ins );
        }
+     }
+     return totalSize;
+   }
 
-       if ( !inLiteral )
-       {
-         // normal statements ending with ;
-         if ( script.startsWith( delim, i ) && !inStatementEscape )
-         {
-           // we've reached the end of the current statement
-           if ( sb.length() > 0 )
-           {
-             statements.add( sb.toString() );
-             sb = new StringBuilder();
-           }
-           i += delim.length() - 1;
-           continue;
-         }
-         else if ( script.startsWith( commentPrefix, i ) )
-         {
-           // -- [statement]
-           if ( script.startsWith( statementSeparatorStart, i ) )
-           {
-             inStatementEscape = true;
-           }
 
-           // -- [/statement]
-           if ( script.startsWith( statementSeparatorEnd, i ) )
-           {
-             inStatementEscape = false;
+   /**
+    * Does the provided SQL script contain the specified delimiter? The SQL script is read
+    * only up to the first occurrence of the delimiter.
+    *
+    * @param scriptUrl the SQL script URL to be read from.
+    * @param delim     character delimiting each statement - typically a ';' character
+    * @throws SQLException if the SQL script cannot be read.
+    */
+   private boolean containsSqlScriptDelimiters( URL scriptUrl, String delim )
+       throws SQLException
+   {
+     Reader scriptReader = openScript( scriptUrl, false );
+     try
+     {
+       return new SqlStatementReader( scriptReader, commentPrefix, null ).containsDelimiter( delim );
+     }
+     catch ( IOException ex )
+     {
+       throw new SQLException( "Error reading SQL script: " + scriptUrl, ex );
+     }
+     finally
+     {
+       IOUtils.close( scriptReader );
+     }
+   }
 
-             // we've reached the end of the escaped statement
-             if ( sb.length() > 0 )
-             {
-               statements.add( sb.toString() );
-               sb = new StringBuilder();
-             }
-           }
 
-           // skip over any content from the start of the comment to the EOL
-           int indexOfNextNewline = script.indexOf( "\n", i );
-           if ( indexOfNextNewline > i )
-           {
-             i = indexOfNextNewline;
-             continue;
-           }
-           else
-           {
-             // if there's no newline after the comment, we must be at the end
-             // of the script, so stop here.
-             break;
-           }
-         }
-         else if ( c == ' ' || c == '\n' || c == '\t' )
-         {
-           // avoid multiple adjacent whitespace characters
-           if ( sb.length() > 0 && sb.charAt( sb.length() - 1 ) != ' ' )
-           {
-             c = ' ';
-           }
-           else
-           {
-             continue;
-           }
-         }
-       }
-       sb.append( c );
+   /**
+    * SQL statement of an SQL script and its number within the script.
+    */
+   private static class ScriptStatement
+   {
+     private final int number;
+
+     private final String sql;
+
+     /**
+      * CRC32 checksum of the SQL statement.
+      */
+     private final long checksum;
+
+
+     private ScriptStatement( int number, String sql )
+     {
+       this.number = number;
+       this.sql = sql;
+
+       CRC32 crc = new CRC32();
+       crc.update( sql.getBytes( StandardCharsets.UTF_8 ) );
+       this.checksum = crc.getValue();
      }
+   }
+
+
+   /**
+    * Input stream that reports the number of read bytes to the {@link DatabaseScriptProgress}.
+    */
+   private static class ProgressInputStream
+       extends FilterInputStream
+   {
+     private final DatabaseScriptProgress progress;
+
+
+     private ProgressInputStream( InputStream in, DatabaseScriptProgress progress )
+     {
+       super( in );
+       this.progress = progress;
+     }
+
+
+     @Override
+     public int read()
+         throws IOException
+     {
+       int b = super.read();
+       if ( b != -1 )
+         progress.bytesRead( 1 );
+       return b;
+     }
+
+
+     @Override
+     public int read( byte[] b, int off, int len )
+         throws IOException
+     {
+       int count = super.read( b, off, len );
+       if ( count > 0 )
+         progress.bytesRead( count );
+       return count;
+     }
+   }
+
+
+   /**
+    * Thread factory producing named daemon index creation threads.
+    */
+   private static class IndexCreationThreadFactory
+       implements ThreadFactory
+   {
+     private final int executorId = EXECUTOR_COUNTER.incrementAndGet();
+
+     private final AtomicInteger threadCounter = new AtomicInteger();
+
 
-     String statement = sb.toString();
-     if ( StringUtils.isNotBlank( statement ) )
+     @Override
+     public Thread newThread( Runnable r )
      {
-       statements.add( statement );
+       Thread thread = new Thread( r, "DatabaseScriptExecutor-" + executorId + '-' + threadCounter.incrementAndGet() );
+       thread.setDaemon( true );
+       return thread;
      }
    }
  }
@@ -0,0 +1,48 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.common.db;
+
+ import java.net.URL;
+ import java.sql.Connection;
+ import java.sql.SQLException;
+ import java.util.Map;
+
+ /**
+  * Journal of the SQL statements executed by the {@link DatabaseScriptExecutor}. The journal records the
+  * number and checksum of every executed statement, so that the execution of an SQL script that failed, or
+  * was interrupted can be resumed after the last committed statement.
+  *
+  * <p>
+  * The statements are recorded using the connection the statements have been executed with, so the
+  * journal entries are committed, or rolled back together with the statements.
+  * </p>
+  */
+ public interface DatabaseScriptJournal
+ {
+   /**
+    * Returns the checksums of the statements of the specified SQL script executed and committed in a previous
+    * execution of the script, keyed by the statement number.
+    *
+    * @param connection the JDBC connection the SQL script is executed with.
+    * @param scriptUrl  the SQL script URL.
+    * @return the checksums of the executed statements, empty map if no statements have been executed.
+    * @throws SQLException if an SQL error occurs.
+    */
+   Map<Integer, Long> getExecutedStatements( Connection connection, URL scriptUrl )
+       throws SQLException;
+
+
+   /**
+    * Records the specified statements of the SQL script as executed.
+    *
+    * @param connection the JDBC connection the statements have been executed with.
+    * @param scriptUrl  the SQL script URL.
+    * @param statements the checksums of the executed statements keyed by the statement number.
+    * @throws SQLException if an SQL error occurs.
+    */
+   void recordExecutedStatements( Connection connection, URL scriptUrl, Map<Integer, Long> statements )
+       throws SQLException;
+ }
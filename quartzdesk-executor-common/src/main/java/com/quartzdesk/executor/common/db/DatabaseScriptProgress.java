@@ -0,0 +1,267 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.common.db;
+
+ import org.slf4j.Logger;
+ import org.slf4j.LoggerFactory;
+ import org.springframework.beans.factory.BeanNameAware;
+ import org.springframework.jmx.support.JmxUtils;
+ import org.springframework.jmx.support.ObjectNameManager;
+ import org.springframework.util.ClassUtils;
+
+ import javax.management.JMException;
+ import javax.management.MBeanServer;
+ import javax.management.ObjectName;
+ import java.net.URL;
+ import java.util.Hashtable;
+ import java.util.concurrent.atomic.AtomicLong;
+
+ /**
+  * Progress of the SQL scripts executed by the {@link DatabaseScriptExecutor} exposed through JMX. The progress
+  * of the SQL scripts is measured by the number of bytes of the scripts read by the executor.
+  *
+  * <p>
+  * SQL scripts are typically executed during the application startup, before the MBeans are exported by the
+  * Spring MBean exporter. Therefore, if this class is a Spring bean, it registers itself with the MBean server
+  * for the time the SQL scripts are executed, under the same object name the Spring MBean exporter uses.
+  * </p>
+  */
+ public class DatabaseScriptProgress
+     implements DatabaseScriptProgressMBean, BeanNameAware
+ {
+   private static final Logger log = LoggerFactory.getLogger( DatabaseScriptProgress.class );
+
+   private final AtomicLong readBytes = new AtomicLong();
+
+   private final AtomicLong executedStatements = new AtomicLong();
+
+   private final AtomicLong skippedStatements = new AtomicLong();
+
+   private String beanName;
+
+   private ObjectName registeredObjectName;
+
+   private volatile boolean running;
+
+   private volatile String currentScript;
+
+   private volatile long totalBytes = -1;
+
+   private volatile long startTime;
+
+   private volatile long finishTime;
+
+
+   @Override
+   public void setBeanName( String beanName )
+   {
+     this.beanName = beanName;
+   }
+
+
+   /**
+    * Invoked when the execution of SQL scripts starts. Resets the progress.
+    *
+    * @param totalBytes the total size (in bytes) of the SQL scripts, -1 if not known.
+    */
+   public synchronized void start( long totalBytes )
+   {
+     this.totalBytes = totalBytes;
+     readBytes.set( 0 );
+     executedStatements.set( 0 );
+     skippedStatements.set( 0 );
+     currentScript = null;
+     startTime = System.currentTimeMillis();
+     finishTime = 0;
+     running = true;
+
+     register();
+   }
+
+
+   /**
+    * Invoked when the execution of all SQL scripts has finished, or failed.
+    */
+   public synchronized void finish()
+   {
+     running = false;
+     finishTime = System.currentTimeMillis();
+
+     unregister();
+   }
+
+
+   /**
+    * Invoked when the execution of the specified SQL script starts.
+    *
+    * @param scriptUrl the SQL script URL.
+    */
+   public void scriptStarted( URL scriptUrl )
+   {
+     currentScript = scriptUrl.toString();
+   }
+
+
+   /**
+    * Invoked when the specified number of bytes of the SQL scripts has been read.
+    *
+    * @param count the number of bytes.
+    */
+   public void bytesRead( long count )
+   {
+     readBytes.addAndGet( count );
+   }
+
+
+   /**
+    * Invoked when the specified number of SQL statements has been executed.
+    *
+    * @param count the number of SQL statements.
+    */
+   public void statementsExecuted( int count )
+   {
+     executedStatements.addAndGet( count );
+   }
+
+
+   /**
+    * Invoked when an SQL statement executed in a previous execution of the SQL scripts has been skipped.
+    */
+   public void statementSkipped()
+   {
+     skippedStatements.incrementAndGet();
+   }
+
+
+   @Override
+   public boolean isRunning()
+   {
+     return running;
+   }
+
+
+   @Override
+   public String getCurrentScript()
+   {
+     return currentScript;
+   }
+
+
+   @Override
+   public long getExecutedStatementCount()
+   {
+     return executedStatements.get();
+   }
+
+
+   @Override
+   public long getSkippedStatementCount()
+   {
+     return skippedStatements.get();
+   }
+
+
+   @Override
+   public long getElapsedTime()
+   {
+     if ( startTime == 0 )
+       return 0;
+
+     return ( running ? System.currentTimeMillis() : finishTime ) - startTime;
+   }
+
+
+   @Override
+   public double getStatementsPerSecond()
+   {
+     long elapsedTime = getElapsedTime();
+     return elapsedTime > 0 ? executedStatements.get() * 1000.0 / elapsedTime : 0;
+   }
+
+
+   @Override
+   public double getProgress()
+   {
+     if ( !running )
+       return startTime == 0 ? 0 : 100;
+
+     long total = totalBytes;
+     if ( total <= 0 )
+       return -1;
+
+     return Math.min( 100, readBytes.get() * 100.0 / total );
+   }
+
+
+   @Override
+   public long getEstimatedRemainingTime()
+   {
+     if ( !running )
+       return 0;
+
+     long total = totalBytes;
+     long read = readBytes.get();
+     if ( total <= 0 || read == 0 )
+       return -1;
+
+     return Math.max( 0, getElapsedTime() * ( total - read ) / read );
+   }
+
+
+   /**
+    * Registers this MBean with the MBean server if it is a Spring bean and it has not been registered yet.
+    */
+   private void register()
+   {
+     if ( beanName == null || registeredObjectName != null )
+       return;
+
+     try
+     {
+       // same object name as produced by the MetadataNamingStrategy of the Spring MBean exporter
+       Hashtable<String, String> properties = new Hashtable<String, String>();
+       properties.put( "type", ClassUtils.getShortName( getClass() ) );
+       properties.put( "name", beanName );
+       ObjectName objectName =
+           ObjectNameManager.getInstance( ClassUtils.getPackageName( getClass() ), properties );
+
+       MBeanServer mbeanServer = JmxUtils.locateMBeanServer();
+       if ( !mbeanServer.isRegistered( objectName ) )
+       {
+         mbeanServer.registerMBean( this, objectName );
+         registeredObjectName = objectName;
+       }
+     }
+     catch ( JMException | RuntimeException e )
+     {
+       log.warn( "Error registering database script progress MBean: " + beanName, e );
+     }
+   }
+
+
+   /**
+    * Unregisters this MBean from the MBean server if it has been registered by {@link #register()}, so that it can
+    * be exported by the Spring MBean exporter.
+    */
+   private void unregister()
+   {
+     if ( registeredObjectName == null )
+       return;
+
+     try
+     {
+       JmxUtils.locateMBeanServer().unregisterMBean( registeredObjectName );
+     }
+     catch ( JMException | RuntimeException e )
+     {
+       log.warn( "Error unregistering database script progress MBean: " + registeredObjectName, e );
+     }
+     finally
+     {
+       registeredObjectName = null;
+     }
+   }
+ }
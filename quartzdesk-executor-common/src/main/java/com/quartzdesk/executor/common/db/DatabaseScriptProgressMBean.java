@@ -0,0 +1,78 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.common.db;
+
+ /**
+  * JMX management interface of the {@link DatabaseScriptProgress}.
+  */
+ public interface DatabaseScriptProgressMBean
+ {
+   /**
+    * Returns true if SQL scripts are being executed.
+    *
+    * @return true if SQL scripts are being executed, false otherwise.
+    */
+   boolean isRunning();
+
+
+   /**
+    * Returns the URL of the SQL script being executed, or the last executed SQL script.
+    *
+    * @return the SQL script URL, null if no SQL script has been executed.
+    */
+   String getCurrentScript();
+
+
+   /**
+    * Returns the number of executed SQL statements.
+    *
+    * @return the number of executed SQL statements.
+    */
+   long getExecutedStatementCount();
+
+
+   /**
+    * Returns the number of SQL statements skipped because they had been executed in a previous execution of
+    * the SQL scripts.
+    *
+    * @return the number of skipped SQL statements.
+    */
+   long getSkippedStatementCount();
+
+
+   /**
+    * Returns the time (in milliseconds) elapsed since the execution of the SQL scripts started.
+    *
+    * @return the elapsed time.
+    */
+   long getElapsedTime();
+
+
+   /**
+    * Returns the average number of SQL statements executed per second.
+    *
+    * @return the number of SQL statements per second.
+    */
+   double getStatementsPerSecond();
+
+
+   /**
+    * Returns the percentage (0 - 100) of the SQL scripts that has been processed, -1 if the size of the SQL
+    * scripts is not known.
+    *
+    * @return the percentage of the processed SQL scripts.
+    */
+   double getProgress();
+
+
+   /**
+    * Returns the estimated time (in milliseconds) remaining until all SQL scripts are executed, -1 if the
+    * remaining time cannot be estimated.
+    *
+    * @return the estimated remaining time.
+    */
+   long getEstimatedRemainingTime();
+ }
@@ -15,17 +15,27 @@
  import java.sql.Blob;
  import java.sql.Clob;
  import java.sql.Connection;
+ import java.sql.DatabaseMetaData;
  import java.sql.PreparedStatement;
  import java.sql.ResultSet;
  import java.sql.SQLException;
  import java.sql.Statement;
  import java.sql.Timestamp;
+ import java.time.Instant;
+ import java.time.LocalDate;
+ import java.time.OffsetDateTime;
+ import java.time.ZoneOffset;
  import java.util.Calendar;
  import java.util.Collections;
  import java.util.Date;
  import java.util.HashMap;
+ import java.util.LinkedHashMap;
+ import java.util.Locale;
  import java.util.Map;
  import java.util.TimeZone;
+ import java.util.concurrent.ConcurrentHashMap;
+ import java.util.concurrent.ConcurrentMap;
+ import java.util.concurrent.atomic.AtomicLong;
 
  /**
   * Various DB related utility methods.
@@ -35,11 +45,39 @@
    private static final Logger log = LoggerFactory.getLogger( DbUtils.class );
 
    /**
-    * Maps sequence names onto selects used to obtain the next sequence value.
+    * Maps database product and sequence names onto selects used to obtain the next sequence value.
     */
    private static final Map<String, String> SEQ_QUERY_CACHE =
        Collections.synchronizedMap( new HashMap<>() );
 
+   /**
+    * Maps database URL and sequence names onto the blocks of sequence values allocated by
+    * {@link #nextSequenceValue(Connection, String, int)}.
+    */
+   private static final ConcurrentMap<String, SequenceBlock> SEQ_BLOCK_CACHE = new ConcurrentHashMap<>();
+
+   /**
+    * Binders of the supported statement parameter types.
+    */
+   private static final Map<Class<?>, ParamBinder> PARAM_BINDERS = createParamBinders();
+
+   /**
+    * Binder of statement parameters of unsupported types.
+    */
+   private static final ParamBinder UNSUPPORTED_PARAM_BINDER = ( pstat, i, param ) -> {
+     throw new SQLException( "Unsupported type of statement parameter: " + param.getClass().getName() );
+   };
+
+   /**
+    * Maps concrete statement parameter classes onto their binders.
+    */
+   private static final ConcurrentMap<Class<?>, ParamBinder> PARAM_BINDER_CACHE = new ConcurrentHashMap<>();
+
+   /**
+    * Per-thread reset calendars used to bind {@link TimestampWithTZ} parameters keyed by their time zone.
+    */
+   private static final ThreadLocal<Map<TimeZone, Calendar>> CALENDAR_CACHE = ThreadLocal.withInitial( HashMap::new );
+
 
    /**
     * Private constructor of a utility class.
@@ -68,83 +106,225 @@
 
 
    /**
-    * Sets the parameters in the specified statement according to their runtime types.
+    * Sets the parameters in the specified statement according to their runtime types. The supported types are
+    * {@link String}, {@link Long}, {@link Integer}, {@link Short}, {@link Byte}, {@link BigDecimal}, {@link Double},
+    * {@link Float}, {@link Date} (bound as SQL date), {@link TimestampWithTZ}, {@code byte[]}, {@link Clob},
+    * {@link Blob}, {@link Boolean}, {@link Instant}, {@link LocalDate} and {@link OffsetDateTime}.
     *
     * @param pstat  a prepared statement.
     * @param params parameters.
     * @throws SQLException if an error occurs.
     */
-   static void setStatementParams( PreparedStatement pstat, Object... params )
+   public static void setStatementParams( PreparedStatement pstat, Object... params )
        throws SQLException
    {
      if ( params != null )
      {
-       for ( int i = 0; i < params.length; )
+       for ( int i = 0; i < params.length; i++ )
        {
-         Object param = params[i++];
-         if ( param instanceof String )
-         {
-           pstat.setString( i, (String) param );
-         }
-         else if ( param instanceof Long )
-         {
-           pstat.setLong( i, (Long) param );
-         }
-         else if ( param instanceof Integer )
-         {
-           pstat.setInt( i, (Integer) param );
-         }
-         else if ( param instanceof Short )
-         {
-           pstat.setShort( i, (Short) param );
-         }
-         else if ( param instanceof Byte )
-         {
-           pstat.setByte( i, (Byte) param );
-         }
-         else if ( param instanceof BigDecimal )
-         {
-           pstat.setBigDecimal( i, (BigDecimal) param );
-         }
-         else if ( param instanceof Double )
-         {
-           pstat.setDouble( i, (Double) param );
-         }
-         else if ( param instanceof Float )
-         {
-           pstat.setFloat( i, (Float) param );
-         }
-         else if ( param instanceof Date )
-         {
-           pstat.setDate( i, new java.sql.Date( ( (Date) param ).getTime() ) );
-         }
-         else if ( param instanceof TimestampWithTZ )
-         {
-           TimestampWithTZ tz = (TimestampWithTZ) param;
-           Calendar cal = DateTimeUtils.createResetCalendar( tz.getTimeZone() );
-           pstat.setTimestamp( i, new Timestamp( tz.getMillis() ), cal );
-         }
-         else if ( param instanceof byte[] )
-         {
-           pstat.setBytes( i, (byte[]) param );
-         }
-         else if ( param instanceof Clob )
-         {
-           pstat.setClob( i, (Clob) param );
-         }
-         else if ( param instanceof Blob )
-         {
-           pstat.setBlob( i, (Blob) param );
-         }
-         else if ( param instanceof Boolean )
-         {
-           pstat.setBoolean( i, (Boolean) param );
-         }
-         else
+         Object param = params[i];
+         getParamBinder( param.getClass() ).bind( pstat, i + 1, param );
+       }
+     }
+   }
+
+
+   /**
+    * Returns the binder of statement parameters of the specified class. The binder is looked up in the
+    * {@link #PARAM_BINDER_CACHE} and resolved from the {@link #PARAM_BINDERS} only on the first use of the class.
+    *
+    * @param paramClass a statement parameter class.
+    * @return the binder.
+    */
+   private static ParamBinder getParamBinder( Class<?> paramClass )
+   {
+     ParamBinder binder = PARAM_BINDER_CACHE.get( paramClass );
+     if ( binder == null )
+     {
+       binder = UNSUPPORTED_PARAM_BINDER;
+       for ( Map.Entry<Class<?>, ParamBinder> entry : PARAM_BINDERS.entrySet() )
+       {
+         if ( entry.getKey().isAssignableFrom( paramClass ) )
          {
-           throw new SQLException( "Unsupported type of statement parameter: " + param.getClass().getName() );
+           binder = entry.getValue();
+           break;
          }
        }
+       PARAM_BINDER_CACHE.putIfAbsent( paramClass, binder );
+     }
+     return binder;
+   }
+
+
+   /**
+    * Returns the binders of the supported statement parameter types in the order they are matched against the
+    * parameter class.
+    *
+    * @return the binders keyed by the parameter type.
+    */
+   private static Map<Class<?>, ParamBinder> createParamBinders()
+   {
+     Map<Class<?>, ParamBinder> binders = new LinkedHashMap<>();
+     binders.put( String.class, ( pstat, i, param ) -> pstat.setString( i, (String) param ) );
+     binders.put( Long.class, ( pstat, i, param ) -> pstat.setLong( i, (Long) param ) );
+     binders.put( Integer.class, ( pstat, i, param ) -> pstat.setInt( i, (Integer) param ) );
+     binders.put( Short.class, ( pstat, i, param ) -> pstat.setShort( i, (Short) param ) );
+     binders.put( Byte.class, ( pstat, i, param ) -> pstat.setByte( i, (Byte) param ) );
+     binders.put( BigDecimal.class, ( pstat, i, param ) -> pstat.setBigDecimal( i, (BigDecimal) param ) );
+     binders.put( Double.class, ( pstat, i, param ) -> pstat.setDouble( i, (Double) param ) );
+     binders.put( Float.class, ( pstat, i, param ) -> pstat.setFloat( i, (Float) param ) );
+     binders.put( Date.class,
+         ( pstat, i, param ) -> pstat.setDate( i, new java.sql.Date( ( (Date) param ).getTime() ) ) );
+     binders.put( TimestampWithTZ.class, ( pstat, i, param ) -> {
+       TimestampWithTZ tz = (TimestampWithTZ) param;
+       pstat.setTimestamp( i, new Timestamp( tz.getMillis() ), getResetCalendar( tz.getTimeZone() ) );
+     } );
+     binders.put( byte[].class, ( pstat, i, param ) -> pstat.setBytes( i, (byte[]) param ) );
+     binders.put( Clob.class, ( pstat, i, param ) -> pstat.setClob( i, (Clob) param ) );
+     binders.put( Blob.class, ( pstat, i, param ) -> pstat.setBlob( i, (Blob) param ) );
+     binders.put( Boolean.class, ( pstat, i, param ) -> pstat.setBoolean( i, (Boolean) param ) );
+
+     // JDBC 4.2 does not define a mapping of Instant, it is bound as a UTC timestamp with time zone
+     binders.put( Instant.class,
+         ( pstat, i, param ) -> pstat.setObject( i, ( (Instant) param ).atOffset( ZoneOffset.UTC ) ) );
+     binders.put( LocalDate.class, ( pstat, i, param ) -> pstat.setObject( i, param ) );
+     binders.put( OffsetDateTime.class, ( pstat, i, param ) -> pstat.setObject( i, param ) );
+     return Collections.unmodifiableMap( binders );
+   }
+
+
+   /**
+    * Returns a reset calendar with the specified time zone. The calendars are cached per thread, because JDBC
+    * drivers may modify the calendars passed to them.
+    *
+    * @param timeZone a time zone.
+    * @return the reset calendar.
+    */
+   private static Calendar getResetCalendar( TimeZone timeZone )
+   {
+     Calendar cal = CALENDAR_CACHE.get().computeIfAbsent( timeZone, DateTimeUtils::createResetCalendar );
+     cal.clear();
+     return cal;
+   }
+
+
+   /**
+    * Returns the next value of an identifier generated from the specified database sequence using the hi/lo
+    * algorithm. Every value (hi) fetched from the sequence reserves the block of identifiers
+    * {@code (hi - 1) * blockSize + 1} to {@code hi * blockSize}, so that only one sequence round-trip is
+    * required per block of identifiers. Blocks are shared by all threads allocating identifiers from the same
+    * sequence in the same database.
+    *
+    * <p>
+    * The sequence must be incremented by 1 and it must not be used to generate identifiers by other means
+    * (e.g. column default values), otherwise the generated identifiers may collide. Identifiers of a block that
+    * has not been used up (e.g. on application restart) are lost, i.e. the generated identifiers may contain gaps.
+    * With the block size of 1, the generated identifiers are equal to the sequence values.
+    * </p>
+    *
+    * @param con          a JDBC connection used to fetch the next sequence value if the current block is used up.
+    * @param sequenceName the sequence name.
+    * @param blockSize    the number of identifiers reserved by one sequence value.
+    * @return the next identifier.
+    * @throws SQLException if the next sequence value cannot be fetched, or the database does not support
+    *                      sequences.
+    */
+   public static long nextSequenceValue( Connection con, String sequenceName, int blockSize )
+       throws SQLException
+   {
+     if ( blockSize < 1 )
+       throw new IllegalArgumentException( "Invalid sequence block size: " + blockSize );
+
+     DatabaseMetaData metaData = con.getMetaData();
+     String blockKey = metaData.getURL() + '|' + sequenceName;
+
+     SequenceBlock block = SEQ_BLOCK_CACHE.get( blockKey );
+     if ( block != null )
+     {
+       long value = block.next();
+       if ( value != -1 )
+         return value;
+     }
+
+     // the block is used up, or has not been allocated yet
+     String query = getSequenceQuery( metaData.getDatabaseProductName(), sequenceName );
+     long hi = fetchSequenceValue( con, query );
+     SequenceBlock newBlock = new SequenceBlock( ( hi - 1 ) * blockSize + 1, hi * blockSize );
+     long value = newBlock.next();
+
+     // if another thread has replaced the block concurrently, the rest of our block is discarded
+     if ( block == null )
+       SEQ_BLOCK_CACHE.putIfAbsent( blockKey, newBlock );
+     else
+       SEQ_BLOCK_CACHE.replace( blockKey, block, newBlock );
+
+     log.debug( "Allocated block of identifiers: {} - {} from sequence: {}", newBlock.first, newBlock.last,
+         sequenceName );
+
+     return value;
+   }
+
+
+   /**
+    * Returns the select used to obtain the next value of the specified sequence in the specified database.
+    *
+    * @param databaseProductName the database product name as returned by the JDBC driver.
+    * @param sequenceName        the sequence name.
+    * @return the select.
+    * @throws SQLException if the database does not support sequences.
+    */
+   private static String getSequenceQuery( String databaseProductName, String sequenceName )
+       throws SQLException
+   {
+     String cacheKey = databaseProductName + '|' + sequenceName;
+
+     String query = SEQ_QUERY_CACHE.get( cacheKey );
+     if ( query == null )
+     {
+       String product = databaseProductName.toLowerCase( Locale.ROOT );
+       if ( product.contains( "oracle" ) )
+         query = "SELECT " + sequenceName + ".NEXTVAL FROM DUAL";
+       else if ( product.contains( "postgresql" ) )
+         query = "SELECT nextval('" + sequenceName + "')";
+       else if ( product.contains( "db2" ) )
+         query = "VALUES NEXT VALUE FOR " + sequenceName;
+       else if ( product.contains( "h2" ) || product.contains( "microsoft sql server" ) )
+         query = "SELECT NEXT VALUE FOR " + sequenceName;
+       else
+         throw new SQLException( "Sequences are not supported in database: " + databaseProductName );
+
+       SEQ_QUERY_CACHE.put( cacheKey, query );
+     }
+     return query;
+   }
+
+
+   /**
+    * Executes the specified select and returns the obtained sequence value.
+    *
+    * @param con   a JDBC connection.
+    * @param query the select returning the next sequence value.
+    * @return the sequence value.
+    * @throws SQLException if an SQL error occurs.
+    */
+   private static long fetchSequenceValue( Connection con, String query )
+       throws SQLException
+   {
+     Statement stat = null;
+     ResultSet res = null;
+     try
+     {
+       stat = con.createStatement();
+       res = stat.executeQuery( query );
+       if ( !res.next() )
+         throw new SQLException( "Sequence select returned no value: " + query );
+
+       return res.getLong( 1 );
+     }
+     finally
+     {
+       close( res );
+       close( stat );
      }
    }
 
@@ -506,4 +686,46 @@
      close( stat );
      close( con );
    }
+
+
+   /**
+    * Binds a statement parameter of a specific type.
+    */
+   @FunctionalInterface
+   private interface ParamBinder
+   {
+     void bind( PreparedStatement pstat, int index, Object param )
+         throws SQLException;
+   }
+
+
+   /**
+    * Block of identifiers reserved by a sequence value. The identifiers are handed out without locking.
+    */
+   private static final class SequenceBlock
+   {
+     private final long first;
+
+     private final long last;
+
+     private final AtomicLong nextValue;
+
+
+     private SequenceBlock( long first, long last )
+     {
+       this.first = first;
+       this.last = last;
+       this.nextValue = new AtomicLong( first );
+     }
+
+
+     /**
+      * Returns the next identifier of this block, or -1 if the block is used up.
+      */
+     private long next()
+     {
+       long value = nextValue.getAndIncrement();
+       return value <= last ? value : -1;
+     }
+   }
  }
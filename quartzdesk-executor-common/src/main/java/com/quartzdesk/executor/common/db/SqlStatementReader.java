@@ -0,0 +1,364 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.common.db;
+
+ import com.quartzdesk.executor.common.text.StringUtils;
+
+ import java.io.IOException;
+ import java.io.LineNumberReader;
+ import java.io.Reader;
+
+ /**
+  * Incremental tokenizer that reads SQL statements from an SQL script one by one. Only the statement being
+  * parsed and a small look-ahead are kept in memory, so the memory required to parse an SQL script is
+  * proportional to the size of its largest statement, not the size of the script.
+  *
+  * <p>
+  * The script is processed in two steps:
+  * <ol>
+  * <li>Blank lines and lines starting with the comment prefix are skipped, except for the special
+  * {@code -- [statement]} and {@code -- [/statement]} lines that escape statements containing statement
+  * separators (e.g. PostgreSQL function declarations).</li>
+  * <li>The remaining lines are split into statements delimited by the statement separator. Separators in string
+  * literals, escaped characters (MySQL style) and separators between the {@code -- [statement]} and
+  * {@code -- [/statement]} lines are ignored, text starting with the comment prefix and extending to the end of
+  * the line is omitted and multiple adjacent whitespace characters are collapsed into a single space.</li>
+  * </ol>
+  * </p>
+  *
+  * The caller is responsible for closing the underlying reader.
+  */
+ public class SqlStatementReader
+ {
+   private static final String STATEMENT_SEPARATOR_START = "[statement]";
+
+   private static final String STATEMENT_SEPARATOR_END = "[/statement]";
+
+   private final LineNumberReader lineReader;
+
+   private final String commentPrefix;
+
+   private final String statementSeparatorStart;
+
+   private final String statementSeparatorEnd;
+
+   private final String separator;
+
+   /**
+    * Script lines that have been read but not yet consumed. Characters before {@link #pos} have been consumed.
+    */
+   private final StringBuilder buffer = new StringBuilder();
+
+   private int pos;
+
+   private boolean firstLine = true;
+
+   private boolean endOfLines;
+
+   private boolean endOfScript;
+
+   private boolean inLiteral;
+
+   private boolean inEscape;
+
+   private boolean inStatementEscape;
+
+
+   /**
+    * Creates a new SQL statement reader.
+    *
+    * @param reader        the SQL script reader.
+    * @param commentPrefix the prefix that identifies line comments in the SQL script &mdash; typically "--", can
+    *                      be null if the SQL script does not contain comments.
+    * @param separator     the statement separator as configured by the user, or null if not configured. The
+    *                      trailing whitespace of the separator is appended to the script if the script ends with
+    *                      the trimmed separator.
+    */
+   public SqlStatementReader( Reader reader, String commentPrefix, String separator )
+   {
+     this.lineReader = new LineNumberReader( reader );
+     this.commentPrefix = commentPrefix;
+     this.statementSeparatorStart = commentPrefix + ' ' + STATEMENT_SEPARATOR_START;
+     this.statementSeparatorEnd = commentPrefix + ' ' + STATEMENT_SEPARATOR_END;
+     this.separator = separator;
+   }
+
+
+   /**
+    * Returns the number of the last script line read by this reader.
+    *
+    * @return the line number.
+    */
+   public int getLineNumber()
+   {
+     return lineReader.getLineNumber();
+   }
+
+
+   /**
+    * Returns true if the remaining part of the SQL script contains the specified delimiter outside string literals.
+    * This method stops reading the script at the first delimiter found and consumes the script, i.e. the reader
+    * cannot be used to read statements afterwards.
+    *
+    * @param delim the delimiter (typically a ';' character).
+    * @return true if the script contains the delimiter, false otherwise.
+    * @throws IOException if an I/O error occurs.
+    */
+   public boolean containsDelimiter( String delim )
+       throws IOException
+   {
+     boolean inLiteral = false;
+     for ( int c = peek(); c != -1; c = peek() )
+     {
+       if ( c == '\'' )
+       {
+         inLiteral = !inLiteral;
+       }
+       if ( !inLiteral && startsWith( delim ) )
+       {
+         return true;
+       }
+       pos++;
+     }
+     return false;
+   }
+
+
+   /**
+    * Reads the next SQL statement delimited by the specified delimiter.
+    *
+    * @param delim the delimiter (typically a ';' character).
+    * @return the next SQL statement, or null if there are no more statements in the script.
+    * @throws IOException if an I/O error occurs.
+    */
+   public String nextStatement( String delim )
+       throws IOException
+   {
+     StringBuilder sb = new StringBuilder();
+
+     while ( !endOfScript )
+     {
+       int next = peek();
+       if ( next == -1 )
+       {
+         endOfScript = true;
+         break;
+       }
+
+       char c = (char) next;
+
+       if ( inEscape )
+       {
+         inEscape = false;
+         sb.append( c );
+         pos++;
+         continue;
+       }
+
+       // MySQL style escapes
+       if ( c == '\\' )
+       {
+         inEscape = true;
+         sb.append( c );
+         pos++;
+         continue;
+       }
+
+       if ( c == '\'' )
+       {
+         inLiteral = !inLiteral;
+       }
+
+       if ( !inLiteral )
+       {
+         // normal statements ending with ;
+         if ( startsWith( delim ) && !inStatementEscape )
+         {
+           // we've reached the end of the current statement
+           pos += delim.length();
+           if ( sb.length() > 0 )
+           {
+             return sb.toString();
+           }
+           continue;
+         }
+         else if ( commentPrefix != null && startsWith( commentPrefix ) )
+         {
+           // -- [statement]
+           if ( startsWith( statementSeparatorStart ) )
+           {
+             inStatementEscape = true;
+           }
+
+           // -- [/statement]
+           boolean statementEnd = startsWith( statementSeparatorEnd );
+           if ( statementEnd )
+           {
+             inStatementEscape = false;
+           }
+
+           // skip over any content from the start of the comment to the EOL, if there's no newline after
+           // the comment, we must be at the end of the script, so stop here
+           skipLine();
+
+           // we've reached the end of the escaped statement
+           if ( statementEnd && sb.length() > 0 )
+           {
+             return sb.toString();
+           }
+           continue;
+         }
+         else if ( c == ' ' || c == '\n' || c == '\t' )
+         {
+           // avoid multiple adjacent whitespace characters
+           if ( sb.length() > 0 && sb.charAt( sb.length() - 1 ) != ' ' )
+           {
+             c = ' ';
+           }
+           else
+           {
+             pos++;
+             continue;
+           }
+         }
+       }
+       sb.append( c );
+       pos++;
+     }
+
+     String statement = sb.toString();
+     return StringUtils.isNotBlank( statement ) ? statement : null;
+   }
+
+
+   /**
+    * Skips the characters up to and including the next newline. Sets the {@link #endOfScript} flag if there is
+    * no newline.
+    */
+   private void skipLine()
+       throws IOException
+   {
+     for ( int c = peek(); c != -1; c = peek() )
+     {
+       pos++;
+       if ( c == '\n' )
+         return;
+     }
+     endOfScript = true;
+   }
+
+
+   /**
+    * Returns the next unconsumed character of the script, or -1 if the end of the script has been reached.
+    */
+   private int peek()
+       throws IOException
+   {
+     fill( 1 );
+     return pos < buffer.length() ? buffer.charAt( pos ) : -1;
+   }
+
+
+   /**
+    * Returns true if the unconsumed part of the script starts with the specified string.
+    */
+   private boolean startsWith( String str )
+       throws IOException
+   {
+     fill( str.length() );
+     if ( buffer.length() - pos < str.length() )
+       return false;
+
+     for ( int i = 0; i < str.length(); i++ )
+     {
+       if ( buffer.charAt( pos + i ) != str.charAt( i ) )
+         return false;
+     }
+     return true;
+   }
+
+
+   /**
+    * Reads the script lines into the buffer until the buffer contains at least the specified number of
+    * unconsumed characters, or the end of the script has been reached. Consumed characters are discarded.
+    */
+   private void fill( int length )
+       throws IOException
+   {
+     while ( buffer.length() - pos < length && !endOfLines )
+     {
+       if ( pos > 0 )
+       {
+         buffer.delete( 0, pos );
+         pos = 0;
+       }
+
+       String line = nextLine();
+       if ( line == null )
+       {
+         endOfLines = true;
+         maybeAddSeparator();
+       }
+       else
+       {
+         if ( !firstLine )
+         {
+           buffer.append( '\n' );
+         }
+         buffer.append( line );
+         firstLine = false;
+       }
+     }
+   }
+
+
+   /**
+    * Returns the next non-blank script line that is not a comment, or is one of the special
+    * {@code -- [statement]} and {@code -- [/statement]} comments.
+    */
+   private String nextLine()
+       throws IOException
+   {
+     String line = lineReader.readLine();
+     while ( line != null )
+     {
+       if ( StringUtils.isNotBlank( line ) )
+       {
+         if ( commentPrefix == null || !line.startsWith( commentPrefix ) )
+         {
+           return line;
+         }
+         if ( line.startsWith( statementSeparatorStart ) || line.startsWith( statementSeparatorEnd ) )
+         {
+           return line;
+         }
+       }
+
+       line = lineReader.readLine();
+     }
+     return null;
+   }
+
+
+   private void maybeAddSeparator()
+   {
+     if ( separator == null )
+     {
+       return;
+     }
+     String trimmed = separator.trim();
+     if ( trimmed.length() == separator.length() )
+     {
+       return;
+     }
+     // separator ends in whitespace, so we might want to see if the script is trying
+     // to end the same way
+     if ( buffer.lastIndexOf( trimmed ) == buffer.length() - trimmed.length() )
+     {
+       buffer.append( separator.substring( trimmed.length() ) );
+     }
+   }
+ }
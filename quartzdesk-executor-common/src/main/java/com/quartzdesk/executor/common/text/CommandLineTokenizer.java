@@ -0,0 +1,193 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.common.text;
+
+ import com.quartzdesk.executor.common.CommonConst;
+
+ import java.util.ArrayList;
+ import java.util.Collections;
+ import java.util.LinkedHashMap;
+ import java.util.List;
+ import java.util.Map;
+ import java.util.regex.Matcher;
+ import java.util.regex.Pattern;
+
+ /**
+  * Splits space-separated command line arguments into individual arguments. Sequences enclosed in double-quotes,
+  * or single-quotes are treated as a single argument and the enclosing quotes are removed.
+  *
+  * <p>
+  * Parsed command lines are kept in a bounded LRU cache keyed by the command and its arguments so that jobs that
+  * are repeatedly executed with the same (macro-expanded) command line do not re-tokenize their arguments on every
+  * execution.
+  * </p>
+  */
+ public final class CommandLineTokenizer
+ {
+   /**
+    * Shared instance using the default cache size.
+    */
+   public static final CommandLineTokenizer INSTANCE = new CommandLineTokenizer();
+
+   /**
+    * Matches a double-quoted sequence (group 1), single-quoted sequence (group 2), or an unquoted word.
+    */
+   private static final Pattern ARGUMENT_PATTERN = Pattern.compile( "\"([^\"]*)\"|'([^']*)'|[^\\s]+" );
+
+   /**
+    * Default maximum number of cached command lines.
+    */
+   private static final int DEFAULT_CACHE_SIZE = 256;
+
+   private final Map<String, List<String>> commandLineCache;
+
+
+   /**
+    * Creates a new {@link CommandLineTokenizer} using the default cache size.
+    */
+   public CommandLineTokenizer()
+   {
+     this( DEFAULT_CACHE_SIZE );
+   }
+
+
+   /**
+    * Creates a new {@link CommandLineTokenizer} using the specified cache size.
+    *
+    * @param cacheSize the maximum number of cached command lines.
+    */
+   public CommandLineTokenizer( final int cacheSize )
+   {
+     commandLineCache = Collections.synchronizedMap( new LinkedHashMap<String, List<String>>( 16, 0.75f, true )
+     {
+       @Override
+       protected boolean removeEldestEntry( Map.Entry<String, List<String>> eldest )
+       {
+         return size() > cacheSize;
+       }
+     } );
+   }
+
+
+   /**
+    * Returns the command line consisting of the specified command followed by the parsed command arguments.
+    * The returned list is unmodifiable.
+    *
+    * @param command     a command.
+    * @param commandArgs concatenated command arguments separated by spaces, can be null.
+    * @return the command line.
+    */
+   public List<String> getCommandLine( String command, String commandArgs )
+   {
+     String cacheKey = commandArgs == null ? command : command + '\0' + commandArgs;
+
+     List<String> commandLine = commandLineCache.get( cacheKey );
+     if ( commandLine == null )
+     {
+       List<String> args = tokenize( commandArgs );
+
+       commandLine = new ArrayList<>( args.size() + 1 );
+       commandLine.add( command );
+       commandLine.addAll( args );
+       commandLine = Collections.unmodifiableList( commandLine );
+
+       commandLineCache.put( cacheKey, commandLine );
+     }
+
+     return commandLine;
+   }
+
+
+   /**
+    * Parses the specified command arguments. This method does not use the cache.
+    *
+    * @param commandArgs concatenated command arguments separated by spaces, can be null.
+    * @return the list of parsed arguments.
+    */
+   public List<String> tokenize( String commandArgs )
+   {
+     List<String> args = new ArrayList<>();
+
+     if ( commandArgs != null )
+     {
+       Matcher matcher = ARGUMENT_PATTERN.matcher( commandArgs );
+       while ( matcher.find() )
+       {
+         if ( matcher.group( 1 ) != null )
+         {
+           // add double-quoted string without the quotes
+           args.add( matcher.group( 1 ) );
+         }
+         else if ( matcher.group( 2 ) != null )
+         {
+           // add single-quoted string without the quotes
+           args.add( matcher.group( 2 ) );
+         }
+         else
+         {
+           // add unquoted word
+           args.add( matcher.group() );
+         }
+       }
+     }
+
+     return args;
+   }
+
+
+   /**
+    * Joins the specified arguments into a single string that can be passed to a POSIX shell. Arguments that
+    * are empty, or contain white-space or quote characters are enclosed in single-quotes. Other arguments
+    * are passed as is so that shell operators (pipes, redirections etc.) keep working.
+    *
+    * @param args the arguments.
+    * @return the joined arguments.
+    */
+   public static String toShellArgs( List<String> args )
+   {
+     StringBuilder sb = new StringBuilder();
+
+     for ( String arg : args )
+     {
+       if ( sb.length() > 0 )
+         sb.append( CommonConst.SINGLE_SPACE );
+
+       if ( requiresShellQuoting( arg ) )
+       {
+         // 'it'\''s' - single-quotes inside single-quoted strings must be closed, escaped and reopened
+         sb.append( '\'' ).append( arg.replace( "'", "'\\''" ) ).append( '\'' );
+       }
+       else
+       {
+         sb.append( arg );
+       }
+     }
+
+     return sb.toString();
+   }
+
+
+   /**
+    * Returns true if the specified argument must be quoted to be passed to a POSIX shell as a single argument.
+    *
+    * @param arg an argument.
+    * @return true if the argument must be quoted, false otherwise.
+    */
+   private static boolean requiresShellQuoting( String arg )
+   {
+     if ( arg.isEmpty() )
+       return true;
+
+     for ( int i = 0; i < arg.length(); i++ )
+     {
+       char c = arg.charAt( i );
+       if ( Character.isWhitespace( c ) || c == '\'' || c == '"' )
+         return true;
+     }
+
+     return false;
+   }
+ }
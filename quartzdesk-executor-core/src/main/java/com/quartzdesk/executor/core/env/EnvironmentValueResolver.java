@@ -0,0 +1,209 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.env;
+
+ import com.quartzdesk.executor.common.CommonConst;
+
+ import org.slf4j.Logger;
+ import org.slf4j.LoggerFactory;
+
+ import java.io.File;
+ import java.io.IOException;
+ import java.nio.charset.Charset;
+ import java.nio.file.Files;
+ import java.util.Iterator;
+ import java.util.Map;
+ import java.util.concurrent.ConcurrentHashMap;
+ import java.util.concurrent.ConcurrentMap;
+
+ /**
+  * Resolves values of process environment variables injected into executed commands and caches the resolved
+  * values for the configured time-to-live. A value can be either of:
+  * <dl>
+  * <dt>a literal value</dt>
+  * <dd>The value is used as is.</dd>
+  *
+  * <dt>file:&lt;path&gt;</dt>
+  * <dd>The value is read from the specified file (for example, a mounted secret). Trailing line separators are
+  * removed from the file content. The read value is cached so that frequently executed jobs do not re-read the
+  * file on every execution.</dd>
+  *
+  * <dt>literal:&lt;value&gt;</dt>
+  * <dd>The value following the prefix is used as is. Allows passing literal values starting with {@code file:},
+  * e.g. {@code literal:file:/tmp/report.txt} resolves to {@code file:/tmp/report.txt}.</dd>
+  * </dl>
+  *
+  * Instances of this class are thread-safe and they are intended to be shared by all executed jobs.
+  */
+ public class EnvironmentValueResolver
+ {
+   private static final Logger log = LoggerFactory.getLogger( EnvironmentValueResolver.class );
+
+   /**
+    * Prefix of values referring to a file containing the actual value.
+    */
+   public static final String FILE_REF_PREFIX = "file:";
+
+   /**
+    * Prefix of literal values. Used to escape literal values starting with the {@link #FILE_REF_PREFIX}.
+    */
+   public static final String LITERAL_PREFIX = "literal:";
+
+   /**
+    * Default time-to-live of cached values in milliseconds.
+    */
+   private static final long DEFAULT_TIME_TO_LIVE = 300000L;
+
+   /**
+    * Default maximum number of cached values.
+    */
+   private static final int DEFAULT_MAX_SIZE = 1000;
+
+   private final ConcurrentMap<String, CachedValue> cache = new ConcurrentHashMap<>();
+
+   private long timeToLive = DEFAULT_TIME_TO_LIVE;
+
+   private int maxSize = DEFAULT_MAX_SIZE;
+
+   private String encoding = CommonConst.ENCODING_UTF8;
+
+
+   /**
+    * Sets the time-to-live of cached values in milliseconds. Value &lt;= 0 disables caching.
+    *
+    * @param timeToLive the time-to-live in milliseconds.
+    */
+   public void setTimeToLive( long timeToLive )
+   {
+     this.timeToLive = timeToLive;
+   }
+
+
+   /**
+    * Sets the maximum number of cached values.
+    *
+    * @param maxSize the maximum number of cached values.
+    */
+   public void setMaxSize( int maxSize )
+   {
+     this.maxSize = maxSize;
+   }
+
+
+   /**
+    * Sets the encoding of files referenced by {@code file:} values. The default encoding is UTF-8.
+    *
+    * @param encoding the encoding.
+    */
+   public void setEncoding( String encoding )
+   {
+     this.encoding = encoding;
+   }
+
+
+   /**
+    * Resolves the specified environment variable value.
+    *
+    * @param value a literal value, or a value reference.
+    * @return the resolved value.
+    * @throws IOException if the referenced value cannot be read.
+    */
+   public String resolve( String value )
+       throws IOException
+   {
+     if ( value == null )
+       return null;
+
+     if ( value.startsWith( LITERAL_PREFIX ) )
+       return value.substring( LITERAL_PREFIX.length() );
+
+     if ( !value.startsWith( FILE_REF_PREFIX ) )
+       return value;
+
+     long now = System.currentTimeMillis();
+
+     CachedValue cachedValue = cache.get( value );
+     if ( cachedValue != null && cachedValue.expiresAt > now )
+       return cachedValue.value;
+
+     String resolvedValue = readFile( new File( value.substring( FILE_REF_PREFIX.length() ) ) );
+
+     if ( timeToLive > 0 )
+     {
+       if ( cache.size() >= maxSize )
+         evictExpired( now );
+
+       if ( cache.size() < maxSize )
+         cache.put( value, new CachedValue( resolvedValue, now + timeToLive ) );
+     }
+
+     return resolvedValue;
+   }
+
+
+   /**
+    * Removes all cached values.
+    */
+   public void evictAll()
+   {
+     cache.clear();
+   }
+
+
+   /**
+    * Removes all expired cached values.
+    *
+    * @param now the current time in milliseconds.
+    */
+   private void evictExpired( long now )
+   {
+     for ( Iterator<Map.Entry<String, CachedValue>> i = cache.entrySet().iterator(); i.hasNext(); )
+     {
+       if ( i.next().getValue().expiresAt <= now )
+         i.remove();
+     }
+   }
+
+
+   /**
+    * Reads the value from the specified file.
+    *
+    * @param file a file.
+    * @return the file content without trailing line separators.
+    * @throws IOException if an I/O error occurs.
+    */
+   private String readFile( File file )
+       throws IOException
+   {
+     log.debug( "Reading environment variable value from file: {}", file.getAbsolutePath() );
+
+     String content = new String( Files.readAllBytes( file.toPath() ), Charset.forName( encoding ) );
+
+     int end = content.length();
+     while ( end > 0 && ( content.charAt( end - 1 ) == '\n' || content.charAt( end - 1 ) == '\r' ) )
+       end--;
+
+     return content.substring( 0, end );
+   }
+
+
+   /**
+    * Resolved value with its expiration time.
+    */
+   private static class CachedValue
+   {
+     private final String value;
+
+     private final long expiresAt;
+
+
+     private CachedValue( String value, long expiresAt )
+     {
+       this.value = value;
+       this.expiresAt = expiresAt;
+     }
+   }
+ }
@@ -5,8 +5,11 @@
 
  package com.quartzdesk.executor.core.job;
 
+ import com.quartzdesk.executor.common.text.CommandLineTokenizer;
  import com.quartzdesk.executor.common.text.StringUtils;
  import com.quartzdesk.executor.core.CommonConst;
+ import com.quartzdesk.executor.core.env.EnvironmentValueResolver;
+ import com.quartzdesk.executor.core.spawn.ProcessSpawner;
 
  import org.quartz.DisallowConcurrentExecution;
  import org.quartz.InterruptableJob;
@@ -25,13 +28,12 @@
  import java.io.InputStreamReader;
  import java.lang.reflect.InvocationTargetException;
  import java.lang.reflect.Method;
- import java.util.ArrayList;
+ import java.util.HashMap;
  import java.util.List;
+ import java.util.Map;
  import java.util.concurrent.Callable;
  import java.util.concurrent.ExecutorService;
  import java.util.concurrent.Future;
- import java.util.regex.Matcher;
- import java.util.regex.Pattern;
 
  /**
   * A Quartz job implementation that executes an arbitrary local command/script specified in a job data map parameter.
@@ -47,6 +49,12 @@
   *
   * <dt>commandWorkDir</dt>
   * <dd>An optional work directory for the command.</dd>
+  *
+  * <dt>env[NAME]</dt>
+  * <dd>Optional environment variable NAME to set in the command process environment. The job data map can contain
+  * multiple such parameters. A value in the {@code file:<path>} format is read from the specified file and cached
+  * by the {@link EnvironmentValueResolver} so that the file is not re-read on every job execution. Literal values
+  * starting with {@code file:} must be prefixed with {@code literal:}, e.g. {@code literal:file:/tmp/report.txt}.</dd>
   * </dl>
   */
  @DisallowConcurrentExecution
@@ -62,6 +70,23 @@
 
    private static final String JDM_KEY_COMMAND_WORK_DIR = "commandWorkDir";
 
+   /**
+    * Prefix of an optional job data map parameter containing a process environment variable. The job data map can
+    * contain multiple such parameters and their names have the following format:
+    * <pre>
+    *   env[ENVIRONMENT_VARIABLE_NAME]
+    *
+    *   For example:
+    *   env[JAVA_HOME]
+    * </pre>
+    */
+   private static final String JDM_ENV_PREFIX = "env[";
+
+   /**
+    * Suffix of an optional job data map parameter containing a process environment variable.
+    */
+   private static final String JDM_ENV_SUFFIX = "]";
+
    /**
     * Maximum number of attempts to stop the started native process.
     */
@@ -69,6 +94,10 @@
 
    private static final String PROCESS_OUTPUT_EXECUTOR_BEAN_NAME = "processOutputExecutor";
 
+   private static final String ENVIRONMENT_VALUE_RESOLVER_BEAN_NAME = "environmentValueResolver";
+
+   private static final String PROCESS_SPAWNER_BEAN_NAME = "processSpawner";
+
    private Process process;
 
 
@@ -173,8 +202,13 @@
        processBuilder.directory( commandWorkDirFile );
      }
 
-     // we could possibly set the process environment here
-     //processBuilder.environment()
+     // set the process environment variables if specified
+     Map<String, String> environment = getProcessEnvironment( context, jobDataMap );
+     if ( !environment.isEmpty() )
+     {
+       log.info( "Setting local command environment variables: {}", environment.keySet() );
+       processBuilder.environment().putAll( environment );
+     }
 
      try
      {
@@ -182,7 +216,8 @@
 
        ExecutorService standardOutputExecutor = getProcessOutputExecutor( context );
 
-       process = processBuilder.start();
+       // started either directly, or through the spawn server if enabled
+       process = getProcessSpawner( context ).start( processBuilder );
 
        StandardOutputReaderCallable stdOutCallable = new StandardOutputReaderCallable( process.getInputStream() );
        Future<String> stdOutDataFuture = standardOutputExecutor.submit( stdOutCallable );
@@ -241,6 +276,76 @@
    }
 
 
+   /**
+    * Returns the {@link ProcessSpawner} instance to be used to start the command process.
+    *
+    * @param context the job execution context.
+    * @return the {@link ProcessSpawner} instance.
+    */
+   private ProcessSpawner getProcessSpawner( JobExecutionContext context )
+   {
+     ApplicationContext appCtx = getApplicationContext( context );
+     return appCtx.getBean( PROCESS_SPAWNER_BEAN_NAME, ProcessSpawner.class );
+   }
+
+
+   /**
+    * Returns the {@link EnvironmentValueResolver} instance to be used to resolve process environment variable values.
+    *
+    * @param context the job execution context.
+    * @return the {@link EnvironmentValueResolver} instance.
+    */
+   private EnvironmentValueResolver getEnvironmentValueResolver( JobExecutionContext context )
+   {
+     ApplicationContext appCtx = getApplicationContext( context );
+     return appCtx.getBean( ENVIRONMENT_VALUE_RESOLVER_BEAN_NAME, EnvironmentValueResolver.class );
+   }
+
+
+   /**
+    * Returns the process environment variables specified in the {@code env[NAME]} job data map parameters.
+    * Values of the environment variables are resolved by the {@link EnvironmentValueResolver}.
+    *
+    * @param context    the job execution context.
+    * @param jobDataMap the job data map.
+    * @return the environment variables, empty map if no environment variables are specified.
+    * @throws JobExecutionException if an environment variable value cannot be resolved.
+    */
+   private Map<String, String> getProcessEnvironment( JobExecutionContext context, JobDataMap jobDataMap )
+       throws JobExecutionException
+   {
+     Map<String, String> environment = new HashMap<>();
+     EnvironmentValueResolver valueResolver = null;
+
+     for ( String key : jobDataMap.keySet() )
+     {
+       if ( key.startsWith( JDM_ENV_PREFIX ) && key.endsWith( JDM_ENV_SUFFIX ) )
+       {
+         String name = key.substring( JDM_ENV_PREFIX.length(), key.length() - JDM_ENV_SUFFIX.length() );
+         if ( !name.isEmpty() )
+         {
+           if ( valueResolver == null )
+             valueResolver = getEnvironmentValueResolver( context );
+
+           try
+           {
+             String value = valueResolver.resolve( jobDataMap.getString( key ) );
+             environment.put( name, value == null ? CommonConst.EMPTY_STRING : value );
+           }
+           catch ( IOException e )
+           {
+             throw new JobExecutionException(
+                 "Error resolving value of environment variable '" + name + "' specified in the '" + key +
+                     "' job data map parameter.", e );
+           }
+         }
+       }
+     }
+
+     return environment;
+   }
+
+
    /**
     * Returns the PID of the specified process.
     *
@@ -301,36 +406,8 @@
     */
    private List<String> prepareCommandLine( String commandPath, String commandArgs )
    {
-     List<String> commandLine = new ArrayList<String>();
-     commandLine.add( commandPath );
-
-     if ( commandArgs != null )
-     {
-       //
-       // Parse commandArgs value. Sequences enclosed in double-quotes are treated as a single argument.
-       //
-       Matcher matcher = Pattern.compile( "\"([^\"]*)\"|'([^']*)'|[^\\s]+" ).matcher( commandArgs );
-       while ( matcher.find() )
-       {
-         if ( matcher.group( 1 ) != null )
-         {
-           // Add double-quoted string without the quotes
-           commandLine.add( matcher.group( 1 ) );
-         }
-         else if ( matcher.group( 2 ) != null )
-         {
-           // Add single-quoted string without the quotes
-           commandLine.add( matcher.group( 2 ) );
-         }
-         else
-         {
-           // Add unquoted word
-           commandLine.add( matcher.group() );
-         }
-       }
-     }
-
-     return commandLine;
+     // sequences enclosed in double-quotes, or single-quotes are treated as a single argument
+     return CommandLineTokenizer.INSTANCE.getCommandLine( commandPath, commandArgs );
    }
 
 
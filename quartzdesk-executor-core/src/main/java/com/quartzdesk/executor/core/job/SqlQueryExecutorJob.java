@@ -5,16 +5,38 @@
 
  package com.quartzdesk.executor.core.job;
 
- import com.opencsv.CSVWriter;
+ import com.quartzdesk.executor.common.db.DbUtils;
+ import com.quartzdesk.executor.core.sql.BinaryResultSetFormat;
+ import com.quartzdesk.executor.core.sql.CsvResultSetFormat;
+ import com.quartzdesk.executor.core.sql.PartitionedQueryExecutor;
+ import com.quartzdesk.executor.core.sql.QueryResultCache;
+ import com.quartzdesk.executor.core.sql.ResultSetFormat;
+ import com.quartzdesk.executor.core.sql.SqlParameterParser;
+ import com.quartzdesk.executor.core.sql.SqlPartitioner;
+ import com.quartzdesk.executor.core.sql.SqlStatement;
+ import com.quartzdesk.executor.core.sql.SqlStatementWatchdog;
+ import com.quartzdesk.executor.core.sql.WatermarkTracker;
+ import com.quartzdesk.executor.core.sql.WatermarkType;
+ import com.quartzdesk.executor.dao.job.JobWatermarkDao;
+
  import org.quartz.DisallowConcurrentExecution;
+ import org.quartz.InterruptableJob;
  import org.quartz.JobDataMap;
  import org.quartz.JobExecutionContext;
  import org.quartz.JobExecutionException;
+ import org.quartz.JobKey;
+ import org.quartz.UnableToInterruptJobException;
  import org.slf4j.Logger;
  import org.slf4j.LoggerFactory;
+ import org.springframework.jdbc.datasource.DriverManagerDataSource;
 
+ import java.io.BufferedOutputStream;
+ import java.io.ByteArrayOutputStream;
  import java.io.IOException;
- import java.io.StringWriter;
+ import java.io.OutputStream;
+ import java.nio.charset.StandardCharsets;
+ import java.nio.file.Files;
+ import java.nio.file.Paths;
  import java.sql.Connection;
  import java.sql.Driver;
  import java.sql.DriverManager;
@@ -22,17 +44,27 @@
  import java.sql.ResultSet;
  import java.sql.SQLException;
  import java.sql.Statement;
+ import java.util.ArrayList;
+ import java.util.Arrays;
+ import java.util.HashMap;
+ import java.util.List;
+ import java.util.Locale;
+ import java.util.Map;
+ import java.util.SortedMap;
+ import java.util.TreeMap;
+ import java.util.regex.Pattern;
 
  /**
-  * Quartz job implementation that executes an SQL query in the specified database and saves the result set in the CVS
-  * format in the job execution result. This job accepts the following job data map parameters. Required parameters
-  * marked with (*):
+  * Quartz job implementation that executes SQL statements in the specified database and saves the result set in the
+  * CVS (or other) format in the job execution result, or in a file. This job accepts the following job data map
+  * parameters. Required parameters marked with (*):
   * <dl>
   * <dt>jdbcDriver (*)</dt>
   * <dd>The fully-qualified class name of the JDBC driver to use. Make sure the JDBC driver is on the classpath!</dd>
   *
   * <dt>jdbcUrl (*)</dt>
-  * <dd>The JDBC driver-specific URL that is used to connect to the database.</dd>
+  * <dd>The JDBC driver-specific URL that is used to connect to the database. Driver-level prepared statement caching
+  * can be enabled through the driver-specific URL properties (e.g. cachePrepStmts=true for MySQL).</dd>
   *
   * <dt>jdbcUsername (*)</dt>
   * <dd>The username to authenticate with.</dd>
@@ -41,18 +73,112 @@
   * <dd>The password to authenticate with.</dd>
   *
   * <dt>sqlQuery (*)</dt>
-  * <dd>The SQL query to execute.</dd>
+  * <dd>The SQL query to execute. The query can contain ? parameter placeholders.</dd>
+  *
+  * <dt>sqlQuery[N]</dt>
+  * <dd>Additional SQL statements to execute after the sqlQuery statement in the ascending order of N (1, 2, ...).
+  * Either sqlQuery, or at least one sqlQuery[N] parameter must be specified. All statements are executed in a
+  * single transaction that is rolled back if any of the statements fails. Consecutive DML statements (INSERT,
+  * UPDATE, DELETE, MERGE) with the same SQL text are executed as a single JDBC batch.</dd>
+  *
+  * <dt>sqlParam[I]</dt>
+  * <dd>The value of the I-th (1, 2, ...) parameter of the sqlQuery statement. Values can be typed using the
+  * type:value format, e.g. int:42, or date:2025-01-31. Please refer to {@link SqlParameterParser} for the list of
+  * supported types. Values without a type prefix are bound as strings.</dd>
+  *
+  * <dt>sqlParam[N][I]</dt>
+  * <dd>The value of the I-th (1, 2, ...) parameter of the sqlQuery[N] statement.</dd>
+  *
+  * <dt>sqlBatchSize</dt>
+  * <dd>The maximum number of statements sent to the database in a single JDBC batch. 100 by default.</dd>
+  *
+  * <dt>sqlQueryTimeout</dt>
+  * <dd>The query timeout (in seconds) of every executed statement (and partition query). Statements still executing
+  * when the JDBC driver should have timed them out are cancelled by the shared {@link SqlStatementWatchdog}.
+  * No timeout by default.</dd>
   *
   * <dt>resultIncludeColumnNames</dt>
   * <dd>Boolean flag indicating if column names should be included in the CSV result data. True by default.</dd>
   *
   * <dt>resultTrimWhiteSpace</dt>
   * <dd>Boolean flag indicating if white-space should be trimmed in the CSV result data. True by default.</dd>
+  *
+  * <dt>resultFile</dt>
+  * <dd>The path of the file to stream the result data to. If specified, the job execution result contains
+  * the number of exported rows instead of the result data.</dd>
+  *
+  * <dt>resultFormat</dt>
+  * <dd>The format of the result data: csv (default), binary (see {@link BinaryResultSetFormat}), or the
+  * fully-qualified name of a class implementing {@link ResultSetFormat}. Non-text formats require resultFile.</dd>
+  *
+  * <dt>resultBatchSize</dt>
+  * <dd>The maximum number of rows in a single batch of rows (column vectors in the binary format) written to the
+  * result data. 1000 by default.</dd>
+  *
+  * <dt>partitionColumn</dt>
+  * <dd>The numeric column of the sqlQuery result set used to split the query into partitions. If specified, the job
+  * executes the partition queries concurrently on separate connections and merges their result sets. Partitioned
+  * execution requires a single sqlQuery statement. The sqlQuery must be usable as a derived table, i.e. it should not
+  * contain the ORDER BY clause on some databases.</dd>
+  *
+  * <dt>partitionLowerBound, partitionUpperBound</dt>
+  * <dd>The range of the partitionColumn values split into partitionCount equally sized ranges. Rows outside of the
+  * range and rows with null values are included in the first, or the last partition. Required unless
+  * partitionHashBuckets is specified.</dd>
+  *
+  * <dt>partitionCount</dt>
+  * <dd>The maximum number of range partitions. Fewer partitions are used if the range is too narrow to be split
+  * into partitionCount non-empty ranges. Equals to partitionParallelism by default.</dd>
+  *
+  * <dt>partitionHashBuckets</dt>
+  * <dd>The number of partitions based on the modulo of the partitionColumn values. Can be used instead of
+  * partitionLowerBound and partitionUpperBound for integer columns with unknown ranges.</dd>
+  *
+  * <dt>partitionParallelism</dt>
+  * <dd>The maximum number of concurrently executed partition queries (and open connections). 4 by default.</dd>
+  *
+  * <dt>partitionOrdered</dt>
+  * <dd>Boolean flag indicating if the partition result sets should be merged in the partition order. If false,
+  * rows are written in the order they are fetched, which avoids spooling of the completed partitions.
+  * True by default.</dd>
+  *
+  * <dt>watermarkColumn</dt>
+  * <dd>The column of the sqlQuery result set whose maximum value is persisted as the high-watermark of the job in
+  * the QuartzDesk Executor database (qd_job_watermark table). If specified, the job runs in the incremental mode:
+  * the watermark of the previous successful execution is bound to the last ? parameter placeholder of the sqlQuery
+  * (after all sqlParam[I] parameters) so that only new, or changed rows are fetched, e.g. SELECT * FROM orders WHERE
+  * modified_at &gt; ?. The new watermark is persisted only after the result data have been successfully written.
+  * Incremental execution requires a single sqlQuery statement and it does not support partitioning.</dd>
+  *
+  * <dt>watermarkType</dt>
+  * <dd>The type of the watermarkColumn values: long (default), or timestamp.</dd>
+  *
+  * <dt>watermarkInitial</dt>
+  * <dd>The watermark used if the job has no persisted watermark, e.g. 0, or 2025-01-01T00:00:00Z. Defaults to the
+  * minimum long value, or 1900-01-01T00:00:00Z respectively.</dd>
+  *
+  * <dt>watermarkRebootstrap</dt>
+  * <dd>Boolean flag indicating if the persisted watermark should be ignored and watermarkInitial used instead
+  * to re-extract all rows. The persisted watermark is replaced after the successful execution. False by
+  * default.</dd>
+  *
+  * <dt>resultCacheTimeToLive</dt>
+  * <dd>The time-to-live (in milliseconds) of the result data cached in the shared query result cache. If specified,
+  * the result data of a single sqlQuery statement are cached and the subsequent executions of jobs executing the
+  * same statement with the same parameters, JDBC URL, username and result format within the time-to-live use the
+  * cached result data without accessing the database. Not supported in the incremental and partitioned modes.</dd>
   * </dl>
+  *
+  * If any of the statements produces a result set, the job execution result contains the CSV data of the last
+  * produced result set. Otherwise, the job execution result contains the total number of updated rows.
+  *
+  * The job can be interrupted, in which case all its executing statements are cancelled and the transaction
+  * is rolled back.
   */
  @DisallowConcurrentExecution
  public class SqlQueryExecutorJob
      extends AbstractJob
+     implements InterruptableJob
  {
    private static final Logger log = LoggerFactory.getLogger( SqlQueryExecutorJob.class );
 
@@ -66,10 +192,109 @@
 
    private static final String JDM_KEY_SQL_QUERY = "sqlQuery";
 
+   private static final String JDM_KEY_SQL_BATCH_SIZE = "sqlBatchSize";
+
+   private static final String JDM_KEY_SQL_QUERY_TIMEOUT = "sqlQueryTimeout";
+
    private static final String JDM_KEY_RESULT_INCLUDE_COLUMN_NAMES = "resultIncludeColumnNames";
 
    private static final String JDM_KEY_RESULT_TRIM_WHITE_SPACE = "resultTrimWhiteSpace";
 
+   private static final String JDM_KEY_RESULT_FILE = "resultFile";
+
+   private static final String JDM_KEY_RESULT_FORMAT = "resultFormat";
+
+   private static final String JDM_KEY_RESULT_BATCH_SIZE = "resultBatchSize";
+
+   private static final String JDM_KEY_PARTITION_COLUMN = "partitionColumn";
+
+   private static final String JDM_KEY_PARTITION_LOWER_BOUND = "partitionLowerBound";
+
+   private static final String JDM_KEY_PARTITION_UPPER_BOUND = "partitionUpperBound";
+
+   private static final String JDM_KEY_PARTITION_COUNT = "partitionCount";
+
+   private static final String JDM_KEY_PARTITION_HASH_BUCKETS = "partitionHashBuckets";
+
+   private static final String JDM_KEY_PARTITION_PARALLELISM = "partitionParallelism";
+
+   private static final String JDM_KEY_PARTITION_ORDERED = "partitionOrdered";
+
+   private static final String JDM_KEY_WATERMARK_COLUMN = "watermarkColumn";
+
+   private static final String JDM_KEY_WATERMARK_TYPE = "watermarkType";
+
+   private static final String JDM_KEY_WATERMARK_INITIAL = "watermarkInitial";
+
+   private static final String JDM_KEY_WATERMARK_REBOOTSTRAP = "watermarkRebootstrap";
+
+   private static final String JDM_KEY_RESULT_CACHE_TIME_TO_LIVE = "resultCacheTimeToLive";
+
+   private static final String JOB_WATERMARK_DAO_BEAN_NAME = "jobWatermarkDao";
+
+   private static final String QUERY_RESULT_CACHE_BEAN_NAME = "queryResultCache";
+
+   private static final String SQL_STATEMENT_WATCHDOG_BEAN_NAME = "sqlStatementWatchdog";
+
+   /**
+    * Prefix of the sqlQuery[N] job data map keys.
+    */
+   private static final String JDM_SQL_QUERY_PREFIX = "sqlQuery[";
+
+   /**
+    * Prefix of the sqlParam[I] and sqlParam[N][I] job data map keys.
+    */
+   private static final String JDM_SQL_PARAM_PREFIX = "sqlParam[";
+
+   private static final String JDM_INDEX_SUFFIX = "]";
+
+   private static final String JDM_INDEX_SEPARATOR = "][";
+
+   /**
+    * Index of the sqlQuery statement and its parameters.
+    */
+   private static final int SQL_QUERY_INDEX = 0;
+
+   private static final int DEFAULT_SQL_BATCH_SIZE = 100;
+
+   private static final int DEFAULT_PARTITION_PARALLELISM = 4;
+
+   private static final int DEFAULT_RESULT_BATCH_SIZE = 1000;
+
+   private static final String RESULT_FORMAT_CSV = "csv";
+
+   private static final String RESULT_FORMAT_BINARY = "binary";
+
+   /**
+    * Matches DML statements that can be executed in JDBC batches.
+    */
+   private static final Pattern DML_STATEMENT_PATTERN =
+       Pattern.compile( "^\\s*(INSERT|UPDATE|DELETE|MERGE)\\s", Pattern.CASE_INSENSITIVE );
+
+   /**
+    * Watchdog of the executing statements of this job execution, null if the job has not started executing
+    * the statements.
+    */
+   private volatile SqlStatementWatchdog watchdog;
+
+   private volatile boolean interrupted;
+
+
+   @Override
+   public void interrupt()
+       throws UnableToInterruptJobException
+   {
+     log.info( "Received interrupt request to stop this job." );
+     interrupted = true;
+
+     SqlStatementWatchdog currentWatchdog = watchdog;
+     if ( currentWatchdog != null )
+     {
+       int cancelledCount = currentWatchdog.cancel( this );
+       log.info( "Cancelled {} executing SQL statement(s).", cancelledCount );
+     }
+   }
+
 
    @Override
    protected void executeJob( final JobExecutionContext context )
@@ -106,13 +331,19 @@
        throw new JobExecutionException( "Missing required '" + JDM_KEY_JDBC_PASSWORD + "' job data map parameter." );
      }
 
-     // sqlQuery (required)
-     final String sqlQuery = jobDataMap.getString( JDM_KEY_SQL_QUERY );
-     if ( sqlQuery == null )
+     // sqlQuery, sqlQuery[N] and sqlParam[..] (at least one statement required)
+     final List<SqlStatement> sqlStatements = getSqlStatements( jobDataMap );
+     if ( sqlStatements.isEmpty() )
      {
        throw new JobExecutionException( "Missing required '" + JDM_KEY_SQL_QUERY + "' job data map parameter." );
      }
 
+     // sqlBatchSize (optional)
+     final int sqlBatchSize = getPositiveInt( jobDataMap, JDM_KEY_SQL_BATCH_SIZE, DEFAULT_SQL_BATCH_SIZE );
+
+     // sqlQueryTimeout (optional)
+     final int sqlQueryTimeout = getPositiveInt( jobDataMap, JDM_KEY_SQL_QUERY_TIMEOUT, 0 );
+
      // resultIncludeColumnNames (optional)
      final String resultIncludeColumnNamesStr = jobDataMap.getString( JDM_KEY_RESULT_INCLUDE_COLUMN_NAMES );
      boolean resultIncludeColumnNames = true;
@@ -129,35 +360,596 @@
        resultTrimWhiteSpace = Boolean.parseBoolean( resultTrimWhiteSpaceStr );
      }
 
-     Connection con = null;
-     PreparedStatement pstat = null;
-     ResultSet res = null;
+     // resultFile (optional)
+     final String resultFile = jobDataMap.getString( JDM_KEY_RESULT_FILE );
+
+     // resultFormat (optional)
+     final ResultSetFormat resultFormat =
+         getResultFormat( jobDataMap, resultIncludeColumnNames, resultTrimWhiteSpace );
+     if ( !resultFormat.isText() && resultFile == null )
+     {
+       throw new JobExecutionException( "Missing required '" + JDM_KEY_RESULT_FILE +
+           "' job data map parameter. It is required by non-text result formats." );
+     }
+
+     // resultBatchSize (optional)
+     final int resultBatchSize = getPositiveInt( jobDataMap, JDM_KEY_RESULT_BATCH_SIZE, DEFAULT_RESULT_BATCH_SIZE );
+
+     loadDriver( jdbcDriver );
+
+     watchdog = getSqlStatementWatchdog( context );
+
+     // partitionColumn (optional)
+     final String partitionColumn = jobDataMap.getString( JDM_KEY_PARTITION_COLUMN );
+
+     // watermarkColumn (optional)
+     final String watermarkColumn = jobDataMap.getString( JDM_KEY_WATERMARK_COLUMN );
+     WatermarkTracker watermarkTracker = null;
+     String persistedWatermark = null;
+     if ( watermarkColumn != null )
+     {
+       if ( sqlStatements.size() > 1 || partitionColumn != null )
+       {
+         throw new JobExecutionException( "Incremental execution requires a single '" + JDM_KEY_SQL_QUERY +
+             "' statement and it does not support partitioning." );
+       }
+
+       WatermarkType watermarkType = getWatermarkType( jobDataMap );
+       watermarkTracker = new WatermarkTracker( watermarkColumn, watermarkType );
+
+       JobKey jobKey = context.getJobDetail().getKey();
+       persistedWatermark = getJobWatermarkDao( context ).getWatermark( jobKey.getGroup(), jobKey.getName() );
+
+       // watermarkRebootstrap (optional)
+       boolean rebootstrap = Boolean.parseBoolean( jobDataMap.getString( JDM_KEY_WATERMARK_REBOOTSTRAP ) );
+
+       // watermarkInitial (optional)
+       String watermark = persistedWatermark;
+       if ( watermark == null || rebootstrap )
+       {
+         watermark = jobDataMap.getString( JDM_KEY_WATERMARK_INITIAL );
+         if ( watermark == null )
+           watermark = watermarkType.getInitialWatermark();
+       }
+
+       log.info( "Executing SQL query incrementally, watermarkColumn={}, watermark={}, rebootstrap={}.",
+           watermarkColumn, watermark, rebootstrap );
+
+       try
+       {
+         SqlStatement query = sqlStatements.get( 0 );
+         Object[] params = Arrays.copyOf( query.getParams(), query.getParams().length + 1 );
+         params[params.length - 1] = watermarkType.toParameter( watermark );
+         sqlStatements.set( 0, new SqlStatement( query.getSql(), params ) );
+       }
+       catch ( IllegalArgumentException e )
+       {
+         throw new JobExecutionException( "Invalid watermark of job: " + context.getJobDetail().getKey(), e );
+       }
+     }
+
+     if ( partitionColumn != null )
+     {
+       if ( sqlStatements.size() > 1 )
+       {
+         throw new JobExecutionException( "Partitioned execution requires a single '" + JDM_KEY_SQL_QUERY +
+             "' statement." );
+       }
+
+       executePartitioned( context, jobDataMap, jdbcUrl, jdbcUsername, jdbcPassword, sqlStatements.get( 0 ),
+           partitionColumn, resultFormat, resultBatchSize, resultFile, sqlQueryTimeout );
+       return;
+     }
+
+     // resultCacheTimeToLive (optional)
+     final long resultCacheTimeToLive = getPositiveLong( jobDataMap, JDM_KEY_RESULT_CACHE_TIME_TO_LIVE, 0L );
+     QueryResultCache resultCache = null;
+     QueryResultCache.Key resultCacheKey = null;
+     QueryResultCache.Capture resultCapture = null;
+     if ( resultCacheTimeToLive > 0 && watermarkColumn == null && sqlStatements.size() == 1 )
+     {
+       resultCache = getQueryResultCache( context );
+     }
+
+     // results are not captured if caching is disabled by the maximum size of the cache
+     if ( resultCache != null && resultCache.getMaxSize() <= 0 )
+     {
+       resultCache = null;
+     }
+
+     if ( resultCache != null )
+     {
+       resultCacheKey = new QueryResultCache.Key( jdbcUrl, jdbcUsername,
+           resultFormat.getClass().getName() + ',' + resultIncludeColumnNames + ',' + resultTrimWhiteSpace,
+           sqlStatements.get( 0 ) );
+
+       QueryResultCache.CachedResult cachedResult = resultCache.get( resultCacheKey );
+       if ( cachedResult != null )
+       {
+         log.info( "Using cached result of SQL statement: {}", sqlStatements.get( 0 ) );
+         exportCachedResult( context, cachedResult, resultFile );
+         return;
+       }
+     }
+
+     Connection con;
      try
      {
-       Class<?> driverClazz = Class.forName( jdbcDriver );
-       if ( Driver.class.isAssignableFrom( driverClazz ) )
+       log.info( "Opening JDBC connection to: {}", jdbcUrl );
+       con = DriverManager.getConnection( jdbcUrl, jdbcUsername, jdbcPassword );
+     }
+     catch ( SQLException e )
+     {
+       throw new JobExecutionException( "Error opening JDBC connection using URL: " + jdbcUrl, e );
+     }
+
+     // prepared statements reused by all statements with the same SQL text
+     Map<String, PreparedStatement> statementCache = new HashMap<>();
+     String currentSql = null;
+     try
+     {
+       con.setAutoCommit( false );
+
+       String resultTxt = null;
+       Long exportedRows = null;
+       int updateCount = 0;
+
+       for ( int i = 0; i < sqlStatements.size(); )
        {
-         log.info( "Opening JDBC connection to: {}", jdbcUrl );
-         con = DriverManager.getConnection( jdbcUrl, jdbcUsername, jdbcPassword );
+         SqlStatement sqlStatement = sqlStatements.get( i );
+         currentSql = sqlStatement.getSql();
 
-         pstat = con.prepareStatement( sqlQuery );
+         // consecutive DML statements with the same SQL text are executed as a batch, queries are executed
+         // one by one
+         int batchEnd = i + 1;
+         if ( DML_STATEMENT_PATTERN.matcher( currentSql ).find() )
+         {
+           while ( batchEnd < sqlStatements.size() && sqlStatements.get( batchEnd ).getSql().equals( currentSql ) )
+           {
+             batchEnd++;
+           }
+         }
 
-         log.info( "Executing SQL query: {}", sqlQuery );
-         res = pstat.executeQuery();
-         log.info( "SQL query successfully executed." );
+         PreparedStatement pstat = statementCache.get( currentSql );
+         if ( pstat == null )
+         {
+           pstat = con.prepareStatement( currentSql );
+           statementCache.put( currentSql, pstat );
+         }
+         else
+         {
+           pstat.clearParameters();
+         }
 
-         log.info( "Exporting JDBC result set to CSV format, resultIncludeColumnNames={}, resultTrimWhiteSpace={}.",
-             resultIncludeColumnNames, resultTrimWhiteSpace );
+         if ( interrupted )
+         {
+           rollback( con );
+           throw new JobExecutionException( "Job has been interrupted before executing SQL statement: " + currentSql );
+         }
 
-         StringWriter writer = new StringWriter();
-         CSVWriter csvWriter = new CSVWriter( writer );
-         csvWriter.writeAll( res, resultIncludeColumnNames, resultTrimWhiteSpace );
-         csvWriter.close();
+         if ( batchEnd - i > 1 )
+         {
+           updateCount += executeBatch( pstat, sqlStatements.subList( i, batchEnd ), sqlBatchSize, sqlQueryTimeout );
+         }
+         else
+         {
+           log.info( "Executing SQL statement: {}", sqlStatement );
+           DbUtils.setStatementParams( pstat, sqlStatement.getParams() );
 
-         String resultTxt = writer.getBuffer().toString().trim();
+           SqlStatementWatchdog.Registration registration = watch( pstat, sqlQueryTimeout );
+           try
+           {
+             boolean hasResultSet;
+             try
+             {
+               hasResultSet = pstat.execute();
+             }
+             catch ( SQLException e )
+             {
+               registration.failed( e );
+               throw e;
+             }
+
+             // the query timeout does not apply to the export of the result set
+             registration.executed();
+
+             if ( hasResultSet )
+             {
+               log.info( "Exporting JDBC result set using format: {}, resultIncludeColumnNames={}, " +
+                   "resultTrimWhiteSpace={}.", resultFormat.getClass().getSimpleName(), resultIncludeColumnNames,
+                   resultTrimWhiteSpace );
+
+               ResultSet res = pstat.getResultSet();
+               if ( watermarkTracker != null )
+               {
+                 res = watermarkTracker.track( res );
+               }
+
+               try
+               {
+                 if ( resultFile == null )
+                 {
+                   ByteArrayOutputStream out = new ByteArrayOutputStream();
+                   if ( resultCache != null )
+                     resultCapture = resultCache.capture( out );
+
+                   exportedRows = exportResultSet( res, resultFormat, resultBatchSize,
+                       resultCapture == null ? out : resultCapture );
+                   resultTxt = out.toString( StandardCharsets.UTF_8 ).trim();
+                 }
+                 else
+                 {
+                   OutputStream fileOut = new BufferedOutputStream( Files.newOutputStream( Paths.get( resultFile ) ) );
+                   if ( resultCache != null )
+                     fileOut = resultCapture = resultCache.capture( fileOut );
+
+                   try ( OutputStream out = fileOut )
+                   {
+                     exportedRows = exportResultSet( res, resultFormat, resultBatchSize, out );
+                   }
+                 }
+               }
+               finally
+               {
+                 close( res );
+               }
+             }
+             else
+             {
+               updateCount += Math.max( pstat.getUpdateCount(), 0 );
+             }
+           }
+           finally
+           {
+             registration.close();
+           }
+         }
+
+         i = batchEnd;
+       }
+
+       con.commit();
+       log.info( "SQL statements successfully executed, updated rows: {}.", updateCount );
+
+       if ( watermarkTracker != null )
+       {
+         updateWatermark( context, persistedWatermark, watermarkTracker.getWatermark() );
+       }
+
+       if ( resultCapture != null )
+       {
+         resultCache.put( resultCacheKey, resultCapture, exportedRows, resultCacheTimeToLive );
+       }
+
+       if ( resultTxt != null )
+       {
          context.setResult( resultTxt );
        }
+       else if ( exportedRows != null )
+       {
+         log.info( "Exported {} rows to result file: {}", exportedRows, resultFile );
+         context.setResult( exportedRows );
+       }
+       else
+       {
+         context.setResult( updateCount );
+       }
+     }
+     catch ( SQLException e )
+     {
+       rollback( con );
+       if ( interrupted )
+       {
+         throw new JobExecutionException( "SQL statement: " + currentSql +
+             " has been cancelled because the job has been interrupted.", e );
+       }
+       throw new JobExecutionException( "Error executing SQL statement: " + currentSql, e );
+     }
+     catch ( IOException e )
+     {
+       rollback( con );
+       throw new JobExecutionException( "Error exporting JDBC result set.", e );
+     }
+     finally
+     {
+       // releases the compressor of a capture that has not been put into the cache
+       if ( resultCapture != null )
+       {
+         resultCapture.abort();
+       }
+
+       for ( PreparedStatement pstat : statementCache.values() )
+       {
+         close( pstat );
+       }
+       close( con );
+     }
+   }
+
+
+   /**
+    * Executes the specified query in the partitioned mode.
+    *
+    * @param context         the job execution context.
+    * @param jobDataMap      the job data map.
+    * @param jdbcUrl         the JDBC URL.
+    * @param jdbcUsername    the JDBC username.
+    * @param jdbcPassword    the JDBC password.
+    * @param query           the query to split into partitions.
+    * @param partitionColumn the partition column.
+    * @param resultFormat    the result format.
+    * @param resultBatchSize the maximum number of rows in a result batch.
+    * @param resultFile      the result file, can be null.
+    * @param queryTimeout    the query timeout of the partition queries in seconds, 0 for no timeout.
+    * @throws JobExecutionException if an error occurs.
+    */
+   private void executePartitioned( JobExecutionContext context, JobDataMap jobDataMap, String jdbcUrl,
+       String jdbcUsername, String jdbcPassword, SqlStatement query, String partitionColumn,
+       ResultSetFormat resultFormat, int resultBatchSize, String resultFile, int queryTimeout )
+       throws JobExecutionException
+   {
+     // partitionParallelism (optional)
+     int parallelism = getPositiveInt( jobDataMap, JDM_KEY_PARTITION_PARALLELISM, DEFAULT_PARTITION_PARALLELISM );
+
+     // partitionOrdered (optional)
+     String orderedStr = jobDataMap.getString( JDM_KEY_PARTITION_ORDERED );
+     boolean ordered = orderedStr == null || Boolean.parseBoolean( orderedStr );
+
+     List<SqlStatement> partitions;
+     try
+     {
+       // partitionHashBuckets, or partitionLowerBound + partitionUpperBound + partitionCount
+       Integer hashBuckets = getPositiveInt( jobDataMap, JDM_KEY_PARTITION_HASH_BUCKETS, null );
+       if ( hashBuckets != null )
+       {
+         partitions = SqlPartitioner.hashPartitions( query, partitionColumn, hashBuckets );
+       }
        else
+       {
+         long lowerBound = getRequiredLong( jobDataMap, JDM_KEY_PARTITION_LOWER_BOUND );
+         long upperBound = getRequiredLong( jobDataMap, JDM_KEY_PARTITION_UPPER_BOUND );
+         int partitionCount = getPositiveInt( jobDataMap, JDM_KEY_PARTITION_COUNT, parallelism );
+
+         partitions = SqlPartitioner.rangePartitions( query, partitionColumn, lowerBound, upperBound, partitionCount );
+       }
+     }
+     catch ( IllegalArgumentException e )
+     {
+       throw new JobExecutionException( "Invalid partitioning job data map parameters.", e );
+     }
+
+     PartitionedQueryExecutor executor =
+         new PartitionedQueryExecutor( new DriverManagerDataSource( jdbcUrl, jdbcUsername, jdbcPassword ),
+             parallelism, ordered, resultFormat );
+     executor.setBatchSize( resultBatchSize );
+     executor.setWatchdog( watchdog, this, queryTimeout );
+
+     log.info( "Executing SQL query partitioned by column: {}, query: {}", partitionColumn, query );
+
+     try
+     {
+       if ( resultFile == null )
+       {
+         ByteArrayOutputStream out = new ByteArrayOutputStream();
+         executor.execute( partitions, out );
+         context.setResult( out.toString( StandardCharsets.UTF_8 ).trim() );
+       }
+       else
+       {
+         try ( OutputStream out = new BufferedOutputStream( Files.newOutputStream( Paths.get( resultFile ) ) ) )
+         {
+           long rowCount = executor.execute( partitions, out );
+           log.info( "Exported {} rows to result file: {}", rowCount, resultFile );
+           context.setResult( rowCount );
+         }
+       }
+     }
+     catch ( SQLException e )
+     {
+       if ( interrupted )
+       {
+         throw new JobExecutionException( "Partitioned SQL query: " + query +
+             " has been cancelled because the job has been interrupted.", e );
+       }
+       throw new JobExecutionException( "Error executing partitioned SQL query: " + query, e );
+     }
+     catch ( IOException e )
+     {
+       throw new JobExecutionException( "Error exporting JDBC result set.", e );
+     }
+   }
+
+
+   /**
+    * Exports the specified cached result to the job execution result, or to the result file.
+    *
+    * @param context      the job execution context.
+    * @param cachedResult the cached result.
+    * @param resultFile   the result file, can be null.
+    * @throws JobExecutionException if an error occurs.
+    */
+   private void exportCachedResult( JobExecutionContext context, QueryResultCache.CachedResult cachedResult,
+       String resultFile )
+       throws JobExecutionException
+   {
+     try
+     {
+       if ( resultFile == null )
+       {
+         ByteArrayOutputStream out = new ByteArrayOutputStream();
+         cachedResult.writeTo( out );
+         context.setResult( out.toString( StandardCharsets.UTF_8 ).trim() );
+       }
+       else
+       {
+         try ( OutputStream out = new BufferedOutputStream( Files.newOutputStream( Paths.get( resultFile ) ) ) )
+         {
+           cachedResult.writeTo( out );
+         }
+         log.info( "Exported {} cached rows to result file: {}", cachedResult.getRowCount(), resultFile );
+         context.setResult( cachedResult.getRowCount() );
+       }
+     }
+     catch ( IOException e )
+     {
+       throw new JobExecutionException( "Error exporting cached result.", e );
+     }
+   }
+
+
+   /**
+    * Returns the result format specified by the resultFormat job data map parameter.
+    *
+    * @param jobDataMap               the job data map.
+    * @param resultIncludeColumnNames true to include column names in the CSV result data.
+    * @param resultTrimWhiteSpace     true to trim white-space in the CSV result data.
+    * @return the result format.
+    * @throws JobExecutionException if the result format is not supported.
+    */
+   private ResultSetFormat getResultFormat( JobDataMap jobDataMap, boolean resultIncludeColumnNames,
+       boolean resultTrimWhiteSpace )
+       throws JobExecutionException
+   {
+     String resultFormat = jobDataMap.getString( JDM_KEY_RESULT_FORMAT );
+     if ( resultFormat == null || resultFormat.trim().equalsIgnoreCase( RESULT_FORMAT_CSV ) )
+       return new CsvResultSetFormat( resultIncludeColumnNames, resultTrimWhiteSpace );
+
+     if ( resultFormat.trim().equalsIgnoreCase( RESULT_FORMAT_BINARY ) )
+       return new BinaryResultSetFormat();
+
+     // custom result format
+     try
+     {
+       Class<?> formatClazz = Class.forName( resultFormat.trim() );
+       if ( !ResultSetFormat.class.isAssignableFrom( formatClazz ) )
+       {
+         throw new JobExecutionException( "Result format class: " + resultFormat + " does not implement " +
+             ResultSetFormat.class.getName() + " interface." );
+       }
+
+       return (ResultSetFormat) formatClazz.getConstructor().newInstance();
+     }
+     catch ( ClassNotFoundException e )
+     {
+       throw new JobExecutionException( "Unsupported '" + JDM_KEY_RESULT_FORMAT + "' job data map parameter value: " +
+           resultFormat, e );
+     }
+     catch ( ReflectiveOperationException e )
+     {
+       throw new JobExecutionException( "Error instantiating result format class: " + resultFormat, e );
+     }
+   }
+
+
+   /**
+    * Returns the watermark type specified by the watermarkType job data map parameter.
+    *
+    * @param jobDataMap the job data map.
+    * @return the watermark type.
+    * @throws JobExecutionException if the watermark type is not supported.
+    */
+   private WatermarkType getWatermarkType( JobDataMap jobDataMap )
+       throws JobExecutionException
+   {
+     String watermarkType = jobDataMap.getString( JDM_KEY_WATERMARK_TYPE );
+     if ( watermarkType == null )
+       return WatermarkType.LONG;
+
+     try
+     {
+       return WatermarkType.valueOf( watermarkType.trim().toUpperCase( Locale.US ) );
+     }
+     catch ( IllegalArgumentException e )
+     {
+       throw new JobExecutionException( "Unsupported '" + JDM_KEY_WATERMARK_TYPE + "' job data map parameter value: " +
+           watermarkType, e );
+     }
+   }
+
+
+   /**
+    * Persists the new watermark of the executed job. The watermark is replaced only if it has not been changed
+    * since it was read at the beginning of the job execution.
+    *
+    * @param context            the job execution context.
+    * @param persistedWatermark the watermark read at the beginning of the job execution, can be null.
+    * @param newWatermark       the maximum watermark column value of the exported rows, null if no rows
+    *                           have been exported.
+    * @throws JobExecutionException if the watermark has been concurrently modified.
+    */
+   private void updateWatermark( JobExecutionContext context, String persistedWatermark, String newWatermark )
+       throws JobExecutionException
+   {
+     if ( newWatermark == null || newWatermark.equals( persistedWatermark ) )
+     {
+       log.info( "No new rows exported, watermark unchanged: {}", persistedWatermark );
+       return;
+     }
+
+     JobKey jobKey = context.getJobDetail().getKey();
+     if ( getJobWatermarkDao( context ).updateWatermark( jobKey.getGroup(), jobKey.getName(), persistedWatermark,
+         newWatermark ) )
+     {
+       log.info( "Updated watermark: {} -> {}", persistedWatermark, newWatermark );
+     }
+     else
+     {
+       throw new JobExecutionException( "Watermark of job: " + jobKey +
+           " has been concurrently modified. The exported rows may have been exported by another execution." );
+     }
+   }
+
+
+   /**
+    * Returns the {@link JobWatermarkDao} instance to be used to read and persist the job watermarks.
+    *
+    * @param context the job execution context.
+    * @return the {@link JobWatermarkDao} instance.
+    */
+   private JobWatermarkDao getJobWatermarkDao( JobExecutionContext context )
+   {
+     return getApplicationContext( context ).getBean( JOB_WATERMARK_DAO_BEAN_NAME, JobWatermarkDao.class );
+   }
+
+
+   /**
+    * Returns the {@link QueryResultCache} instance shared by all job executions.
+    *
+    * @param context the job execution context.
+    * @return the {@link QueryResultCache} instance.
+    */
+   private QueryResultCache getQueryResultCache( JobExecutionContext context )
+   {
+     return getApplicationContext( context ).getBean( QUERY_RESULT_CACHE_BEAN_NAME, QueryResultCache.class );
+   }
+
+
+   /**
+    * Returns the {@link SqlStatementWatchdog} instance used to enforce the query timeouts and cancel the executing
+    * statements.
+    *
+    * @param context the job execution context.
+    * @return the {@link SqlStatementWatchdog} instance.
+    */
+   private SqlStatementWatchdog getSqlStatementWatchdog( JobExecutionContext context )
+   {
+     return getApplicationContext( context ).getBean( SQL_STATEMENT_WATCHDOG_BEAN_NAME, SqlStatementWatchdog.class );
+   }
+
+
+   /**
+    * Loads the specified JDBC driver class.
+    *
+    * @param jdbcDriver the fully-qualified class name of the JDBC driver.
+    * @throws JobExecutionException if the class cannot be loaded, or it is not a JDBC driver.
+    */
+   private void loadDriver( String jdbcDriver )
+       throws JobExecutionException
+   {
+     try
+     {
+       Class<?> driverClazz = Class.forName( jdbcDriver );
+       if ( !Driver.class.isAssignableFrom( driverClazz ) )
        {
          throw new JobExecutionException(
              "JDBC driver class: " + jdbcDriver + " does not implement " + Driver.class.getName() + " interface." );
@@ -167,18 +959,383 @@
      {
        throw new JobExecutionException( "JDBC driver class: " + jdbcDriver + " not found.", e );
      }
+   }
 
-     catch ( SQLException e )
+
+   /**
+    * Returns the value of the specified positive integer job data map parameter.
+    *
+    * @param jobDataMap   the job data map.
+    * @param key          the parameter key.
+    * @param defaultValue the value returned if the parameter is not specified.
+    * @return the parameter value.
+    * @throws JobExecutionException if the parameter value is not a positive integer.
+    */
+   private Integer getPositiveInt( JobDataMap jobDataMap, String key, Integer defaultValue )
+       throws JobExecutionException
+   {
+     String valueStr = jobDataMap.getString( key );
+     if ( valueStr == null )
+       return defaultValue;
+
+     try
      {
-       throw new JobExecutionException( "Error opening JDBC connection using URL: " + jdbcUrl, e );
+       int value = Integer.parseInt( valueStr.trim() );
+       if ( value > 0 )
+         return value;
      }
-     catch ( IOException e )
+     catch ( NumberFormatException e )
+     {
+       // handled below
+     }
+
+     throw new JobExecutionException( "Invalid '" + key + "' job data map parameter value: " + valueStr +
+         ". The value must be a number greater than 0." );
+   }
+
+
+   /**
+    * Returns the value of the specified positive long job data map parameter.
+    *
+    * @param jobDataMap   the job data map.
+    * @param key          the parameter key.
+    * @param defaultValue the value returned if the parameter is not specified.
+    * @return the parameter value.
+    * @throws JobExecutionException if the parameter value is not a positive long.
+    */
+   private long getPositiveLong( JobDataMap jobDataMap, String key, long defaultValue )
+       throws JobExecutionException
+   {
+     String valueStr = jobDataMap.getString( key );
+     if ( valueStr == null )
+       return defaultValue;
+
+     try
+     {
+       long value = Long.parseLong( valueStr.trim() );
+       if ( value > 0 )
+         return value;
+     }
+     catch ( NumberFormatException e )
+     {
+       // handled below
+     }
+
+     throw new JobExecutionException( "Invalid '" + key + "' job data map parameter value: " + valueStr +
+         ". The value must be a number greater than 0." );
+   }
+
+
+   /**
+    * Returns the value of the specified required long job data map parameter.
+    *
+    * @param jobDataMap the job data map.
+    * @param key        the parameter key.
+    * @return the parameter value.
+    * @throws JobExecutionException if the parameter is not specified, or its value is not a number.
+    */
+   private long getRequiredLong( JobDataMap jobDataMap, String key )
+       throws JobExecutionException
+   {
+     String valueStr = jobDataMap.getString( key );
+     if ( valueStr == null )
+     {
+       throw new JobExecutionException( "Missing required '" + key + "' job data map parameter." );
+     }
+
+     try
+     {
+       return Long.parseLong( valueStr.trim() );
+     }
+     catch ( NumberFormatException e )
+     {
+       throw new JobExecutionException( "Invalid '" + key + "' job data map parameter value: " + valueStr, e );
+     }
+   }
+
+
+   /**
+    * Returns the list of SQL statements to execute with their parameter values extracted from the specified
+    * job data map.
+    *
+    * @param jobDataMap the job data map.
+    * @return the list of SQL statements.
+    * @throws JobExecutionException if a statement parameter is not valid.
+    */
+   private List<SqlStatement> getSqlStatements( JobDataMap jobDataMap )
+       throws JobExecutionException
+   {
+     SortedMap<Integer, String> sqls = new TreeMap<>();
+     Map<Integer, SortedMap<Integer, Object>> params = new HashMap<>();
+
+     for ( String key : jobDataMap.getKeys() )
+     {
+       if ( key.equals( JDM_KEY_SQL_QUERY ) )
+       {
+         sqls.put( SQL_QUERY_INDEX, jobDataMap.getString( key ) );
+       }
+       else if ( key.startsWith( JDM_SQL_QUERY_PREFIX ) && key.endsWith( JDM_INDEX_SUFFIX ) )
+       {
+         int statementIdx = parseIndex( key, key.substring( JDM_SQL_QUERY_PREFIX.length(), key.length() - 1 ) );
+         sqls.put( statementIdx, jobDataMap.getString( key ) );
+       }
+       else if ( key.startsWith( JDM_SQL_PARAM_PREFIX ) && key.endsWith( JDM_INDEX_SUFFIX ) )
+       {
+         String indexes = key.substring( JDM_SQL_PARAM_PREFIX.length(), key.length() - 1 );
+
+         // sqlParam[I], or sqlParam[N][I]
+         int statementIdx = SQL_QUERY_INDEX;
+         int separatorIdx = indexes.indexOf( JDM_INDEX_SEPARATOR );
+         if ( separatorIdx != -1 )
+         {
+           statementIdx = parseIndex( key, indexes.substring( 0, separatorIdx ) );
+           indexes = indexes.substring( separatorIdx + JDM_INDEX_SEPARATOR.length() );
+         }
+         int paramIdx = parseIndex( key, indexes );
+
+         Object value;
+         try
+         {
+           value = SqlParameterParser.parse( jobDataMap.getString( key ) );
+         }
+         catch ( IllegalArgumentException e )
+         {
+           throw new JobExecutionException( "Invalid '" + key + "' job data map parameter value.", e );
+         }
+
+         params.computeIfAbsent( statementIdx, k -> new TreeMap<>() ).put( paramIdx, value );
+       }
+     }
+
+     List<SqlStatement> statements = new ArrayList<>( sqls.size() );
+     for ( Map.Entry<Integer, String> entry : sqls.entrySet() )
+     {
+       SortedMap<Integer, Object> statementParams = params.remove( entry.getKey() );
+       statements.add( new SqlStatement( entry.getValue(), toParamArray( entry.getKey(), statementParams ) ) );
+     }
+
+     if ( !params.isEmpty() )
+     {
+       throw new JobExecutionException(
+           "SQL statement parameters specified for non-existent '" + JDM_KEY_SQL_QUERY + "' statement(s): " +
+               params.keySet() );
+     }
+
+     return statements;
+   }
+
+
+   /**
+    * Parses the specified positive index value of a job data map key.
+    *
+    * @param key   the job data map key.
+    * @param index the index value.
+    * @return the parsed index.
+    * @throws JobExecutionException if the index is not valid.
+    */
+   private int parseIndex( String key, String index )
+       throws JobExecutionException
+   {
+     try
+     {
+       int idx = Integer.parseInt( index.trim() );
+       if ( idx > 0 )
+         return idx;
+     }
+     catch ( NumberFormatException e )
+     {
+       // handled below
+     }
+
+     throw new JobExecutionException( "Invalid job data map parameter: '" + key + "'. Index must be a number > 0." );
+   }
+
+
+   /**
+    * Converts the specified map of parameter values indexed by parameter indexes to an array of parameter values.
+    *
+    * @param statementIdx the index of the statement the parameters belong to.
+    * @param params       the parameter values, can be null.
+    * @return the array of parameter values, or null if there are no parameters.
+    * @throws JobExecutionException if the parameter indexes are not contiguous.
+    */
+   private Object[] toParamArray( int statementIdx, SortedMap<Integer, Object> params )
+       throws JobExecutionException
+   {
+     if ( params == null )
+       return null;
+
+     Object[] paramArray = new Object[params.size()];
+     for ( int i = 0; i < paramArray.length; i++ )
+     {
+       if ( !params.containsKey( i + 1 ) )
+       {
+         String missingKey = statementIdx == SQL_QUERY_INDEX
+             ? JDM_SQL_PARAM_PREFIX + ( i + 1 ) + JDM_INDEX_SUFFIX
+             : JDM_SQL_PARAM_PREFIX + statementIdx + JDM_INDEX_SEPARATOR + ( i + 1 ) + JDM_INDEX_SUFFIX;
+         throw new JobExecutionException( "Missing '" + missingKey + "' job data map parameter." );
+       }
+       paramArray[i] = params.get( i + 1 );
+     }
+     return paramArray;
+   }
+
+
+   /**
+    * Executes the specified DML statements sharing the same SQL text as JDBC batches of the specified maximum size.
+    *
+    * @param pstat      the prepared statement.
+    * @param statements the statements providing the parameter values.
+    * @param batchSize    the maximum batch size.
+    * @param queryTimeout the query timeout of every executed batch in seconds, 0 for no timeout.
+    * @return the number of updated rows.
+    * @throws SQLException if a DB error occurs.
+    */
+   private int executeBatch( PreparedStatement pstat, List<SqlStatement> statements, int batchSize,
+       int queryTimeout )
+       throws SQLException
+   {
+     log.info( "Executing SQL statement in batch of {} statements: {}", statements.size(),
+         statements.get( 0 ).getSql() );
+
+     int updateCount = 0;
+     int batchCount = 0;
+     for ( SqlStatement statement : statements )
+     {
+       DbUtils.setStatementParams( pstat, statement.getParams() );
+       pstat.addBatch();
+
+       if ( ++batchCount == batchSize )
+       {
+         updateCount += getUpdateCount( executeBatch( pstat, queryTimeout ) );
+         batchCount = 0;
+       }
+     }
+
+     if ( batchCount > 0 )
+     {
+       updateCount += getUpdateCount( executeBatch( pstat, queryTimeout ) );
+     }
+
+     return updateCount;
+   }
+
+
+   /**
+    * Executes the batch of the specified statement watched by the {@link SqlStatementWatchdog}.
+    *
+    * @param pstat        the prepared statement.
+    * @param queryTimeout the query timeout in seconds, 0 for no timeout.
+    * @return the update counts.
+    * @throws SQLException if a DB error occurs.
+    */
+   private int[] executeBatch( PreparedStatement pstat, int queryTimeout )
+       throws SQLException
+   {
+     SqlStatementWatchdog.Registration registration = watch( pstat, queryTimeout );
+     try
+     {
+       return pstat.executeBatch();
+     }
+     catch ( SQLException e )
      {
-       throw new JobExecutionException( "Error exporting JDBC result set to CSV format.", e );
+       registration.failed( e );
+       throw e;
      }
      finally
      {
-       close( con, pstat, res );
+       registration.close();
+     }
+   }
+
+
+   /**
+    * Starts watching the specified statement by the {@link SqlStatementWatchdog}. The interrupted flag is checked
+    * after the statement has been registered, because an interrupt received before the registration does not cancel
+    * the statement.
+    *
+    * @param pstat        the prepared statement.
+    * @param queryTimeout the query timeout in seconds, 0 for no timeout.
+    * @return the registration of the watched statement.
+    * @throws SQLException if the query timeout cannot be set, or the job has been interrupted.
+    */
+   private SqlStatementWatchdog.Registration watch( PreparedStatement pstat, int queryTimeout )
+       throws SQLException
+   {
+     SqlStatementWatchdog.Registration registration = watchdog.watch( this, pstat, queryTimeout );
+     if ( interrupted )
+     {
+       registration.close();
+       throw new SQLException( "Job has been interrupted before executing SQL statement." );
+     }
+     return registration;
+   }
+
+
+   /**
+    * Returns the total number of updated rows from the specified batch update counts.
+    *
+    * @param updateCounts the update counts returned by {@link Statement#executeBatch()}.
+    * @return the number of updated rows.
+    */
+   private int getUpdateCount( int[] updateCounts )
+   {
+     int updateCount = 0;
+     for ( int count : updateCounts )
+     {
+       // ignore Statement.SUCCESS_NO_INFO
+       if ( count > 0 )
+         updateCount += count;
+     }
+     return updateCount;
+   }
+
+
+   /**
+    * Exports the specified result set in the specified format.
+    *
+    * @param res       a result set.
+    * @param format    the result format.
+    * @param batchSize the maximum number of rows in a single batch.
+    * @param out       the output stream.
+    * @return the number of exported rows.
+    * @throws SQLException if a DB error occurs.
+    * @throws IOException  if an I/O error occurs.
+    */
+   private long exportResultSet( ResultSet res, ResultSetFormat format, int batchSize, OutputStream out )
+       throws SQLException, IOException
+   {
+     format.writeHeader( res, out );
+
+     long rowCount = 0;
+     int batchRowCount;
+     do
+     {
+       batchRowCount = format.writeRows( res, batchSize, out );
+       rowCount += batchRowCount;
+     }
+     while ( batchRowCount == batchSize );
+
+     format.writeTrailer( out );
+     out.flush();
+     return rowCount;
+   }
+
+
+   /**
+    * Rolls back the transaction of the specified JDBC connection.
+    *
+    * @param con a JDBC connection.
+    */
+   private void rollback( Connection con )
+   {
+     try
+     {
+       con.rollback();
+     }
+     catch ( SQLException e )
+     {
+       log.error( "Error rolling back transaction.", e );
      }
    }
 
@@ -244,19 +1401,4 @@
        }
      }
    }
-
-
-   /**
-    * Closes the specified JDBC connection, statement and result set.
-    *
-    * @param con  a JDBC connection.
-    * @param stat a JDBC statement.
-    * @param res  a JDBC result set.
-    */
-   private void close( Connection con, Statement stat, ResultSet res )
-   {
-     close( res );
-     close( stat );
-     close( con );
-   }
  }
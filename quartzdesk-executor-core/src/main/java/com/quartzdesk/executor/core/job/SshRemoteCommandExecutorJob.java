@@ -6,6 +6,7 @@
  package com.quartzdesk.executor.core.job;
 
  import com.quartzdesk.executor.common.CommonConst;
+ import com.quartzdesk.executor.common.text.CommandLineTokenizer;
  import com.quartzdesk.executor.common.text.StringUtils;
 
  import com.jcraft.jsch.Channel;
@@ -24,6 +25,7 @@
  import java.io.File;
  import java.io.IOException;
  import java.io.InputStream;
+ import java.util.List;
 
  /**
   * A Quartz job implementation that executes an arbitrary remote command/script specified in a job data map parameter.
@@ -46,7 +48,15 @@
   * <dd>The command to execute.</dd>
   *
   * <dt>commandArgs</dt>
-  * <dd>Optional command line arguments to pass to the command.</dd>
+  * <dd>Optional command line arguments to pass to the command. The arguments are passed to the remote shell
+  * as is.</dd>
+  *
+  * <dt>quoteCommandArgs</dt>
+  * <dd>Optional flag (true / false) indicating if the command line arguments are to be parsed the same way as in
+  * the {@link LocalCommandExecutorJob} and re-quoted for the remote shell. If true, an argument that contains spaces
+  * and which should be treated as a single argument must be enclosed in double-quotes, or single-quotes and it is
+  * passed to the remote shell enclosed in single-quotes, i.e. without shell expansions. If omitted, then false is
+  * used.</dd>
   * </dl>
   */
  @DisallowConcurrentExecution
@@ -71,6 +81,8 @@
 
    private static final String JDM_KEY_COMMAND_ARGS = "commandArgs";
 
+   private static final String JDM_KEY_QUOTE_COMMAND_ARGS = "quoteCommandArgs";
+
 
    @Override
    protected void executeJob( JobExecutionContext context )
@@ -135,6 +147,9 @@
      // command arguments (optional)
      String commandArgs = jobDataMap.getString( JDM_KEY_COMMAND_ARGS );
 
+     // re-quoting of command arguments (optional)
+     boolean quoteCommandArgs = Boolean.parseBoolean( jobDataMap.getString( JDM_KEY_QUOTE_COMMAND_ARGS ) );
+
      JSch jsch = new JSch();
 
      Session session = null;
@@ -157,7 +172,19 @@
 
        String commandLine = command;
        if ( commandArgs != null )
-         commandLine += CommonConst.SINGLE_SPACE + commandArgs;
+       {
+         if ( quoteCommandArgs )
+         {
+           List<String> parsedCommandLine = CommandLineTokenizer.INSTANCE.getCommandLine( command, commandArgs );
+           List<String> args = parsedCommandLine.subList( 1, parsedCommandLine.size() );
+           if ( !args.isEmpty() )
+             commandLine += CommonConst.SINGLE_SPACE + CommandLineTokenizer.toShellArgs( args );
+         }
+         else
+         {
+           commandLine += CommonConst.SINGLE_SPACE + commandArgs;
+         }
+       }
 
        channel.setCommand( commandLine );
        channel.setInputStream( null );
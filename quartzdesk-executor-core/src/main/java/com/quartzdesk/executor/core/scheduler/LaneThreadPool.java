@@ -0,0 +1,668 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.scheduler;
+
+ import org.quartz.JobDetail;
+ import org.quartz.JobKey;
+ import org.quartz.SchedulerConfigException;
+ import org.quartz.core.JobRunShell;
+ import org.quartz.spi.ThreadPool;
+ import org.quartz.spi.TriggerFiredBundle;
+ import org.slf4j.Logger;
+ import org.slf4j.LoggerFactory;
+
+ import java.lang.invoke.MethodHandles;
+ import java.lang.invoke.VarHandle;
+ import java.util.ArrayDeque;
+ import java.util.ArrayList;
+ import java.util.Collections;
+ import java.util.Deque;
+ import java.util.HashSet;
+ import java.util.LinkedHashMap;
+ import java.util.List;
+ import java.util.Map;
+ import java.util.Set;
+ import java.util.concurrent.ConcurrentHashMap;
+ import java.util.concurrent.ConcurrentMap;
+
+ /**
+  * Quartz {@link ThreadPool} that executes jobs in separate execution lanes sharing a fixed number of worker
+  * threads. Every lane has its own maximum concurrency (the maximum number of jobs of the lane executed at the
+  * same time) and a weight. When multiple lanes have jobs waiting for execution, the free worker threads are
+  * assigned to the lanes in proportion to their weights (stride scheduling), so that a lane with a higher weight
+  * gets a proportionally larger share of the worker threads.
+  *
+  * <p>
+  * Jobs are assigned to the lane specified by the {@value #JDM_KEY_LANE} trigger, or job data map parameter.
+  * If the parameter is not specified, jobs are assigned to the lane named after their job group, or to the
+  * {@value #DEFAULT_LANE} lane if there is no such lane.
+  * </p>
+  *
+  * <p>
+  * Jobs of a lane that has reached its maximum concurrency are queued in the lane and they do not occupy worker
+  * threads, so the scheduler keeps acquiring and executing triggers of the other lanes. For instance, a flood of
+  * slow bulk jobs limited to a lane with a small maximum concurrency cannot delay time-critical jobs. The queue of
+  * a lane holds up to laneQueueFactor &times; maxConcurrency jobs. When the queue of a lane is full, the
+  * {@link ShardedJobStore} stops acquiring the triggers of the saturated lane until the lane catches up, so that
+  * they are left to the misfire handling and to the other cluster nodes, while the triggers of the other lanes are
+  * still acquired. With other job stores, the thread pool reports no available worker threads while the queue of any
+  * lane is full, i.e. a saturated lane pauses the trigger acquisition of all lanes.
+  * </p>
+  *
+  * The thread pool is configured by the following thread pool properties:
+  * <ul>
+  * <li>{@code org.quartz.threadPool.threadCount} - the number of worker threads.</li>
+  * <li>{@code org.quartz.threadPool.makeThreadsDaemons} - if true, the worker threads are daemon threads.</li>
+  * <li>{@code org.quartz.threadPool.lanes} - comma-separated list of the lanes in the
+  * {@code name:maxConcurrency[:weight]} format, e.g. {@code critical:4:8,bulk:6:1}. The {@value #DEFAULT_LANE}
+  * lane can be configured explicitly, otherwise it is unlimited with weight 1. Value &lt;= 0 of the maximum
+  * concurrency means unlimited.</li>
+  * <li>{@code org.quartz.threadPool.laneQueueFactor} - the maximum number of queued jobs of a lane as a multiple of
+  * its maximum concurrency. 2 by default.</li>
+  * </ul>
+  *
+  * Without lanes, the thread pool behaves as the standard Quartz {@link org.quartz.simpl.SimpleThreadPool}.
+  */
+ public class LaneThreadPool
+     implements ThreadPool
+ {
+   private static final Logger log = LoggerFactory.getLogger( LaneThreadPool.class );
+
+   /**
+    * Trigger, or job data map parameter with the name of the lane to execute the job in.
+    */
+   public static final String JDM_KEY_LANE = "lane";
+
+   /**
+    * Name of the lane of the jobs not assigned to any other lane.
+    */
+   public static final String DEFAULT_LANE = "default";
+
+   private static final int DEFAULT_WEIGHT = 1;
+
+   private static final int DEFAULT_LANE_QUEUE_FACTOR = 2;
+
+   /**
+    * Initialized thread pools keyed by the names of their scheduler instances.
+    */
+   private static final ConcurrentMap<String, LaneThreadPool> INSTANCES = new ConcurrentHashMap<>();
+
+   /**
+    * Handle of the protected {@code JobRunShell.firedTriggerBundle} field used to determine the lane of
+    * executed jobs. Null if not accessible, in which case all jobs are executed in the default lane.
+    */
+   private static final VarHandle FIRED_TRIGGER_BUNDLE = findFiredTriggerBundleHandle();
+
+   private int threadCount = -1;
+
+   private boolean makeThreadsDaemons;
+
+   private String lanesSpec;
+
+   private int laneQueueFactor = DEFAULT_LANE_QUEUE_FACTOR;
+
+   private String instanceName;
+
+   private String instanceId;
+
+   private final Object lock = new Object();
+
+   private final Map<String, Lane> lanes = new LinkedHashMap<>();
+
+   private Lane defaultLane;
+
+   private final List<Thread> workers = new ArrayList<>();
+
+   private int activeCount;
+
+   /**
+    * Pass value of the last scheduled lane. Lanes that become busy start from this pass value.
+    */
+   private double virtualTime;
+
+   private boolean shutdown;
+
+   private volatile boolean laneAwareAcquisition;
+
+
+   public void setThreadCount( int threadCount )
+   {
+     this.threadCount = threadCount;
+   }
+
+
+   public int getThreadCount()
+   {
+     return threadCount;
+   }
+
+
+   public void setMakeThreadsDaemons( boolean makeThreadsDaemons )
+   {
+     this.makeThreadsDaemons = makeThreadsDaemons;
+   }
+
+
+   public boolean isMakeThreadsDaemons()
+   {
+     return makeThreadsDaemons;
+   }
+
+
+   /**
+    * Sets the comma-separated list of the lanes in the {@code name:maxConcurrency[:weight]} format.
+    *
+    * @param lanesSpec the lanes.
+    */
+   public void setLanes( String lanesSpec )
+   {
+     this.lanesSpec = lanesSpec;
+   }
+
+
+   /**
+    * Sets the maximum number of queued jobs of a lane as a multiple of its maximum concurrency.
+    *
+    * @param laneQueueFactor the lane queue factor.
+    */
+   public void setLaneQueueFactor( int laneQueueFactor )
+   {
+     this.laneQueueFactor = laneQueueFactor;
+   }
+
+
+   /**
+    * Returns the initialized thread pool of the specified scheduler instance, or null if the scheduler instance
+    * does not use this thread pool.
+    *
+    * @param schedulerName the scheduler instance name.
+    * @return the thread pool, or null.
+    */
+   public static LaneThreadPool getInstance( String schedulerName )
+   {
+     return schedulerName == null ? null : INSTANCES.get( schedulerName );
+   }
+
+
+   /**
+    * Sets the flag indicating that the job store does not acquire the triggers of the {@link #getSaturatedLanes()
+    * saturated lanes}. If not set, the thread pool reports no available worker threads while any lane is saturated.
+    *
+    * @param laneAwareAcquisition true if the job store skips the triggers of the saturated lanes.
+    */
+   public void setLaneAwareAcquisition( boolean laneAwareAcquisition )
+   {
+     this.laneAwareAcquisition = laneAwareAcquisition;
+   }
+
+
+   /**
+    * Returns the names of the lanes whose queues are full. The triggers of these lanes should not be acquired
+    * until the lanes catch up.
+    *
+    * @return the names of the saturated lanes.
+    */
+   public Set<String> getSaturatedLanes()
+   {
+     synchronized ( lock )
+     {
+       Set<String> saturatedLanes = null;
+       for ( Lane lane : lanes.values() )
+       {
+         if ( lane.queue.size() >= lane.queueCapacity )
+         {
+           if ( saturatedLanes == null )
+             saturatedLanes = new HashSet<>();
+           saturatedLanes.add( lane.name );
+         }
+       }
+       return saturatedLanes == null ? Collections.emptySet() : saturatedLanes;
+     }
+   }
+
+
+   /**
+    * Returns the name of the lane the jobs with the specified {@value #JDM_KEY_LANE} parameter value are executed
+    * in.
+    *
+    * @param laneName the value of the {@value #JDM_KEY_LANE} trigger, or job data map parameter, may be null.
+    * @param jobKey   the job key.
+    * @return the lane name.
+    */
+   public String getLaneName( String laneName, JobKey jobKey )
+   {
+     if ( FIRED_TRIGGER_BUNDLE == null )
+       return DEFAULT_LANE;
+
+     return resolveLane( laneName, jobKey ).name;
+   }
+
+
+   @Override
+   public void setInstanceId( String schedInstId )
+   {
+     this.instanceId = schedInstId;
+   }
+
+
+   @Override
+   public void setInstanceName( String schedName )
+   {
+     this.instanceName = schedName;
+   }
+
+
+   @Override
+   public int getPoolSize()
+   {
+     return threadCount;
+   }
+
+
+   @Override
+   public void initialize()
+       throws SchedulerConfigException
+   {
+     if ( threadCount <= 0 )
+       throw new SchedulerConfigException( "Thread count must be > 0." );
+
+     if ( laneQueueFactor <= 0 )
+       throw new SchedulerConfigException( "Lane queue factor must be > 0." );
+
+     parseLanes();
+
+     synchronized ( lock )
+     {
+       for ( int i = 1; i <= threadCount; i++ )
+       {
+         Thread worker = new Thread( this::work, instanceName + "_Worker-" + i );
+         worker.setDaemon( makeThreadsDaemons );
+         workers.add( worker );
+       }
+     }
+
+     workers.forEach( Thread::start );
+
+     if ( instanceName != null )
+       INSTANCES.put( instanceName, this );
+
+     if ( lanes.size() > 1 )
+       log.info( "Scheduler instance {} job execution lanes: {}", instanceId, lanes.values() );
+   }
+
+
+   @Override
+   public boolean runInThread( Runnable runnable )
+   {
+     if ( runnable == null )
+       return false;
+
+     synchronized ( lock )
+     {
+       if ( shutdown )
+       {
+         // same as SimpleThreadPool, jobs submitted during the shutdown are executed in a new thread
+         Thread thread = new Thread( runnable, instanceName + "_WorkerThread-LastJob" );
+         thread.setDaemon( makeThreadsDaemons );
+         thread.start();
+         return true;
+       }
+
+       Lane lane = getLane( runnable );
+       if ( lane.queue.isEmpty() && lane.activeCount == 0 )
+       {
+         // an idle lane does not accumulate credit for the time it has been idle
+         lane.pass = Math.max( lane.pass, virtualTime );
+       }
+
+       // the job must be accepted even if the queue is full, the queue capacity can be exceeded by at most one batch
+       // of triggers acquired by the scheduler before the queue became full
+       lane.queue.add( runnable );
+
+       lock.notifyAll();
+     }
+     return true;
+   }
+
+
+   @Override
+   public int blockForAvailableThreads()
+   {
+     synchronized ( lock )
+     {
+       while ( getAvailableThreadCount() < 1 && !shutdown )
+       {
+         try
+         {
+           lock.wait( 500L );
+         }
+         catch ( InterruptedException ignore )
+         {
+         }
+       }
+       return getAvailableThreadCount();
+     }
+   }
+
+
+   /**
+    * Shuts down the thread pool. If the jobs are not to be waited for, the queued jobs that have not started yet are
+    * discarded, because the job store they would be executed against is being shut down as well.
+    *
+    * @param waitForJobsToComplete true to wait for the executing and queued jobs to complete.
+    */
+   @Override
+   public void shutdown( boolean waitForJobsToComplete )
+   {
+     synchronized ( lock )
+     {
+       log.debug( "Shutting down thread pool." );
+       shutdown = true;
+
+       if ( instanceName != null )
+         INSTANCES.remove( instanceName, this );
+
+       if ( !waitForJobsToComplete )
+       {
+         int discardedCount = 0;
+         for ( Lane lane : lanes.values() )
+         {
+           discardedCount += lane.queue.size();
+           lane.queue.clear();
+         }
+
+         if ( discardedCount > 0 )
+           log.warn( "Discarded {} queued job(s) that have not started before the shutdown.", discardedCount );
+       }
+
+       lock.notifyAll();
+     }
+
+     if ( waitForJobsToComplete )
+     {
+       for ( Thread worker : workers )
+       {
+         try
+         {
+           worker.join();
+         }
+         catch ( InterruptedException e )
+         {
+           Thread.currentThread().interrupt();
+           break;
+         }
+       }
+     }
+   }
+
+
+   /**
+    * Returns the number of worker threads available for new jobs. Worker threads needed to execute the queued jobs
+    * of the lanes that have not reached their maximum concurrency are not available. Unless the job store skips the
+    * triggers of the saturated lanes, no worker threads are available if the queue of any lane is full.
+    *
+    * @return the number of available worker threads.
+    */
+   private int getAvailableThreadCount()
+   {
+     int available = threadCount - activeCount;
+     for ( Lane lane : lanes.values() )
+     {
+       if ( !laneAwareAcquisition && lane.queue.size() >= lane.queueCapacity )
+         return 0;
+
+       available -= Math.min( lane.queue.size(), Math.max( lane.maxConcurrency - lane.activeCount, 0 ) );
+     }
+     return Math.max( available, 0 );
+   }
+
+
+   /**
+    * Main loop of the worker threads. The workers exit when the thread pool is shut down and all queued jobs
+    * have been executed.
+    */
+   private void work()
+   {
+     while ( true )
+     {
+       Lane lane;
+       Runnable runnable;
+
+       synchronized ( lock )
+       {
+         while ( ( lane = nextLane() ) == null )
+         {
+           if ( shutdown && isQueueEmpty() )
+             return;
+
+           try
+           {
+             lock.wait();
+           }
+           catch ( InterruptedException ignore )
+           {
+           }
+         }
+
+         runnable = lane.queue.poll();
+         lane.activeCount++;
+         lane.pass += 1.0 / lane.weight;
+         activeCount++;
+       }
+
+       try
+       {
+         runnable.run();
+       }
+       catch ( Throwable e )
+       {
+         log.error( "Error executing job in lane " + lane.name + '.', e );
+       }
+       finally
+       {
+         synchronized ( lock )
+         {
+           lane.activeCount--;
+           lane.executedCount++;
+           activeCount--;
+           lock.notifyAll();
+         }
+       }
+     }
+   }
+
+
+   /**
+    * Returns the lane with queued jobs and below its maximum concurrency with the lowest pass value, or null if
+    * there is no such lane.
+    *
+    * @return the next lane to execute a job from.
+    */
+   private Lane nextLane()
+   {
+     Lane next = null;
+     for ( Lane lane : lanes.values() )
+     {
+       if ( !lane.queue.isEmpty() && lane.activeCount < lane.maxConcurrency &&
+           ( next == null || lane.pass < next.pass ) )
+       {
+         next = lane;
+       }
+     }
+
+     if ( next != null )
+       virtualTime = next.pass;
+
+     return next;
+   }
+
+
+   private boolean isQueueEmpty()
+   {
+     for ( Lane lane : lanes.values() )
+     {
+       if ( !lane.queue.isEmpty() )
+         return false;
+     }
+     return true;
+   }
+
+
+   /**
+    * Returns the lane to execute the specified job run shell in.
+    *
+    * @param runnable the job run shell.
+    * @return the lane.
+    */
+   private Lane getLane( Runnable runnable )
+   {
+     if ( lanes.size() == 1 || FIRED_TRIGGER_BUNDLE == null || !( runnable instanceof JobRunShell ) )
+       return defaultLane;
+
+     TriggerFiredBundle bundle = (TriggerFiredBundle) FIRED_TRIGGER_BUNDLE.get( (JobRunShell) runnable );
+     if ( bundle == null )
+       return defaultLane;
+
+     JobDetail jobDetail = bundle.getJobDetail();
+
+     String laneName = bundle.getTrigger().getJobDataMap().getString( JDM_KEY_LANE );
+     if ( laneName == null )
+       laneName = jobDetail.getJobDataMap().getString( JDM_KEY_LANE );
+
+     if ( laneName != null && !lanes.containsKey( laneName.trim() ) )
+     {
+       log.warn( "Job {} assigned to unknown lane '{}', executing the job in the {} lane.", jobDetail.getKey(),
+           laneName, DEFAULT_LANE );
+     }
+
+     return resolveLane( laneName, jobDetail.getKey() );
+   }
+
+
+   /**
+    * Returns the lane the jobs with the specified {@value #JDM_KEY_LANE} parameter value are executed in.
+    *
+    * @param laneName the value of the {@value #JDM_KEY_LANE} parameter, may be null.
+    * @param jobKey   the job key.
+    * @return the lane.
+    */
+   private Lane resolveLane( String laneName, JobKey jobKey )
+   {
+     Lane lane = laneName == null ? lanes.get( jobKey.getGroup() ) : lanes.get( laneName.trim() );
+     return lane == null ? defaultLane : lane;
+   }
+
+
+   /**
+    * Parses the configured lanes.
+    *
+    * @throws SchedulerConfigException if the lanes are not valid.
+    */
+   private void parseLanes()
+       throws SchedulerConfigException
+   {
+     if ( lanesSpec != null )
+     {
+       for ( String laneSpec : lanesSpec.split( "," ) )
+       {
+         if ( laneSpec.isBlank() )
+           continue;
+
+         String[] parts = laneSpec.trim().split( ":" );
+         if ( parts.length < 2 || parts.length > 3 || parts[0].isBlank() )
+         {
+           throw new SchedulerConfigException( "Invalid lane '" + laneSpec.trim() +
+               "', expected format: name:maxConcurrency[:weight]" );
+         }
+
+         String name = parts[0].trim();
+         try
+         {
+           int maxConcurrency = Integer.parseInt( parts[1].trim() );
+           int weight = parts.length == 3 ? Integer.parseInt( parts[2].trim() ) : DEFAULT_WEIGHT;
+           if ( weight < 1 )
+             throw new SchedulerConfigException( "Weight of lane '" + name + "' must be > 0." );
+
+           Lane lane = createLane( name, maxConcurrency <= 0 ? threadCount : maxConcurrency, weight );
+           if ( lanes.put( name, lane ) != null )
+             throw new SchedulerConfigException( "Duplicate lane '" + name + "'." );
+         }
+         catch ( NumberFormatException e )
+         {
+           throw new SchedulerConfigException( "Invalid lane '" + laneSpec.trim() +
+               "', expected format: name:maxConcurrency[:weight]", e );
+         }
+       }
+     }
+
+     defaultLane = lanes.computeIfAbsent( DEFAULT_LANE, name -> createLane( name, threadCount, DEFAULT_WEIGHT ) );
+   }
+
+
+   private Lane createLane( String name, int maxConcurrency, int weight )
+   {
+     return new Lane( name, maxConcurrency, weight, maxConcurrency * laneQueueFactor );
+   }
+
+
+   private static VarHandle findFiredTriggerBundleHandle()
+   {
+     try
+     {
+       return MethodHandles.privateLookupIn( JobRunShell.class, MethodHandles.lookup() )
+           .findVarHandle( JobRunShell.class, "firedTriggerBundle", TriggerFiredBundle.class );
+     }
+     catch ( ReflectiveOperationException | RuntimeException e )
+     {
+       log.warn( "Cannot access fired trigger bundle of job run shells, all jobs will be executed in the " +
+           DEFAULT_LANE + " lane.", e );
+       return null;
+     }
+   }
+
+
+   /**
+    * Execution lane.
+    */
+   private static final class Lane
+   {
+     private final String name;
+
+     private final int maxConcurrency;
+
+     private final int weight;
+
+     private final int queueCapacity;
+
+     private final Deque<Runnable> queue = new ArrayDeque<>();
+
+     private int activeCount;
+
+     private long executedCount;
+
+     /**
+      * Pass value of the stride scheduling. Incremented by 1 / weight whenever a job of the lane is executed.
+      */
+     private double pass;
+
+
+     private Lane( String name, int maxConcurrency, int weight, int queueCapacity )
+     {
+       this.name = name;
+       this.maxConcurrency = maxConcurrency;
+       this.weight = weight;
+       this.queueCapacity = queueCapacity;
+     }
+
+
+     @Override
+     public String toString()
+     {
+       return name + "[maxConcurrency=" + maxConcurrency + ", weight=" + weight + ", queueCapacity=" + queueCapacity +
+           ']';
+     }
+   }
+ }
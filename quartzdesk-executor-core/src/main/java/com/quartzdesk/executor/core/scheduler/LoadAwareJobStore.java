@@ -0,0 +1,678 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.scheduler;
+
+ import org.quartz.JobDataMap;
+ import org.quartz.JobDetail;
+ import org.quartz.JobPersistenceException;
+ import org.quartz.SchedulerConfigException;
+ import org.quartz.Trigger.CompletedExecutionInstruction;
+ import org.quartz.TriggerKey;
+ import org.quartz.impl.jdbcjobstore.SchedulerStateRecord;
+ import org.quartz.impl.jdbcjobstore.StdJDBCConstants;
+ import org.quartz.impl.jdbcjobstore.Util;
+ import org.quartz.spi.ClassLoadHelper;
+ import org.quartz.spi.OperableTrigger;
+ import org.quartz.spi.SchedulerSignaler;
+ import org.quartz.spi.TriggerFiredBundle;
+ import org.quartz.spi.TriggerFiredResult;
+ import org.slf4j.Logger;
+ import org.slf4j.LoggerFactory;
+
+ import java.lang.management.ManagementFactory;
+ import java.lang.management.OperatingSystemMXBean;
+ import java.sql.Connection;
+ import java.sql.PreparedStatement;
+ import java.sql.ResultSet;
+ import java.sql.SQLException;
+ import java.sql.Timestamp;
+ import java.sql.Types;
+ import java.util.Collections;
+ import java.util.LinkedHashSet;
+ import java.util.List;
+ import java.util.Set;
+ import java.util.concurrent.ConcurrentHashMap;
+ import java.util.concurrent.ConcurrentMap;
+ import java.util.concurrent.atomic.AtomicInteger;
+
+ /**
+  * {@link ShardedJobStore} that dispatches the triggers between the nodes of a scheduler cluster based on the
+  * load of the nodes, the labels of the nodes and the resource weights of the triggers.
+  *
+  * <p>
+  * Every cluster node publishes its CPU load, heap memory usage, and the number and total resource weight of its
+  * running jobs in the {@code qd_node_state} table when it checks in to the cluster. Triggers can specify the
+  * following parameters in their job data maps:
+  * </p>
+  * <ul>
+  * <li>{@value #TDM_KEY_NODE_LABELS} - comma-separated list of the labels a cluster node must have to execute
+  * the job of the trigger, e.g. {@code has-ssh-keys}.</li>
+  * <li>{@value #TDM_KEY_RESOURCE_WEIGHT} - the resource weight of the job of the trigger, default 1.</li>
+  * </ul>
+  *
+  * <p>
+  * A cluster node acquires only the triggers whose required labels it has and whose resource weights fit in
+  * its remaining capacity. An overloaded node (its CPU load, or heap memory usage exceeds the configured maximum,
+  * or the total resource weight of its running jobs reaches its capacity) backs off from the trigger acquisition
+  * as long as there is another live cluster node that is not overloaded.
+  * </p>
+  *
+  * The load-aware dispatch is configured by the following job store properties:
+  * <ul>
+  * <li>{@code org.quartz.jobStore.loadAware} - enables the load-aware dispatch, requires
+  * {@code org.quartz.jobStore.isClustered = true} and it cannot be combined with the sharding.</li>
+  * <li>{@code org.quartz.jobStore.nodeLabels} - comma-separated list of the labels of the cluster node.</li>
+  * <li>{@code org.quartz.jobStore.nodeCapacity} - the maximum total resource weight of the jobs running on the
+  * cluster node, value &lt;= 0 means unlimited.</li>
+  * <li>{@code org.quartz.jobStore.maxCpuLoad} - the CPU load (0.0 - 1.0) above which the cluster node is
+  * overloaded.</li>
+  * <li>{@code org.quartz.jobStore.maxMemoryUsage} - the heap memory usage (0.0 - 1.0) above which the cluster
+  * node is overloaded.</li>
+  * </ul>
+  */
+ // JobStoreCMT overrides the generic JobStoreSupport.executeInLock( String, TransactionCallback<T> ) with a raw
+ // TransactionCallback, javac therefore reports an unchecked return type conversion on every subclass.
+ @SuppressWarnings( "unchecked" )
+ public class LoadAwareJobStore
+     extends ShardedJobStore
+ {
+   private static final Logger log = LoggerFactory.getLogger( LoadAwareJobStore.class );
+
+   /**
+    * Trigger job data map parameter with the comma-separated list of the required node labels.
+    */
+   public static final String TDM_KEY_NODE_LABELS = "nodeLabels";
+
+   /**
+    * Trigger job data map parameter with the resource weight of the trigger's job.
+    */
+   public static final String TDM_KEY_RESOURCE_WEIGHT = "resourceWeight";
+
+   private static final int DEFAULT_RESOURCE_WEIGHT = 1;
+
+   private static final double DEFAULT_MAX_CPU_LOAD = 0.9;
+
+   private static final double DEFAULT_MAX_MEMORY_USAGE = 0.95;
+
+   private static final String SQL_UPDATE_NODE_STATE =
+       "UPDATE qd_node_state SET node_labels = ?, cpu_load = ?, memory_usage = ?, running_jobs = ?, " +
+           "running_weight = ?, capacity = ?, overloaded = ?, updated_at = ? WHERE sched_name = ? AND instance_id = ?";
+
+   private static final String SQL_INSERT_NODE_STATE =
+       "INSERT INTO qd_node_state (node_labels, cpu_load, memory_usage, running_jobs, running_weight, capacity, " +
+           "overloaded, updated_at, sched_name, instance_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+   /**
+    * Deletes the states of the nodes that have been removed from the {@code QRTZ_SCHEDULER_STATE} table by the
+    * cluster recovery.
+    */
+   private static final String SQL_DELETE_STALE_NODE_STATES =
+       "DELETE FROM qd_node_state WHERE sched_name = ? AND instance_id NOT IN (SELECT "
+           + StdJDBCConstants.COL_INSTANCE_NAME + " FROM " + StdJDBCConstants.TABLE_PREFIX_SUBST
+           + StdJDBCConstants.TABLE_SCHEDULER_STATE + " WHERE " + StdJDBCConstants.COL_SCHEDULER_NAME + " = ?)";
+
+   private static final String SQL_SELECT_NODE_STATES =
+       "SELECT n.instance_id, n.overloaded, s." + StdJDBCConstants.COL_LAST_CHECKIN_TIME + ", s."
+           + StdJDBCConstants.COL_CHECKIN_INTERVAL + " FROM qd_node_state n, " + StdJDBCConstants.TABLE_PREFIX_SUBST
+           + StdJDBCConstants.TABLE_SCHEDULER_STATE + " s WHERE n.sched_name = ? AND s."
+           + StdJDBCConstants.COL_SCHEDULER_NAME + " = n.sched_name AND s." + StdJDBCConstants.COL_INSTANCE_NAME
+           + " = n.instance_id";
+
+   private boolean loadAware;
+
+   private Set<String> nodeLabels = Collections.emptySet();
+
+   private int nodeCapacity;
+
+   private double maxCpuLoad = DEFAULT_MAX_CPU_LOAD;
+
+   private double maxMemoryUsage = DEFAULT_MAX_MEMORY_USAGE;
+
+   private SchedulerSignaler signaler;
+
+   /**
+    * Resource weights of the running jobs keyed by the fire instance IDs of their triggers.
+    */
+   private final ConcurrentMap<String, Integer> runningWeights = new ConcurrentHashMap<>();
+
+   private final AtomicInteger runningWeight = new AtomicInteger();
+
+   /**
+    * Triggers rejected because this node does not have their required labels, keyed by the trigger keys. The
+    * values are the times until the triggers are skipped without being loaded.
+    */
+   private final ConcurrentMap<TriggerKey, Long> rejectedTriggers = new ConcurrentHashMap<>();
+
+   /**
+    * State of the trigger acquisition in progress.
+    */
+   private final ThreadLocal<AcquisitionState> acquisitionState = new ThreadLocal<>();
+
+   private volatile double cpuLoad;
+
+   private volatile double memoryUsage;
+
+   private volatile boolean otherNodeAvailable;
+
+   private volatile boolean backingOff;
+
+   private volatile boolean throttled;
+
+
+   /**
+    * Enables, or disables the load-aware dispatch of the triggers between the cluster nodes.
+    *
+    * @param loadAware true to enable the load-aware dispatch, false to disable it.
+    */
+   public void setLoadAware( boolean loadAware )
+   {
+     this.loadAware = loadAware;
+   }
+
+
+   public boolean isLoadAware()
+   {
+     return loadAware;
+   }
+
+
+   /**
+    * Sets the comma-separated list of the labels of this cluster node.
+    *
+    * @param nodeLabels the node labels.
+    */
+   public void setNodeLabels( String nodeLabels )
+   {
+     this.nodeLabels = parseLabels( nodeLabels );
+   }
+
+
+   /**
+    * Sets the maximum total resource weight of the jobs running on this cluster node. Value &lt;= 0 means
+    * unlimited.
+    *
+    * @param nodeCapacity the node capacity.
+    */
+   public void setNodeCapacity( int nodeCapacity )
+   {
+     this.nodeCapacity = nodeCapacity;
+   }
+
+
+   public int getNodeCapacity()
+   {
+     return nodeCapacity;
+   }
+
+
+   /**
+    * Sets the CPU load (0.0 - 1.0) above which this cluster node is overloaded.
+    *
+    * @param maxCpuLoad the maximum CPU load.
+    */
+   public void setMaxCpuLoad( double maxCpuLoad )
+   {
+     this.maxCpuLoad = maxCpuLoad;
+   }
+
+
+   public double getMaxCpuLoad()
+   {
+     return maxCpuLoad;
+   }
+
+
+   /**
+    * Sets the heap memory usage (0.0 - 1.0) above which this cluster node is overloaded.
+    *
+    * @param maxMemoryUsage the maximum heap memory usage.
+    */
+   public void setMaxMemoryUsage( double maxMemoryUsage )
+   {
+     this.maxMemoryUsage = maxMemoryUsage;
+   }
+
+
+   public double getMaxMemoryUsage()
+   {
+     return maxMemoryUsage;
+   }
+
+
+   @Override
+   public void initialize( ClassLoadHelper loadHelper, SchedulerSignaler signaler )
+       throws SchedulerConfigException
+   {
+     super.initialize( loadHelper, signaler );
+     this.signaler = signaler;
+
+     if ( loadAware )
+     {
+       if ( !isClustered() )
+       {
+         log.warn( "Load-aware trigger dispatch requires a clustered job store" +
+             " (org.quartz.jobStore.isClustered = true). Load-aware trigger dispatch disabled." );
+         loadAware = false;
+       }
+       else if ( isSharded() )
+       {
+         throw new SchedulerConfigException( "Load-aware trigger dispatch cannot be combined with trigger sharding." );
+       }
+       else
+       {
+         sampleLoad();
+         log.info( "Load-aware trigger dispatch enabled, scheduler instance: {}, node labels: {}, node capacity: {}," +
+             " max CPU load: {}, max memory usage: {}.", getInstanceId(), nodeLabels, nodeCapacity, maxCpuLoad,
+             maxMemoryUsage );
+       }
+     }
+   }
+
+
+   @Override
+   public List<OperableTrigger> acquireNextTriggers( long noLaterThan, int maxCount, long timeWindow )
+       throws JobPersistenceException
+   {
+     if ( !loadAware )
+       return super.acquireNextTriggers( noLaterThan, maxCount, timeWindow );
+
+     int remainingCapacity = nodeCapacity > 0 ? nodeCapacity - runningWeight.get() : Integer.MAX_VALUE;
+
+     if ( isOverloaded( remainingCapacity ) && otherNodeAvailable )
+     {
+       if ( !backingOff )
+       {
+         log.info( "Scheduler instance {} overloaded (CPU load: {}, memory usage: {}, running jobs weight: {})," +
+                 " backing off from trigger acquisition.", getInstanceId(), toPercent( cpuLoad ),
+             toPercent( memoryUsage ), runningWeight.get() );
+         backingOff = true;
+       }
+       throttled = true;
+       return Collections.emptyList();
+     }
+
+     if ( backingOff )
+     {
+       log.info( "Scheduler instance {} no longer overloaded, resuming trigger acquisition.", getInstanceId() );
+       backingOff = false;
+     }
+
+     AcquisitionState state = new AcquisitionState( remainingCapacity );
+     acquisitionState.set( state );
+     try
+     {
+       List<OperableTrigger> triggers = super.acquireNextTriggers( noLaterThan, maxCount, timeWindow );
+       if ( triggers.isEmpty() && state.capacityExceeded )
+         throttled = true;
+
+       return triggers;
+     }
+     finally
+     {
+       acquisitionState.remove();
+     }
+   }
+
+
+   @Override
+   protected boolean isAcquisitionFiltered()
+   {
+     return super.isAcquisitionFiltered() || loadAware;
+   }
+
+
+   @Override
+   protected boolean isAcquirable( TriggerKey triggerKey, String jobGroup )
+   {
+     if ( !super.isAcquirable( triggerKey, jobGroup ) )
+       return false;
+
+     if ( loadAware )
+     {
+       Long rejectedUntil = rejectedTriggers.get( triggerKey );
+       if ( rejectedUntil != null )
+       {
+         if ( rejectedUntil > System.currentTimeMillis() )
+           return false;
+
+         rejectedTriggers.remove( triggerKey, rejectedUntil );
+       }
+     }
+     return true;
+   }
+
+
+   /**
+    * Retrieves the specified trigger. During the trigger acquisition, returns null for triggers whose required
+    * labels this cluster node does not have, or whose resource weights do not fit in the remaining capacity of
+    * this cluster node, so that they are skipped by the acquisition.
+    *
+    * @param conn the DB connection.
+    * @param key  the trigger key.
+    * @return the trigger, or null if the trigger does not exist, or it cannot be acquired by this cluster node.
+    * @throws JobPersistenceException if a DB error occurs.
+    */
+   @Override
+   protected OperableTrigger retrieveTrigger( Connection conn, TriggerKey key )
+       throws JobPersistenceException
+   {
+     OperableTrigger trigger = super.retrieveTrigger( conn, key );
+
+     AcquisitionState state = acquisitionState.get();
+     if ( trigger == null || state == null )
+       return trigger;
+
+     JobDataMap jobDataMap = trigger.getJobDataMap();
+
+     Set<String> requiredLabels = parseLabels( jobDataMap.getString( TDM_KEY_NODE_LABELS ) );
+     if ( !nodeLabels.containsAll( requiredLabels ) )
+     {
+       log.debug( "Skipping trigger {}, required node labels {} not available.", key, requiredLabels );
+
+       // avoid loading the trigger again until the next check-in
+       rejectedTriggers.put( key, System.currentTimeMillis() + getClusterCheckinInterval() );
+       return null;
+     }
+
+     int weight = getResourceWeight( trigger );
+     if ( weight > state.remainingCapacity )
+     {
+       log.debug( "Skipping trigger {}, resource weight {} exceeds remaining capacity {}.", key, weight,
+           state.remainingCapacity );
+       state.capacityExceeded = true;
+       return null;
+     }
+
+     state.remainingCapacity -= weight;
+     return trigger;
+   }
+
+
+   @Override
+   public List<TriggerFiredResult> triggersFired( List<OperableTrigger> triggers )
+       throws JobPersistenceException
+   {
+     List<TriggerFiredResult> results = super.triggersFired( triggers );
+
+     if ( loadAware )
+     {
+       for ( TriggerFiredResult result : results )
+       {
+         TriggerFiredBundle bundle = result.getTriggerFiredBundle();
+         if ( bundle != null )
+         {
+           int weight = getResourceWeight( bundle.getTrigger() );
+           runningWeights.put( bundle.getTrigger().getFireInstanceId(), weight );
+           runningWeight.addAndGet( weight );
+         }
+       }
+     }
+
+     return results;
+   }
+
+
+   @Override
+   public void triggeredJobComplete( OperableTrigger trigger, JobDetail jobDetail,
+       CompletedExecutionInstruction triggerInstCode )
+   {
+     super.triggeredJobComplete( trigger, jobDetail, triggerInstCode );
+
+     if ( loadAware )
+     {
+       Integer weight = runningWeights.remove( trigger.getFireInstanceId() );
+       if ( weight != null )
+         runningWeight.addAndGet( -weight );
+
+       // wake up the scheduler thread idling after a throttled acquisition
+       if ( throttled )
+       {
+         throttled = false;
+         signaler.signalSchedulingChange( 0L );
+       }
+     }
+   }
+
+
+   /**
+    * Checks in to the cluster. If the load-aware dispatch is enabled, publishes the state of this cluster node
+    * and determines whether any other live cluster node is not overloaded.
+    *
+    * @param conn the DB connection.
+    * @return the failed scheduler instances.
+    * @throws JobPersistenceException if a DB error occurs.
+    */
+   @Override
+   protected List<SchedulerStateRecord> clusterCheckIn( Connection conn )
+       throws JobPersistenceException
+   {
+     List<SchedulerStateRecord> failedInstances = super.clusterCheckIn( conn );
+
+     if ( loadAware )
+     {
+       sampleLoad();
+
+       try
+       {
+         publishNodeState( conn );
+         otherNodeAvailable = isOtherNodeAvailable( conn );
+       }
+       catch ( SQLException e )
+       {
+         throw new JobPersistenceException( "Failure publishing node state when checking-in: " + e.getMessage(), e );
+       }
+     }
+
+     return failedInstances;
+   }
+
+
+   /**
+    * Inserts, or updates the state of this cluster node in the {@code qd_node_state} table and deletes the states
+    * of the failed cluster nodes.
+    *
+    * @param conn the DB connection.
+    * @throws SQLException if a DB error occurs.
+    */
+   private void publishNodeState( Connection conn )
+       throws SQLException
+   {
+     if ( executeNodeStateUpdate( conn, SQL_UPDATE_NODE_STATE ) == 0 )
+       executeNodeStateUpdate( conn, SQL_INSERT_NODE_STATE );
+
+     try ( PreparedStatement pstat = conn.prepareStatement( rtp( SQL_DELETE_STALE_NODE_STATES ) ) )
+     {
+       pstat.setString( 1, getInstanceName() );
+       pstat.setString( 2, getInstanceName() );
+       pstat.executeUpdate();
+     }
+   }
+
+
+   /**
+    * Executes the specified insert, or update statement of the state of this cluster node.
+    *
+    * @param conn the DB connection.
+    * @param sql  the insert, or update statement.
+    * @return the number of inserted, or updated rows.
+    * @throws SQLException if a DB error occurs.
+    */
+   private int executeNodeStateUpdate( Connection conn, String sql )
+       throws SQLException
+   {
+     int currentRunningWeight = runningWeight.get();
+     int remainingCapacity = nodeCapacity > 0 ? nodeCapacity - currentRunningWeight : Integer.MAX_VALUE;
+
+     try ( PreparedStatement pstat = conn.prepareStatement( sql ) )
+     {
+       if ( nodeLabels.isEmpty() )
+         pstat.setNull( 1, Types.VARCHAR );
+       else
+         pstat.setString( 1, String.join( ",", nodeLabels ) );
+
+       pstat.setInt( 2, toPercent( cpuLoad ) );
+       pstat.setInt( 3, toPercent( memoryUsage ) );
+       pstat.setInt( 4, runningWeights.size() );
+       pstat.setInt( 5, currentRunningWeight );
+       pstat.setInt( 6, Math.max( nodeCapacity, 0 ) );
+       pstat.setInt( 7, isOverloaded( remainingCapacity ) ? 1 : 0 );
+       pstat.setTimestamp( 8, new Timestamp( System.currentTimeMillis() ) );
+       pstat.setString( 9, getInstanceName() );
+       pstat.setString( 10, getInstanceId() );
+
+       return pstat.executeUpdate();
+     }
+   }
+
+
+   /**
+    * Returns true if there is another live cluster node that is not overloaded.
+    *
+    * @param conn the DB connection.
+    * @return true if there is another live cluster node that is not overloaded, false otherwise.
+    * @throws SQLException if a DB error occurs.
+    */
+   private boolean isOtherNodeAvailable( Connection conn )
+       throws SQLException
+   {
+     long now = System.currentTimeMillis();
+
+     try ( PreparedStatement pstat = conn.prepareStatement( rtp( SQL_SELECT_NODE_STATES ) ) )
+     {
+       pstat.setString( 1, getInstanceName() );
+
+       try ( ResultSet rs = pstat.executeQuery() )
+       {
+         while ( rs.next() )
+         {
+           SchedulerStateRecord rec = new SchedulerStateRecord();
+           rec.setSchedulerInstanceId( rs.getString( 1 ) );
+           rec.setCheckinTimestamp( rs.getLong( 3 ) );
+           rec.setCheckinInterval( rs.getLong( 4 ) );
+
+           // the same failure detection as used by the Quartz cluster manager
+           if ( !getInstanceId().equals( rec.getSchedulerInstanceId() ) && rs.getInt( 2 ) == 0 &&
+               calcFailedIfAfter( rec ) >= now )
+           {
+             return true;
+           }
+         }
+       }
+     }
+     return false;
+   }
+
+
+   /**
+    * Returns true if this cluster node is overloaded.
+    *
+    * @param remainingCapacity the remaining capacity of this cluster node.
+    * @return true if this cluster node is overloaded, false otherwise.
+    */
+   private boolean isOverloaded( int remainingCapacity )
+   {
+     return cpuLoad > maxCpuLoad || memoryUsage > maxMemoryUsage || remainingCapacity <= 0;
+   }
+
+
+   /**
+    * Samples the current CPU load and heap memory usage of this cluster node. The values are sampled once per
+    * cluster check-in interval.
+    */
+   private void sampleLoad()
+   {
+     OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+
+     double currentCpuLoad = -1;
+     if ( os instanceof com.sun.management.OperatingSystemMXBean )
+       currentCpuLoad = ( (com.sun.management.OperatingSystemMXBean) os ).getCpuLoad();
+
+     if ( currentCpuLoad < 0 )
+     {
+       double loadAverage = os.getSystemLoadAverage();
+       currentCpuLoad = loadAverage < 0 ? 0 : Math.min( loadAverage / os.getAvailableProcessors(), 1.0 );
+     }
+     cpuLoad = currentCpuLoad;
+
+     Runtime runtime = Runtime.getRuntime();
+     memoryUsage = (double) ( runtime.totalMemory() - runtime.freeMemory() ) / runtime.maxMemory();
+   }
+
+
+   /**
+    * Returns the resource weight of the specified trigger.
+    *
+    * @param trigger the trigger.
+    * @return the resource weight.
+    */
+   private static int getResourceWeight( OperableTrigger trigger )
+   {
+     Object weight = trigger.getJobDataMap().get( TDM_KEY_RESOURCE_WEIGHT );
+     if ( weight == null )
+       return DEFAULT_RESOURCE_WEIGHT;
+
+     try
+     {
+       return Math.max( Integer.parseInt( weight.toString().trim() ), 0 );
+     }
+     catch ( NumberFormatException e )
+     {
+       log.warn( "Invalid {} job data map parameter value '{}' of trigger {}, using default weight {}.",
+           TDM_KEY_RESOURCE_WEIGHT, weight, trigger.getKey(), DEFAULT_RESOURCE_WEIGHT );
+       return DEFAULT_RESOURCE_WEIGHT;
+     }
+   }
+
+
+   /**
+    * Parses the specified comma-separated list of labels.
+    *
+    * @param labels the comma-separated list of labels, can be null.
+    * @return the set of labels.
+    */
+   private static Set<String> parseLabels( String labels )
+   {
+     if ( labels == null || labels.isBlank() )
+       return Collections.emptySet();
+
+     Set<String> result = new LinkedHashSet<>();
+     for ( String label : labels.split( "," ) )
+     {
+       if ( !label.isBlank() )
+         result.add( label.trim() );
+     }
+     return result;
+   }
+
+
+   private static int toPercent( double value )
+   {
+     return (int) Math.round( value * 100 );
+   }
+
+
+   private String rtp( String sql )
+   {
+     return Util.rtp( sql, getTablePrefix(), "'" + getInstanceName() + "'" );
+   }
+
+
+   /**
+    * State of the trigger acquisition in progress.
+    */
+   private static final class AcquisitionState
+   {
+     private int remainingCapacity;
+
+     private boolean capacityExceeded;
+
+
+     private AcquisitionState( int remainingCapacity )
+     {
+       this.remainingCapacity = remainingCapacity;
+     }
+   }
+ }
@@ -0,0 +1,166 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.scheduler;
+
+ import java.nio.charset.StandardCharsets;
+ import java.security.MessageDigest;
+ import java.security.NoSuchAlgorithmException;
+ import java.util.Arrays;
+ import java.util.Collections;
+ import java.util.Map;
+ import java.util.Set;
+ import java.util.SortedSet;
+ import java.util.TreeMap;
+ import java.util.TreeSet;
+ import java.util.concurrent.ConcurrentHashMap;
+ import java.util.concurrent.ConcurrentMap;
+
+ /**
+  * Consistent-hash ring distributing shard keys (job groups) between scheduler instances of a cluster. Every
+  * instance is placed on the ring at the specified number of virtual node positions and a shard key is owned by
+  * the instance at the first position following the hash of the key. When an instance joins or leaves the
+  * cluster, only the shard keys of the ring segments adjacent to its virtual nodes change their owner.
+  *
+  * Instances of this class are immutable and thread-safe.
+  */
+ public class ShardRing
+ {
+   private final SortedSet<String> instanceIds;
+
+   private final long[] positions;
+
+   private final String[] owners;
+
+   private final ConcurrentMap<String, String> ownerCache = new ConcurrentHashMap<>();
+
+
+   /**
+    * Creates a new {@link ShardRing}.
+    *
+    * @param instanceIds  the IDs of the scheduler instances sharing the ring.
+    * @param virtualNodes the number of virtual nodes (ring positions) of every scheduler instance.
+    */
+   public ShardRing( Set<String> instanceIds, int virtualNodes )
+   {
+     if ( instanceIds.isEmpty() )
+       throw new IllegalArgumentException( "At least one scheduler instance ID must be specified." );
+
+     if ( virtualNodes < 1 )
+       throw new IllegalArgumentException( "Number of virtual nodes must be > 0." );
+
+     this.instanceIds = Collections.unmodifiableSortedSet( new TreeSet<>( instanceIds ) );
+
+     TreeMap<Long, String> ring = new TreeMap<>();
+     for ( String instanceId : this.instanceIds )
+     {
+       for ( int i = 0; i < virtualNodes; i++ )
+       {
+         // on (very unlikely) collisions, the lexicographically smaller instance ID wins
+         ring.putIfAbsent( hash( instanceId + '#' + i ), instanceId );
+       }
+     }
+
+     positions = new long[ring.size()];
+     owners = new String[ring.size()];
+
+     int i = 0;
+     for ( Map.Entry<Long, String> entry : ring.entrySet() )
+     {
+       positions[i] = entry.getKey();
+       owners[i] = entry.getValue();
+       i++;
+     }
+   }
+
+
+   /**
+    * Returns the IDs of the scheduler instances sharing the ring.
+    *
+    * @return the scheduler instance IDs.
+    */
+   public SortedSet<String> getInstanceIds()
+   {
+     return instanceIds;
+   }
+
+
+   /**
+    * Returns the ID of the scheduler instance owning the specified shard key.
+    *
+    * @param shardKey the shard key.
+    * @return the ID of the owning scheduler instance.
+    */
+   public String getOwner( String shardKey )
+   {
+     return ownerCache.computeIfAbsent( shardKey, this::lookupOwner );
+   }
+
+
+   /**
+    * Returns true if the specified shard key is owned by the specified scheduler instance.
+    *
+    * @param shardKey   the shard key.
+    * @param instanceId the scheduler instance ID.
+    * @return true if the shard key is owned by the scheduler instance, false otherwise.
+    */
+   public boolean isOwner( String shardKey, String instanceId )
+   {
+     return getOwner( shardKey ).equals( instanceId );
+   }
+
+
+   private String lookupOwner( String shardKey )
+   {
+     long hash = hash( shardKey );
+
+     int idx = Arrays.binarySearch( positions, hash );
+     if ( idx < 0 )
+       idx = -idx - 1;
+
+     // wrap around the ring
+     if ( idx == positions.length )
+       idx = 0;
+
+     return owners[idx];
+   }
+
+
+   /**
+    * Returns the 64-bit ring position of the specified value. The position is derived from the MD5 digest of
+    * the value, which distributes the values uniformly and yields the same positions on all cluster nodes.
+    *
+    * @param value the value.
+    * @return the ring position.
+    */
+   private static long hash( String value )
+   {
+     MessageDigest md5;
+     try
+     {
+       md5 = MessageDigest.getInstance( "MD5" );
+     }
+     catch ( NoSuchAlgorithmException e )
+     {
+       throw new IllegalStateException( "MD5 message digest algorithm not available.", e );
+     }
+
+     byte[] digest = md5.digest( value.getBytes( StandardCharsets.UTF_8 ) );
+
+     long hash = 0;
+     for ( int i = 0; i < 8; i++ )
+     {
+       hash = ( hash << 8 ) | ( digest[i] & 0xff );
+     }
+     return hash;
+   }
+
+
+   @Override
+   public String toString()
+   {
+     return getClass().getSimpleName() + "[instanceIds=" + instanceIds + ", positions=" + positions.length + ']';
+   }
+ }
@@ -0,0 +1,484 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.scheduler;
+
+ import org.quartz.JobDetail;
+ import org.quartz.JobPersistenceException;
+ import org.quartz.SchedulerConfigException;
+ import org.quartz.TriggerKey;
+ import org.quartz.impl.jdbcjobstore.Constants;
+ import org.quartz.impl.jdbcjobstore.DriverDelegate;
+ import org.quartz.impl.jdbcjobstore.FiredTriggerRecord;
+ import org.quartz.impl.jdbcjobstore.NoSuchDelegateException;
+ import org.quartz.impl.jdbcjobstore.SchedulerStateRecord;
+ import org.quartz.impl.jdbcjobstore.StdJDBCConstants;
+ import org.quartz.impl.jdbcjobstore.Util;
+ import org.quartz.spi.ClassLoadHelper;
+ import org.quartz.spi.OperableTrigger;
+ import org.quartz.spi.SchedulerSignaler;
+ import org.slf4j.Logger;
+ import org.slf4j.LoggerFactory;
+ import org.springframework.scheduling.quartz.LocalDataSourceJobStore;
+
+ import java.lang.reflect.InvocationTargetException;
+ import java.lang.reflect.Method;
+ import java.lang.reflect.Proxy;
+ import java.math.BigDecimal;
+ import java.sql.Connection;
+ import java.sql.PreparedStatement;
+ import java.sql.ResultSet;
+ import java.sql.SQLException;
+ import java.io.IOException;
+ import java.util.ArrayList;
+ import java.util.Collections;
+ import java.util.HashSet;
+ import java.util.List;
+ import java.util.Set;
+ import java.util.TreeSet;
+
+ /**
+  * Spring {@link LocalDataSourceJobStore} that optionally shards the triggers between the nodes of a scheduler
+  * cluster.
+  *
+  * <p>
+  * In a regular Quartz cluster, all nodes compete for all triggers and the batched trigger acquisition is
+  * serialized by the cluster-wide {@code TRIGGER_ACCESS} row lock in the {@code QRTZ_LOCKS} table. With sharding
+  * enabled, the job groups are distributed between the live cluster nodes by a consistent-hash {@link ShardRing}
+  * and every node acquires only the triggers of the jobs in its own job groups. Because the nodes acquire disjoint
+  * sets of triggers, the acquisition runs without the {@code TRIGGER_ACCESS} lock. Triggers are sharded by their
+  * job group (rather than their own group) so that all triggers of a job are acquired by the same node and
+  * {@link org.quartz.DisallowConcurrentExecution} jobs are never executed concurrently on multiple nodes.
+  * </p>
+  *
+  * <p>
+  * The live nodes are determined from the heartbeats (check-ins) the cluster nodes record in the
+  * {@code QRTZ_SCHEDULER_STATE} table. The ring is refreshed every cluster check-in interval and the shards are
+  * rebalanced when a node joins or leaves the cluster. While the nodes have not yet observed a membership change,
+  * two nodes may briefly consider themselves owners of the same job group. A trigger is still acquired by one
+  * of them only, because the acquisition atomically changes the trigger state from WAITING to ACQUIRED.
+  * </p>
+  *
+  * <p>
+  * If the scheduler uses the {@link LaneThreadPool}, the triggers of the jobs executed in the lanes whose queues
+  * are full are not acquired until the lanes catch up, so that a saturated lane does not delay the acquisition of
+  * the triggers of the other lanes.
+  * </p>
+  *
+  * The sharding is configured by the following job store properties:
+  * <ul>
+  * <li>{@code org.quartz.jobStore.sharded} - enables the sharding, requires
+  * {@code org.quartz.jobStore.isClustered = true}.</li>
+  * <li>{@code org.quartz.jobStore.shardVirtualNodes} - the number of virtual nodes of every cluster node on the
+  * shard ring.</li>
+  * </ul>
+  */
+ // JobStoreCMT overrides the generic JobStoreSupport.executeInLock( String, TransactionCallback<T> ) with a raw
+ // TransactionCallback, javac therefore reports an unchecked return type conversion on every subclass.
+ @SuppressWarnings( "unchecked" )
+ public class ShardedJobStore
+     extends LocalDataSourceJobStore
+ {
+   private static final Logger log = LoggerFactory.getLogger( ShardedJobStore.class );
+
+   /**
+    * Default number of virtual nodes of every cluster node on the shard ring.
+    */
+   private static final int DEFAULT_SHARD_VIRTUAL_NODES = 256;
+
+   /**
+    * Same as {@link StdJDBCConstants#SELECT_NEXT_TRIGGER_TO_ACQUIRE}, but also selects the job group of the
+    * triggers.
+    */
+   private static final String SELECT_NEXT_TRIGGER_TO_ACQUIRE = "SELECT "
+       + StdJDBCConstants.COL_TRIGGER_NAME + ", " + StdJDBCConstants.COL_TRIGGER_GROUP + ", "
+       + StdJDBCConstants.COL_JOB_GROUP + ", "
+       + StdJDBCConstants.COL_NEXT_FIRE_TIME + ", " + StdJDBCConstants.COL_PRIORITY + " FROM "
+       + StdJDBCConstants.TABLE_PREFIX_SUBST + StdJDBCConstants.TABLE_TRIGGERS + " WHERE "
+       + StdJDBCConstants.COL_SCHEDULER_NAME + " = " + StdJDBCConstants.SCHED_NAME_SUBST
+       + " AND " + StdJDBCConstants.COL_TRIGGER_STATE + " = ? AND " + StdJDBCConstants.COL_NEXT_FIRE_TIME + " <= ? "
+       + "AND (" + StdJDBCConstants.COL_MISFIRE_INSTRUCTION + " = -1 OR (" + StdJDBCConstants.COL_MISFIRE_INSTRUCTION
+       + " <> -1 AND " + StdJDBCConstants.COL_NEXT_FIRE_TIME + " >= ?)) "
+       + "ORDER BY " + StdJDBCConstants.COL_NEXT_FIRE_TIME + " ASC, " + StdJDBCConstants.COL_PRIORITY + " DESC";
+
+   private boolean sharded;
+
+   private int shardVirtualNodes = DEFAULT_SHARD_VIRTUAL_NODES;
+
+   private DriverDelegate delegate;
+
+   private DriverDelegate filteringDelegate;
+
+   private volatile ShardRing shardRing;
+
+   private volatile long shardRingRefreshedAt;
+
+   private volatile LaneThreadPool laneThreadPool;
+
+
+   /**
+    * Enables, or disables the sharding of the triggers between the cluster nodes.
+    *
+    * @param sharded true to enable the sharding, false to disable it.
+    */
+   public void setSharded( boolean sharded )
+   {
+     this.sharded = sharded;
+   }
+
+
+   public boolean isSharded()
+   {
+     return sharded;
+   }
+
+
+   /**
+    * Sets the number of virtual nodes of every cluster node on the shard ring. More virtual nodes distribute the
+    * job groups more evenly between the cluster nodes.
+    *
+    * @param shardVirtualNodes the number of virtual nodes.
+    */
+   public void setShardVirtualNodes( int shardVirtualNodes )
+   {
+     this.shardVirtualNodes = shardVirtualNodes;
+   }
+
+
+   public int getShardVirtualNodes()
+   {
+     return shardVirtualNodes;
+   }
+
+
+   /**
+    * Returns the current shard ring, or null if the sharding is disabled, or no triggers have been acquired yet.
+    *
+    * @return the current shard ring.
+    */
+   public ShardRing getShardRing()
+   {
+     return shardRing;
+   }
+
+
+   @Override
+   public void initialize( ClassLoadHelper loadHelper, SchedulerSignaler signaler )
+       throws SchedulerConfigException
+   {
+     super.initialize( loadHelper, signaler );
+
+     if ( sharded )
+     {
+       if ( !isClustered() )
+       {
+         log.warn( "Trigger sharding requires a clustered job store (org.quartz.jobStore.isClustered = true)." +
+             " Trigger sharding disabled." );
+         sharded = false;
+       }
+       else if ( shardVirtualNodes < 1 )
+       {
+         throw new SchedulerConfigException( "Number of shard virtual nodes must be > 0: " + shardVirtualNodes );
+       }
+       else
+       {
+         log.info( "Trigger sharding enabled, scheduler instance: {}, shard virtual nodes: {}.", getInstanceId(),
+             shardVirtualNodes );
+       }
+     }
+   }
+
+
+   @Override
+   public List<OperableTrigger> acquireNextTriggers( final long noLaterThan, final int maxCount,
+       final long timeWindow )
+       throws JobPersistenceException
+   {
+     if ( !sharded )
+       return super.acquireNextTriggers( noLaterThan, maxCount, timeWindow );
+
+     // the cluster nodes acquire disjoint sets of triggers, the TRIGGER_ACCESS lock is not needed
+     return executeInNonManagedTXLock( null,
+         conn -> acquireNextTrigger( conn, noLaterThan, maxCount, timeWindow ),
+         this::isAcquired );
+   }
+
+
+   /**
+    * Returns the driver delegate. If the selection of the triggers to acquire is filtered (see
+    * {@link #isAcquisitionFiltered()}), the returned delegate selects only the triggers accepted by
+    * {@link #isAcquirable(TriggerKey, String)} for acquisition.
+    *
+    * @return the driver delegate.
+    * @throws NoSuchDelegateException if the delegate cannot be created.
+    */
+   @Override
+   protected DriverDelegate getDelegate()
+       throws NoSuchDelegateException
+   {
+     DriverDelegate currentDelegate = super.getDelegate();
+     if ( !isAcquisitionFiltered() )
+       return currentDelegate;
+
+     synchronized ( this )
+     {
+       if ( delegate != currentDelegate )
+       {
+         filteringDelegate = (DriverDelegate) Proxy.newProxyInstance( DriverDelegate.class.getClassLoader(),
+             new Class<?>[] { DriverDelegate.class },
+             ( proxy, method, args ) -> invokeDelegate( currentDelegate, method, args ) );
+         delegate = currentDelegate;
+       }
+       return filteringDelegate;
+     }
+   }
+
+
+   private Object invokeDelegate( DriverDelegate target, Method method, Object[] args )
+       throws Throwable
+   {
+     if ( "selectTriggerToAcquire".equals( method.getName() ) && args != null && args.length == 4 )
+     {
+       return selectTriggersToAcquire( (Connection) args[0], (Long) args[1], (Long) args[2],
+           (Integer) args[3] );
+     }
+
+     try
+     {
+       return method.invoke( target, args );
+     }
+     catch ( InvocationTargetException e )
+     {
+       throw e.getCause();
+     }
+   }
+
+
+   /**
+    * Returns true if the selection of the triggers to acquire is filtered by
+    * {@link #isAcquirable(TriggerKey, String)}. Returns true if the sharding is enabled, or if any lane of the
+    * {@link LaneThreadPool} is saturated.
+    *
+    * @return true if the selection of the triggers to acquire is filtered, false otherwise.
+    */
+   protected boolean isAcquisitionFiltered()
+   {
+     return sharded || !getSaturatedLanes().isEmpty();
+   }
+
+
+   /**
+    * Returns true if the specified trigger can be acquired by this cluster node. If the sharding is enabled,
+    * returns true only for the triggers of the job groups owned by this cluster node.
+    *
+    * @param triggerKey the trigger key.
+    * @param jobGroup   the group of the trigger's job.
+    * @return true if the trigger can be acquired, false otherwise.
+    */
+   protected boolean isAcquirable( TriggerKey triggerKey, String jobGroup )
+   {
+     return !sharded || shardRing.isOwner( jobGroup, getInstanceId() );
+   }
+
+
+   /**
+    * Selects the triggers accepted by {@link #isAcquirable(TriggerKey, String)} that will fire between the two
+    * given timestamps in ascending order of fire time, and then descending by priority. The query is the same
+    * as the one used by {@link DriverDelegate#selectTriggerToAcquire(Connection, long, long, int)}, but the
+    * triggers that cannot be acquired by this cluster node (e.g. triggers of the job groups owned by other
+    * cluster nodes) and the triggers of the saturated lanes of the {@link LaneThreadPool} are skipped.
+    *
+    * @param conn          the DB connection.
+    * @param noLaterThan   the highest value of the next fire time of the triggers (inclusive).
+    * @param noEarlierThan the lowest value of the next fire time of the misfire-aware triggers (inclusive).
+    * @param maxCount      the maximum number of returned triggers.
+    * @return the keys of the triggers to acquire.
+    * @throws SQLException if a DB error occurs.
+    * @throws NoSuchDelegateException if the delegate cannot be created.
+    */
+   private List<TriggerKey> selectTriggersToAcquire( Connection conn, long noLaterThan, long noEarlierThan,
+       int maxCount )
+       throws SQLException, NoSuchDelegateException
+   {
+     int instanceCount = sharded ? refreshShardRing( conn ).getInstanceIds().size() : 1;
+
+     Set<String> saturatedLanes = getSaturatedLanes();
+
+     maxCount = Math.max( maxCount, 1 );
+     List<TriggerKey> triggerKeys = new ArrayList<>( maxCount );
+
+     String sql = Util.rtp( SELECT_NEXT_TRIGGER_TO_ACQUIRE, getTablePrefix(), "'" + getInstanceName() + "'" );
+     try ( PreparedStatement pstat = conn.prepareStatement( sql ) )
+     {
+       // with sharding, roughly 1/n-th of the selected triggers are owned by this node
+       pstat.setFetchSize( maxCount * instanceCount );
+
+       pstat.setString( 1, Constants.STATE_WAITING );
+       pstat.setBigDecimal( 2, new BigDecimal( String.valueOf( noLaterThan ) ) );
+       pstat.setBigDecimal( 3, new BigDecimal( String.valueOf( noEarlierThan ) ) );
+
+       try ( ResultSet rs = pstat.executeQuery() )
+       {
+         while ( triggerKeys.size() < maxCount && rs.next() )
+         {
+           TriggerKey triggerKey = new TriggerKey( rs.getString( StdJDBCConstants.COL_TRIGGER_NAME ),
+               rs.getString( StdJDBCConstants.COL_TRIGGER_GROUP ) );
+
+           if ( !isAcquirable( triggerKey, rs.getString( StdJDBCConstants.COL_JOB_GROUP ) ) )
+             continue;
+
+           if ( !saturatedLanes.isEmpty() && saturatedLanes.contains( getLaneName( conn, triggerKey ) ) )
+           {
+             log.debug( "Skipping trigger {}, its execution lane is saturated.", triggerKey );
+             continue;
+           }
+
+           triggerKeys.add( triggerKey );
+         }
+       }
+     }
+
+     return triggerKeys;
+   }
+
+
+   /**
+    * Returns the names of the saturated lanes of the {@link LaneThreadPool} of the scheduler, an empty set if
+    * there are no saturated lanes, or if the scheduler does not use the {@link LaneThreadPool}.
+    *
+    * @return the names of the saturated lanes.
+    */
+   private Set<String> getSaturatedLanes()
+   {
+     LaneThreadPool pool = laneThreadPool;
+     if ( pool == null )
+     {
+       pool = LaneThreadPool.getInstance( getInstanceName() );
+       if ( pool == null )
+         return Collections.emptySet();
+
+       // the thread pool no longer needs to pause the acquisition of all triggers when a lane is saturated
+       pool.setLaneAwareAcquisition( true );
+       laneThreadPool = pool;
+     }
+     return pool.getSaturatedLanes();
+   }
+
+
+   /**
+    * Returns the name of the {@link LaneThreadPool} lane the job of the specified trigger is executed in, or null
+    * if the trigger, or its job cannot be loaded. The lane is determined from the {@value LaneThreadPool#JDM_KEY_LANE}
+    * parameter of the trigger, or job data map, or from the job group.
+    *
+    * @param conn       the DB connection.
+    * @param triggerKey the trigger key.
+    * @return the lane name, or null.
+    * @throws SQLException if a DB error occurs.
+    * @throws NoSuchDelegateException if the delegate cannot be created.
+    */
+   private String getLaneName( Connection conn, TriggerKey triggerKey )
+       throws SQLException, NoSuchDelegateException
+   {
+     DriverDelegate target = super.getDelegate();
+     try
+     {
+       OperableTrigger trigger = target.selectTrigger( conn, triggerKey );
+       if ( trigger == null )
+         return null;
+
+       String laneName = trigger.getJobDataMap().getString( LaneThreadPool.JDM_KEY_LANE );
+       if ( laneName == null )
+       {
+         JobDetail jobDetail = target.selectJobDetail( conn, trigger.getJobKey(), getClassLoadHelper() );
+         if ( jobDetail != null )
+           laneName = jobDetail.getJobDataMap().getString( LaneThreadPool.JDM_KEY_LANE );
+       }
+
+       return laneThreadPool.getLaneName( laneName, trigger.getJobKey() );
+     }
+     catch ( ClassNotFoundException | IOException | JobPersistenceException e )
+     {
+       // the acquisition reports the trigger, or job that cannot be loaded
+       log.debug( "Error retrieving execution lane of trigger " + triggerKey + '.', e );
+       return null;
+     }
+   }
+
+
+   /**
+    * Returns the current shard ring. The ring is rebuilt from the live scheduler instances recorded in the
+    * {@code QRTZ_SCHEDULER_STATE} table at most once per cluster check-in interval.
+    *
+    * @param conn the DB connection.
+    * @return the current shard ring.
+    * @throws SQLException if a DB error occurs.
+    * @throws NoSuchDelegateException if the delegate cannot be created.
+    */
+   private ShardRing refreshShardRing( Connection conn )
+       throws SQLException, NoSuchDelegateException
+   {
+     ShardRing ring = shardRing;
+
+     long now = System.currentTimeMillis();
+     if ( ring != null && now - shardRingRefreshedAt < getClusterCheckinInterval() )
+       return ring;
+
+     Set<String> instanceIds = new TreeSet<>();
+     instanceIds.add( getInstanceId() );
+
+     for ( SchedulerStateRecord rec : super.getDelegate().selectSchedulerStateRecords( conn, null ) )
+     {
+       // the same failure detection as used by the Quartz cluster manager
+       if ( calcFailedIfAfter( rec ) >= now )
+         instanceIds.add( rec.getSchedulerInstanceId() );
+     }
+
+     if ( ring == null || !ring.getInstanceIds().equals( instanceIds ) )
+     {
+       ring = new ShardRing( instanceIds, shardVirtualNodes );
+       shardRing = ring;
+
+       log.info( "Rebalanced trigger shards between {} live scheduler instance(s): {}", instanceIds.size(),
+           instanceIds );
+     }
+
+     shardRingRefreshedAt = now;
+     return ring;
+   }
+
+
+   /**
+    * Returns true if the specified acquired triggers have been recorded in the {@code QRTZ_FIRED_TRIGGERS} table.
+    * Used to validate the acquisition transaction when its commit fails.
+    *
+    * @param conn     the DB connection.
+    * @param triggers the acquired triggers.
+    * @return true if the acquisition has been committed, false otherwise.
+    * @throws JobPersistenceException if a DB error occurs.
+    */
+   private Boolean isAcquired( Connection conn, List<OperableTrigger> triggers )
+       throws JobPersistenceException
+   {
+     try
+     {
+       Set<String> fireInstanceIds = new HashSet<>();
+       for ( FiredTriggerRecord record : getDelegate().selectInstancesFiredTriggerRecords( conn, getInstanceId() ) )
+       {
+         fireInstanceIds.add( record.getFireInstanceId() );
+       }
+
+       for ( OperableTrigger trigger : triggers )
+       {
+         if ( fireInstanceIds.contains( trigger.getFireInstanceId() ) )
+           return true;
+       }
+       return false;
+     }
+     catch ( SQLException e )
+     {
+       throw new JobPersistenceException( "Error validating trigger acquisition.", e );
+     }
+   }
+ }
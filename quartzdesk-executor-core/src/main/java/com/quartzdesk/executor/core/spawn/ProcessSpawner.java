@@ -0,0 +1,398 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.spawn;
+
+ import com.quartzdesk.executor.common.text.CommandLineTokenizer;
+ import com.quartzdesk.executor.common.text.StringUtils;
+
+ import jakarta.annotation.PostConstruct;
+ import jakarta.annotation.PreDestroy;
+ import org.slf4j.Logger;
+ import org.slf4j.LoggerFactory;
+
+ import java.io.BufferedInputStream;
+ import java.io.BufferedOutputStream;
+ import java.io.DataInputStream;
+ import java.io.DataOutputStream;
+ import java.io.File;
+ import java.io.IOException;
+ import java.net.URISyntaxException;
+ import java.net.UnixDomainSocketAddress;
+ import java.nio.channels.SocketChannel;
+ import java.nio.file.FileAlreadyExistsException;
+ import java.nio.file.FileSystems;
+ import java.nio.file.Files;
+ import java.nio.file.LinkOption;
+ import java.nio.file.Path;
+ import java.nio.file.Paths;
+ import java.nio.file.attribute.PosixFileAttributes;
+ import java.nio.file.attribute.PosixFilePermissions;
+ import java.security.CodeSource;
+ import java.util.ArrayList;
+ import java.util.List;
+ import java.util.Map;
+
+ /**
+  * Starts native processes either directly through {@link ProcessBuilder#start()}, or, if enabled, through the
+  * {@link SpawnServer} helper process that is started once when this bean is initialized.
+  *
+  * <p>
+  * Forking a large JVM is costly (the page tables of the JVM process must be copied), which is noticeable with jobs
+  * that are executed every few seconds. The spawn server runs in a separate JVM with a small heap and spawns the
+  * processes on behalf of the QuartzDesk Executor. The server communicates with this bean over a Unix domain socket
+  * and it streams the process output and exit code back to this JVM.
+  * </p>
+  *
+  * If the spawn server is disabled, or not available, processes are started directly.
+  */
+ public class ProcessSpawner
+ {
+   private static final Logger log = LoggerFactory.getLogger( ProcessSpawner.class );
+
+   /**
+    * Default spawn server startup timeout in milliseconds.
+    */
+   private static final long DEFAULT_STARTUP_TIMEOUT = 10000L;
+
+   /**
+    * Permissions of the default socket file directory.
+    */
+   private static final String SOCKET_DIRECTORY_PERMISSIONS = "rwx------";
+
+   private boolean enabled;
+
+   private String socketFile;
+
+   private String javaOptions;
+
+   private long startupTimeout = DEFAULT_STARTUP_TIMEOUT;
+
+   private Process serverProcess;
+
+   private Path serverSocketFile;
+
+
+   /**
+    * Enables, or disables the use of the spawn server. Disabled by default.
+    *
+    * @param enabled the flag value.
+    */
+   public void setEnabled( boolean enabled )
+   {
+     this.enabled = enabled;
+   }
+
+
+   /**
+    * Sets the path of the Unix domain socket file the spawn server listens on. If not specified, a file in the
+    * private (accessible to the owner only) {@code quartzdesk-executor-<user.name>} directory in the
+    * {@code java.io.tmpdir} directory is used. The directory of the specified socket file should be accessible
+    * to the user running the QuartzDesk Executor only, because any user who can connect to the socket can start
+    * processes on behalf of that user.
+    *
+    * @param socketFile the socket file path.
+    */
+   public void setSocketFile( String socketFile )
+   {
+     this.socketFile = socketFile;
+   }
+
+
+   /**
+    * Sets the space-separated JVM options of the spawn server JVM.
+    *
+    * @param javaOptions the JVM options.
+    */
+   public void setJavaOptions( String javaOptions )
+   {
+     this.javaOptions = javaOptions;
+   }
+
+
+   /**
+    * Sets the maximum time in milliseconds to wait for the spawn server to start.
+    *
+    * @param startupTimeout the startup timeout in milliseconds.
+    */
+   public void setStartupTimeout( long startupTimeout )
+   {
+     this.startupTimeout = startupTimeout;
+   }
+
+
+   /**
+    * Starts the spawn server if enabled.
+    */
+   @PostConstruct
+   public void startServer()
+   {
+     if ( !enabled )
+     {
+       log.info( "Spawn server disabled. Native processes will be started directly." );
+       return;
+     }
+
+     try
+     {
+       serverSocketFile = StringUtils.isBlank( socketFile )
+           ? createPrivateDirectory( Paths.get( System.getProperty( "java.io.tmpdir" ),
+           "quartzdesk-executor-" + System.getProperty( "user.name" ) ) )
+           .resolve( "spawn-" + ProcessHandle.current().pid() + ".sock" )
+           : Paths.get( socketFile.trim() );
+
+       Files.deleteIfExists( serverSocketFile );
+
+       List<String> commandLine = new ArrayList<>();
+       commandLine.add( Paths.get( System.getProperty( "java.home" ), "bin", "java" ).toString() );
+       commandLine.addAll( CommandLineTokenizer.INSTANCE.tokenize( javaOptions ) );
+       commandLine.add( "-cp" );
+       commandLine.add( getServerClassPath() );
+       commandLine.add( SpawnServer.class.getName() );
+       commandLine.add( serverSocketFile.toString() );
+
+       log.info( "Starting spawn server using command line: {}", commandLine );
+
+       ProcessBuilder processBuilder = new ProcessBuilder( commandLine );
+       processBuilder.redirectErrorStream( true );
+       processBuilder.redirectOutput( ProcessBuilder.Redirect.INHERIT );
+
+       // the spawn server terminates when its standard input (kept open by this JVM) is closed
+       serverProcess = processBuilder.start();
+
+       long deadline = System.currentTimeMillis() + startupTimeout;
+       while ( !Files.exists( serverSocketFile ) && serverProcess.isAlive() && System.currentTimeMillis() < deadline )
+       {
+         Thread.sleep( 50 );
+       }
+
+       if ( Files.exists( serverSocketFile ) && serverProcess.isAlive() )
+       {
+         log.info( "Spawn server [pid={}] listening on: {}", serverProcess.pid(), serverSocketFile );
+       }
+       else
+       {
+         log.error( "Spawn server failed to start within {} ms. Native processes will be started directly.",
+             startupTimeout );
+         stopServer();
+       }
+     }
+     catch ( IOException | URISyntaxException | RuntimeException e )
+     {
+       // runtime exceptions are thrown e.g. if the class location is not a file (VFS, or app-server class loaders)
+       log.error( "Error starting spawn server. Native processes will be started directly.", e );
+       stopServer();
+     }
+     catch ( InterruptedException e )
+     {
+       Thread.currentThread().interrupt();
+       stopServer();
+     }
+   }
+
+
+   /**
+    * Stops the spawn server if running.
+    */
+   @PreDestroy
+   public void stopServer()
+   {
+     if ( serverProcess != null )
+     {
+       log.info( "Stopping spawn server [pid={}].", serverProcess.pid() );
+
+       try
+       {
+         serverProcess.getOutputStream().close();
+       }
+       catch ( IOException e )
+       {
+         // ignore
+       }
+
+       serverProcess.destroy();
+       serverProcess = null;
+     }
+
+     if ( serverSocketFile != null )
+     {
+       try
+       {
+         Files.deleteIfExists( serverSocketFile );
+       }
+       catch ( IOException e )
+       {
+         log.warn( "Error deleting spawn server socket file: " + serverSocketFile, e );
+       }
+     }
+   }
+
+
+   /**
+    * Returns true if the spawn server is running, false otherwise.
+    *
+    * @return true if the spawn server is running, false otherwise.
+    */
+   public boolean isServerRunning()
+   {
+     Process process = serverProcess;
+     return process != null && process.isAlive();
+   }
+
+
+   /**
+    * Starts a new process using the attributes of the specified process builder. If the spawn server is running,
+    * the process is started by the spawn server, otherwise it is started by {@link ProcessBuilder#start()}.
+    * Only process builders that redirect the error stream to the standard output are supported by the spawn
+    * server.
+    *
+    * @param processBuilder a process builder.
+    * @return the started process.
+    * @throws IOException if the process cannot be started.
+    */
+   public Process start( ProcessBuilder processBuilder )
+       throws IOException
+   {
+     if ( !isServerRunning() || !processBuilder.redirectErrorStream() )
+       return processBuilder.start();
+
+     SocketChannel channel;
+     try
+     {
+       channel = SocketChannel.open( UnixDomainSocketAddress.of( serverSocketFile ) );
+     }
+     catch ( IOException e )
+     {
+       log.warn( "Error connecting to spawn server. Starting process directly.", e );
+       return processBuilder.start();
+     }
+
+     try
+     {
+       DataInputStream in = new DataInputStream( new BufferedInputStream( SpawnProtocol.newInputStream( channel ) ) );
+       DataOutputStream out =
+           new DataOutputStream( new BufferedOutputStream( SpawnProtocol.newOutputStream( channel ) ) );
+
+       writeRequest( out, processBuilder );
+
+       byte frameType = in.readByte();
+       if ( frameType == SpawnProtocol.FRAME_STARTED )
+       {
+         return new SpawnedProcess( channel, in, out, in.readLong() );
+       }
+       else if ( frameType == SpawnProtocol.FRAME_ERROR )
+       {
+         throw new IOException( "Cannot run program " + processBuilder.command() + ": " +
+             SpawnProtocol.readString( in ) );
+       }
+       else
+       {
+         throw new IOException( "Unexpected spawn server frame type: " + frameType );
+       }
+     }
+     catch ( IOException e )
+     {
+       channel.close();
+       throw e;
+     }
+   }
+
+
+   /**
+    * Writes the spawn request for the specified process builder.
+    *
+    * @param out            an output stream.
+    * @param processBuilder a process builder.
+    * @throws IOException if an I/O error occurs.
+    */
+   private void writeRequest( DataOutputStream out, ProcessBuilder processBuilder )
+       throws IOException
+   {
+     out.writeInt( SpawnProtocol.VERSION );
+
+     List<String> commandLine = processBuilder.command();
+     out.writeInt( commandLine.size() );
+     for ( String arg : commandLine )
+     {
+       SpawnProtocol.writeString( out, arg );
+     }
+
+     File directory = processBuilder.directory();
+     out.writeBoolean( directory != null );
+     if ( directory != null )
+     {
+       SpawnProtocol.writeString( out, directory.getAbsolutePath() );
+     }
+
+     Map<String, String> environment = processBuilder.environment();
+     out.writeInt( environment.size() );
+     for ( Map.Entry<String, String> entry : environment.entrySet() )
+     {
+       SpawnProtocol.writeString( out, entry.getKey() );
+       SpawnProtocol.writeString( out, entry.getValue() );
+     }
+
+     out.flush();
+   }
+
+
+   /**
+    * Creates the specified directory accessible to the owner only, if it does not exist. If the directory exists,
+    * checks that it is owned by the current user and that it is not accessible to other users.
+    *
+    * @param directory the directory.
+    * @return the directory.
+    * @throws IOException if the directory cannot be created, or it is not private.
+    */
+   private Path createPrivateDirectory( Path directory )
+       throws IOException
+   {
+     if ( !FileSystems.getDefault().supportedFileAttributeViews().contains( "posix" ) )
+     {
+       // not a POSIX file system (Windows), the temporary directory is private to the user
+       return Files.createDirectories( directory );
+     }
+
+     try
+     {
+       // created with the permissions atomically, i.e. the directory is never accessible to other users
+       Files.createDirectory( directory,
+           PosixFilePermissions.asFileAttribute( PosixFilePermissions.fromString( SOCKET_DIRECTORY_PERMISSIONS ) ) );
+     }
+     catch ( FileAlreadyExistsException e )
+     {
+       PosixFileAttributes attributes =
+           Files.readAttributes( directory, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS );
+
+       if ( !attributes.isDirectory() ||
+           !attributes.owner().getName().equals( System.getProperty( "user.name" ) ) ||
+           !PosixFilePermissions.toString( attributes.permissions() ).equals( SOCKET_DIRECTORY_PERMISSIONS ) )
+       {
+         throw new IOException( "Spawn server socket directory: " + directory +
+             " is not a directory owned by the current user and accessible to the owner only." );
+       }
+     }
+
+     return directory;
+   }
+
+
+   /**
+    * Returns the classpath of the spawn server, i.e. the location of the {@link SpawnServer} class.
+    *
+    * @return the classpath.
+    * @throws IOException        if the class location is not known.
+    * @throws URISyntaxException if the class location cannot be converted to a path.
+    */
+   private String getServerClassPath()
+       throws IOException, URISyntaxException
+   {
+     CodeSource codeSource = SpawnServer.class.getProtectionDomain().getCodeSource();
+     if ( codeSource == null || codeSource.getLocation() == null )
+       throw new IOException( "Location of class: " + SpawnServer.class.getName() + " is not known." );
+
+     return Paths.get( codeSource.getLocation().toURI() ).toString();
+   }
+ }
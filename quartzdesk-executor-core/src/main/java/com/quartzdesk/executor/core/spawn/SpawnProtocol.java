@@ -0,0 +1,195 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.spawn;
+
+ import java.io.DataInputStream;
+ import java.io.DataOutputStream;
+ import java.io.EOFException;
+ import java.io.IOException;
+ import java.io.InputStream;
+ import java.io.OutputStream;
+ import java.nio.ByteBuffer;
+ import java.nio.channels.SocketChannel;
+ import java.nio.charset.StandardCharsets;
+
+ /**
+  * Constants and auxiliary methods of the wire protocol used by the {@link ProcessSpawner} to communicate with
+  * the {@link SpawnServer}.
+  *
+  * <p>
+  * A client sends a single spawn request consisting of the protocol version, command line, optional work
+  * directory and process environment. The server responds with a {@link #FRAME_STARTED} frame (or
+  * {@link #FRAME_ERROR} frame if the process could not be started), followed by any number of
+  * {@link #FRAME_OUTPUT} frames and a final {@link #FRAME_EXIT} frame. The client can send the
+  * {@link #REQUEST_KILL} byte at any time to destroy the spawned process.
+  * </p>
+  *
+  * This class intentionally uses JDK classes only because it is loaded by the {@link SpawnServer} process.
+  */
+ final class SpawnProtocol
+ {
+   /**
+    * Protocol version.
+    */
+   static final int VERSION = 1;
+
+   /**
+    * Frame sent when the process has been started. Followed by the process PID (long).
+    */
+   static final byte FRAME_STARTED = 1;
+
+   /**
+    * Frame containing a chunk of the process output. Followed by the chunk length (int) and data.
+    */
+   static final byte FRAME_OUTPUT = 2;
+
+   /**
+    * Frame sent when the process has finished. Followed by the process exit code (int).
+    */
+   static final byte FRAME_EXIT = 3;
+
+   /**
+    * Frame sent when the process could not be started. Followed by the error message (string).
+    */
+   static final byte FRAME_ERROR = 4;
+
+   /**
+    * Request sent by the client to destroy the spawned process.
+    */
+   static final byte REQUEST_KILL = 1;
+
+
+   /**
+    * Private constructor of a utility class.
+    */
+   private SpawnProtocol()
+   {
+   }
+
+
+   /**
+    * Writes the specified string in the UTF-8 encoding prefixed with its length.
+    *
+    * @param out an output stream.
+    * @param s   a string.
+    * @throws IOException if an I/O error occurs.
+    */
+   static void writeString( DataOutputStream out, String s )
+       throws IOException
+   {
+     byte[] bytes = s.getBytes( StandardCharsets.UTF_8 );
+     out.writeInt( bytes.length );
+     out.write( bytes );
+   }
+
+
+   /**
+    * Reads a string written by the {@link #writeString(DataOutputStream, String)} method.
+    *
+    * @param in an input stream.
+    * @return the string.
+    * @throws IOException if an I/O error occurs.
+    */
+   static String readString( DataInputStream in )
+       throws IOException
+   {
+     byte[] bytes = new byte[in.readInt()];
+     in.readFully( bytes );
+     return new String( bytes, StandardCharsets.UTF_8 );
+   }
+
+
+   /**
+    * Returns an input stream reading from the specified blocking socket channel. Unlike the streams returned by
+    * {@link java.nio.channels.Channels}, the returned stream does not hold the channel's blocking lock while
+    * reading so that it can be used concurrently with the stream returned by {@link #newOutputStream}.
+    *
+    * @param channel a blocking socket channel.
+    * @return the input stream.
+    */
+   static InputStream newInputStream( final SocketChannel channel )
+   {
+     return new InputStream()
+     {
+       @Override
+       public int read()
+           throws IOException
+       {
+         byte[] b = new byte[1];
+         int n = read( b, 0, 1 );
+         return n == -1 ? -1 : b[0] & 0xff;
+       }
+
+
+       @Override
+       public int read( byte[] b, int off, int len )
+           throws IOException
+       {
+         if ( len == 0 )
+           return 0;
+
+         int n;
+         do
+         {
+           n = channel.read( ByteBuffer.wrap( b, off, len ) );
+         }
+         while ( n == 0 );
+
+         return n;
+       }
+
+
+       @Override
+       public void close()
+           throws IOException
+       {
+         channel.close();
+       }
+     };
+   }
+
+
+   /**
+    * Returns an output stream writing to the specified blocking socket channel.
+    *
+    * @param channel a blocking socket channel.
+    * @return the output stream.
+    * @see #newInputStream(SocketChannel)
+    */
+   static OutputStream newOutputStream( final SocketChannel channel )
+   {
+     return new OutputStream()
+     {
+       @Override
+       public void write( int b )
+           throws IOException
+       {
+         write( new byte[] { (byte) b }, 0, 1 );
+       }
+
+
+       @Override
+       public void write( byte[] b, int off, int len )
+           throws IOException
+       {
+         ByteBuffer buffer = ByteBuffer.wrap( b, off, len );
+         while ( buffer.hasRemaining() )
+         {
+           if ( channel.write( buffer ) < 0 )
+             throw new EOFException( "Channel closed." );
+         }
+       }
+
+
+       @Override
+       public void close()
+           throws IOException
+       {
+         channel.close();
+       }
+     };
+   }
+ }
@@ -0,0 +1,282 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.spawn;
+
+ import java.io.BufferedInputStream;
+ import java.io.BufferedOutputStream;
+ import java.io.DataInputStream;
+ import java.io.DataOutputStream;
+ import java.io.File;
+ import java.io.IOException;
+ import java.io.InputStream;
+ import java.net.StandardProtocolFamily;
+ import java.net.UnixDomainSocketAddress;
+ import java.nio.channels.ServerSocketChannel;
+ import java.nio.channels.SocketChannel;
+ import java.nio.file.Files;
+ import java.nio.file.Path;
+ import java.nio.file.Paths;
+ import java.nio.file.attribute.PosixFilePermissions;
+ import java.util.ArrayList;
+ import java.util.List;
+ import java.util.Map;
+
+ /**
+  * Small helper process that spawns native processes on behalf of the QuartzDesk Executor. The spawn server
+  * is started once by the {@link ProcessSpawner} and it runs in a separate JVM with a small heap. Forking this
+  * JVM is much cheaper than forking the (typically large) QuartzDesk Executor JVM.
+  *
+  * <p>
+  * The server accepts spawn requests on a Unix domain socket specified as the only command line argument.
+  * The server terminates when its standard input is closed, i.e. when the parent QuartzDesk Executor JVM
+  * terminates.
+  * </p>
+  *
+  * This class intentionally uses JDK classes only so that the server can be started with a minimal classpath.
+  *
+  * @see SpawnProtocol
+  */
+ public final class SpawnServer
+ {
+   private static final int OUTPUT_BUFFER_SIZE = 8192;
+
+
+   /**
+    * Private constructor of a main class.
+    */
+   private SpawnServer()
+   {
+   }
+
+
+   public static void main( String[] args )
+       throws IOException
+   {
+     if ( args.length != 1 )
+     {
+       System.err.println( "Usage: " + SpawnServer.class.getName() + " <socket-file>" );
+       System.exit( 2 );
+     }
+
+     final Path socketFile = Paths.get( args[0] );
+     Files.deleteIfExists( socketFile );
+
+     final ServerSocketChannel serverChannel = ServerSocketChannel.open( StandardProtocolFamily.UNIX );
+     serverChannel.bind( UnixDomainSocketAddress.of( socketFile ) );
+
+     restrictPermissions( socketFile );
+
+     // terminate when the parent process closes our standard input, or terminates
+     Thread parentWatchdog = new Thread( () -> {
+       try
+       {
+         InputStream stdin = System.in;
+         while ( stdin.read() != -1 )
+         {
+           // ignore
+         }
+       }
+       catch ( IOException e )
+       {
+         // parent terminated
+       }
+       finally
+       {
+         try
+         {
+           serverChannel.close();
+           Files.deleteIfExists( socketFile );
+         }
+         catch ( IOException e )
+         {
+           // ignore
+         }
+         System.exit( 0 );
+       }
+     }, "SpawnServer-ParentWatchdog" );
+     parentWatchdog.setDaemon( true );
+     parentWatchdog.start();
+
+     while ( serverChannel.isOpen() )
+     {
+       final SocketChannel channel;
+       try
+       {
+         channel = serverChannel.accept();
+       }
+       catch ( IOException e )
+       {
+         if ( serverChannel.isOpen() )
+           System.err.println( "Error accepting spawn request: " + e );
+         continue;
+       }
+
+       Thread handler = new Thread( () -> handle( channel ), "SpawnServer-Handler" );
+       handler.setDaemon( true );
+       handler.start();
+     }
+   }
+
+
+   /**
+    * Makes the socket file accessible to the owner only, if supported by the file system.
+    *
+    * @param socketFile the socket file.
+    */
+   private static void restrictPermissions( Path socketFile )
+   {
+     try
+     {
+       Files.setPosixFilePermissions( socketFile, PosixFilePermissions.fromString( "rw-------" ) );
+     }
+     catch ( UnsupportedOperationException | IOException e )
+     {
+       // not a POSIX file system
+     }
+   }
+
+
+   /**
+    * Handles a single spawn request received over the specified channel.
+    *
+    * @param channel a socket channel.
+    */
+   private static void handle( SocketChannel channel )
+   {
+     Process process = null;
+     try
+     {
+       DataInputStream in = new DataInputStream( new BufferedInputStream( SpawnProtocol.newInputStream( channel ) ) );
+       DataOutputStream out =
+           new DataOutputStream( new BufferedOutputStream( SpawnProtocol.newOutputStream( channel ) ) );
+
+       ProcessBuilder processBuilder = readRequest( in );
+       try
+       {
+         process = processBuilder.start();
+       }
+       catch ( IOException e )
+       {
+         out.writeByte( SpawnProtocol.FRAME_ERROR );
+         SpawnProtocol.writeString( out, String.valueOf( e.getMessage() ) );
+         out.flush();
+         return;
+       }
+
+       // the spawned process does not read any input
+       process.getOutputStream().close();
+
+       out.writeByte( SpawnProtocol.FRAME_STARTED );
+       out.writeLong( process.pid() );
+       out.flush();
+
+       startKillListener( in, process );
+
+       byte[] buffer = new byte[OUTPUT_BUFFER_SIZE];
+       InputStream processOutput = process.getInputStream();
+       int readCount;
+       while ( ( readCount = processOutput.read( buffer ) ) != -1 )
+       {
+         out.writeByte( SpawnProtocol.FRAME_OUTPUT );
+         out.writeInt( readCount );
+         out.write( buffer, 0, readCount );
+         out.flush();
+       }
+
+       int exitCode = process.waitFor();
+
+       out.writeByte( SpawnProtocol.FRAME_EXIT );
+       out.writeInt( exitCode );
+       out.flush();
+     }
+     catch ( IOException | InterruptedException e )
+     {
+       // client disconnected
+       if ( process != null )
+         process.destroy();
+     }
+     finally
+     {
+       try
+       {
+         channel.close();
+       }
+       catch ( IOException e )
+       {
+         // ignore
+       }
+     }
+   }
+
+
+   /**
+    * Reads the spawn request from the specified stream.
+    *
+    * @param in an input stream.
+    * @return the process builder to start the requested process.
+    * @throws IOException if an I/O error occurs, or the request is not supported.
+    */
+   private static ProcessBuilder readRequest( DataInputStream in )
+       throws IOException
+   {
+     int version = in.readInt();
+     if ( version != SpawnProtocol.VERSION )
+       throw new IOException( "Unsupported spawn protocol version: " + version );
+
+     int argCount = in.readInt();
+     List<String> commandLine = new ArrayList<>( argCount );
+     for ( int i = 0; i < argCount; i++ )
+     {
+       commandLine.add( SpawnProtocol.readString( in ) );
+     }
+
+     ProcessBuilder processBuilder = new ProcessBuilder( commandLine );
+     processBuilder.redirectErrorStream( true );
+
+     if ( in.readBoolean() )
+     {
+       processBuilder.directory( new File( SpawnProtocol.readString( in ) ) );
+     }
+
+     Map<String, String> environment = processBuilder.environment();
+     environment.clear();
+
+     int envCount = in.readInt();
+     for ( int i = 0; i < envCount; i++ )
+     {
+       String name = SpawnProtocol.readString( in );
+       String value = SpawnProtocol.readString( in );
+       environment.put( name, value );
+     }
+
+     return processBuilder;
+   }
+
+
+   /**
+    * Starts a thread that destroys the specified process when the client sends the kill request, or disconnects.
+    *
+    * @param in      the input stream of the client connection.
+    * @param process the spawned process.
+    */
+   private static void startKillListener( final DataInputStream in, final Process process )
+   {
+     Thread killListener = new Thread( () -> {
+       try
+       {
+         int request = in.read();
+         if ( request == SpawnProtocol.REQUEST_KILL || request == -1 )
+           process.destroy();
+       }
+       catch ( IOException e )
+       {
+         // connection closed after the process finished
+       }
+     }, "SpawnServer-KillListener" );
+     killListener.setDaemon( true );
+     killListener.start();
+   }
+ }
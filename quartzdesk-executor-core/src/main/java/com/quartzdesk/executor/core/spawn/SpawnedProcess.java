@@ -0,0 +1,260 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.spawn;
+
+ import org.slf4j.Logger;
+ import org.slf4j.LoggerFactory;
+
+ import java.io.DataInputStream;
+ import java.io.DataOutputStream;
+ import java.io.IOException;
+ import java.io.InputStream;
+ import java.io.OutputStream;
+ import java.io.PipedInputStream;
+ import java.io.PipedOutputStream;
+ import java.nio.channels.SocketChannel;
+ import java.util.concurrent.CountDownLatch;
+ import java.util.concurrent.TimeUnit;
+ import java.util.stream.Stream;
+
+ /**
+  * {@link Process} implementation representing a native process spawned by the {@link SpawnServer}. The standard
+  * and error output of the process are merged and available through {@link #getInputStream()}. The process
+  * standard input is not supported.
+  */
+ class SpawnedProcess
+     extends Process
+ {
+   private static final Logger log = LoggerFactory.getLogger( SpawnedProcess.class );
+
+   /**
+    * Size of the buffer holding the process output that has not been read yet.
+    */
+   private static final int OUTPUT_PIPE_SIZE = 65536;
+
+   /**
+    * Exit code reported if the connection to the spawn server is lost before the process finishes.
+    */
+   private static final int EXIT_CODE_CONNECTION_LOST = -1;
+
+   private final SocketChannel channel;
+
+   private final DataInputStream in;
+
+   private final DataOutputStream out;
+
+   private final long pid;
+
+   /**
+    * Handle of the process, null if the process exited before the handle could be obtained.
+    */
+   private final ProcessHandle handle;
+
+   private final PipedInputStream output;
+
+   private final CountDownLatch exited = new CountDownLatch( 1 );
+
+   private volatile int exitCode = EXIT_CODE_CONNECTION_LOST;
+
+
+   /**
+    * Creates a new {@link SpawnedProcess} for the process that has been started by the spawn server.
+    *
+    * @param channel the channel connected to the spawn server.
+    * @param in      the stream to read the spawn server frames from.
+    * @param out     the stream to write the client requests to.
+    * @param pid     the PID of the started process.
+    * @throws IOException if an I/O error occurs.
+    */
+   SpawnedProcess( SocketChannel channel, DataInputStream in, DataOutputStream out, long pid )
+       throws IOException
+   {
+     this.channel = channel;
+     this.in = in;
+     this.out = out;
+     this.pid = pid;
+
+     // the process is not a child of this JVM, but it runs on the same host
+     handle = ProcessHandle.of( pid ).orElse( null );
+
+     output = new PipedInputStream( OUTPUT_PIPE_SIZE );
+     final PipedOutputStream outputSink = new PipedOutputStream( output );
+
+     Thread reader = new Thread( () -> readFrames( outputSink ), "SpawnedProcessReader-" + pid );
+     reader.setDaemon( true );
+     reader.start();
+   }
+
+
+   @Override
+   public OutputStream getOutputStream()
+   {
+     return OutputStream.nullOutputStream();
+   }
+
+
+   @Override
+   public InputStream getInputStream()
+   {
+     return output;
+   }
+
+
+   @Override
+   public InputStream getErrorStream()
+   {
+     // error output is merged with the standard output
+     return InputStream.nullInputStream();
+   }
+
+
+   @Override
+   public int waitFor()
+       throws InterruptedException
+   {
+     exited.await();
+     return exitCode;
+   }
+
+
+   @Override
+   public boolean waitFor( long timeout, TimeUnit unit )
+       throws InterruptedException
+   {
+     return exited.await( timeout, unit );
+   }
+
+
+   @Override
+   public int exitValue()
+   {
+     if ( exited.getCount() > 0 )
+       throw new IllegalThreadStateException( "Process has not exited." );
+
+     return exitCode;
+   }
+
+
+   @Override
+   public void destroy()
+   {
+     if ( exited.getCount() > 0 )
+     {
+       try
+       {
+         synchronized ( out )
+         {
+           out.writeByte( SpawnProtocol.REQUEST_KILL );
+           out.flush();
+         }
+       }
+       catch ( IOException e )
+       {
+         log.debug( "Error sending kill request for spawned process: " + pid, e );
+       }
+     }
+   }
+
+
+   @Override
+   public long pid()
+   {
+     return pid;
+   }
+
+
+   @Override
+   public ProcessHandle toHandle()
+   {
+     if ( handle == null )
+       throw new UnsupportedOperationException( "Process: " + pid + " exited before its handle could be obtained." );
+
+     return handle;
+   }
+
+
+   @Override
+   public Stream<ProcessHandle> children()
+   {
+     return handle == null ? Stream.empty() : handle.children();
+   }
+
+
+   @Override
+   public Stream<ProcessHandle> descendants()
+   {
+     return handle == null ? Stream.empty() : handle.descendants();
+   }
+
+
+   @Override
+   public String toString()
+   {
+     return "SpawnedProcess[pid=" + pid + ']';
+   }
+
+
+   /**
+    * Reads the frames sent by the spawn server until the process exits, or the connection is lost.
+    *
+    * @param outputSink the sink to write the process output to.
+    */
+   private void readFrames( PipedOutputStream outputSink )
+   {
+     try
+     {
+       byte[] buffer = new byte[0];
+       while ( true )
+       {
+         byte frameType = in.readByte();
+         if ( frameType == SpawnProtocol.FRAME_OUTPUT )
+         {
+           int length = in.readInt();
+           if ( buffer.length < length )
+             buffer = new byte[length];
+
+           in.readFully( buffer, 0, length );
+           outputSink.write( buffer, 0, length );
+         }
+         else if ( frameType == SpawnProtocol.FRAME_EXIT )
+         {
+           exitCode = in.readInt();
+           break;
+         }
+         else
+         {
+           throw new IOException( "Unexpected spawn server frame type: " + frameType );
+         }
+       }
+     }
+     catch ( IOException e )
+     {
+       log.warn( "Lost connection to the spawn server while running process: " + pid, e );
+     }
+     finally
+     {
+       try
+       {
+         outputSink.close();
+       }
+       catch ( IOException e )
+       {
+         // ignore
+       }
+
+       try
+       {
+         channel.close();
+       }
+       catch ( IOException e )
+       {
+         // ignore
+       }
+
+       exited.countDown();
+     }
+   }
+ }
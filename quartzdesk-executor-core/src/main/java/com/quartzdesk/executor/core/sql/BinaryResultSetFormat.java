@@ -0,0 +1,399 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.sql;
+
+ import java.io.ByteArrayOutputStream;
+ import java.io.DataOutputStream;
+ import java.io.IOException;
+ import java.io.OutputStream;
+ import java.math.BigDecimal;
+ import java.nio.charset.StandardCharsets;
+ import java.sql.Date;
+ import java.sql.ResultSet;
+ import java.sql.ResultSetMetaData;
+ import java.sql.SQLException;
+ import java.sql.Time;
+ import java.sql.Timestamp;
+ import java.sql.Types;
+ import java.util.Arrays;
+
+ /**
+  * {@link ResultSetFormat} producing compact, typed, length-prefixed binary data organized in batches of column
+  * vectors. Column values are read from the result set using the getters matching the column types reported by
+  * {@link ResultSetMetaData}, i.e. without conversion to strings. All numbers are written in the big-endian byte order.
+  *
+  * <pre>
+  * stream    := header batch* trailer
+  * header    := "QDRS" version:byte columnCount:int column*
+  * column    := name:modified-UTF-8 (see DataOutput#writeUTF) type:byte
+  * batch     := 0x01 rowCount:int vector*      (one vector per column)
+  * vector    := validity:byte[(rowCount + 7) / 8] length:int values:byte[length]
+  * trailer   := 0x00
+  * </pre>
+  *
+  * Bit {@code i % 8} (least significant bit first) of validity byte {@code i / 8} is set if the column value in row
+  * {@code i} of the batch is not null. The values of a vector contain the non-null values only, encoded according
+  * to the column type:
+  * <ul>
+  * <li>{@link #TYPE_BOOLEAN} - byte (0, or 1)</li>
+  * <li>{@link #TYPE_INT} - int</li>
+  * <li>{@link #TYPE_LONG} - long</li>
+  * <li>{@link #TYPE_FLOAT} - float</li>
+  * <li>{@link #TYPE_DOUBLE} - double</li>
+  * <li>{@link #TYPE_DECIMAL} - scale:int length:int unscaled-value:byte[length] (two's-complement)</li>
+  * <li>{@link #TYPE_STRING} - length:int UTF-8-bytes:byte[length]</li>
+  * <li>{@link #TYPE_BYTES} - length:int bytes:byte[length]</li>
+  * <li>{@link #TYPE_DATE} - days since 1970-01-01:int</li>
+  * <li>{@link #TYPE_TIME} - nanoseconds of the day:long</li>
+  * <li>{@link #TYPE_TIMESTAMP} - microseconds since 1970-01-01T00:00:00Z:long</li>
+  * </ul>
+  */
+ public class BinaryResultSetFormat
+     implements ResultSetFormat
+ {
+   public static final byte VERSION = 1;
+
+   public static final byte TYPE_BOOLEAN = 1;
+
+   public static final byte TYPE_INT = 2;
+
+   public static final byte TYPE_LONG = 3;
+
+   public static final byte TYPE_FLOAT = 4;
+
+   public static final byte TYPE_DOUBLE = 5;
+
+   public static final byte TYPE_DECIMAL = 6;
+
+   public static final byte TYPE_STRING = 7;
+
+   public static final byte TYPE_BYTES = 8;
+
+   public static final byte TYPE_DATE = 9;
+
+   public static final byte TYPE_TIME = 10;
+
+   public static final byte TYPE_TIMESTAMP = 11;
+
+   private static final byte[] MAGIC = { 'Q', 'D', 'R', 'S' };
+
+   private static final byte BLOCK_TRAILER = 0;
+
+   private static final byte BLOCK_BATCH = 1;
+
+
+   @Override
+   public void writeHeader( ResultSet res, OutputStream out )
+       throws SQLException, IOException
+   {
+     ResultSetMetaData metaData = res.getMetaData();
+     byte[] types = getColumnTypes( metaData );
+
+     DataOutputStream dout = new DataOutputStream( out );
+     dout.write( MAGIC );
+     dout.writeByte( VERSION );
+     dout.writeInt( types.length );
+     for ( int i = 0; i < types.length; i++ )
+     {
+       dout.writeUTF( metaData.getColumnLabel( i + 1 ) );
+       dout.writeByte( types[i] );
+     }
+     dout.flush();
+   }
+
+
+   @Override
+   public int writeRows( ResultSet res, int maxRows, OutputStream out )
+       throws SQLException, IOException
+   {
+     byte[] types = getColumnTypes( res.getMetaData() );
+
+     ColumnVector[] vectors = new ColumnVector[types.length];
+     for ( int i = 0; i < vectors.length; i++ )
+     {
+       vectors[i] = new ColumnVector( types[i] );
+     }
+
+     int rowCount = 0;
+     while ( rowCount < maxRows && res.next() )
+     {
+       for ( int i = 0; i < vectors.length; i++ )
+       {
+         vectors[i].append( res, i + 1, rowCount );
+       }
+       rowCount++;
+     }
+
+     if ( rowCount > 0 )
+     {
+       DataOutputStream dout = new DataOutputStream( out );
+       dout.writeByte( BLOCK_BATCH );
+       dout.writeInt( rowCount );
+       for ( ColumnVector vector : vectors )
+       {
+         vector.writeTo( dout, rowCount );
+       }
+       dout.flush();
+     }
+
+     return rowCount;
+   }
+
+
+   @Override
+   public void writeTrailer( OutputStream out )
+       throws IOException
+   {
+     out.write( BLOCK_TRAILER );
+     out.flush();
+   }
+
+
+   @Override
+   public boolean isText()
+   {
+     return false;
+   }
+
+
+   /**
+    * Returns the binary format types of the columns described by the specified result set metadata.
+    *
+    * @param metaData result set metadata.
+    * @return the binary format column types.
+    * @throws SQLException if a DB error occurs.
+    */
+   private byte[] getColumnTypes( ResultSetMetaData metaData )
+       throws SQLException
+   {
+     byte[] types = new byte[metaData.getColumnCount()];
+     for ( int i = 0; i < types.length; i++ )
+     {
+       types[i] = getColumnType( metaData.getColumnType( i + 1 ) );
+     }
+     return types;
+   }
+
+
+   /**
+    * Maps the specified JDBC type onto the binary format type.
+    *
+    * @param jdbcType a JDBC type (see {@link Types}).
+    * @return the binary format type.
+    */
+   private byte getColumnType( int jdbcType )
+   {
+     switch ( jdbcType )
+     {
+       case Types.BIT:
+       case Types.BOOLEAN:
+         return TYPE_BOOLEAN;
+       case Types.TINYINT:
+       case Types.SMALLINT:
+       case Types.INTEGER:
+         return TYPE_INT;
+       case Types.BIGINT:
+         return TYPE_LONG;
+       case Types.REAL:
+         return TYPE_FLOAT;
+       case Types.FLOAT:
+       case Types.DOUBLE:
+         return TYPE_DOUBLE;
+       case Types.NUMERIC:
+       case Types.DECIMAL:
+         return TYPE_DECIMAL;
+       case Types.BINARY:
+       case Types.VARBINARY:
+       case Types.LONGVARBINARY:
+       case Types.BLOB:
+         return TYPE_BYTES;
+       case Types.DATE:
+         return TYPE_DATE;
+       case Types.TIME:
+       case Types.TIME_WITH_TIMEZONE:
+         return TYPE_TIME;
+       case Types.TIMESTAMP:
+       case Types.TIMESTAMP_WITH_TIMEZONE:
+         return TYPE_TIMESTAMP;
+       default:
+         return TYPE_STRING;
+     }
+   }
+
+
+   /**
+    * Values of a single column in a batch of rows.
+    */
+   private static class ColumnVector
+   {
+     private final byte type;
+
+     private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+     private final DataOutputStream values = new DataOutputStream( bytes );
+
+     private byte[] validity = new byte[16];
+
+
+     private ColumnVector( byte type )
+     {
+       this.type = type;
+     }
+
+
+     /**
+      * Appends the value of the specified result set column in the current row.
+      *
+      * @param res         a result set.
+      * @param columnIndex the column index.
+      * @param row         the index of the row in the batch.
+      * @throws SQLException if a DB error occurs.
+      * @throws IOException  if an I/O error occurs.
+      */
+     private void append( ResultSet res, int columnIndex, int row )
+         throws SQLException, IOException
+     {
+       boolean notNull;
+       switch ( type )
+       {
+         case TYPE_BOOLEAN:
+         {
+           boolean v = res.getBoolean( columnIndex );
+           notNull = !res.wasNull();
+           if ( notNull )
+             values.writeBoolean( v );
+           break;
+         }
+         case TYPE_INT:
+         {
+           int v = res.getInt( columnIndex );
+           notNull = !res.wasNull();
+           if ( notNull )
+             values.writeInt( v );
+           break;
+         }
+         case TYPE_LONG:
+         {
+           long v = res.getLong( columnIndex );
+           notNull = !res.wasNull();
+           if ( notNull )
+             values.writeLong( v );
+           break;
+         }
+         case TYPE_FLOAT:
+         {
+           float v = res.getFloat( columnIndex );
+           notNull = !res.wasNull();
+           if ( notNull )
+             values.writeFloat( v );
+           break;
+         }
+         case TYPE_DOUBLE:
+         {
+           double v = res.getDouble( columnIndex );
+           notNull = !res.wasNull();
+           if ( notNull )
+             values.writeDouble( v );
+           break;
+         }
+         case TYPE_DECIMAL:
+         {
+           BigDecimal v = res.getBigDecimal( columnIndex );
+           notNull = v != null;
+           if ( notNull )
+           {
+             values.writeInt( v.scale() );
+             writeBytes( v.unscaledValue().toByteArray() );
+           }
+           break;
+         }
+         case TYPE_BYTES:
+         {
+           byte[] v = res.getBytes( columnIndex );
+           notNull = v != null;
+           if ( notNull )
+             writeBytes( v );
+           break;
+         }
+         case TYPE_DATE:
+         {
+           Date v = res.getDate( columnIndex );
+           notNull = v != null;
+           if ( notNull )
+             values.writeInt( (int) v.toLocalDate().toEpochDay() );
+           break;
+         }
+         case TYPE_TIME:
+         {
+           Time v = res.getTime( columnIndex );
+           notNull = v != null;
+           if ( notNull )
+             values.writeLong( v.toLocalTime().toNanoOfDay() );
+           break;
+         }
+         case TYPE_TIMESTAMP:
+         {
+           Timestamp v = res.getTimestamp( columnIndex );
+           notNull = v != null;
+           if ( notNull )
+             values.writeLong( Math.floorDiv( v.getTime(), 1000L ) * 1000000L + v.getNanos() / 1000 );
+           break;
+         }
+         default:
+         {
+           String v = res.getString( columnIndex );
+           notNull = v != null;
+           if ( notNull )
+             writeBytes( v.getBytes( StandardCharsets.UTF_8 ) );
+           break;
+         }
+       }
+
+       if ( notNull )
+       {
+         int validityIdx = row >>> 3;
+         if ( validityIdx >= validity.length )
+           validity = Arrays.copyOf( validity, validity.length * 2 );
+
+         validity[validityIdx] |= (byte) ( 1 << ( row & 7 ) );
+       }
+     }
+
+
+     /**
+      * Writes the length-prefixed byte array value.
+      *
+      * @param v the value.
+      * @throws IOException if an I/O error occurs.
+      */
+     private void writeBytes( byte[] v )
+         throws IOException
+     {
+       values.writeInt( v.length );
+       values.write( v );
+     }
+
+
+     /**
+      * Writes this vector to the specified stream.
+      *
+      * @param out      the output stream.
+      * @param rowCount the number of rows in the batch.
+      * @throws IOException if an I/O error occurs.
+      */
+     private void writeTo( DataOutputStream out, int rowCount )
+         throws IOException
+     {
+       int validityLength = ( rowCount + 7 ) >>> 3;
+       if ( validityLength > validity.length )
+         validity = Arrays.copyOf( validity, validityLength );
+
+       out.write( validity, 0, validityLength );
+       out.writeInt( bytes.size() );
+       bytes.writeTo( out );
+     }
+   }
+ }
@@ -0,0 +1,109 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.sql;
+
+ import com.opencsv.CSVWriter;
+ import com.opencsv.ResultSetHelperService;
+
+ import java.io.IOException;
+ import java.io.OutputStream;
+ import java.io.OutputStreamWriter;
+ import java.nio.charset.StandardCharsets;
+ import java.sql.ResultSet;
+ import java.sql.SQLException;
+
+ /**
+  * {@link ResultSetFormat} producing CSV data in the UTF-8 encoding. The header contains the column names if
+  * enabled, the trailer is empty.
+  */
+ public class CsvResultSetFormat
+     implements ResultSetFormat
+ {
+   private final boolean includeColumnNames;
+
+   private final boolean trimWhiteSpace;
+
+
+   /**
+    * Creates a new {@link CsvResultSetFormat} that includes column names and trims white-space.
+    */
+   public CsvResultSetFormat()
+   {
+     this( true, true );
+   }
+
+
+   /**
+    * Creates a new {@link CsvResultSetFormat}.
+    *
+    * @param includeColumnNames true to include column names in the header.
+    * @param trimWhiteSpace     true to trim white-space in the column values.
+    */
+   public CsvResultSetFormat( boolean includeColumnNames, boolean trimWhiteSpace )
+   {
+     this.includeColumnNames = includeColumnNames;
+     this.trimWhiteSpace = trimWhiteSpace;
+   }
+
+
+   @Override
+   public void writeHeader( ResultSet res, OutputStream out )
+       throws SQLException, IOException
+   {
+     if ( includeColumnNames )
+     {
+       CSVWriter csvWriter = newCsvWriter( out );
+       csvWriter.writeNext( new ResultSetHelperService().getColumnNames( res ) );
+       csvWriter.flush();
+     }
+   }
+
+
+   @Override
+   public int writeRows( ResultSet res, int maxRows, OutputStream out )
+       throws SQLException, IOException
+   {
+     ResultSetHelperService helper = new ResultSetHelperService();
+     CSVWriter csvWriter = newCsvWriter( out );
+
+     int rowCount = 0;
+     while ( rowCount < maxRows && res.next() )
+     {
+       csvWriter.writeNext( helper.getColumnValues( res, trimWhiteSpace ) );
+       rowCount++;
+     }
+
+     csvWriter.flush();
+     return rowCount;
+   }
+
+
+   @Override
+   public void writeTrailer( OutputStream out )
+   {
+     // no trailer
+   }
+
+
+   @Override
+   public boolean isText()
+   {
+     return true;
+   }
+
+
+   /**
+    * Returns a new {@link CSVWriter} writing to the specified stream. The writer must be flushed, but not closed
+    * so that the stream remains open.
+    *
+    * @param out the output stream.
+    * @return the CSV writer.
+    */
+   private CSVWriter newCsvWriter( OutputStream out )
+   {
+     return new CSVWriter( new OutputStreamWriter( out, StandardCharsets.UTF_8 ) );
+   }
+ }
@@ -0,0 +1,550 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.sql;
+
+ import com.quartzdesk.executor.common.db.DbUtils;
+
+ import org.slf4j.Logger;
+ import org.slf4j.LoggerFactory;
+
+ import javax.sql.DataSource;
+ import java.io.BufferedOutputStream;
+ import java.io.ByteArrayOutputStream;
+ import java.io.IOException;
+ import java.io.OutputStream;
+ import java.nio.file.Files;
+ import java.nio.file.Path;
+ import java.sql.Connection;
+ import java.sql.PreparedStatement;
+ import java.sql.ResultSet;
+ import java.sql.SQLException;
+ import java.util.ArrayList;
+ import java.util.List;
+ import java.util.concurrent.CompletableFuture;
+ import java.util.concurrent.ExecutionException;
+ import java.util.concurrent.ExecutorService;
+ import java.util.concurrent.Executors;
+ import java.util.concurrent.Future;
+ import java.util.concurrent.ThreadFactory;
+ import java.util.concurrent.TimeUnit;
+ import java.util.concurrent.TimeoutException;
+ import java.util.concurrent.atomic.AtomicBoolean;
+ import java.util.concurrent.atomic.AtomicInteger;
+ import java.util.concurrent.atomic.AtomicLong;
+
+ /**
+  * Executes partition queries produced by the {@link SqlPartitioner} concurrently and merges their result sets
+  * into a single output in the specified {@link ResultSetFormat}.
+  *
+  * <p>
+  * The partitions are executed by a bounded number of worker threads. Each worker thread uses its own connection
+  * obtained from the data source when the worker starts, and it executes the partitions one by one until all
+  * partitions have been claimed.
+  * </p>
+  *
+  * <p>
+  * In the ordered mode, the output contains the partition result sets in the partition order. The head partition,
+  * i.e. the first partition that has not been written yet, is streamed directly to the output. Partitions that are
+  * executed before all preceding partitions have been written are spooled to temporary files. In the unordered mode,
+  * the workers write the row batches directly to the output as they are fetched, which requires no spooling.
+  * </p>
+  */
+ public class PartitionedQueryExecutor
+ {
+   private static final Logger log = LoggerFactory.getLogger( PartitionedQueryExecutor.class );
+
+   /**
+    * Default maximum number of rows in a single row batch.
+    */
+   private static final int DEFAULT_BATCH_SIZE = 1000;
+
+   private static final AtomicInteger EXECUTOR_COUNTER = new AtomicInteger();
+
+   private final DataSource dataSource;
+
+   private final int parallelism;
+
+   private final boolean ordered;
+
+   private final ResultSetFormat format;
+
+   private int batchSize = DEFAULT_BATCH_SIZE;
+
+   private SqlStatementWatchdog watchdog;
+
+   private Object watchdogOwner;
+
+   private int queryTimeout;
+
+
+   /**
+    * Creates a new {@link PartitionedQueryExecutor}.
+    *
+    * @param dataSource  the data source to obtain the worker connections from.
+    * @param parallelism the maximum number of concurrently executed partitions (and open connections).
+    * @param ordered     true to write the partition result sets in the partition order, false to write them
+    *                    in the order the rows are fetched.
+    * @param format      the output format.
+    */
+   public PartitionedQueryExecutor( DataSource dataSource, int parallelism, boolean ordered, ResultSetFormat format )
+   {
+     if ( parallelism < 1 )
+       throw new IllegalArgumentException( "Parallelism must be greater than 0: " + parallelism );
+
+     this.dataSource = dataSource;
+     this.parallelism = parallelism;
+     this.ordered = ordered;
+     this.format = format;
+   }
+
+
+   /**
+    * Sets the maximum number of rows in a single row batch written to the output. 1000 by default.
+    *
+    * @param batchSize the batch size.
+    */
+   public void setBatchSize( int batchSize )
+   {
+     this.batchSize = batchSize;
+   }
+
+
+   /**
+    * Sets the watchdog that watches the executed partition queries on behalf of the specified owner and the
+    * query timeout of the partition queries.
+    *
+    * @param watchdog      the watchdog.
+    * @param watchdogOwner the owner of the partition queries.
+    * @param queryTimeout  the query timeout in seconds, 0 for no timeout.
+    */
+   public void setWatchdog( SqlStatementWatchdog watchdog, Object watchdogOwner, int queryTimeout )
+   {
+     this.watchdog = watchdog;
+     this.watchdogOwner = watchdogOwner;
+     this.queryTimeout = queryTimeout;
+   }
+
+
+   /**
+    * Executes the specified partition queries and writes their merged result sets to the specified output.
+    *
+    * @param partitions the partition queries.
+    * @param out        the output stream.
+    * @return the number of written rows.
+    * @throws SQLException if a DB error occurs.
+    * @throws IOException  if an I/O error occurs.
+    */
+   public long execute( List<SqlStatement> partitions, OutputStream out )
+       throws SQLException, IOException
+   {
+     int workerCount = Math.min( parallelism, partitions.size() );
+     log.info( "Executing {} partition queries using {} connections, ordered={}.", partitions.size(), workerCount,
+         ordered );
+
+     ExecutorService executor = Executors.newFixedThreadPool( workerCount, new PartitionThreadFactory() );
+     try
+     {
+       long rowCount = ordered
+           ? executeOrdered( executor, workerCount, partitions, out )
+           : executeUnordered( executor, workerCount, partitions, out );
+
+       format.writeTrailer( out );
+       out.flush();
+       return rowCount;
+     }
+     finally
+     {
+       // interrupts the workers if the execution failed
+       executor.shutdownNow();
+     }
+   }
+
+
+   /**
+    * Executes the partition queries and writes their result sets in the partition order.
+    *
+    * @param executor    the worker executor.
+    * @param workerCount the number of workers.
+    * @param partitions  the partition queries.
+    * @param out         the output stream.
+    * @return the number of written rows.
+    * @throws SQLException if a DB error occurs.
+    * @throws IOException  if an I/O error occurs.
+    */
+   private long executeOrdered( ExecutorService executor, int workerCount, final List<SqlStatement> partitions,
+       final OutputStream out )
+       throws SQLException, IOException
+   {
+     // completed with the spool file of the partition, or null if the partition has been streamed to the output
+     final List<CompletableFuture<Path>> spoolFiles = new ArrayList<>( partitions.size() );
+     for ( int i = 0; i < partitions.size(); i++ )
+     {
+       spoolFiles.add( new CompletableFuture<>() );
+     }
+
+     // index of the partition allowed to stream to the output, the output is written either by the worker
+     // executing the head partition, or by this thread copying the spool files of the preceding partitions
+     final AtomicInteger head = new AtomicInteger();
+     final AtomicBoolean merged = new AtomicBoolean();
+     final AtomicInteger nextPartition = new AtomicInteger();
+     final AtomicLong rowCount = new AtomicLong();
+
+     List<Future<?>> workers = new ArrayList<>( workerCount );
+     for ( int w = 0; w < workerCount; w++ )
+     {
+       workers.add( executor.submit( () -> {
+         runWorker( partitions, nextPartition, ( partitionIdx, res ) -> {
+           if ( partitionIdx == head.get() )
+           {
+             // the first partition is always the head partition, all partitions have the same columns
+             if ( partitionIdx == 0 )
+               format.writeHeader( res, out );
+
+             rowCount.addAndGet( writeAllRows( res, out ) );
+             spoolFiles.get( partitionIdx ).complete( null );
+             return;
+           }
+
+           Path spoolFile = Files.createTempFile( "quartzdesk-executor-partition-", ".tmp" );
+           try ( OutputStream spool = new BufferedOutputStream( Files.newOutputStream( spoolFile ) ) )
+           {
+             rowCount.addAndGet( writeAllRows( res, spool ) );
+           }
+           catch ( SQLException | IOException | RuntimeException e )
+           {
+             Files.deleteIfExists( spoolFile );
+             throw e;
+           }
+
+           synchronized ( spoolFiles )
+           {
+             // the merge has finished, or failed while the partition was being spooled
+             if ( merged.get() )
+               Files.deleteIfExists( spoolFile );
+             else
+               spoolFiles.get( partitionIdx ).complete( spoolFile );
+           }
+         } );
+         return null;
+       } ) );
+     }
+
+     try
+     {
+       for ( int i = 0; i < partitions.size(); i++ )
+       {
+         Path spoolFile = awaitPartition( spoolFiles.get( i ), workers );
+         if ( spoolFile != null )
+         {
+           try
+           {
+             Files.copy( spoolFile, out );
+           }
+           finally
+           {
+             Files.deleteIfExists( spoolFile );
+           }
+         }
+         head.set( i + 1 );
+       }
+     }
+     finally
+     {
+       // remove spool files of partitions that have not been merged because of a failure, workers that are still
+       // spooling their partitions (JDBC calls are not interrupted) remove their spool files when they finish
+       synchronized ( spoolFiles )
+       {
+         merged.set( true );
+         for ( CompletableFuture<Path> spoolFile : spoolFiles )
+         {
+           Path path = spoolFile.getNow( null );
+           if ( path != null )
+             Files.deleteIfExists( path );
+         }
+       }
+     }
+
+     return rowCount.get();
+   }
+
+
+   /**
+    * Executes the partition queries and writes their row batches in the order they are fetched.
+    *
+    * @param executor    the worker executor.
+    * @param workerCount the number of workers.
+    * @param partitions  the partition queries.
+    * @param out         the output stream.
+    * @return the number of written rows.
+    * @throws SQLException if a DB error occurs.
+    * @throws IOException  if an I/O error occurs.
+    */
+   private long executeUnordered( ExecutorService executor, int workerCount, final List<SqlStatement> partitions,
+       final OutputStream out )
+       throws SQLException, IOException
+   {
+     final boolean[] headerWritten = { false };
+     final AtomicInteger nextPartition = new AtomicInteger();
+     final AtomicLong rowCount = new AtomicLong();
+
+     List<Future<?>> workers = new ArrayList<>( workerCount );
+     for ( int w = 0; w < workerCount; w++ )
+     {
+       workers.add( executor.submit( () -> {
+         runWorker( partitions, nextPartition, ( partitionIdx, res ) -> {
+           synchronized ( out )
+           {
+             if ( !headerWritten[0] )
+             {
+               format.writeHeader( res, out );
+               headerWritten[0] = true;
+             }
+           }
+
+           // encode the batches outside of the output lock
+           ByteArrayOutputStream batch = new ByteArrayOutputStream();
+           int batchRowCount;
+           do
+           {
+             batch.reset();
+             batchRowCount = format.writeRows( res, batchSize, batch );
+             if ( batchRowCount > 0 )
+             {
+               synchronized ( out )
+               {
+                 batch.writeTo( out );
+               }
+               rowCount.addAndGet( batchRowCount );
+             }
+           }
+           while ( batchRowCount == batchSize );
+         } );
+         return null;
+       } ) );
+     }
+
+     for ( Future<?> worker : workers )
+     {
+       awaitWorker( worker, workers );
+     }
+
+     return rowCount.get();
+   }
+
+
+   /**
+    * Writes all rows of the specified result set to the specified output stream in batches.
+    *
+    * @param res a result set.
+    * @param out the output stream.
+    * @return the number of written rows.
+    * @throws SQLException if a DB error occurs.
+    * @throws IOException  if an I/O error occurs.
+    */
+   private long writeAllRows( ResultSet res, OutputStream out )
+       throws SQLException, IOException
+   {
+     long rowCount = 0;
+     int batchRowCount;
+     do
+     {
+       batchRowCount = format.writeRows( res, batchSize, out );
+       rowCount += batchRowCount;
+     }
+     while ( batchRowCount == batchSize );
+     return rowCount;
+   }
+
+
+   /**
+    * Executes the partitions claimed from the shared partition counter using a single connection until all
+    * partitions have been claimed.
+    *
+    * @param partitions    the partition queries.
+    * @param nextPartition the shared counter of the next partition to claim.
+    * @param handler       the handler of the partition result sets.
+    * @throws SQLException if a DB error occurs.
+    * @throws IOException  if an I/O error occurs.
+    */
+   private void runWorker( List<SqlStatement> partitions, AtomicInteger nextPartition, PartitionHandler handler )
+       throws SQLException, IOException
+   {
+     Connection con = null;
+     try
+     {
+       int partitionIdx;
+       while ( ( partitionIdx = nextPartition.getAndIncrement() ) < partitions.size() )
+       {
+         if ( Thread.currentThread().isInterrupted() )
+           return;
+
+         if ( con == null )
+         {
+           con = dataSource.getConnection();
+           con.setReadOnly( true );
+         }
+
+         SqlStatement partition = partitions.get( partitionIdx );
+         log.debug( "Executing partition query {}: {}", partitionIdx, partition );
+
+         PreparedStatement pstat = null;
+         ResultSet res = null;
+         SqlStatementWatchdog.Registration registration = null;
+         try
+         {
+           pstat = DbUtils.prepareStatement( con, partition.getSql(), partition.getParams() );
+           if ( watchdog == null )
+           {
+             pstat.setQueryTimeout( queryTimeout );
+           }
+           else
+           {
+             registration = watchdog.watch( watchdogOwner, pstat, queryTimeout );
+           }
+
+           res = pstat.executeQuery();
+
+           // the query timeout does not apply to the export of the result set
+           if ( registration != null )
+             registration.executed();
+
+           handler.handle( partitionIdx, res );
+         }
+         catch ( SQLException e )
+         {
+           if ( registration != null )
+             registration.failed( e );
+           throw e;
+         }
+         finally
+         {
+           if ( registration != null )
+             registration.close();
+           DbUtils.close( null, pstat, res );
+         }
+       }
+     }
+     finally
+     {
+       DbUtils.close( con );
+     }
+   }
+
+
+   /**
+    * Waits for the spool file of a partition. Fails fast if any of the workers fails in the meantime.
+    *
+    * @param spoolFile the future spool file of the partition.
+    * @param workers   the workers.
+    * @return the spool file, or null if the partition has been streamed to the output.
+    * @throws SQLException if a worker failed with a DB error.
+    * @throws IOException  if a worker failed with an I/O error, or the execution has been interrupted.
+    */
+   private Path awaitPartition( CompletableFuture<Path> spoolFile, List<Future<?>> workers )
+       throws SQLException, IOException
+   {
+     while ( true )
+     {
+       try
+       {
+         return spoolFile.get( 100, TimeUnit.MILLISECONDS );
+       }
+       catch ( TimeoutException e )
+       {
+         for ( Future<?> worker : workers )
+         {
+           if ( worker.isDone() )
+             awaitWorker( worker, workers );
+         }
+
+         // all workers finished without completing the partition
+         if ( workers.stream().allMatch( Future::isDone ) && !spoolFile.isDone() )
+           throw new IOException( "Partition query execution has been interrupted." );
+       }
+       catch ( InterruptedException e )
+       {
+         Thread.currentThread().interrupt();
+         throw new IOException( "Partition query execution has been interrupted.", e );
+       }
+       catch ( ExecutionException e )
+       {
+         // spool file futures are never completed exceptionally
+         throw new IllegalStateException( e );
+       }
+     }
+   }
+
+
+   /**
+    * Waits for the specified worker and rethrows its failure. If the worker failed, the remaining workers
+    * are cancelled.
+    *
+    * @param worker  the worker to wait for.
+    * @param workers all workers.
+    * @throws SQLException if the worker failed with a DB error.
+    * @throws IOException  if the worker failed with an I/O error, or the execution has been interrupted.
+    */
+   private void awaitWorker( Future<?> worker, List<Future<?>> workers )
+       throws SQLException, IOException
+   {
+     try
+     {
+       worker.get();
+     }
+     catch ( InterruptedException e )
+     {
+       Thread.currentThread().interrupt();
+       throw new IOException( "Partition query execution has been interrupted.", e );
+     }
+     catch ( ExecutionException e )
+     {
+       // stop the remaining workers
+       for ( Future<?> w : workers )
+       {
+         w.cancel( true );
+       }
+
+       Throwable cause = e.getCause();
+       if ( cause instanceof SQLException )
+         throw (SQLException) cause;
+       if ( cause instanceof IOException )
+         throw (IOException) cause;
+       throw new IllegalStateException( "Error executing partition query.", cause );
+     }
+   }
+
+
+   /**
+    * Handler of a partition result set.
+    */
+   @FunctionalInterface
+   private interface PartitionHandler
+   {
+     void handle( int partitionIdx, ResultSet res )
+         throws SQLException, IOException;
+   }
+
+
+   /**
+    * Thread factory producing named daemon partition worker threads.
+    */
+   private static class PartitionThreadFactory
+       implements ThreadFactory
+   {
+     private final int executorId = EXECUTOR_COUNTER.incrementAndGet();
+
+     private final AtomicInteger threadCounter = new AtomicInteger();
+
+
+     @Override
+     public Thread newThread( Runnable r )
+     {
+       Thread thread = new Thread( r, "PartitionedQueryExecutor-" + executorId + '-' + threadCounter.incrementAndGet() );
+       thread.setDaemon( true );
+       return thread;
+     }
+   }
+ }
@@ -0,0 +1,584 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.sql;
+
+ import org.slf4j.Logger;
+ import org.slf4j.LoggerFactory;
+
+ import java.io.ByteArrayOutputStream;
+ import java.io.IOException;
+ import java.io.InputStream;
+ import java.io.OutputStream;
+ import java.nio.ByteBuffer;
+ import java.util.Arrays;
+ import java.util.Iterator;
+ import java.util.LinkedHashMap;
+ import java.util.Objects;
+ import java.util.concurrent.atomic.AtomicLong;
+ import java.util.zip.Deflater;
+ import java.util.zip.DeflaterOutputStream;
+ import java.util.zip.InflaterInputStream;
+
+ /**
+  * Cache of the exported result sets of SQL queries executed by the {@link
+  * com.quartzdesk.executor.core.job.SqlQueryExecutorJob}. Results are keyed by the JDBC URL, username, SQL text,
+  * bound parameter values and the result format, and they are cached for the time-to-live specified by the job.
+  *
+  * <p>
+  * Results are stored compressed, optionally in direct (off-heap) buffers so that large cached results do not
+  * increase the heap usage. The total size of the compressed results is bounded and the least recently used
+  * results are evicted when the cache is full.
+  * </p>
+  *
+  * Instances of this class are thread-safe and they are intended to be shared by all executed jobs.
+  */
+ public class QueryResultCache
+     implements QueryResultCacheMBean
+ {
+   private static final Logger log = LoggerFactory.getLogger( QueryResultCache.class );
+
+   /**
+    * Default maximum total size of the compressed cached results in bytes.
+    */
+   private static final long DEFAULT_MAX_SIZE = 64L * 1024 * 1024;
+
+   private static final int BUFFER_SIZE = 8192;
+
+   // access-ordered so that the iteration starts with the least recently used entry
+   private final LinkedHashMap<Key, CachedResult> cache = new LinkedHashMap<>( 16, 0.75f, true );
+
+   private final AtomicLong hitCount = new AtomicLong();
+
+   private final AtomicLong missCount = new AtomicLong();
+
+   private final AtomicLong evictionCount = new AtomicLong();
+
+   private long size;
+
+   private long maxSize = DEFAULT_MAX_SIZE;
+
+   private boolean offHeap;
+
+
+   /**
+    * Sets the maximum total size of the compressed cached results in bytes. Value &lt;= 0 disables caching.
+    *
+    * @param maxSize the maximum size in bytes.
+    */
+   public void setMaxSize( long maxSize )
+   {
+     this.maxSize = maxSize;
+   }
+
+
+   /**
+    * Enables, or disables storing of the cached results in direct (off-heap) buffers. Disabled by default.
+    *
+    * @param offHeap the flag value.
+    */
+   public void setOffHeap( boolean offHeap )
+   {
+     this.offHeap = offHeap;
+   }
+
+
+   /**
+    * Returns the cached result for the specified key, null if there is no cached result, or it has expired.
+    *
+    * @param key a cache key.
+    * @return the cached result, or null.
+    */
+   public CachedResult get( Key key )
+   {
+     CachedResult result;
+     synchronized ( cache )
+     {
+       result = cache.get( key );
+       if ( result != null && result.expiresAt <= System.currentTimeMillis() )
+       {
+         remove( key );
+         result = null;
+       }
+     }
+
+     if ( result == null )
+     {
+       missCount.incrementAndGet();
+     }
+     else
+     {
+       hitCount.incrementAndGet();
+     }
+
+     return result;
+   }
+
+
+   /**
+    * Returns an output stream that writes the data to the specified output stream and captures the compressed
+    * data so that they can be put into this cache by {@link #put(Key, Capture, long, long)}. The data are not
+    * captured if their compressed size exceeds the maximum size of this cache, or caching is disabled. Captures
+    * that are not put into this cache must be aborted by {@link Capture#abort()}.
+    *
+    * @param out an output stream.
+    * @return the capturing output stream.
+    */
+   public Capture capture( OutputStream out )
+   {
+     return new Capture( out, maxSize );
+   }
+
+
+   /**
+    * Puts the data captured by the specified capture into this cache.
+    *
+    * @param key        a cache key.
+    * @param capture    a capture of the result data.
+    * @param rowCount   the number of rows in the result data.
+    * @param timeToLive the time-to-live of the cached result in milliseconds.
+    * @throws IOException if the captured data cannot be compressed.
+    */
+   public void put( Key key, Capture capture, long rowCount, long timeToLive )
+       throws IOException
+   {
+     byte[] data = capture.finish();
+     if ( data == null )
+     {
+       log.debug( "Result of SQL query: {} not cached, its compressed size exceeds the cache size.", key.statement );
+       return;
+     }
+
+     ByteBuffer buffer;
+     if ( offHeap )
+     {
+       buffer = ByteBuffer.allocateDirect( data.length ).put( data );
+       buffer.flip();
+     }
+     else
+     {
+       buffer = ByteBuffer.wrap( data );
+     }
+
+     CachedResult result = new CachedResult( buffer, rowCount, System.currentTimeMillis() + timeToLive );
+
+     synchronized ( cache )
+     {
+       remove( key );
+       makeRoom( data.length );
+
+       cache.put( key, result );
+       size += data.length;
+     }
+
+     log.debug( "Cached result of SQL query: {}, rows={}, compressedSize={}, timeToLive={}.", key.statement,
+         rowCount, data.length, timeToLive );
+   }
+
+
+   @Override
+   public long getHitCount()
+   {
+     return hitCount.get();
+   }
+
+
+   @Override
+   public long getMissCount()
+   {
+     return missCount.get();
+   }
+
+
+   @Override
+   public double getHitRate()
+   {
+     long hits = hitCount.get();
+     long lookups = hits + missCount.get();
+     return lookups == 0 ? 0 : (double) hits / lookups;
+   }
+
+
+   @Override
+   public long getEvictionCount()
+   {
+     return evictionCount.get();
+   }
+
+
+   @Override
+   public int getEntryCount()
+   {
+     synchronized ( cache )
+     {
+       return cache.size();
+     }
+   }
+
+
+   @Override
+   public long getSize()
+   {
+     synchronized ( cache )
+     {
+       return size;
+     }
+   }
+
+
+   @Override
+   public long getMaxSize()
+   {
+     return maxSize;
+   }
+
+
+   @Override
+   public boolean isOffHeap()
+   {
+     return offHeap;
+   }
+
+
+   @Override
+   public void clear()
+   {
+     synchronized ( cache )
+     {
+       cache.clear();
+       size = 0;
+     }
+
+     hitCount.set( 0 );
+     missCount.set( 0 );
+     evictionCount.set( 0 );
+   }
+
+
+   /**
+    * Removes expired entries and, if needed, the least recently used entries so that an entry of the
+    * specified size fits into the cache. Must be called while holding the cache lock.
+    *
+    * @param requiredSize the size of the entry to be added.
+    */
+   private void makeRoom( long requiredSize )
+   {
+     long now = System.currentTimeMillis();
+     for ( Iterator<CachedResult> i = cache.values().iterator(); i.hasNext(); )
+     {
+       CachedResult result = i.next();
+       if ( result.expiresAt <= now )
+       {
+         i.remove();
+         size -= result.getSize();
+       }
+     }
+
+     for ( Iterator<CachedResult> i = cache.values().iterator(); i.hasNext() && size + requiredSize > maxSize; )
+     {
+       CachedResult result = i.next();
+       i.remove();
+       size -= result.getSize();
+       evictionCount.incrementAndGet();
+     }
+   }
+
+
+   /**
+    * Removes the entry with the specified key. Must be called while holding the cache lock.
+    *
+    * @param key a cache key.
+    */
+   private void remove( Key key )
+   {
+     CachedResult result = cache.remove( key );
+     if ( result != null )
+     {
+       size -= result.getSize();
+     }
+   }
+
+
+   /**
+    * Key of a cached query result.
+    */
+   public static final class Key
+   {
+     private final String jdbcUrl;
+
+     private final String username;
+
+     private final String format;
+
+     private final SqlStatement statement;
+
+     private final int hashCode;
+
+
+     /**
+      * Creates a new {@link Key}.
+      *
+      * @param jdbcUrl   the JDBC URL.
+      * @param username  the JDBC username.
+      * @param format    the description of the result format including all its options that affect
+      *                  the result data.
+      * @param statement the executed SQL statement with its bound parameters.
+      */
+     public Key( String jdbcUrl, String username, String format, SqlStatement statement )
+     {
+       this.jdbcUrl = jdbcUrl;
+       this.username = username;
+       this.format = format;
+       this.statement = statement;
+
+       hashCode = Objects.hash( jdbcUrl, username, format, statement.getSql(), statement.getParams().length );
+     }
+
+
+     @Override
+     public boolean equals( Object o )
+     {
+       if ( this == o )
+         return true;
+
+       if ( !( o instanceof Key ) )
+         return false;
+
+       Key other = (Key) o;
+       return hashCode == other.hashCode &&
+           Objects.equals( jdbcUrl, other.jdbcUrl ) &&
+           Objects.equals( username, other.username ) &&
+           Objects.equals( format, other.format ) &&
+           Objects.equals( statement.getSql(), other.statement.getSql() ) &&
+           Arrays.equals( statement.getParams(), other.statement.getParams() );
+     }
+
+
+     @Override
+     public int hashCode()
+     {
+       return hashCode;
+     }
+   }
+
+
+   /**
+    * Cached compressed query result.
+    */
+   public static final class CachedResult
+   {
+     private final ByteBuffer data;
+
+     private final long rowCount;
+
+     private final long expiresAt;
+
+
+     private CachedResult( ByteBuffer data, long rowCount, long expiresAt )
+     {
+       this.data = data;
+       this.rowCount = rowCount;
+       this.expiresAt = expiresAt;
+     }
+
+
+     /**
+      * Returns the number of rows in the cached result.
+      *
+      * @return the number of rows.
+      */
+     public long getRowCount()
+     {
+       return rowCount;
+     }
+
+
+     /**
+      * Decompresses and writes the cached result data to the specified output stream.
+      *
+      * @param out an output stream.
+      * @throws IOException if an I/O error occurs.
+      */
+     public void writeTo( OutputStream out )
+         throws IOException
+     {
+       try ( InputStream in = new InflaterInputStream( new ByteBufferInputStream( data.duplicate() ) ) )
+       {
+         in.transferTo( out );
+       }
+     }
+
+
+     private int getSize()
+     {
+       return data.capacity();
+     }
+   }
+
+
+   /**
+    * Output stream that writes the data to the target output stream and captures the compressed copy of the data.
+    */
+   public static final class Capture
+       extends OutputStream
+   {
+     private final OutputStream out;
+
+     private final long maxSize;
+
+     private ByteArrayOutputStream compressed;
+
+     private Deflater deflater;
+
+     private DeflaterOutputStream deflaterOut;
+
+
+     private Capture( OutputStream out, long maxSize )
+     {
+       this.out = out;
+       this.maxSize = maxSize;
+
+       // the data are not captured at all if caching is disabled
+       if ( maxSize > 0 )
+       {
+         compressed = new ByteArrayOutputStream( BUFFER_SIZE );
+         deflater = new Deflater( Deflater.BEST_SPEED );
+         deflaterOut = new DeflaterOutputStream( compressed, deflater, BUFFER_SIZE );
+       }
+     }
+
+
+     @Override
+     public void write( int b )
+         throws IOException
+     {
+       out.write( b );
+       if ( deflaterOut != null )
+       {
+         deflaterOut.write( b );
+         checkSize();
+       }
+     }
+
+
+     @Override
+     public void write( byte[] b, int off, int len )
+         throws IOException
+     {
+       out.write( b, off, len );
+       if ( deflaterOut != null )
+       {
+         deflaterOut.write( b, off, len );
+         checkSize();
+       }
+     }
+
+
+     @Override
+     public void flush()
+         throws IOException
+     {
+       out.flush();
+     }
+
+
+     /**
+      * Closes the target output stream. The captured data remain available.
+      */
+     @Override
+     public void close()
+         throws IOException
+     {
+       out.close();
+     }
+
+
+     /**
+      * Finishes the compression and returns the compressed data, null if the data have not been captured
+      * because their compressed size exceeded the maximum size.
+      *
+      * @return the compressed data, or null.
+      * @throws IOException if an I/O error occurs.
+      */
+     private byte[] finish()
+         throws IOException
+     {
+       if ( deflaterOut == null )
+         return null;
+
+       deflaterOut.finish();
+       byte[] data = compressed.size() > maxSize ? null : compressed.toByteArray();
+       abort();
+
+       return data;
+     }
+
+
+     /**
+      * Stops capturing the data and releases the native memory of the compressor. Must be called if the captured
+      * data are not put into the cache, e.g. because the export of the data failed. The data are still written to
+      * the target output stream. Has no effect if the capture has been finished, or aborted.
+      */
+     public void abort()
+     {
+       if ( deflaterOut != null )
+       {
+         deflater.end();
+         deflaterOut = null;
+         compressed = null;
+       }
+     }
+
+
+     /**
+      * Stops capturing the data if their compressed size exceeds the maximum size.
+      */
+     private void checkSize()
+     {
+       if ( compressed.size() > maxSize )
+       {
+         abort();
+       }
+     }
+   }
+
+
+   /**
+    * Input stream reading from a byte buffer.
+    */
+   private static final class ByteBufferInputStream
+       extends InputStream
+   {
+     private final ByteBuffer buffer;
+
+
+     private ByteBufferInputStream( ByteBuffer buffer )
+     {
+       this.buffer = buffer;
+     }
+
+
+     @Override
+     public int read()
+     {
+       return buffer.hasRemaining() ? buffer.get() & 0xff : -1;
+     }
+
+
+     @Override
+     public int read( byte[] b, int off, int len )
+     {
+       if ( len == 0 )
+         return 0;
+
+       if ( !buffer.hasRemaining() )
+         return -1;
+
+       int n = Math.min( len, buffer.remaining() );
+       buffer.get( b, off, n );
+       return n;
+     }
+   }
+ }
@@ -0,0 +1,81 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.sql;
+
+ /**
+  * JMX management interface of the {@link QueryResultCache}.
+  */
+ public interface QueryResultCacheMBean
+ {
+   /**
+    * Returns the number of cache lookups that returned a cached result.
+    *
+    * @return the number of cache hits.
+    */
+   long getHitCount();
+
+
+   /**
+    * Returns the number of cache lookups that did not return a cached result.
+    *
+    * @return the number of cache misses.
+    */
+   long getMissCount();
+
+
+   /**
+    * Returns the ratio of cache hits to all cache lookups, 0 if there have been no lookups.
+    *
+    * @return the hit rate in the range 0 - 1.
+    */
+   double getHitRate();
+
+
+   /**
+    * Returns the number of cached results evicted before their expiration because the cache was full.
+    *
+    * @return the number of evicted results.
+    */
+   long getEvictionCount();
+
+
+   /**
+    * Returns the number of cached results.
+    *
+    * @return the number of cached results.
+    */
+   int getEntryCount();
+
+
+   /**
+    * Returns the total size of the compressed cached results in bytes.
+    *
+    * @return the size of the cached results.
+    */
+   long getSize();
+
+
+   /**
+    * Returns the maximum total size of the compressed cached results in bytes.
+    *
+    * @return the maximum size of the cached results.
+    */
+   long getMaxSize();
+
+
+   /**
+    * Returns true if the cached results are stored in direct (off-heap) buffers.
+    *
+    * @return true if the cached results are stored off-heap, false otherwise.
+    */
+   boolean isOffHeap();
+
+
+   /**
+    * Removes all cached results and resets the statistics.
+    */
+   void clear();
+ }
@@ -0,0 +1,72 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.sql;
+
+ import java.io.IOException;
+ import java.io.OutputStream;
+ import java.sql.ResultSet;
+ import java.sql.SQLException;
+
+ /**
+  * Format of the exported JDBC result set data. An exported result set consists of a header, any number of row
+  * batches and a trailer. Row batches written by the same format can be concatenated, which allows the result sets
+  * of partition queries to be encoded concurrently and merged into a single output.
+  *
+  * <p>
+  * Implementations must be thread-safe. Custom implementations must provide a public no-arg constructor.
+  * </p>
+  *
+  * @see CsvResultSetFormat
+  * @see BinaryResultSetFormat
+  */
+ public interface ResultSetFormat
+ {
+   /**
+    * Writes the header describing the columns of the specified result set.
+    *
+    * @param res a result set.
+    * @param out the output stream.
+    * @throws SQLException if a DB error occurs.
+    * @throws IOException  if an I/O error occurs.
+    */
+   void writeHeader( ResultSet res, OutputStream out )
+       throws SQLException, IOException;
+
+
+   /**
+    * Writes a single batch of up to the specified number of rows fetched from the specified result set. If the
+    * method returns less than maxRows rows, the result set has been exhausted and this method must not be called
+    * again for the same result set.
+    *
+    * @param res     a result set.
+    * @param maxRows the maximum number of rows in the batch.
+    * @param out     the output stream.
+    * @return the number of written rows.
+    * @throws SQLException if a DB error occurs.
+    * @throws IOException  if an I/O error occurs.
+    */
+   int writeRows( ResultSet res, int maxRows, OutputStream out )
+       throws SQLException, IOException;
+
+
+   /**
+    * Writes the trailer after the last batch of rows.
+    *
+    * @param out the output stream.
+    * @throws IOException if an I/O error occurs.
+    */
+   void writeTrailer( OutputStream out )
+       throws IOException;
+
+
+   /**
+    * Returns true if the format produces text data in the UTF-8 encoding that can be used as the job execution
+    * result, false otherwise.
+    *
+    * @return true if the format produces text data, false otherwise.
+    */
+   boolean isText();
+ }
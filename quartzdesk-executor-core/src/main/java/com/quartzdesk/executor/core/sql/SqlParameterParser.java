@@ -0,0 +1,102 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.sql;
+
+ import com.quartzdesk.executor.common.DateTimeUtils;
+ import com.quartzdesk.executor.common.type.TimestampWithTZ;
+
+ import java.math.BigDecimal;
+ import java.text.ParseException;
+
+ /**
+  * Parses typed SQL statement parameter values specified in the job data map. A typed value has the
+  * {@code type:value} format, e.g. {@code int:42}, or {@code date:2025-01-31}. Values without a recognized type
+  * prefix are treated as strings. The following types are supported:
+  * <ul>
+  * <li>{@code string} - {@link String}</li>
+  * <li>{@code int} - {@link Integer}</li>
+  * <li>{@code long} - {@link Long}</li>
+  * <li>{@code short} - {@link Short}</li>
+  * <li>{@code byte} - {@link Byte}</li>
+  * <li>{@code decimal} - {@link BigDecimal}</li>
+  * <li>{@code double} - {@link Double}</li>
+  * <li>{@code float} - {@link Float}</li>
+  * <li>{@code boolean} - {@link Boolean}</li>
+  * <li>{@code date} - {@link java.util.Date} in the yyyy-MM-dd format</li>
+  * <li>{@code timestamp} - {@link TimestampWithTZ} in the ISO 8601 format (e.g. 2012-06-27T12:31:00.003+0000)</li>
+  * </ul>
+  * The parsed values can be passed to {@link com.quartzdesk.executor.common.db.DbUtils#setStatementParams}.
+  */
+ public final class SqlParameterParser
+ {
+   private static final char TYPE_SEPARATOR = ':';
+
+
+   /**
+    * Private constructor of a utility class.
+    */
+   private SqlParameterParser()
+   {
+   }
+
+
+   /**
+    * Parses the specified typed parameter value.
+    *
+    * @param value a typed parameter value.
+    * @return the parsed parameter value.
+    * @throws IllegalArgumentException if the value is null, or it cannot be parsed.
+    */
+   public static Object parse( String value )
+   {
+     // null values cannot be bound by DbUtils.setStatementParams
+     if ( value == null )
+       throw new IllegalArgumentException( "Missing parameter value." );
+
+     int separatorIdx = value.indexOf( TYPE_SEPARATOR );
+     if ( separatorIdx == -1 )
+       return value;
+
+     String type = value.substring( 0, separatorIdx );
+     String v = value.substring( separatorIdx + 1 );
+
+     try
+     {
+       switch ( type )
+       {
+         case "string":
+           return v;
+         case "int":
+           return Integer.valueOf( v.trim() );
+         case "long":
+           return Long.valueOf( v.trim() );
+         case "short":
+           return Short.valueOf( v.trim() );
+         case "byte":
+           return Byte.valueOf( v.trim() );
+         case "decimal":
+           return new BigDecimal( v.trim() );
+         case "double":
+           return Double.valueOf( v.trim() );
+         case "float":
+           return Float.valueOf( v.trim() );
+         case "boolean":
+           return Boolean.valueOf( v.trim() );
+         case "date":
+           return DateTimeUtils.parseDashedDateYYYYMMDD( v.trim() );
+         case "timestamp":
+           return new TimestampWithTZ( DateTimeUtils.parseTimestampIso8601( v.trim() ).getTime() );
+         default:
+           // not a type prefix, e.g. a URL
+           return value;
+       }
+     }
+     catch ( NumberFormatException | ParseException e )
+     {
+       throw new IllegalArgumentException( "Invalid " + type + " parameter value: " + v, e );
+     }
+   }
+ }
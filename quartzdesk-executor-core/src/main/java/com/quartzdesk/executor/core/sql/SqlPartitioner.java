@@ -0,0 +1,180 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.sql;
+
+ import java.math.BigInteger;
+ import java.util.ArrayList;
+ import java.util.Arrays;
+ import java.util.List;
+
+ /**
+  * Splits an SQL query into partition queries that select disjoint subsets of the query rows based on the values
+  * of a numeric partition column. Each partition query wraps the original query in a derived table:
+  * <pre>
+  *   SELECT * FROM ( original query ) qd_partition WHERE partition predicate
+  * </pre>
+  * Together, the partition queries always select all rows of the original query, including rows with null
+  * partition column values and values outside of the specified range.
+  */
+ public final class SqlPartitioner
+ {
+   private static final String PARTITION_QUERY_PREFIX = "SELECT * FROM ( ";
+
+   private static final String PARTITION_QUERY_WHERE = " ) qd_partition WHERE ";
+
+
+   /**
+    * Private constructor of a utility class.
+    */
+   private SqlPartitioner()
+   {
+   }
+
+
+   /**
+    * Splits the specified query into at most the specified number of partitions covering equally sized ranges of
+    * the partition column values between the lower bound (inclusive) and the upper bound (exclusive). Fewer
+    * partitions are created if the range cannot be split into the specified number of non-empty ranges. Rows with values
+    * below the lower bound and null values fall into the first partition, rows with values above the upper bound
+    * fall into the last partition.
+    *
+    * @param query          the query to split.
+    * @param column         the numeric partition column.
+    * @param lowerBound     the lower bound of the partition column values.
+    * @param upperBound     the upper bound of the partition column values.
+    * @param partitionCount the maximum number of partitions.
+    * @return the partition queries.
+    * @throws IllegalArgumentException if the partition count, or bounds are not valid.
+    */
+   public static List<SqlStatement> rangePartitions( SqlStatement query, String column, long lowerBound,
+       long upperBound, int partitionCount )
+   {
+     if ( partitionCount < 1 )
+       throw new IllegalArgumentException( "Partition count must be greater than 0: " + partitionCount );
+
+     if ( lowerBound >= upperBound )
+       throw new IllegalArgumentException(
+           "Partition lower bound: " + lowerBound + " must be less than the upper bound: " + upperBound );
+
+     // the range of wide bounds (e.g. Long.MIN_VALUE to Long.MAX_VALUE) does not fit in a long
+     BigInteger lower = BigInteger.valueOf( lowerBound );
+     BigInteger range = BigInteger.valueOf( upperBound ).subtract( lower );
+
+     // do not create empty partitions if the range is narrower than the partition count
+     int count = range.min( BigInteger.valueOf( partitionCount ) ).intValue();
+     BigInteger stride = range.add( BigInteger.valueOf( count - 1 ) ).divide( BigInteger.valueOf( count ) );
+
+     // the rounded up stride may cover the range with fewer partitions, e.g. range 9 split into 8 partitions
+     // with stride 2 needs 5 partitions only
+     count = range.add( stride.subtract( BigInteger.ONE ) ).divide( stride ).intValue();
+
+     List<SqlStatement> partitions = new ArrayList<>( count );
+     if ( count == 1 )
+     {
+       partitions.add( query );
+       return partitions;
+     }
+
+     for ( int i = 0; i < count; i++ )
+     {
+       long lo = rangeBoundary( lower, stride, i, upperBound );
+       long hi = rangeBoundary( lower, stride, i + 1, upperBound );
+
+       if ( i == 0 )
+       {
+         partitions.add( partition( query, column + " < ? OR " + column + " IS NULL", hi ) );
+       }
+       else if ( i == count - 1 )
+       {
+         partitions.add( partition( query, column + " >= ?", lo ) );
+       }
+       else
+       {
+         partitions.add( partition( query, column + " >= ? AND " + column + " < ?", lo, hi ) );
+       }
+     }
+
+     return partitions;
+   }
+
+
+   /**
+    * Splits the specified query into the specified number of hash buckets based on the modulo of the partition
+    * column values. Rows with null values fall into the first bucket. The database must support the MOD and ABS
+    * functions.
+    *
+    * @param query       the query to split.
+    * @param column      the numeric (integer) partition column.
+    * @param bucketCount the number of hash buckets.
+    * @return the partition queries.
+    * @throws IllegalArgumentException if the bucket count is not valid.
+    */
+   public static List<SqlStatement> hashPartitions( SqlStatement query, String column, int bucketCount )
+   {
+     if ( bucketCount < 1 )
+       throw new IllegalArgumentException( "Hash bucket count must be greater than 0: " + bucketCount );
+
+     List<SqlStatement> partitions = new ArrayList<>( bucketCount );
+     if ( bucketCount == 1 )
+     {
+       partitions.add( query );
+       return partitions;
+     }
+
+     // the bucket count is inlined because not all databases accept parameters as function arguments
+     String bucket = "MOD( ABS( " + column + " ), " + bucketCount + " ) = ?";
+     for ( int i = 0; i < bucketCount; i++ )
+     {
+       if ( i == 0 )
+       {
+         partitions.add( partition( query, bucket + " OR " + column + " IS NULL", i ) );
+       }
+       else
+       {
+         partitions.add( partition( query, bucket, i ) );
+       }
+     }
+
+     return partitions;
+   }
+
+
+   /**
+    * Returns the lower boundary of the specified range partition. Boundaries above the upper bound are replaced
+    * by the upper bound, so that they do not overflow.
+    *
+    * @param lower      the lower bound of the partition column values.
+    * @param stride     the size of the partition ranges.
+    * @param i          the partition index.
+    * @param upperBound the upper bound of the partition column values.
+    * @return the boundary.
+    */
+   private static long rangeBoundary( BigInteger lower, BigInteger stride, int i, long upperBound )
+   {
+     return lower.add( stride.multiply( BigInteger.valueOf( i ) ) ).min( BigInteger.valueOf( upperBound ) )
+         .longValueExact();
+   }
+
+
+   /**
+    * Creates a partition query from the specified query and partition predicate.
+    *
+    * @param query           the query.
+    * @param predicate       the partition predicate.
+    * @param predicateParams the partition predicate parameters.
+    * @return the partition query.
+    */
+   private static SqlStatement partition( SqlStatement query, String predicate, Object... predicateParams )
+   {
+     String sql = PARTITION_QUERY_PREFIX + query.getSql() + PARTITION_QUERY_WHERE + predicate;
+
+     Object[] queryParams = query.getParams();
+     Object[] params = Arrays.copyOf( queryParams, queryParams.length + predicateParams.length );
+     System.arraycopy( predicateParams, 0, params, queryParams.length, predicateParams.length );
+
+     return new SqlStatement( sql, params );
+   }
+ }
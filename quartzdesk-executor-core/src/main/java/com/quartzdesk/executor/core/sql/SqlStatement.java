@@ -0,0 +1,62 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.sql;
+
+ import java.util.Arrays;
+
+ /**
+  * SQL statement with its bound parameter values.
+  */
+ public final class SqlStatement
+ {
+   private static final Object[] NO_PARAMS = new Object[0];
+
+   private final String sql;
+
+   private final Object[] params;
+
+
+   /**
+    * Creates a new {@link SqlStatement}.
+    *
+    * @param sql    the SQL statement.
+    * @param params the parameter values, can be null.
+    */
+   public SqlStatement( String sql, Object[] params )
+   {
+     this.sql = sql;
+     this.params = params == null ? NO_PARAMS : params;
+   }
+
+
+   /**
+    * Returns the SQL statement.
+    *
+    * @return the SQL statement.
+    */
+   public String getSql()
+   {
+     return sql;
+   }
+
+
+   /**
+    * Returns the parameter values.
+    *
+    * @return the parameter values.
+    */
+   public Object[] getParams()
+   {
+     return params;
+   }
+
+
+   @Override
+   public String toString()
+   {
+     return params.length == 0 ? sql : sql + ' ' + Arrays.toString( params );
+   }
+ }
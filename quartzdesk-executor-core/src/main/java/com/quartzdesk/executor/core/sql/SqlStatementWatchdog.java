@@ -0,0 +1,324 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.sql;
+
+ import jakarta.annotation.PostConstruct;
+ import jakarta.annotation.PreDestroy;
+ import org.slf4j.Logger;
+ import org.slf4j.LoggerFactory;
+
+ import java.sql.SQLException;
+ import java.sql.SQLTimeoutException;
+ import java.sql.Statement;
+ import java.util.Set;
+ import java.util.concurrent.ConcurrentHashMap;
+ import java.util.concurrent.ConcurrentMap;
+ import java.util.concurrent.ScheduledFuture;
+ import java.util.concurrent.ScheduledThreadPoolExecutor;
+ import java.util.concurrent.TimeUnit;
+ import java.util.concurrent.atomic.AtomicBoolean;
+ import java.util.concurrent.atomic.AtomicLong;
+
+ /**
+  * Watches executing SQL statements of the {@link com.quartzdesk.executor.core.job.SqlQueryExecutorJob} jobs.
+  * The watchdog sets the query timeout of the watched statements and it cancels statements that are still
+  * executing when their query timeout (plus the configured grace period) has elapsed, because not all JDBC drivers
+  * enforce the query timeout reliably. It also cancels all statements of a job when the job is interrupted.
+  *
+  * <p>
+  * Statements are watched on behalf of an owner (typically a job instance) so that all statements of the owner
+  * can be cancelled at once by {@link #cancel(Object)}.
+  * </p>
+  *
+  * Instances of this class are thread-safe and they are intended to be shared by all executed jobs.
+  */
+ public class SqlStatementWatchdog
+     implements SqlStatementWatchdogMBean
+ {
+   private static final Logger log = LoggerFactory.getLogger( SqlStatementWatchdog.class );
+
+   /**
+    * Default grace period in milliseconds.
+    */
+   private static final long DEFAULT_GRACE_PERIOD = 5000L;
+
+   private final ConcurrentMap<Object, Set<Registration>> registrations = new ConcurrentHashMap<>();
+
+   private final AtomicLong watchedCount = new AtomicLong();
+
+   private final AtomicLong timedOutCount = new AtomicLong();
+
+   private final AtomicLong watchdogCancelledCount = new AtomicLong();
+
+   private final AtomicLong interruptCancelledCount = new AtomicLong();
+
+   private long gracePeriod = DEFAULT_GRACE_PERIOD;
+
+   private ScheduledThreadPoolExecutor scheduler;
+
+
+   /**
+    * Sets the time (in milliseconds) to wait after the query timeout has elapsed before the statement is
+    * cancelled by the watchdog. The grace period gives the JDBC driver a chance to enforce the timeout itself.
+    *
+    * @param gracePeriod the grace period in milliseconds.
+    */
+   public void setGracePeriod( long gracePeriod )
+   {
+     this.gracePeriod = gracePeriod;
+   }
+
+
+   /**
+    * Starts the watchdog thread.
+    */
+   @PostConstruct
+   public void start()
+   {
+     scheduler = new ScheduledThreadPoolExecutor( 1, r -> {
+       Thread thread = new Thread( r, "SqlStatementWatchdog" );
+       thread.setDaemon( true );
+       return thread;
+     } );
+     scheduler.setRemoveOnCancelPolicy( true );
+   }
+
+
+   /**
+    * Stops the watchdog thread.
+    */
+   @PreDestroy
+   public void stop()
+   {
+     if ( scheduler != null )
+     {
+       scheduler.shutdownNow();
+       scheduler = null;
+     }
+   }
+
+
+   /**
+    * Starts watching the specified statement and sets its query timeout. The returned registration must be closed
+    * when the statement execution completes.
+    *
+    * @param owner        the owner of the statement.
+    * @param stat         the statement to watch.
+    * @param queryTimeout the query timeout in seconds, 0 for no timeout.
+    * @return the registration of the watched statement.
+    * @throws SQLException if the query timeout cannot be set.
+    */
+   public Registration watch( Object owner, Statement stat, int queryTimeout )
+       throws SQLException
+   {
+     stat.setQueryTimeout( queryTimeout );
+
+     final Registration registration = new Registration( owner, stat );
+     registrations.compute( owner, ( k, ownerRegistrations ) -> {
+       if ( ownerRegistrations == null )
+         ownerRegistrations = ConcurrentHashMap.newKeySet();
+
+       ownerRegistrations.add( registration );
+       return ownerRegistrations;
+     } );
+     watchedCount.incrementAndGet();
+
+     ScheduledThreadPoolExecutor currentScheduler = scheduler;
+     if ( queryTimeout > 0 && currentScheduler != null )
+     {
+       registration.timeoutTask = currentScheduler.schedule( () -> {
+         log.warn( "Cancelling SQL statement that exceeded its query timeout of {} s.", queryTimeout );
+         if ( registration.cancel() )
+         {
+           watchdogCancelledCount.incrementAndGet();
+           timedOutCount.incrementAndGet();
+         }
+       }, queryTimeout * 1000L + gracePeriod, TimeUnit.MILLISECONDS );
+     }
+
+     return registration;
+   }
+
+
+   /**
+    * Cancels all currently executing statements of the specified owner.
+    *
+    * @param owner the owner of the statements.
+    * @return the number of cancelled statements.
+    */
+   public int cancel( Object owner )
+   {
+     int cancelledCount = 0;
+
+     Set<Registration> ownerRegistrations = registrations.get( owner );
+     if ( ownerRegistrations != null )
+     {
+       for ( Registration registration : ownerRegistrations )
+       {
+         if ( registration.cancel() )
+         {
+           interruptCancelledCount.incrementAndGet();
+           cancelledCount++;
+         }
+       }
+     }
+
+     return cancelledCount;
+   }
+
+
+   @Override
+   public long getWatchedCount()
+   {
+     return watchedCount.get();
+   }
+
+
+   @Override
+   public int getActiveCount()
+   {
+     int activeCount = 0;
+     for ( Set<Registration> ownerRegistrations : registrations.values() )
+     {
+       activeCount += ownerRegistrations.size();
+     }
+     return activeCount;
+   }
+
+
+   @Override
+   public long getTimedOutCount()
+   {
+     return timedOutCount.get();
+   }
+
+
+   @Override
+   public long getWatchdogCancelledCount()
+   {
+     return watchdogCancelledCount.get();
+   }
+
+
+   @Override
+   public long getInterruptCancelledCount()
+   {
+     return interruptCancelledCount.get();
+   }
+
+
+   @Override
+   public long getGracePeriod()
+   {
+     return gracePeriod;
+   }
+
+
+   /**
+    * Registration of a watched statement.
+    */
+   public final class Registration
+       implements AutoCloseable
+   {
+     private final Object owner;
+
+     private final Statement stat;
+
+     private final AtomicBoolean cancelled = new AtomicBoolean();
+
+     private volatile ScheduledFuture<?> timeoutTask;
+
+
+     private Registration( Object owner, Statement stat )
+     {
+       this.owner = owner;
+       this.stat = stat;
+     }
+
+
+     /**
+      * Returns true if the statement has been cancelled by the watchdog, or because its owner
+      * has been interrupted.
+      *
+      * @return true if the statement has been cancelled, false otherwise.
+      */
+     public boolean isCancelled()
+     {
+       return cancelled.get();
+     }
+
+
+     /**
+      * Records the failure of the watched statement. Query timeouts enforced by the JDBC driver are counted
+      * as timed out statements.
+      *
+      * @param e the failure.
+      */
+     public void failed( SQLException e )
+     {
+       if ( e instanceof SQLTimeoutException && !cancelled.get() )
+       {
+         timedOutCount.incrementAndGet();
+       }
+     }
+
+
+     /**
+      * Records that the watched statement has been executed and stops its query timeout, so that fetching of its
+      * result set (e.g. a slow export of the result data) is not cancelled by the watchdog. The statement is still
+      * cancelled if its owner is interrupted, until the registration is closed.
+      */
+     public void executed()
+     {
+       ScheduledFuture<?> task = timeoutTask;
+       if ( task != null )
+       {
+         task.cancel( false );
+       }
+     }
+
+
+     /**
+      * Stops watching the statement.
+      */
+     @Override
+     public void close()
+     {
+       ScheduledFuture<?> task = timeoutTask;
+       if ( task != null )
+       {
+         task.cancel( false );
+       }
+
+       registrations.computeIfPresent( owner, ( k, ownerRegistrations ) -> {
+         ownerRegistrations.remove( this );
+         return ownerRegistrations.isEmpty() ? null : ownerRegistrations;
+       } );
+     }
+
+
+     /**
+      * Cancels the statement if it has not been cancelled yet.
+      *
+      * @return true if the statement has been cancelled by this invocation, false otherwise.
+      */
+     private boolean cancel()
+     {
+       if ( !cancelled.compareAndSet( false, true ) )
+         return false;
+
+       try
+       {
+         stat.cancel();
+       }
+       catch ( SQLException e )
+       {
+         log.warn( "Error cancelling SQL statement.", e );
+       }
+       return true;
+     }
+   }
+ }
@@ -0,0 +1,62 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.sql;
+
+ /**
+  * JMX management interface of the {@link SqlStatementWatchdog}.
+  */
+ public interface SqlStatementWatchdogMBean
+ {
+   /**
+    * Returns the total number of watched SQL statement executions.
+    *
+    * @return the number of watched statement executions.
+    */
+   long getWatchedCount();
+
+
+   /**
+    * Returns the number of currently executing watched SQL statements.
+    *
+    * @return the number of executing statements.
+    */
+   int getActiveCount();
+
+
+   /**
+    * Returns the number of SQL statements that exceeded their query timeout. Includes statements timed out
+    * by the JDBC driver and statements cancelled by the watchdog.
+    *
+    * @return the number of timed out statements.
+    */
+   long getTimedOutCount();
+
+
+   /**
+    * Returns the number of SQL statements cancelled by the watchdog because the JDBC driver did not enforce
+    * their query timeout.
+    *
+    * @return the number of statements cancelled by the watchdog.
+    */
+   long getWatchdogCancelledCount();
+
+
+   /**
+    * Returns the number of SQL statements cancelled because their job has been interrupted.
+    *
+    * @return the number of statements cancelled on job interrupt.
+    */
+   long getInterruptCancelledCount();
+
+
+   /**
+    * Returns the time (in milliseconds) the watchdog waits after the query timeout has elapsed before it
+    * cancels the statement.
+    *
+    * @return the grace period in milliseconds.
+    */
+   long getGracePeriod();
+ }
@@ -0,0 +1,96 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.sql;
+
+ import java.lang.reflect.InvocationTargetException;
+ import java.lang.reflect.Proxy;
+ import java.sql.ResultSet;
+ import java.sql.SQLException;
+
+ /**
+  * Tracks the maximum value of the watermark column in the rows read from a result set. The tracker wraps the
+  * result set so that it works with any {@link ResultSetFormat} that reads the rows.
+  */
+ public class WatermarkTracker
+ {
+   private static final String METHOD_NEXT = "next";
+
+   private final String column;
+
+   private final WatermarkType type;
+
+   private Comparable<Object> maxValue;
+
+
+   /**
+    * Creates a new {@link WatermarkTracker}.
+    *
+    * @param column the watermark column name.
+    * @param type   the watermark column type.
+    */
+   public WatermarkTracker( String column, WatermarkType type )
+   {
+     this.column = column;
+     this.type = type;
+   }
+
+
+   /**
+    * Returns a result set that delegates to the specified result set and updates the maximum watermark column
+    * value every time the cursor is moved to the next row.
+    *
+    * @param res a result set.
+    * @return the tracking result set.
+    * @throws SQLException if the result set does not contain the watermark column.
+    */
+   public ResultSet track( final ResultSet res )
+       throws SQLException
+   {
+     final int columnIndex = res.findColumn( column );
+
+     return (ResultSet) Proxy.newProxyInstance( ResultSet.class.getClassLoader(), new Class<?>[] { ResultSet.class },
+         ( proxy, method, args ) -> {
+           Object result;
+           try
+           {
+             result = method.invoke( res, args );
+           }
+           catch ( InvocationTargetException e )
+           {
+             throw e.getCause();
+           }
+
+           if ( Boolean.TRUE.equals( result ) && METHOD_NEXT.equals( method.getName() ) )
+           {
+             update( type.getValue( res, columnIndex ) );
+           }
+
+           return result;
+         } );
+   }
+
+
+   /**
+    * Returns the maximum tracked watermark column value as a watermark, null if no rows (or only rows
+    * with null watermark column values) have been read.
+    *
+    * @return the watermark, or null.
+    */
+   public String getWatermark()
+   {
+     return maxValue == null ? null : maxValue.toString();
+   }
+
+
+   @SuppressWarnings( "unchecked" )
+   private void update( Comparable<?> value )
+   {
+     if ( value != null && ( maxValue == null || maxValue.compareTo( value ) < 0 ) )
+     {
+       maxValue = (Comparable<Object>) value;
+     }
+   }
+ }
@@ -0,0 +1,117 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.core.sql;
+
+ import java.sql.ResultSet;
+ import java.sql.SQLException;
+ import java.sql.Timestamp;
+ import java.time.Instant;
+ import java.time.format.DateTimeParseException;
+
+ /**
+  * Supported types of the watermark column values tracked by the {@link WatermarkTracker}. Watermarks are
+  * persisted as strings.
+  */
+ public enum WatermarkType
+ {
+   /**
+    * Integer (e.g. ID, or version) column values. Watermarks are persisted as decimal numbers.
+    */
+   LONG( String.valueOf( Long.MIN_VALUE ) )
+       {
+         @Override
+         public Object toParameter( String watermark )
+         {
+           try
+           {
+             return Long.valueOf( watermark.trim() );
+           }
+           catch ( NumberFormatException e )
+           {
+             throw new IllegalArgumentException( "Invalid long watermark: " + watermark, e );
+           }
+         }
+
+
+         @Override
+         Comparable<?> getValue( ResultSet res, int columnIndex )
+             throws SQLException
+         {
+           long value = res.getLong( columnIndex );
+           return res.wasNull() ? null : value;
+         }
+       },
+
+   /**
+    * Timestamp column values. Watermarks are persisted as ISO-8601 instants, e.g. 2025-01-31T10:15:30.123Z.
+    */
+   TIMESTAMP( "1900-01-01T00:00:00Z" )
+       {
+         @Override
+         public Object toParameter( String watermark )
+         {
+           try
+           {
+             return Timestamp.from( Instant.parse( watermark.trim() ) );
+           }
+           catch ( DateTimeParseException e )
+           {
+             throw new IllegalArgumentException( "Invalid timestamp watermark: " + watermark, e );
+           }
+         }
+
+
+         @Override
+         Comparable<?> getValue( ResultSet res, int columnIndex )
+             throws SQLException
+         {
+           Timestamp value = res.getTimestamp( columnIndex );
+           return value == null ? null : value.toInstant();
+         }
+       };
+
+   private final String initialWatermark;
+
+
+   WatermarkType( String initialWatermark )
+   {
+     this.initialWatermark = initialWatermark;
+   }
+
+
+   /**
+    * Returns the default watermark used if there is no persisted watermark. The default watermark is lower than
+    * any practically used column value.
+    *
+    * @return the default initial watermark.
+    */
+   public String getInitialWatermark()
+   {
+     return initialWatermark;
+   }
+
+
+   /**
+    * Converts the specified watermark to the value of the SQL query parameter.
+    *
+    * @param watermark a watermark.
+    * @return the parameter value.
+    * @throws IllegalArgumentException if the watermark is not valid.
+    */
+   public abstract Object toParameter( String watermark );
+
+
+   /**
+    * Returns the watermark column value of the current row in the specified result set, null if the value is null.
+    *
+    * @param res         a result set.
+    * @param columnIndex the watermark column index.
+    * @return the column value.
+    * @throws SQLException if a DB error occurs.
+    */
+   abstract Comparable<?> getValue( ResultSet res, int columnIndex )
+       throws SQLException;
+ }
@@ -9,7 +9,14 @@
 
  import org.hibernate.Session;
  import org.hibernate.SessionFactory;
- import org.hibernate.jdbc.Work;
+ import org.hibernate.dialect.DB2Dialect;
+ import org.hibernate.dialect.Dialect;
+ import org.hibernate.dialect.H2Dialect;
+ import org.hibernate.dialect.MySQLDialect;
+ import org.hibernate.dialect.OracleDialect;
+ import org.hibernate.dialect.PostgreSQLDialect;
+ import org.hibernate.dialect.SQLServerDialect;
+ import org.hibernate.engine.spi.SessionFactoryImplementor;
  import org.slf4j.Logger;
  import org.slf4j.LoggerFactory;
  import org.springframework.beans.factory.annotation.Autowired;
@@ -19,10 +26,13 @@
  import javax.sql.DataSource;
  import java.sql.Connection;
  import java.sql.DatabaseMetaData;
+ import java.sql.PreparedStatement;
  import java.sql.ResultSet;
  import java.sql.SQLException;
  import java.util.Locale;
- import java.util.concurrent.atomic.AtomicBoolean;
+ import java.util.Set;
+ import java.util.concurrent.ConcurrentHashMap;
+ import java.util.concurrent.ConcurrentMap;
 
  /**
   * Common base-class for all DAO classes.
@@ -31,6 +41,12 @@
  {
    private static final Logger log = LoggerFactory.getLogger( AbstractDao.class );
 
+   /**
+    * Maps JDBC connection URLs onto the (lower-case, optionally schema-qualified) names of the tables known to
+    * exist in the database.
+    */
+   private static final ConcurrentMap<String, Set<String>> EXISTING_TABLES_CACHE = new ConcurrentHashMap<>();
+
    private SessionFactory sessionFactory;
 
    private JdbcTemplate jdbcTemplate;
@@ -90,6 +106,13 @@
     * require the names to be in upper case (DB2, Oracle), whereas other databases require
     * the names to be in lower-case.
     *
+    * <p>
+    * For the supported databases, the table is looked up by a single query of the database catalog, otherwise
+    * through the JDBC database metadata. Existing tables are cached per JDBC connection URL, so that repeated
+    * checks do not query the catalog. The cache is evicted by {@link #evictTableMetadata(Connection)} after
+    * database schema scripts have been executed.
+    * </p>
+    *
     * @param session    a Hibernate session.
     * @param schemaName an optional schema name where to look for the table name.
     * @param tableName  a table name.
@@ -97,53 +120,170 @@
     */
    public boolean tableExists( Session session, final String schemaName, final String tableName )
    {
-     final AtomicBoolean tableExists = new AtomicBoolean( false );
+     return session.doReturningWork( connection -> {
+       log.debug( "Checking if table '{}' exists.", tableName );
 
-     session.doWork( new Work()
-     {
-       @Override
-       public void execute( Connection connection )
-           throws SQLException
+       DatabaseMetaData metaData = connection.getMetaData();
+
+       String tableKey = ( schemaName == null ? "" : schemaName.toLowerCase( Locale.US ) + '.' ) +
+           tableName.toLowerCase( Locale.US );
+
+       // some JDBC drivers do not return the URL, tables of such databases are not cached
+       String url = metaData.getURL();
+       Set<String> existingTables = url == null ? null :
+           EXISTING_TABLES_CACHE.computeIfAbsent( url, key -> ConcurrentHashMap.newKeySet() );
+
+       if ( existingTables != null && existingTables.contains( tableKey ) )
        {
-         log.debug( "Checking if table '{}' exists.", tableName );
-
-         DatabaseMetaData metaData = connection.getMetaData();
-
-         // 1. attempt - try schema and table name in lower-case (does not work in DB2 and Oracle)
-         ResultSet res =
-             metaData.getTables( null,
-                 schemaName == null ? null : schemaName.toLowerCase( Locale.US ),
-                 tableName.toLowerCase( Locale.US ), new String[] { "TABLE" } );
-
-         tableExists.set( res.next() );
-         DbUtils.close( res );
-
-         if ( tableExists.get() )
-         {
-           log.debug( "Table '{}' exists.", tableName );
-         }
-         else
-         {
-           // 2. attempt - try schema and table name in upper-case (required for DB2 and Oracle)
-           res = metaData.getTables( null,
-               schemaName == null ? null : schemaName.toUpperCase( Locale.US ),
-               tableName.toUpperCase( Locale.US ), new String[] { "TABLE" } );
-
-           tableExists.set( res.next() );
-           DbUtils.close( res );
-
-           if ( tableExists.get() )
-           {
-             log.debug( "Table '{}' exists.", tableName );
-           }
-           else
-           {
-             log.debug( "Table '{}' does not exist.", tableName );
-           }
-         }
+         log.debug( "Table '{}' exists (cached).", tableName );
+         return true;
        }
+
+       String query = getTableExistsQuery( schemaName != null );
+
+       boolean tableExists = query == null ?
+           metaDataTableExists( metaData, schemaName, tableName ) :
+           queryTableExists( connection, query, schemaName, tableName );
+
+       if ( tableExists )
+       {
+         log.debug( "Table '{}' exists.", tableName );
+
+         if ( existingTables != null )
+           existingTables.add( tableKey );
+       }
+       else
+       {
+         log.debug( "Table '{}' does not exist.", tableName );
+       }
+
+       return tableExists;
      } );
+   }
+
+
+   /**
+    * Evicts the cached tables of the database of the specified connection. Must be invoked after the database
+    * schema has been modified, e.g. after database schema scripts have been executed.
+    *
+    * @param connection a JDBC connection.
+    * @throws SQLException if the JDBC connection URL cannot be obtained.
+    */
+   protected static void evictTableMetadata( Connection connection )
+       throws SQLException
+   {
+     String url = connection.getMetaData().getURL();
+     if ( url != null )
+       EXISTING_TABLES_CACHE.remove( url );
+   }
+
+
+   /**
+    * Returns the catalog query of the configured Hibernate dialect that returns the number of tables with the
+    * specified lower-case, or upper-case name (and schema name), or null if the dialect is not supported.
+    *
+    * @param withSchema true if the query should also match the schema name.
+    * @return the table exists query, or null.
+    */
+   private String getTableExistsQuery( boolean withSchema )
+   {
+     Dialect dialect = getSessionFactory().unwrap( SessionFactoryImplementor.class ).getJdbcServices().getDialect();
+
+     if ( dialect instanceof OracleDialect )
+     {
+       return "SELECT COUNT(*) FROM ALL_TABLES WHERE TABLE_NAME IN (?, ?)" +
+           ( withSchema ? " AND OWNER IN (?, ?)" : "" );
+     }
+
+     if ( dialect instanceof DB2Dialect )
+     {
+       return "SELECT COUNT(*) FROM SYSCAT.TABLES WHERE TYPE = 'T' AND TABNAME IN (?, ?)" +
+           ( withSchema ? " AND TABSCHEMA IN (?, ?)" : "" );
+     }
+
+     if ( dialect instanceof MySQLDialect )
+     {
+       // without the schema, only the current database (schema) is searched, not other databases on the server
+       return "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_TYPE = 'BASE TABLE' AND TABLE_NAME IN (?, ?)" +
+           ( withSchema ? " AND TABLE_SCHEMA IN (?, ?)" : " AND TABLE_SCHEMA = DATABASE()" );
+     }
+
+     if ( dialect instanceof H2Dialect || dialect instanceof PostgreSQLDialect || dialect instanceof SQLServerDialect )
+     {
+       return "SELECT COUNT(*) FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_TYPE = 'BASE TABLE' AND TABLE_NAME IN (?, ?)" +
+           ( withSchema ? " AND TABLE_SCHEMA IN (?, ?)" : "" );
+     }
+
+     return null;
+   }
+
+
+   /**
+    * Checks if the specified table exists by executing the specified catalog query.
+    *
+    * @param connection a JDBC connection.
+    * @param query      the catalog query.
+    * @param schemaName an optional schema name where to look for the table name.
+    * @param tableName  a table name.
+    * @return true if the table exists, false otherwise.
+    * @throws SQLException if an error occurs.
+    */
+   private static boolean queryTableExists( Connection connection, String query, String schemaName,
+       String tableName )
+       throws SQLException
+   {
+     Object[] params = schemaName == null ?
+         new Object[] { tableName.toLowerCase( Locale.US ), tableName.toUpperCase( Locale.US ) } :
+         new Object[] { tableName.toLowerCase( Locale.US ), tableName.toUpperCase( Locale.US ),
+             schemaName.toLowerCase( Locale.US ), schemaName.toUpperCase( Locale.US ) };
+
+     PreparedStatement pstat = null;
+     ResultSet res = null;
+     try
+     {
+       pstat = DbUtils.prepareStatement( connection, query, params );
+       res = pstat.executeQuery();
+       return res.next() && res.getInt( 1 ) > 0;
+     }
+     finally
+     {
+       DbUtils.close( null, pstat, res );
+     }
+   }
+
+
+   /**
+    * Checks if the specified table exists by looking it up in the JDBC database metadata.
+    *
+    * @param metaData   the JDBC database metadata.
+    * @param schemaName an optional schema name where to look for the table name.
+    * @param tableName  a table name.
+    * @return true if the table exists, false otherwise.
+    * @throws SQLException if an error occurs.
+    */
+   private static boolean metaDataTableExists( DatabaseMetaData metaData, String schemaName, String tableName )
+       throws SQLException
+   {
+     // 1. attempt - try schema and table name in lower-case (does not work in DB2 and Oracle)
+     ResultSet res =
+         metaData.getTables( null,
+             schemaName == null ? null : schemaName.toLowerCase( Locale.US ),
+             tableName.toLowerCase( Locale.US ), new String[] { "TABLE" } );
+
+     boolean tableExists = res.next();
+     DbUtils.close( res );
+
+     if ( !tableExists )
+     {
+       // 2. attempt - try schema and table name in upper-case (required for DB2 and Oracle)
+       res = metaData.getTables( null,
+           schemaName == null ? null : schemaName.toUpperCase( Locale.US ),
+           tableName.toUpperCase( Locale.US ), new String[] { "TABLE" } );
+
+       tableExists = res.next();
+       DbUtils.close( res );
+     }
 
-     return tableExists.get();
+     return tableExists;
    }
  }
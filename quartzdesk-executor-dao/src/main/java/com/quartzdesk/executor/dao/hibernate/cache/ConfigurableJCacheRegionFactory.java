@@ -0,0 +1,161 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.dao.hibernate.cache;
+
+ import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+ import org.hibernate.cache.CacheException;
+ import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+ import org.hibernate.cache.spi.RegionFactory;
+ import org.slf4j.Logger;
+ import org.slf4j.LoggerFactory;
+
+ import javax.cache.Cache;
+ import java.util.HashMap;
+ import java.util.Map;
+ import java.util.OptionalLong;
+ import java.util.concurrent.TimeUnit;
+
+ /**
+  * Hibernate JCache region factory that creates the second-level cache regions with the configured maximum number
+  * of entries and time-to-live. The regions are backed by Caffeine JCache caches.
+  *
+  * <p>
+  * The region-specific settings are specified in the {@code region:maxEntries:timeToLive} format, where the region
+  * is the name of the Hibernate cache region (the fully-qualified entity class name by default), maxEntries is the
+  * maximum number of entries (value &lt;= 0 means unlimited) and timeToLive is the time (in seconds) after which
+  * cached entries expire (value &lt;= 0 means never). Regions without specific settings use the default settings.
+  * </p>
+  *
+  * The Hibernate update timestamps region ({@value RegionFactory#DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME})
+  * is always unlimited and its entries never expire, otherwise the query cache could return stale results.
+  */
+ public class ConfigurableJCacheRegionFactory
+     extends JCacheRegionFactory
+ {
+   private static final Logger log = LoggerFactory.getLogger( ConfigurableJCacheRegionFactory.class );
+
+   private long defaultMaxEntries = 10000;
+
+   private long defaultTimeToLive = 3600;
+
+   private final Map<String, RegionSettings> regionSettings = new HashMap<>();
+
+
+   /**
+    * Sets the default maximum number of entries of a cache region. Value &lt;= 0 means unlimited.
+    *
+    * @param defaultMaxEntries the default maximum number of entries.
+    */
+   public void setDefaultMaxEntries( long defaultMaxEntries )
+   {
+     this.defaultMaxEntries = defaultMaxEntries;
+   }
+
+
+   /**
+    * Sets the default time (in seconds) after which entries of a cache region expire. Value &lt;= 0 means never.
+    *
+    * @param defaultTimeToLive the default time-to-live in seconds.
+    */
+   public void setDefaultTimeToLive( long defaultTimeToLive )
+   {
+     this.defaultTimeToLive = defaultTimeToLive;
+   }
+
+
+   /**
+    * Sets the comma-separated list of the region-specific settings in the {@code region:maxEntries:timeToLive}
+    * format.
+    *
+    * @param regions the region-specific settings.
+    * @throws IllegalArgumentException if the settings are not valid.
+    */
+   public void setRegions( String regions )
+   {
+     regionSettings.clear();
+
+     if ( regions == null )
+       return;
+
+     for ( String regionSpec : regions.split( "," ) )
+     {
+       if ( regionSpec.isBlank() )
+         continue;
+
+       String[] parts = regionSpec.trim().split( ":" );
+       if ( parts.length != 3 || parts[0].isBlank() )
+       {
+         throw new IllegalArgumentException( "Invalid cache region settings '" + regionSpec.trim() +
+             "', expected format: region:maxEntries:timeToLive" );
+       }
+
+       try
+       {
+         regionSettings.put( parts[0].trim(),
+             new RegionSettings( Long.parseLong( parts[1].trim() ), Long.parseLong( parts[2].trim() ) ) );
+       }
+       catch ( NumberFormatException e )
+       {
+         throw new IllegalArgumentException( "Invalid cache region settings '" + regionSpec.trim() +
+             "', expected format: region:maxEntries:timeToLive", e );
+       }
+     }
+   }
+
+
+   @Override
+   protected Cache<Object, Object> createCache( String regionName )
+   {
+     RegionSettings settings;
+     if ( regionName.endsWith( DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME ) )
+       settings = new RegionSettings( 0, 0 );
+     else
+       settings = regionSettings.getOrDefault( regionName, new RegionSettings( defaultMaxEntries, defaultTimeToLive ) );
+
+     CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+
+     // Hibernate cache entries are not modified after they have been put in the cache, they need not be copied
+     configuration.setStoreByValue( false );
+     configuration.setStatisticsEnabled( true );
+
+     if ( settings.maxEntries > 0 )
+       configuration.setMaximumSize( OptionalLong.of( settings.maxEntries ) );
+
+     if ( settings.timeToLive > 0 )
+       configuration.setExpireAfterWrite( OptionalLong.of( TimeUnit.SECONDS.toNanos( settings.timeToLive ) ) );
+
+     log.info( "Creating second-level cache region: {}, max entries: {}, time-to-live: {} s", regionName,
+         settings.maxEntries > 0 ? settings.maxEntries : "unlimited",
+         settings.timeToLive > 0 ? settings.timeToLive : "unlimited" );
+
+     try
+     {
+       return getCacheManager().createCache( regionName, configuration );
+     }
+     catch ( RuntimeException e )
+     {
+       throw new CacheException( "Error creating second-level cache region: " + regionName, e );
+     }
+   }
+
+
+   /**
+    * Settings of a cache region.
+    */
+   private static final class RegionSettings
+   {
+     private final long maxEntries;
+
+     private final long timeToLive;
+
+
+     private RegionSettings( long maxEntries, long timeToLive )
+     {
+       this.maxEntries = maxEntries;
+       this.timeToLive = timeToLive;
+     }
+   }
+ }
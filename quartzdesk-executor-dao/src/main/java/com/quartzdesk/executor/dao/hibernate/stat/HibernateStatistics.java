@@ -0,0 +1,215 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.dao.hibernate.stat;
+
+ import org.hibernate.SessionFactory;
+ import org.hibernate.stat.Statistics;
+
+ /**
+  * Exposes the statistics of the Hibernate session factory through JMX. The statistics are collected only if
+  * the {@code hibernate.generate_statistics} Hibernate property is enabled, or if they are enabled through
+  * {@link #setStatisticsEnabled(boolean)}.
+  */
+ public class HibernateStatistics
+     implements HibernateStatisticsMBean
+ {
+   private SessionFactory sessionFactory;
+
+
+   /**
+    * Sets the Hibernate session factory whose statistics are exposed.
+    *
+    * @param sessionFactory the Hibernate session factory.
+    */
+   public void setSessionFactory( SessionFactory sessionFactory )
+   {
+     this.sessionFactory = sessionFactory;
+   }
+
+
+   private Statistics getStatistics()
+   {
+     return sessionFactory.getStatistics();
+   }
+
+
+   @Override
+   public boolean isStatisticsEnabled()
+   {
+     return getStatistics().isStatisticsEnabled();
+   }
+
+
+   @Override
+   public void setStatisticsEnabled( boolean enabled )
+   {
+     getStatistics().setStatisticsEnabled( enabled );
+   }
+
+
+   @Override
+   public long getStartTime()
+   {
+     return getStatistics().getStart().toEpochMilli();
+   }
+
+
+   @Override
+   public long getSessionOpenCount()
+   {
+     return getStatistics().getSessionOpenCount();
+   }
+
+
+   @Override
+   public long getTransactionCount()
+   {
+     return getStatistics().getTransactionCount();
+   }
+
+
+   @Override
+   public long getConnectCount()
+   {
+     return getStatistics().getConnectCount();
+   }
+
+
+   @Override
+   public long getPrepareStatementCount()
+   {
+     return getStatistics().getPrepareStatementCount();
+   }
+
+
+   @Override
+   public long getEntityLoadCount()
+   {
+     return getStatistics().getEntityLoadCount();
+   }
+
+
+   @Override
+   public long getEntityFetchCount()
+   {
+     return getStatistics().getEntityFetchCount();
+   }
+
+
+   @Override
+   public long getEntityInsertCount()
+   {
+     return getStatistics().getEntityInsertCount();
+   }
+
+
+   @Override
+   public long getEntityUpdateCount()
+   {
+     return getStatistics().getEntityUpdateCount();
+   }
+
+
+   @Override
+   public long getEntityDeleteCount()
+   {
+     return getStatistics().getEntityDeleteCount();
+   }
+
+
+   @Override
+   public long getQueryExecutionCount()
+   {
+     return getStatistics().getQueryExecutionCount();
+   }
+
+
+   @Override
+   public long getQueryExecutionMaxTime()
+   {
+     return getStatistics().getQueryExecutionMaxTime();
+   }
+
+
+   @Override
+   public String getQueryExecutionMaxTimeQueryString()
+   {
+     return getStatistics().getQueryExecutionMaxTimeQueryString();
+   }
+
+
+   @Override
+   public long getSecondLevelCacheHitCount()
+   {
+     return getStatistics().getSecondLevelCacheHitCount();
+   }
+
+
+   @Override
+   public long getSecondLevelCacheMissCount()
+   {
+     return getStatistics().getSecondLevelCacheMissCount();
+   }
+
+
+   @Override
+   public long getSecondLevelCachePutCount()
+   {
+     return getStatistics().getSecondLevelCachePutCount();
+   }
+
+
+   @Override
+   public double getSecondLevelCacheHitRate()
+   {
+     Statistics statistics = getStatistics();
+     long hits = statistics.getSecondLevelCacheHitCount();
+     long lookups = hits + statistics.getSecondLevelCacheMissCount();
+     return lookups == 0 ? 0 : (double) hits / lookups;
+   }
+
+
+   @Override
+   public String[] getSecondLevelCacheRegionNames()
+   {
+     return getStatistics().getSecondLevelCacheRegionNames();
+   }
+
+
+   @Override
+   public long getQueryCacheHitCount()
+   {
+     return getStatistics().getQueryCacheHitCount();
+   }
+
+
+   @Override
+   public long getQueryCacheMissCount()
+   {
+     return getStatistics().getQueryCacheMissCount();
+   }
+
+
+   @Override
+   public long getQueryCachePutCount()
+   {
+     return getStatistics().getQueryCachePutCount();
+   }
+
+
+   @Override
+   public void clear()
+   {
+     getStatistics().clear();
+   }
+
+
+   @Override
+   public void logSummary()
+   {
+     getStatistics().logSummary();
+   }
+ }
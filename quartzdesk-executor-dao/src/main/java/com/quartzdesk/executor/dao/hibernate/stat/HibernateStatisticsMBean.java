@@ -0,0 +1,208 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.dao.hibernate.stat;
+
+ /**
+  * JMX management interface of the {@link HibernateStatistics}.
+  */
+ public interface HibernateStatisticsMBean
+ {
+   /**
+    * Returns true if the Hibernate statistics are collected.
+    *
+    * @return true if the statistics are collected, false otherwise.
+    */
+   boolean isStatisticsEnabled();
+
+
+   /**
+    * Enables, or disables the collection of the Hibernate statistics.
+    *
+    * @param enabled true to enable the statistics collection, false to disable it.
+    */
+   void setStatisticsEnabled( boolean enabled );
+
+
+   /**
+    * Returns the time (in milliseconds since epoch) the statistics were last cleared.
+    *
+    * @return the statistics start time.
+    */
+   long getStartTime();
+
+
+   /**
+    * Returns the number of opened sessions.
+    *
+    * @return the number of opened sessions.
+    */
+   long getSessionOpenCount();
+
+
+   /**
+    * Returns the number of completed transactions.
+    *
+    * @return the number of completed transactions.
+    */
+   long getTransactionCount();
+
+
+   /**
+    * Returns the number of JDBC connections obtained by Hibernate.
+    *
+    * @return the number of obtained JDBC connections.
+    */
+   long getConnectCount();
+
+
+   /**
+    * Returns the number of JDBC prepared statements.
+    *
+    * @return the number of JDBC prepared statements.
+    */
+   long getPrepareStatementCount();
+
+
+   /**
+    * Returns the number of loaded entities.
+    *
+    * @return the number of loaded entities.
+    */
+   long getEntityLoadCount();
+
+
+   /**
+    * Returns the number of entities fetched from the database.
+    *
+    * @return the number of fetched entities.
+    */
+   long getEntityFetchCount();
+
+
+   /**
+    * Returns the number of inserted entities.
+    *
+    * @return the number of inserted entities.
+    */
+   long getEntityInsertCount();
+
+
+   /**
+    * Returns the number of updated entities.
+    *
+    * @return the number of updated entities.
+    */
+   long getEntityUpdateCount();
+
+
+   /**
+    * Returns the number of deleted entities.
+    *
+    * @return the number of deleted entities.
+    */
+   long getEntityDeleteCount();
+
+
+   /**
+    * Returns the number of executed queries.
+    *
+    * @return the number of executed queries.
+    */
+   long getQueryExecutionCount();
+
+
+   /**
+    * Returns the execution time (in milliseconds) of the slowest query.
+    *
+    * @return the maximum query execution time.
+    */
+   long getQueryExecutionMaxTime();
+
+
+   /**
+    * Returns the slowest query.
+    *
+    * @return the slowest query, null if no query has been executed.
+    */
+   String getQueryExecutionMaxTimeQueryString();
+
+
+   /**
+    * Returns the number of second-level cache lookups that returned a cached entry.
+    *
+    * @return the number of second-level cache hits.
+    */
+   long getSecondLevelCacheHitCount();
+
+
+   /**
+    * Returns the number of second-level cache lookups that did not return a cached entry.
+    *
+    * @return the number of second-level cache misses.
+    */
+   long getSecondLevelCacheMissCount();
+
+
+   /**
+    * Returns the number of entries put in the second-level cache.
+    *
+    * @return the number of second-level cache puts.
+    */
+   long getSecondLevelCachePutCount();
+
+
+   /**
+    * Returns the ratio of second-level cache hits to all second-level cache lookups, 0 if there have been no
+    * lookups.
+    *
+    * @return the hit rate in the range 0 - 1.
+    */
+   double getSecondLevelCacheHitRate();
+
+
+   /**
+    * Returns the names of the second-level cache regions.
+    *
+    * @return the second-level cache region names.
+    */
+   String[] getSecondLevelCacheRegionNames();
+
+
+   /**
+    * Returns the number of query cache lookups that returned a cached result.
+    *
+    * @return the number of query cache hits.
+    */
+   long getQueryCacheHitCount();
+
+
+   /**
+    * Returns the number of query cache lookups that did not return a cached result.
+    *
+    * @return the number of query cache misses.
+    */
+   long getQueryCacheMissCount();
+
+
+   /**
+    * Returns the number of results put in the query cache.
+    *
+    * @return the number of query cache puts.
+    */
+   long getQueryCachePutCount();
+
+
+   /**
+    * Resets all statistics.
+    */
+   void clear();
+
+
+   /**
+    * Writes the summary of the statistics to the log.
+    */
+   void logSummary();
+ }
@@ -0,0 +1,89 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.dao.job;
+
+ import com.quartzdesk.executor.dao.AbstractDao;
+
+ import org.slf4j.Logger;
+ import org.slf4j.LoggerFactory;
+ import org.springframework.dao.DuplicateKeyException;
+
+ import java.sql.Timestamp;
+ import java.util.List;
+
+ /**
+  * DAO for the management of the high-watermarks of the incremental jobs stored in the {@code qd_job_watermark}
+  * table. A watermark is the greatest value of the watermark column (typically a timestamp, or ID) of the rows
+  * processed by the last successful execution of a job.
+  */
+ public class JobWatermarkDao
+     extends AbstractDao
+ {
+   private static final Logger log = LoggerFactory.getLogger( JobWatermarkDao.class );
+
+   private static final String SQL_SELECT_WATERMARK =
+       "SELECT w.watermark FROM qd_job_watermark w WHERE w.job_group = ? AND w.job_name = ?";
+
+   private static final String SQL_INSERT_WATERMARK =
+       "INSERT INTO qd_job_watermark (job_group, job_name, watermark, updated_at) VALUES (?, ?, ?, ?)";
+
+   /**
+    * Compare-and-set update that succeeds only if the watermark has not been changed since it was read.
+    */
+   private static final String SQL_UPDATE_WATERMARK =
+       "UPDATE qd_job_watermark SET watermark = ?, updated_at = ? WHERE job_group = ? AND job_name = ? AND watermark = ?";
+
+
+   /**
+    * Returns the watermark of the specified job, null if the job has no watermark.
+    *
+    * @param jobGroup a job group.
+    * @param jobName  a job name.
+    * @return the watermark of the specified job, null if the job has no watermark.
+    */
+   public String getWatermark( String jobGroup, String jobName )
+   {
+     List<String> watermarks = getJdbcTemplate().queryForList( SQL_SELECT_WATERMARK, String.class, jobGroup, jobName );
+     return watermarks.isEmpty() ? null : watermarks.get( 0 );
+   }
+
+
+   /**
+    * Atomically replaces the watermark of the specified job with the new watermark provided the current watermark
+    * is equal to the expected watermark. If the expected watermark is null, the new watermark is inserted. Returns
+    * true if the watermark has been updated, false if it has been concurrently changed (or inserted) by another
+    * execution of the job.
+    *
+    * @param jobGroup          a job group.
+    * @param jobName           a job name.
+    * @param expectedWatermark the expected current watermark, null if the job is expected to have no watermark.
+    * @param newWatermark      the new watermark.
+    * @return true if the watermark has been updated, false otherwise.
+    */
+   public boolean updateWatermark( String jobGroup, String jobName, String expectedWatermark, String newWatermark )
+   {
+     Timestamp now = new Timestamp( System.currentTimeMillis() );
+
+     if ( expectedWatermark == null )
+     {
+       try
+       {
+         getJdbcTemplate().update( SQL_INSERT_WATERMARK, jobGroup, jobName, newWatermark, now );
+         return true;
+       }
+       catch ( DuplicateKeyException e )
+       {
+         log.debug( "Watermark of job {}.{} has been concurrently inserted.", jobGroup, jobName );
+         return false;
+       }
+     }
+
+     int updateCount = getJdbcTemplate().update( SQL_UPDATE_WATERMARK,
+         newWatermark, now, jobGroup, jobName, expectedWatermark );
+
+     return updateCount == 1;
+   }
+ }
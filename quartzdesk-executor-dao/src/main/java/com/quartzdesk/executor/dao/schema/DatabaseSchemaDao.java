@@ -6,6 +6,8 @@
  package com.quartzdesk.executor.dao.schema;
 
  import com.quartzdesk.executor.common.db.DatabaseScriptExecutor;
+ import com.quartzdesk.executor.common.db.DatabaseScriptJournal;
+ import com.quartzdesk.executor.common.db.DatabaseScriptProgress;
  import com.quartzdesk.executor.common.db.DbUtils;
  import com.quartzdesk.executor.dao.AbstractDao;
  import com.quartzdesk.executor.domain.model.common.Version;
@@ -14,10 +16,22 @@
  import org.hibernate.Session;
  import org.slf4j.Logger;
  import org.slf4j.LoggerFactory;
+ import org.springframework.jdbc.core.RowMapper;
 
  import java.net.URL;
+ import java.sql.Connection;
+ import java.sql.PreparedStatement;
+ import java.sql.ResultSet;
+ import java.sql.SQLException;
+ import java.sql.Timestamp;
+ import java.util.ArrayList;
  import java.util.Calendar;
+ import java.util.Collections;
+ import java.util.HashMap;
  import java.util.List;
+ import java.util.Map;
+ import java.util.Set;
+ import java.util.concurrent.ConcurrentHashMap;
 
  /**
   * DAO for the management of database schema initialization and updates.
@@ -27,12 +41,99 @@
  {
    private static final Logger log = LoggerFactory.getLogger( DatabaseSchemaDao.class );
 
+   /**
+    * Maps qd_schema_update rows onto {@link SchemaUpdate} instances.
+    */
+   private static final RowMapper<SchemaUpdate> SCHEMA_UPDATE_ROW_MAPPER = ( rs, rowNum ) -> new SchemaUpdate()
+       .withId( rs.getLong( "schema_update_id" ) )
+       .withMajor( rs.getInt( "major" ) )
+       .withMinor( rs.getInt( "minor" ) )
+       .withMaintenance( rs.getInt( "maintenance" ) )
+       .withAppliedAt( DbUtils.getTimestamp( rs, "applied_at" ) );
+
    /**
     * SQL query to return the list of schema updates sorted by their IDs in the descending order.
     */
    private static final String SQL_SELECT_SCHEMA_UPDATES =
        "SELECT * FROM qd_schema_update u ORDER BY u.schema_update_id DESC";
 
+   /**
+    * SQL query to return the latest schema update. The maximum schema update ID is looked up in the primary key
+    * index, so only a single row is read regardless of the number of schema updates.
+    */
+   private static final String SQL_SELECT_LATEST_SCHEMA_UPDATE =
+       "SELECT u.schema_update_id, u.major, u.minor, u.maintenance, u.applied_at FROM qd_schema_update u" +
+           " WHERE u.schema_update_id = (SELECT MAX(m.schema_update_id) FROM qd_schema_update m)";
+
+   /**
+    * Table with the journal of the executed statements of the SQL init and upgrade scripts.
+    */
+   private static final String SCRIPT_JOURNAL_TABLE = "qd_schema_script_journal";
+
+   /**
+    * Name of the SQL init and upgrade scripts creating the {@link #SCRIPT_JOURNAL_TABLE} table. The scripts are
+    * skipped if the table already exists, i.e. when a failed execution of the SQL scripts is resumed.
+    */
+   private static final String SCRIPT_JOURNAL_SCRIPT = "00-script_journal.sql";
+
+   private static final String SQL_SELECT_SCRIPT_JOURNAL =
+       "SELECT j.statement_number, j.checksum FROM qd_schema_script_journal j WHERE j.script_name = ?";
+
+   private static final String SQL_INSERT_SCRIPT_JOURNAL =
+       "INSERT INTO qd_schema_script_journal (script_name, statement_number, checksum, executed_at)" +
+           " VALUES (?, ?, ?, ?)";
+
+   private static final String SQL_DELETE_SCRIPT_JOURNAL =
+       "DELETE FROM qd_schema_script_journal WHERE script_name = ?";
+
+   /**
+    * Prefix of the classpath location of the SQL init and upgrade scripts. Script names recorded in the journal
+    * start with this prefix so that they do not depend on the location of the scripts (JAR file, directory).
+    */
+   private static final String SCRIPT_LOCATION_PREFIX = "META-INF/db/";
+
+   private int scriptBatchSize = 1;
+
+   private int indexCreationThreads = 1;
+
+   private DatabaseScriptProgress scriptProgress;
+
+
+   /**
+    * Sets the maximum number of consecutive DML statements of the SQL init and upgrade scripts executed
+    * in a single JDBC batch. Value &lt;= 1 disables batching.
+    *
+    * @param scriptBatchSize the JDBC batch size.
+    */
+   public void setScriptBatchSize( int scriptBatchSize )
+   {
+     this.scriptBatchSize = scriptBatchSize;
+   }
+
+
+   /**
+    * Sets the maximum number of threads used to create indexes of the SQL init and upgrade scripts in parallel.
+    * Value &lt;= 1 disables parallel index creation.
+    *
+    * @param indexCreationThreads the maximum number of index creation threads.
+    * @see DatabaseScriptExecutor#setIndexCreationThreads(int)
+    */
+   public void setIndexCreationThreads( int indexCreationThreads )
+   {
+     this.indexCreationThreads = indexCreationThreads;
+   }
+
+
+   /**
+    * Sets the progress the execution of the SQL init and upgrade scripts is reported to.
+    *
+    * @param scriptProgress the SQL script progress.
+    */
+   public void setScriptProgress( DatabaseScriptProgress scriptProgress )
+   {
+     this.scriptProgress = scriptProgress;
+   }
+
 
    /**
     * Returns the {@link SchemaUpdate} instance with the specified ID, null if
@@ -60,17 +161,7 @@
      // WE NEED TO USE AN SQL QUERY RATHER THAN AN HQL QUERY BECAUSE SOME OF THE TABLE COLUMNS (LICENSE_SN AND
      // LICENSE_TYPE) MAY NOT EXIST (PRIOR TO 3.0.0) AND THAT WOULD TRIGGER AN ERROR IN HIBERNATE
 
-     return getJdbcTemplate().query( SQL_SELECT_SCHEMA_UPDATES,
-         ( rs, rowNum ) -> {
-           SchemaUpdate schemaUpdate = new SchemaUpdate()
-               .withId( rs.getLong( "schema_update_id" ) )
-               .withMajor( rs.getInt( "major" ) )
-               .withMinor( rs.getInt( "minor" ) )
-               .withMaintenance( rs.getInt( "maintenance" ) )
-               .withAppliedAt( DbUtils.getTimestamp( rs, "applied_at" ) );
-
-           return schemaUpdate;
-         } );
+     return getJdbcTemplate().query( SQL_SELECT_SCHEMA_UPDATES, SCHEMA_UPDATE_ROW_MAPPER );
    }
 
 
@@ -92,9 +183,10 @@
        // table qd_schema_update exists; get the latest schema update record from the qd_schema_update table
        log.debug( "Schema update history table 'qd_schema_update' exists." );
 
-       List<SchemaUpdate> schemaUpdates = getSchemaUpdates();
+       List<SchemaUpdate> schemaUpdates =
+           getJdbcTemplate().query( SQL_SELECT_LATEST_SCHEMA_UPDATE, SCHEMA_UPDATE_ROW_MAPPER );
 
-       // null if no records found, otherwise the first record (the most recent record)
+       // null if no records found, otherwise the most recent record
        return schemaUpdates.isEmpty() ? null : schemaUpdates.get( 0 );
      }
      else
@@ -120,7 +212,28 @@
 
    /**
     * Initializes, or upgrades the current QuartzDesk database schema by
-    * executing the specified list of SQL scripts.
+    * executing the specified list of SQL scripts. The executed statements are recorded in the
+    * qd_schema_script_journal table (if it exists), so that a failed, or interrupted execution of the
+    * SQL scripts is resumed after the last committed statement. The journal entries are deleted
+    * once all SQL scripts have been executed.
+    * <p>
+    * The journal table is created by the first SQL script ({@value #SCRIPT_JOURNAL_SCRIPT}) that is
+    * skipped if the table already exists, all other SQL scripts are journaled. A failed schema
+    * initialization leaves the qd_schema_update table empty, so the initialization is simply
+    * executed again and resumed the same way as a failed upgrade.
+    * </p>
+    * <p>
+    * Only the statements committed before the failure are skipped. Therefore:
+    * </p>
+    * <ul>
+    * <li>On databases where DDL statements commit implicitly (H2, MySQL, Oracle), the execution is
+    * resumed after the last committed statement.</li>
+    * <li>On databases with transactional DDL (PostgreSQL, MS SQL Server, DB2), the failed execution
+    * is rolled back together with its journal entries and all SQL scripts are executed again.</li>
+    * <li>If the application is terminated between a DDL statement and the commit of its journal
+    * entry, the statement is executed again on the next startup and fails. Such a statement must be
+    * reverted manually.</li>
+    * </ul>
     *
     * @param scriptUrls    the list of SQL scripts to execute.
     * @param schemaVersion the version of the schema after the specified SQL scripts have been applied.
@@ -130,10 +243,22 @@
      Session session = getSessionFactory().getCurrentSession();
      session.doWork( connection -> {
        DatabaseScriptExecutor scriptExecutor = new DatabaseScriptExecutor();
-       scriptExecutor.addScriptUrls( scriptUrls );
+       scriptExecutor.addScriptUrls( getResumedScriptUrls( session, scriptUrls ) );
+       scriptExecutor.setBatchSize( scriptBatchSize );
+       scriptExecutor.setIndexCreationDataSource( getJdbcTemplate().getDataSource() );
+       scriptExecutor.setIndexCreationThreads( indexCreationThreads );
+       scriptExecutor.setProgress( scriptProgress );
+
+       SchemaScriptJournal journal = new SchemaScriptJournal( session );
+       scriptExecutor.setJournal( journal );
 
        scriptExecutor.executeScripts( connection );
 
+       journal.clear( connection );
+
+       // the scripts may have created, or dropped tables
+       evictTableMetadata( connection );
+
        SchemaUpdate schemaUpdate = new SchemaUpdate()
            .withMajor( schemaVersion.getMajor() )
            .withMinor( schemaVersion.getMinor() )
@@ -143,4 +268,159 @@
        insertSchemaUpdate( schemaUpdate );
      } );
    }
+
+
+   /**
+    * Returns the specified SQL scripts without the {@value #SCRIPT_JOURNAL_SCRIPT} scripts if the
+    * qd_schema_script_journal table already exists, i.e. if a previous execution of the SQL scripts failed
+    * after the table had been created.
+    *
+    * @param session    the Hibernate session.
+    * @param scriptUrls the SQL scripts to execute.
+    * @return the SQL scripts to execute.
+    */
+   private List<URL> getResumedScriptUrls( Session session, List<URL> scriptUrls )
+   {
+     if ( !tableExists( session, null, SCRIPT_JOURNAL_TABLE ) )
+       return scriptUrls;
+
+     List<URL> result = new ArrayList<URL>( scriptUrls.size() );
+     for ( URL scriptUrl : scriptUrls )
+     {
+       if ( scriptUrl.getPath().endsWith( '/' + SCRIPT_JOURNAL_SCRIPT ) )
+       {
+         log.info( "SQL script journal table '{}' exists, skipping SQL script: {}", SCRIPT_JOURNAL_TABLE, scriptUrl );
+         continue;
+       }
+       result.add( scriptUrl );
+     }
+     return result;
+   }
+
+
+   /**
+    * Returns the name of the specified SQL script recorded in the journal.
+    *
+    * @param scriptUrl the SQL script URL.
+    * @return the SQL script name.
+    */
+   private static String getScriptName( URL scriptUrl )
+   {
+     String url = scriptUrl.toString();
+     int idx = url.lastIndexOf( SCRIPT_LOCATION_PREFIX );
+     return idx == -1 ? url : url.substring( idx );
+   }
+
+
+   /**
+    * {@link DatabaseScriptJournal} backed by the qd_schema_script_journal table. Statements are journaled
+    * only for the SQL scripts started when the table exists, i.e. the {@value #SCRIPT_JOURNAL_SCRIPT} script
+    * creating the table is not journaled.
+    */
+   private class SchemaScriptJournal
+       implements DatabaseScriptJournal
+   {
+     private final Session session;
+
+     private final Set<URL> journaledScripts = ConcurrentHashMap.newKeySet();
+
+
+     private SchemaScriptJournal( Session session )
+     {
+       this.session = session;
+     }
+
+
+     @Override
+     public Map<Integer, Long> getExecutedStatements( Connection connection, URL scriptUrl )
+         throws SQLException
+     {
+       if ( !tableExists( session, null, SCRIPT_JOURNAL_TABLE ) )
+       {
+         log.debug( "SQL script journal table '{}' does not exist, not journaling SQL script: {}",
+             SCRIPT_JOURNAL_TABLE, scriptUrl );
+         return Collections.emptyMap();
+       }
+
+       journaledScripts.add( scriptUrl );
+
+       Map<Integer, Long> result = new HashMap<Integer, Long>();
+       PreparedStatement pstat = null;
+       ResultSet res = null;
+       try
+       {
+         pstat = DbUtils.prepareStatement( connection, SQL_SELECT_SCRIPT_JOURNAL, getScriptName( scriptUrl ) );
+         res = pstat.executeQuery();
+         while ( res.next() )
+         {
+           result.put( res.getInt( 1 ), res.getLong( 2 ) );
+         }
+       }
+       finally
+       {
+         DbUtils.close( res );
+         DbUtils.close( pstat );
+       }
+       return result;
+     }
+
+
+     @Override
+     public void recordExecutedStatements( Connection connection, URL scriptUrl, Map<Integer, Long> statements )
+         throws SQLException
+     {
+       if ( !journaledScripts.contains( scriptUrl ) )
+         return;
+
+       String scriptName = getScriptName( scriptUrl );
+       Timestamp executedAt = new Timestamp( System.currentTimeMillis() );
+
+       PreparedStatement pstat = connection.prepareStatement( SQL_INSERT_SCRIPT_JOURNAL );
+       try
+       {
+         for ( Map.Entry<Integer, Long> statement : statements.entrySet() )
+         {
+           DbUtils.setStatementParams( pstat, scriptName, statement.getKey(), statement.getValue() );
+           pstat.setTimestamp( 4, executedAt );
+
+           if ( statements.size() == 1 )
+             pstat.executeUpdate();
+           else
+             pstat.addBatch();
+         }
+
+         if ( statements.size() > 1 )
+           pstat.executeBatch();
+       }
+       finally
+       {
+         DbUtils.close( pstat );
+       }
+     }
+
+
+     /**
+      * Deletes the journal entries of all journaled SQL scripts.
+      *
+      * @param connection the JDBC connection the SQL scripts have been executed with.
+      * @throws SQLException if an SQL error occurs.
+      */
+     private void clear( Connection connection )
+         throws SQLException
+     {
+       for ( URL scriptUrl : journaledScripts )
+       {
+         PreparedStatement pstat = DbUtils.prepareStatement( connection, SQL_DELETE_SCRIPT_JOURNAL,
+             getScriptName( scriptUrl ) );
+         try
+         {
+           pstat.executeUpdate();
+         }
+         finally
+         {
+           DbUtils.close( pstat );
+         }
+       }
+     }
+   }
  }
@@ -23,6 +23,7 @@
  import org.springframework.transaction.TransactionStatus;
  import org.springframework.transaction.support.TransactionCallbackWithoutResult;
  import org.springframework.transaction.support.TransactionTemplate;
+ import org.springframework.util.ClassUtils;
 
  import java.io.IOException;
  import java.net.URL;
@@ -31,9 +32,13 @@
  import java.util.Collections;
  import java.util.Comparator;
  import java.util.Iterator;
+ import java.util.LinkedHashMap;
  import java.util.List;
+ import java.util.Map;
  import java.util.Set;
  import java.util.TreeSet;
+ import java.util.concurrent.TimeUnit;
+ import java.util.function.Supplier;
  import java.util.regex.Matcher;
  import java.util.regex.Pattern;
 
@@ -47,6 +52,14 @@
 
    private static final Pattern UPGRADE_SCRIPT_PATTERN = Pattern.compile( "/(\\d+_\\d+_\\d+)/.+\\.sql$" );
 
+   private static final Pattern UPGRADE_DIR_PATTERN = Pattern.compile( "\\d+_\\d+_\\d+" );
+
+   private static final String PHASE_VERSION_CHECK = "version check";
+
+   private static final String PHASE_SCRIPT_LOOKUP = "script lookup";
+
+   private static final String PHASE_SCRIPT_EXECUTION = "script execution";
+
    private PlatformTransactionManager transactionManager;
 
    private Version productVersion;
@@ -57,6 +70,10 @@
 
    private String upgradeScriptsRoot;
 
+   private DatabaseScriptManifest scriptManifest;
+
+   private boolean scriptManifestLoaded;
+
 
    public void setTransactionManager( @NonNull PlatformTransactionManager transactionManager )
    {
@@ -90,11 +107,15 @@
 
    /**
     * Attempts to initialize, or upgrade the QuartzDesk database schema to the
-    * current application schema version.
+    * current application schema version. The time spent in the individual phases
+    * (schema version check, script lookup and script execution) is logged so that
+    * the startup time can be tracked.
     */
    @PostConstruct
    protected void maybeInitializeOrUpgradeDatabaseSchema()
    {
+     final PhaseTimings timings = new PhaseTimings();
+
      final Version desiredSchemaVersion = new Version()
          .withMajor( productVersion.getMajor() )
          .withMinor( productVersion.getMinor() )
@@ -108,21 +129,24 @@
        @Override
        protected void doInTransactionWithoutResult( TransactionStatus status )
        {
-         SchemaUpdate latestSchemaUpdate = databaseSchemaDao.getLatestSchemaUpdate();
+         SchemaUpdate latestSchemaUpdate =
+             timings.time( PHASE_VERSION_CHECK, () -> databaseSchemaDao.getLatestSchemaUpdate() );
 
          if ( latestSchemaUpdate == null )
          {
            /*
-            * Schema is empty, apply DB initialization scripts.
+            * Schema is empty, or a previous initialization failed, apply DB initialization scripts. The
+            * statements executed by the failed initialization are skipped (see DatabaseSchemaDao).
             */
-           List<URL> scriptUrls = getInitScriptUrls();
+           List<URL> scriptUrls = timings.time( PHASE_SCRIPT_LOOKUP, () -> getInitScriptUrls() );
 
            log.info( "Initializing empty database schema to {} by applying SQL scripts: {}{}",
                VersionConverter.INSTANCE.toString( desiredSchemaVersion ),
                CommonConst.NL,
                dumpScriptList( scriptUrls ) );
 
-           databaseSchemaDao.initializeOrUpgradeSchema( scriptUrls, desiredSchemaVersion );
+           timings.time( PHASE_SCRIPT_EXECUTION,
+               () -> databaseSchemaDao.initializeOrUpgradeSchema( scriptUrls, desiredSchemaVersion ) );
          }
          else
          {
@@ -146,7 +170,8 @@
            }
            else
            {
-             List<URL> scriptUrls = getUpgradeScriptUrls( currentSchemaVersion, desiredSchemaVersion );
+             List<URL> scriptUrls = timings.time( PHASE_SCRIPT_LOOKUP,
+                 () -> getUpgradeScriptUrls( currentSchemaVersion, desiredSchemaVersion ) );
 
              if ( scriptUrls.isEmpty() )
              {
@@ -164,7 +189,7 @@
                    .withMaintenance( desiredSchemaVersion.getMaintenance() )
                    .withAppliedAt( Calendar.getInstance() );
 
-               databaseSchemaDao.insertSchemaUpdate( schemaUpdate );
+               timings.time( PHASE_SCRIPT_EXECUTION, () -> databaseSchemaDao.insertSchemaUpdate( schemaUpdate ) );
              }
              else
              {
@@ -175,12 +200,15 @@
                    dumpScriptList( scriptUrls ) );
 
                // applies scripts and inserts a new schema update record
-               databaseSchemaDao.initializeOrUpgradeSchema( scriptUrls, desiredSchemaVersion );
+               timings.time( PHASE_SCRIPT_EXECUTION,
+                   () -> databaseSchemaDao.initializeOrUpgradeSchema( scriptUrls, desiredSchemaVersion ) );
              }
            }
          }
        }
      } );
+
+     log.info( "Database schema check completed in {}", timings );
    }
 
 
@@ -212,12 +240,18 @@
 
 
    /**
-    * Returns the list of QuartzDesk database schema SQL init scripts.
+    * Returns the list of QuartzDesk database schema SQL init scripts. The scripts are looked up in the
+    * build-time {@link DatabaseScriptManifest}, the classpath is scanned only if the manifest does not
+    * exist (development), or does not cover the init scripts root.
     *
     * @return the list of SQL init scripts.
     */
    public List<URL> getInitScriptUrls()
    {
+     DatabaseScriptManifest manifest = getScriptManifest();
+     if ( manifest != null && manifest.covers( initScriptsRoot ) )
+       return getScriptUrls( manifest.getScriptPaths( initScriptsRoot ) );
+
      try
      {
        // find all .sql scripts
@@ -252,6 +286,9 @@
    /**
     * Returns the list of QuartzDesk database schema SQL upgrade scripts to be
     * applied to the current schema version to upgrade it to the desired schema version.
+    * The scripts are looked up in the build-time {@link DatabaseScriptManifest}, the
+    * classpath is scanned only if the manifest does not exist (development), or does not
+    * cover the upgrade scripts root.
     *
     * @param currentSchemaVersion the current database schema version.
     * @param desiredSchemaVersion the desired database schema version.
@@ -259,6 +296,22 @@
     */
    private List<URL> getUpgradeScriptUrls( Version currentSchemaVersion, Version desiredSchemaVersion )
    {
+     DatabaseScriptManifest manifest = getScriptManifest();
+     if ( manifest != null && manifest.covers( upgradeScriptsRoot ) )
+     {
+       List<URL> result = new ArrayList<URL>();
+       for ( String dirName : manifest.getSubdirectoryNames( upgradeScriptsRoot ) )
+       {
+         Matcher matcher = UPGRADE_DIR_PATTERN.matcher( dirName );
+         if ( matcher.matches() && isUpgradeVersion( parseDirVersion( dirName ), currentSchemaVersion,
+             desiredSchemaVersion ) )
+         {
+           result.addAll( getScriptUrls( manifest.getScriptPaths( upgradeScriptsRoot + '/' + dirName ) ) );
+         }
+       }
+       return result;
+     }
+
      List<URL> result = new ArrayList<URL>();
      try
      {
@@ -273,23 +326,13 @@
          Matcher matcher = UPGRADE_SCRIPT_PATTERN.matcher( scriptResource.getURL().getPath() );
          if ( matcher.find() )
          {
-           String dirVersionStr = matcher.group( 1 );
-           String[] dirVersionParts = dirVersionStr.split( "_" );  // 1_0_0
-
-           Version dirVersion = new Version()
-               .withMajor( Integer.parseInt( dirVersionParts[0] ) )
-               .withMinor( Integer.parseInt( dirVersionParts[1] ) )
-               .withMaintenance( Integer.parseInt( dirVersionParts[2] ) );
-
-           dirVersions.add( dirVersion );
+           dirVersions.add( parseDirVersion( matcher.group( 1 ) ) );
          }
        }
 
        for ( Version dirVersion : dirVersions )
        {
-         // currentSchemaVersion < dirVersion <= desiredSchemaVersion
-         if ( VersionComparator.INSTANCE.compare( dirVersion, currentSchemaVersion ) > 0
-             && VersionComparator.INSTANCE.compare( dirVersion, desiredSchemaVersion ) <= 0 )
+         if ( isUpgradeVersion( dirVersion, currentSchemaVersion, desiredSchemaVersion ) )
          {
            String dirVersionStr =
                dirVersion.getMajor().toString() + '_' + dirVersion.getMinor() + '_' + dirVersion.getMaintenance();
@@ -325,6 +368,102 @@
    }
 
 
+   /**
+    * Returns the version of the specified upgrade scripts directory name (e.g. 1_0_0).
+    *
+    * @param dirVersionStr the upgrade scripts directory name.
+    * @return the version.
+    */
+   private static Version parseDirVersion( String dirVersionStr )
+   {
+     String[] dirVersionParts = dirVersionStr.split( "_" );  // 1_0_0
+
+     return new Version()
+         .withMajor( Integer.parseInt( dirVersionParts[0] ) )
+         .withMinor( Integer.parseInt( dirVersionParts[1] ) )
+         .withMaintenance( Integer.parseInt( dirVersionParts[2] ) );
+   }
+
+
+   /**
+    * Returns true if the upgrade scripts of the specified directory version must be applied to upgrade the
+    * current schema version to the desired schema version, i.e. if currentSchemaVersion &lt; dirVersion &lt;=
+    * desiredSchemaVersion.
+    *
+    * @param dirVersion           the upgrade scripts directory version.
+    * @param currentSchemaVersion the current database schema version.
+    * @param desiredSchemaVersion the desired database schema version.
+    * @return true if the upgrade scripts must be applied, false otherwise.
+    */
+   private static boolean isUpgradeVersion( Version dirVersion, Version currentSchemaVersion,
+       Version desiredSchemaVersion )
+   {
+     return VersionComparator.INSTANCE.compare( dirVersion, currentSchemaVersion ) > 0
+         && VersionComparator.INSTANCE.compare( dirVersion, desiredSchemaVersion ) <= 0;
+   }
+
+
+   /**
+    * Returns the build-time database script manifest, or null if the manifest does not exist. The manifest is
+    * loaded only once.
+    *
+    * @return the database script manifest, or null.
+    */
+   private DatabaseScriptManifest getScriptManifest()
+   {
+     if ( !scriptManifestLoaded )
+     {
+       try
+       {
+         scriptManifest = DatabaseScriptManifest.load( getClassLoader() );
+       }
+       catch ( IOException e )
+       {
+         throw new DaoException( "Error reading database script manifest: " +
+             DatabaseScriptManifest.MANIFEST_RESOURCE, e );
+       }
+
+       if ( scriptManifest == null )
+       {
+         log.info( "Database script manifest {} not found, scanning classpath for database scripts.",
+             DatabaseScriptManifest.MANIFEST_RESOURCE );
+       }
+
+       scriptManifestLoaded = true;
+     }
+     return scriptManifest;
+   }
+
+
+   /**
+    * Returns the URLs of the specified classpath resources.
+    *
+    * @param scriptPaths the classpath resource paths of SQL scripts.
+    * @return the URLs of the SQL scripts.
+    */
+   private List<URL> getScriptUrls( List<String> scriptPaths )
+   {
+     List<URL> scriptUrls = new ArrayList<URL>( scriptPaths.size() );
+     for ( String scriptPath : scriptPaths )
+     {
+       URL scriptUrl = getClassLoader().getResource( scriptPath );
+       if ( scriptUrl == null )
+       {
+         throw new DaoException( "Database script " + scriptPath + " listed in database script manifest " +
+             DatabaseScriptManifest.MANIFEST_RESOURCE + " not found." );
+       }
+       scriptUrls.add( scriptUrl );
+     }
+     return scriptUrls;
+   }
+
+
+   private static ClassLoader getClassLoader()
+   {
+     return ClassUtils.getDefaultClassLoader();
+   }
+
+
    private String dumpScriptList( List<URL> scriptUrls )
    {
      StringBuilder sb = new StringBuilder();
@@ -337,4 +476,58 @@
 
      return sb.toString();
    }
+
+
+   /**
+    * Wall-clock times of the database schema initialization / upgrade phases.
+    */
+   private static final class PhaseTimings
+   {
+     private final long startTime = System.nanoTime();
+
+     private final Map<String, Long> phaseTimes = new LinkedHashMap<>();
+
+
+     private <T> T time( String phase, Supplier<T> work )
+     {
+       long phaseStartTime = System.nanoTime();
+       try
+       {
+         return work.get();
+       }
+       finally
+       {
+         phaseTimes.merge( phase, System.nanoTime() - phaseStartTime, Long::sum );
+       }
+     }
+
+
+     private void time( String phase, Runnable work )
+     {
+       time( phase, () -> {
+         work.run();
+         return null;
+       } );
+     }
+
+
+     @Override
+     public String toString()
+     {
+       StringBuilder sb = new StringBuilder()
+           .append( TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - startTime ) ).append( " ms (" );
+
+       for ( Iterator<Map.Entry<String, Long>> i = phaseTimes.entrySet().iterator(); i.hasNext(); )
+       {
+         Map.Entry<String, Long> phaseTime = i.next();
+         sb.append( phaseTime.getKey() ).append( ": " )
+             .append( TimeUnit.NANOSECONDS.toMillis( phaseTime.getValue() ) ).append( " ms" );
+
+         if ( i.hasNext() )
+           sb.append( ", " );
+       }
+
+       return sb.append( ')' ).toString();
+     }
+   }
  }
@@ -0,0 +1,230 @@
+ /*
+  * Copyright (c) 2013-2025 QuartzDesk.com.
+  * Licensed under the MIT license (https://opensource.org/licenses/MIT).
+  */
+
+ package com.quartzdesk.executor.dao.schema;
+
+ import com.quartzdesk.executor.common.io.IOUtils;
+
+ import java.io.File;
+ import java.io.IOException;
+ import java.io.InputStream;
+ import java.io.InputStreamReader;
+ import java.io.Writer;
+ import java.nio.charset.StandardCharsets;
+ import java.nio.file.Files;
+ import java.util.ArrayList;
+ import java.util.Arrays;
+ import java.util.Collections;
+ import java.util.List;
+ import java.util.Map;
+ import java.util.Properties;
+ import java.util.SortedMap;
+ import java.util.SortedSet;
+ import java.util.TreeMap;
+ import java.util.TreeSet;
+
+ /**
+  * Manifest of the database schema SQL scripts generated at build time. The manifest maps the classpath
+  * directories containing SQL scripts (e.g. {@code META-INF/db/quartzdesk-executor/upgrade/h2/6_0_0}) onto the
+  * names of the SQL scripts in the directory sorted by their name. The manifest covers all directories below
+  * the directory containing the manifest, so that the scripts can be looked up without scanning the classpath.
+  *
+  * <p>
+  * The manifest is generated by the {@link #main(String[])} method executed in the {@code process-classes} phase
+  * of the quartzdesk-executor-dao module build.
+  * </p>
+  */
+ public final class DatabaseScriptManifest
+ {
+   /**
+    * Classpath location of the manifest.
+    */
+   public static final String MANIFEST_RESOURCE = "META-INF/db/quartzdesk-executor/scripts.manifest";
+
+   private static final String SQL_SCRIPT_SUFFIX = ".sql";
+
+   /**
+    * Root directory of the manifest, i.e. the directory containing the manifest.
+    */
+   private final String root;
+
+   private final SortedMap<String, List<String>> scriptNames;
+
+
+   private DatabaseScriptManifest( String root, SortedMap<String, List<String>> scriptNames )
+   {
+     this.root = root;
+     this.scriptNames = scriptNames;
+   }
+
+
+   /**
+    * Loads the manifest from the {@value #MANIFEST_RESOURCE} classpath resource. Returns null if the resource
+    * does not exist, which is the case if the module classes have not been built by Maven (e.g. in IDEs).
+    *
+    * @param classLoader the class loader to load the manifest with.
+    * @return the loaded manifest, or null if the manifest does not exist.
+    * @throws IOException if the manifest cannot be read.
+    */
+   public static DatabaseScriptManifest load( ClassLoader classLoader )
+       throws IOException
+   {
+     InputStream ins = classLoader.getResourceAsStream( MANIFEST_RESOURCE );
+     if ( ins == null )
+       return null;
+
+     Properties manifest = new Properties();
+     try
+     {
+       manifest.load( new InputStreamReader( ins, StandardCharsets.UTF_8 ) );
+     }
+     finally
+     {
+       IOUtils.close( ins );
+     }
+
+     SortedMap<String, List<String>> scriptNames = new TreeMap<>();
+     for ( String dir : manifest.stringPropertyNames() )
+     {
+       scriptNames.put( dir, List.of( manifest.getProperty( dir ).trim().split( "\\s*,\\s*" ) ) );
+     }
+
+     return new DatabaseScriptManifest( MANIFEST_RESOURCE.substring( 0, MANIFEST_RESOURCE.lastIndexOf( '/' ) ),
+         scriptNames );
+   }
+
+
+   /**
+    * Returns true if the specified classpath directory is covered by the manifest, i.e. if the manifest
+    * lists all SQL scripts in the directory and its subdirectories.
+    *
+    * @param dir a classpath directory.
+    * @return true if the directory is covered by the manifest, false otherwise.
+    */
+   public boolean covers( String dir )
+   {
+     String normalizedDir = normalize( dir );
+     return normalizedDir.equals( root ) || normalizedDir.startsWith( root + '/' );
+   }
+
+
+   /**
+    * Returns the classpath resource paths of the SQL scripts in the specified classpath directory sorted by their
+    * name.
+    *
+    * @param dir a classpath directory.
+    * @return the resource paths of the SQL scripts, empty list if the directory does not contain any SQL scripts.
+    */
+   public List<String> getScriptPaths( String dir )
+   {
+     String normalizedDir = normalize( dir );
+
+     List<String> result = new ArrayList<>();
+     for ( String scriptName : scriptNames.getOrDefault( normalizedDir, Collections.emptyList() ) )
+     {
+       result.add( normalizedDir + '/' + scriptName );
+     }
+     return result;
+   }
+
+
+   /**
+    * Returns the names of the immediate subdirectories of the specified classpath directory that contain
+    * SQL scripts.
+    *
+    * @param dir a classpath directory.
+    * @return the names of the subdirectories.
+    */
+   public SortedSet<String> getSubdirectoryNames( String dir )
+   {
+     String prefix = normalize( dir ) + '/';
+
+     SortedSet<String> result = new TreeSet<>();
+     for ( String scriptDir : scriptNames.tailMap( prefix ).keySet() )
+     {
+       if ( !scriptDir.startsWith( prefix ) )
+         break;
+
+       String subdir = scriptDir.substring( prefix.length() );
+       if ( subdir.indexOf( '/' ) == -1 )
+         result.add( subdir );
+     }
+     return result;
+   }
+
+
+   /**
+    * Strips the optional {@code classpath:} prefix and the leading and trailing slashes from the specified
+    * classpath directory.
+    *
+    * @param dir a classpath directory.
+    * @return the normalized directory.
+    */
+   private static String normalize( String dir )
+   {
+     String result = dir.startsWith( "classpath:" ) ? dir.substring( "classpath:".length() ) : dir;
+
+     while ( result.startsWith( "/" ) )
+       result = result.substring( 1 );
+
+     while ( result.endsWith( "/" ) )
+       result = result.substring( 0, result.length() - 1 );
+
+     return result;
+   }
+
+
+   /**
+    * Generates the manifest of the SQL scripts in the classes directory specified by the first argument.
+    *
+    * @param args the command line arguments.
+    * @throws IOException if the manifest cannot be generated.
+    */
+   public static void main( String[] args )
+       throws IOException
+   {
+     if ( args.length != 1 )
+       throw new IllegalArgumentException( "Usage: " + DatabaseScriptManifest.class.getName() + " <classes-dir>" );
+
+     File classesDir = new File( args[0] );
+     File manifestFile = new File( classesDir, MANIFEST_RESOURCE );
+     File rootDir = manifestFile.getParentFile();
+
+     SortedMap<String, List<String>> scriptNames = new TreeMap<>();
+     collectScriptNames( rootDir, MANIFEST_RESOURCE.substring( 0, MANIFEST_RESOURCE.lastIndexOf( '/' ) ),
+         scriptNames );
+
+     try ( Writer writer = Files.newBufferedWriter( manifestFile.toPath(), StandardCharsets.UTF_8 ) )
+     {
+       writer.write( "#\n# Generated at build time by " + DatabaseScriptManifest.class.getName() + ".\n#\n" );
+       for ( Map.Entry<String, List<String>> entry : scriptNames.entrySet() )
+       {
+         writer.write( entry.getKey() + " = " + String.join( ",", entry.getValue() ) + '\n' );
+       }
+     }
+   }
+
+
+   private static void collectScriptNames( File dir, String dirPath, SortedMap<String, List<String>> scriptNames )
+   {
+     File[] files = dir.listFiles();
+     if ( files == null )
+       return;
+
+     Arrays.sort( files );
+
+     List<String> dirScriptNames = new ArrayList<>();
+     for ( File file : files )
+     {
+       if ( file.isDirectory() )
+         collectScriptNames( file, dirPath + '/' + file.getName(), scriptNames );
+       else if ( file.getName().endsWith( SQL_SCRIPT_SUFFIX ) )
+         dirScriptNames.add( file.getName() );
+     }
+
+     if ( !dirScriptNames.isEmpty() )
+       scriptNames.put( dirPath, dirScriptNames );
+   }
+ }
@@ -10,4 +10,34 @@ ALTER TABLE qd_schema_update ADD CONSTRAINT pk_qd_schema_update PRIMARY KEY (
     schema_update_id
 );
 
+CREATE TABLE qd_job_watermark (
+    job_group  VARCHAR(200) NOT NULL,
+    job_name   VARCHAR(200) NOT NULL,
+    watermark  VARCHAR(255) NOT NULL,
+    updated_at TIMESTAMP    NOT NULL
+);
+
+ALTER TABLE qd_job_watermark ADD CONSTRAINT pk_qd_job_watermark PRIMARY KEY (
+    job_group,
+    job_name
+);
+
+CREATE TABLE qd_node_state (
+    sched_name     VARCHAR(120)  NOT NULL,
+    instance_id    VARCHAR(200)  NOT NULL,
+    node_labels    VARCHAR(1000),
+    cpu_load       INTEGER       NOT NULL,
+    memory_usage   INTEGER       NOT NULL,
+    running_jobs   INTEGER       NOT NULL,
+    running_weight INTEGER       NOT NULL,
+    capacity       INTEGER       NOT NULL,
+    overloaded     INTEGER       NOT NULL,
+    updated_at     TIMESTAMP     NOT NULL
+);
+
+ALTER TABLE qd_node_state ADD CONSTRAINT pk_qd_node_state PRIMARY KEY (
+    sched_name,
+    instance_id
+);
+
 COMMIT;
\ No newline at end of file
@@ -11,3 +11,33 @@ CREATE TABLE qd_schema_update (
 ALTER TABLE qd_schema_update ADD CONSTRAINT pk_qd_schema_update PRIMARY KEY (
     schema_update_id
 );
+
+CREATE TABLE qd_job_watermark (
+    job_group  VARCHAR2(200) NOT NULL,
+    job_name   VARCHAR2(200) NOT NULL,
+    watermark  VARCHAR2(255) NOT NULL,
+    updated_at TIMESTAMP     NOT NULL
+);
+
+ALTER TABLE qd_job_watermark ADD CONSTRAINT pk_qd_job_watermark PRIMARY KEY (
+    job_group,
+    job_name
+);
+
+CREATE TABLE qd_node_state (
+    sched_name     VARCHAR2(120)  NOT NULL,
+    instance_id    VARCHAR2(200)  NOT NULL,
+    node_labels    VARCHAR2(1000),
+    cpu_load       INTEGER        NOT NULL,
+    memory_usage   INTEGER        NOT NULL,
+    running_jobs   INTEGER        NOT NULL,
+    running_weight INTEGER        NOT NULL,
+    capacity       INTEGER        NOT NULL,
+    overloaded     INTEGER        NOT NULL,
+    updated_at     TIMESTAMP      NOT NULL
+);
+
+ALTER TABLE qd_node_state ADD CONSTRAINT pk_qd_node_state PRIMARY KEY (
+    sched_name,
+    instance_id
+);
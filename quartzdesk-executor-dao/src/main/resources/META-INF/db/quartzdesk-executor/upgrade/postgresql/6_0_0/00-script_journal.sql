@@ -0,0 +1,11 @@
+CREATE TABLE qd_schema_script_journal (
+    script_name      VARCHAR(200) NOT NULL,
+    statement_number INTEGER      NOT NULL,
+    checksum         BIGINT       NOT NULL,
+    executed_at      TIMESTAMPTZ  NOT NULL
+);
+
+ALTER TABLE qd_schema_script_journal ADD CONSTRAINT pk_qd_schema_script_journal PRIMARY KEY (
+    script_name,
+    statement_number
+);
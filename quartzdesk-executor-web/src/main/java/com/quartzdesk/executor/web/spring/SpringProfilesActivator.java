@@ -35,6 +35,12 @@
   * <li>oracle</li>
   * <li>postgresql</li>
   * </ul>
+  *
+  * And either of the following Spring profiles based on the configured QuartzDesk Executor DAO profile:
+  * <ul>
+  * <li>development</li>
+  * <li>production</li>
+  * </ul>
   */
  public class SpringProfilesActivator
      implements ApplicationContextInitializer<XmlWebApplicationContext>
@@ -51,6 +57,11 @@
     */
    private static final String CONFIG_KEY_DB_PROFILE = "db.profile";
 
+   /**
+    * Name of the QuartzDesk Executor configuration property specifying the DAO profile.
+    */
+   private static final String CONFIG_KEY_DAO_PROFILE = "dao.profile";
+
 
    @Override
    public void initialize( XmlWebApplicationContext applicationContext )
@@ -67,9 +78,12 @@
        throw new ApplicationContextException( "Error obtaining QuartzDesk Executor work directory.", e );
      }
 
-     String databaseProfile = getDatabaseProfile( workDir );
+     Properties cfg = getConfiguration( workDir );
+
+     String databaseProfile = getProfile( cfg, CONFIG_KEY_DB_PROFILE );
+     String daoProfile = getProfile( cfg, CONFIG_KEY_DAO_PROFILE );
 
-     String[] activeProfiles = new String[] { databaseProfile };
+     String[] activeProfiles = new String[] { databaseProfile, daoProfile };
 
      log.info( "Activating Spring profiles: {}", Arrays.toString( activeProfiles ) );
 
@@ -79,13 +93,13 @@
 
    /**
     * Merges properties from the {@code default-quartzdesk-executor.properties} and
-    * <code>${quartzdesk-executor.work.dir}/quartzdesk-executor.properties</code> (if it exists) and returns the value
-    * of the {@code db.profile.name} configuration property.
+    * <code>${quartzdesk-executor.work.dir}/quartzdesk-executor.properties</code> (if it exists) and returns the
+    * merged configuration.
     *
     * @param workDir the QuartzDesk Executor work directory.
-    * @return the database profile to activate.
+    * @return the merged configuration.
     */
-   private String getDatabaseProfile( WorkDir workDir )
+   private Properties getConfiguration( WorkDir workDir )
    {
      Properties mergedCfg = new Properties();
 
@@ -142,13 +156,26 @@
        }
      }
 
-     String dbProfile = mergedCfg.getProperty( CONFIG_KEY_DB_PROFILE );
-     if ( dbProfile == null )
+     return mergedCfg;
+   }
+
+
+   /**
+    * Returns the value of the specified profile configuration property.
+    *
+    * @param cfg       the merged configuration.
+    * @param configKey the name of the profile configuration property.
+    * @return the profile to activate.
+    */
+   private String getProfile( Properties cfg, String configKey )
+   {
+     String profile = cfg.getProperty( configKey );
+     if ( profile == null )
      {
        throw new ApplicationContextException(
-           "QuartzDesk Executor configuration property: " + CONFIG_KEY_DB_PROFILE + " not defined." );
+           "QuartzDesk Executor configuration property: " + configKey + " not defined." );
      }
 
-     return dbProfile.trim();
+     return profile.trim();
    }
  }